@@ -0,0 +1,43 @@
+/*
+ * Copyright (c) 2009-2014 Clark & Parsia, LLC. <http://www.clarkparsia.com>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.complexible.common.openrdf.model;
+
+import java.util.Collection;
+import java.util.List;
+
+import org.openrdf.model.Statement;
+
+/**
+ * <p>A constraint on statements which is checked a chunk of statements at a time and reports every violation in the
+ * chunk, rather than stopping at the first.  A {@link ConstrainedGraph} created with a batch constraint checks large
+ * additions by splitting them into chunks which are checked in parallel, so implementations must be thread-safe.
+ * {@link ConstrainedGraph#batch} turns a thread-safe {@link com.google.common.base.Predicate} constraint into a batch
+ * constraint.</p>
+ *
+ * @author  Michael Grove
+ * @since   2.0.2
+ * @version 2.0.2
+ */
+public interface BatchConstraint {
+
+	/**
+	 * Check the statements against the constraint
+	 *
+	 * @param theStatements	the statements to check
+	 * @return				the violations, in the order of the statements, or an empty list if there are none
+	 */
+	public List<ConstrainedGraph.StatementViolatedConstraintException> check(final Collection<Statement> theStatements);
+}
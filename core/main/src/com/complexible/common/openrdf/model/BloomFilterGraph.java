@@ -0,0 +1,345 @@
+/*
+ * Copyright (c) 2009-2014 Clark & Parsia, LLC. <http://www.clarkparsia.com>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.complexible.common.openrdf.model;
+
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Iterator;
+
+import com.google.common.base.Preconditions;
+import com.google.common.hash.BloomFilter;
+import com.google.common.hash.Funnels;
+
+import org.openrdf.model.Graph;
+import org.openrdf.model.Resource;
+import org.openrdf.model.Statement;
+import org.openrdf.model.URI;
+import org.openrdf.model.Value;
+
+/**
+ * <p>A {@link Graph} which keeps a {@link BloomFilter} of its subjects, subject-predicate pairs and statements in front
+ * of the graph it wraps, so that probes for things which are not in the graph, {@link #contains} and {@link #filter}
+ * patterns with a bound subject, are answered with a definite no in constant time without touching the wrapped graph.
+ * Probes which might match, and patterns without a subject, are passed on to the wrapped graph, which makes this most
+ * useful in front of graphs where a miss is expensive, such as a scan or a lookup on disk.</p>
+ *
+ * <p>The filter is kept up to date by every addition made through this graph.  Removals leave stale entries behind,
+ * which only cost false positives, so the filter is rebuilt from the graph once a good part of it has been removed,
+ * and when the graph outgrows the size the filter was built for.  Changes made directly to the wrapped graph are not
+ * seen by the filter.  Context is not part of the filter, so a probe in a context the statement is not in is passed
+ * on to the wrapped graph.</p>
+ *
+ * @author  Michael Grove
+ * @since   2.0.2
+ * @version 2.0.2
+ */
+public final class BloomFilterGraph extends DelegatingGraph {
+
+	/**
+	 * The default false positive probability of the filter
+	 */
+	public static final double DEFAULT_FPP = 0.01;
+
+	/**
+	 * The smallest number of statements the filter is sized for
+	 */
+	private static final int MIN_CAPACITY = 1024;
+
+	/**
+	 * The filter holds these many keys per statement: its subject, subject and predicate, and the statement
+	 */
+	private static final int KEYS_PER_STATEMENT = 3;
+
+	private static final long SUBJECT = 1;
+
+	private static final long SUBJECT_PREDICATE = 2;
+
+	private static final long STATEMENT = 3;
+
+	private final double mFpp;
+
+	private BloomFilter<Long> mFilter;
+
+	/**
+	 * The number of statements the filter was sized for
+	 */
+	private int mCapacity;
+
+	/**
+	 * The number of statements put into the filter since it was built
+	 */
+	private int mAdded;
+
+	/**
+	 * The number of statements removed since the filter was built, whose entries are still in the filter
+	 */
+	private int mRemoved;
+
+	/**
+	 * Create a new, empty BloomFilterGraph
+	 */
+	public BloomFilterGraph() {
+		this(new SetGraph());
+	}
+
+	/**
+	 * Create a new BloomFilterGraph over the given graph, with the {@link #DEFAULT_FPP default} false positive
+	 * probability.  The graph should only be modified through the BloomFilterGraph from now on.
+	 *
+	 * @param theGraph	the graph to filter
+	 */
+	public BloomFilterGraph(final Graph theGraph) {
+		this(theGraph, DEFAULT_FPP);
+	}
+
+	/**
+	 * Create a new BloomFilterGraph over the given graph.  The graph should only be modified through the
+	 * BloomFilterGraph from now on.
+	 *
+	 * @param theGraph	the graph to filter
+	 * @param theFpp	the false positive probability of the filter, between 0 and 1 exclusive
+	 */
+	public BloomFilterGraph(final Graph theGraph, final double theFpp) {
+		super(theGraph);
+
+		Preconditions.checkArgument(theFpp > 0 && theFpp < 1, "False positive probability must be between 0 and 1");
+
+		mFpp = theFpp;
+		rebuild();
+	}
+
+	/**
+	 * @inheritDoc
+	 */
+	@Override
+	public boolean contains(final Object theObj) {
+		if (!(theObj instanceof Statement)) {
+			return false;
+		}
+
+		final Statement aStmt = (Statement) theObj;
+
+		return mFilter.mightContain(key(aStmt.getSubject(), aStmt.getPredicate(), aStmt.getObject())) && super.contains(theObj);
+	}
+
+	/**
+	 * @inheritDoc
+	 */
+	@Override
+	public boolean containsAll(final Collection<?> theStatements) {
+		for (Object aObj : theStatements) {
+			if (!contains(aObj)) {
+				return false;
+			}
+		}
+
+		return true;
+	}
+
+	/**
+	 * @inheritDoc
+	 */
+	@Override
+	public Iterable<Statement> filter(final Resource theSubj, final URI thePred, final Value theObj, final Resource... theContexts) {
+		if (theSubj != null && !mightMatch(theSubj, thePred, theObj)) {
+			return Collections.emptySet();
+		}
+
+		return super.filter(theSubj, thePred, theObj, theContexts);
+	}
+
+	/**
+	 * @inheritDoc
+	 */
+	@Override
+	@Deprecated
+	public Iterator<Statement> match(final Resource theSubj, final URI thePred, final Value theObj, final Resource... theContexts) {
+		return filter(theSubj, thePred, theObj, theContexts).iterator();
+	}
+
+	/**
+	 * @inheritDoc
+	 */
+	@Override
+	public boolean add(final Statement theStatement) {
+		if (mGraph.add(theStatement)) {
+			put(theStatement.getSubject(), theStatement.getPredicate(), theStatement.getObject());
+			return true;
+		}
+
+		return false;
+	}
+
+	/**
+	 * @inheritDoc
+	 */
+	@Override
+	public boolean add(final Resource theSubj, final URI thePred, final Value theObj, final Resource... theContexts) {
+		if (mGraph.add(theSubj, thePred, theObj, theContexts)) {
+			put(theSubj, thePred, theObj);
+			return true;
+		}
+
+		return false;
+	}
+
+	/**
+	 * @inheritDoc
+	 */
+	@Override
+	public boolean remove(final Object theObj) {
+		if (mGraph.remove(theObj)) {
+			removed();
+			return true;
+		}
+
+		return false;
+	}
+
+	/**
+	 * @inheritDoc
+	 */
+	@Override
+	public boolean removeAll(final Collection<?> theStatements) {
+		boolean aChanged = false;
+
+		for (Object aObj : theStatements) {
+			aChanged |= remove(aObj);
+		}
+
+		return aChanged;
+	}
+
+	/**
+	 * @inheritDoc
+	 */
+	@Override
+	public boolean retainAll(final Collection<?> theStatements) {
+		boolean aChanged = false;
+
+		for (Iterator<Statement> aIter = iterator(); aIter.hasNext(); ) {
+			if (!theStatements.contains(aIter.next())) {
+				aIter.remove();
+				aChanged = true;
+			}
+		}
+
+		return aChanged;
+	}
+
+	/**
+	 * @inheritDoc
+	 */
+	@Override
+	public void clear() {
+		mGraph.clear();
+		rebuild();
+	}
+
+	/**
+	 * @inheritDoc
+	 */
+	@Override
+	public Iterator<Statement> iterator() {
+		final Iterator<Statement> aIter = mGraph.iterator();
+
+		return new Iterator<Statement>() {
+			@Override
+			public boolean hasNext() {
+				return aIter.hasNext();
+			}
+
+			@Override
+			public Statement next() {
+				return aIter.next();
+			}
+
+			@Override
+			public void remove() {
+				aIter.remove();
+				removed();
+			}
+		};
+	}
+
+	private boolean mightMatch(final Resource theSubj, final URI thePred, final Value theObj) {
+		if (thePred == null) {
+			return mFilter.mightContain(key(theSubj));
+		}
+		else if (theObj == null) {
+			return mFilter.mightContain(key(theSubj, thePred));
+		}
+		else {
+			return mFilter.mightContain(key(theSubj, thePred, theObj));
+		}
+	}
+
+	private void put(final Resource theSubj, final URI thePred, final Value theObj) {
+		mFilter.put(key(theSubj));
+		mFilter.put(key(theSubj, thePred));
+		mFilter.put(key(theSubj, thePred, theObj));
+
+		if (++mAdded > mCapacity) {
+			rebuild();
+		}
+	}
+
+	private void removed() {
+		// stale entries only cost false positives, rebuild once they are a good part of the filter
+		if (++mRemoved > mCapacity / 2) {
+			rebuild();
+		}
+	}
+
+	/**
+	 * Build a new filter with room for twice the statements currently in the graph
+	 */
+	private void rebuild() {
+		final int aSize = mGraph.size();
+
+		mCapacity = (int) Math.min(Integer.MAX_VALUE / KEYS_PER_STATEMENT, Math.max(MIN_CAPACITY, 2L * aSize));
+		mFilter = BloomFilter.create(Funnels.longFunnel(), mCapacity * KEYS_PER_STATEMENT, mFpp);
+		mRemoved = 0;
+
+		for (Statement aStmt : mGraph) {
+			mFilter.put(key(aStmt.getSubject()));
+			mFilter.put(key(aStmt.getSubject(), aStmt.getPredicate()));
+			mFilter.put(key(aStmt.getSubject(), aStmt.getPredicate(), aStmt.getObject()));
+		}
+
+		mAdded = aSize;
+	}
+
+	private static long key(final Resource theSubj) {
+		return mix(SUBJECT, theSubj);
+	}
+
+	private static long key(final Resource theSubj, final URI thePred) {
+		return mix(mix(SUBJECT_PREDICATE, theSubj), thePred);
+	}
+
+	private static long key(final Resource theSubj, final URI thePred, final Value theObj) {
+		return mix(mix(mix(STATEMENT, theSubj), thePred), theObj);
+	}
+
+	/**
+	 * Mix the hash code of the value into the key.  Values which are equal have the same hash code whatever their
+	 * implementation, so the keys only depend on the values; collisions only cost false positives.
+	 */
+	private static long mix(final long theKey, final Value theValue) {
+		return theKey * 0x9E3779B97F4A7C15L + theValue.hashCode();
+	}
+}
@@ -0,0 +1,708 @@
+/*
+ * Copyright (c) 2009-2014 Clark & Parsia, LLC. <http://www.clarkparsia.com>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.complexible.common.openrdf.model;
+
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import com.google.common.base.Charsets;
+import com.google.common.collect.Lists;
+import com.google.common.collect.Maps;
+import com.google.common.collect.Sets;
+import com.google.common.hash.HashCode;
+import com.google.common.hash.HashFunction;
+import com.google.common.hash.Hasher;
+import com.google.common.hash.Hashing;
+import com.google.common.primitives.Ints;
+import com.google.common.primitives.UnsignedBytes;
+
+import org.openrdf.model.BNode;
+import org.openrdf.model.Graph;
+import org.openrdf.model.Literal;
+import org.openrdf.model.Resource;
+import org.openrdf.model.Statement;
+import org.openrdf.model.URI;
+import org.openrdf.model.Value;
+import org.openrdf.model.ValueFactory;
+import org.openrdf.model.impl.ValueFactoryImpl;
+
+/**
+ * <p>Canonical labelling of the blank nodes of a {@link Graph}.  Two graphs which differ only in the ids of their
+ * blank nodes get the same canonical labels, the same {@link #canonicalize canonical form} and the same
+ * {@link #fingerprint}, so isomorphism can be checked by comparing them rather than by searching for a mapping between
+ * the blank nodes of the two graphs.</p>
+ *
+ * <p>Each blank node starts with the same colour, and in each round its colour is rehashed together with the
+ * statements it appears in, using the current colours of the other terms of those statements.  Rounds continue until
+ * they stop splitting blank nodes into new colour classes, which for most graphs leaves every blank node with a
+ * distinct colour after a few linear passes.  Blank nodes which are still indistinguishable, such as the nodes of a
+ * symmetric cycle, are told apart by trying members of the smallest remaining class as a distinguished node and
+ * keeping the colouring which gives the least graph hash.</p>
+ *
+ * <p>Only one member of each orbit of that class is tried, since distinguishing nodes which an automorphism of the
+ * graph maps onto each other gives the same colourings.  Two nodes are known to be in the same orbit when swapping
+ * them, together with any blank nodes of their neighbourhoods which the swap forces to be exchanged, leaves the graph
+ * unchanged, as for blank nodes with identical neighbourhoods, or when the colourings found by distinguishing them
+ * give the same graph hash, which yields an automorphism mapping one onto the other.  With that
+ * pruning, graphs of many interchangeable blank nodes take one branch per level rather than a factorial number of
+ * them; the search is only exponential for graphs whose symmetries are not found that way.</p>
+ *
+ * <p>Colours are 128-bit murmur3 hashes; the fingerprint is a hash of the statements and, like any hash, can collide,
+ * which {@link #isIsomorphic} guards against by comparing the canonical forms.</p>
+ *
+ * @author  Michael Grove
+ * @since   2.0.2
+ * @version 2.0.2
+ */
+public final class Canonicalizer {
+	private static final HashFunction HASH = Hashing.murmur3_128();
+
+	private static final HashCode NULL_CONTEXT = HASH.hashInt(0);
+
+	private static final HashCode INITIAL_COLOUR = HASH.hashInt(1);
+
+	private static final HashCode EMPTY_GRAPH = HASH.hashInt(2);
+
+	private static final int DISTINGUISHED = 3;
+
+	private static final Comparator<HashCode> ORDER = new Comparator<HashCode>() {
+		@Override
+		public int compare(final HashCode theFirst, final HashCode theSecond) {
+			return UnsignedBytes.lexicographicalComparator().compare(theFirst.asBytes(), theSecond.asBytes());
+		}
+	};
+
+	private final List<Statement> mStatements;
+
+	/**
+	 * The blank nodes of the graph, in the order they were first seen
+	 */
+	private final List<BNode> mNodes;
+
+	/**
+	 * The hash of the term in each position of each statement, four per statement, or null for blank nodes
+	 */
+	private final HashCode[] mTerms;
+
+	/**
+	 * The index in {@link #mNodes} of the blank node in each position of each statement, or -1
+	 */
+	private final int[] mNodeAt;
+
+	/**
+	 * For each blank node, the positions in {@link #mTerms} it occurs at
+	 */
+	private final int[][] mOccurrences;
+
+	private HashCode[] mColours;
+
+	/**
+	 * The statements of the graph with context-aware equality, for checking whether swapping two blank nodes is an
+	 * automorphism; built on first use
+	 */
+	private Set<Statement> mStatementSet;
+
+	private Canonicalizer(final Graph theGraph) {
+		mStatements = Lists.newArrayList(theGraph);
+		mNodes = Lists.newArrayList();
+		mTerms = new HashCode[mStatements.size() * 4];
+		mNodeAt = new int[mStatements.size() * 4];
+
+		final Map<BNode, Integer> aIndex = Maps.newHashMap();
+		final List<List<Integer>> aOccurrences = Lists.newArrayList();
+
+		for (int i = 0; i < mStatements.size(); i++) {
+			final Statement aStmt = mStatements.get(i);
+			final Value[] aTerms = { aStmt.getSubject(), aStmt.getPredicate(), aStmt.getObject(), aStmt.getContext() };
+
+			for (int aPos = 0; aPos < 4; aPos++) {
+				final int aSlot = i * 4 + aPos;
+
+				if (aTerms[aPos] instanceof BNode) {
+					Integer aNode = aIndex.get(aTerms[aPos]);
+					if (aNode == null) {
+						aNode = mNodes.size();
+						aIndex.put((BNode) aTerms[aPos], aNode);
+						mNodes.add((BNode) aTerms[aPos]);
+						aOccurrences.add(Lists.<Integer>newArrayList());
+					}
+
+					mNodeAt[aSlot] = aNode;
+					aOccurrences.get(aNode).add(aSlot);
+				}
+				else {
+					mNodeAt[aSlot] = -1;
+					mTerms[aSlot] = hash(aTerms[aPos]);
+				}
+			}
+		}
+
+		mOccurrences = new int[mNodes.size()][];
+		for (int i = 0; i < mOccurrences.length; i++) {
+			mOccurrences[i] = Ints.toArray(aOccurrences.get(i));
+		}
+	}
+
+	/**
+	 * Return the canonical label of each blank node in the graph.  The labels depend only on the structure of the
+	 * graph, not on the original ids, and are distinct for distinct blank nodes.
+	 *
+	 * @param theGraph	the graph
+	 * @return			the canonical label for each blank node of the graph
+	 */
+	public static Map<BNode, BNode> labels(final Graph theGraph) {
+		return new Canonicalizer(theGraph).labels();
+	}
+
+	/**
+	 * Return a copy of the graph with every blank node replaced by its {@link #labels canonical label}.  Isomorphic
+	 * graphs have equal canonical forms.
+	 *
+	 * @param theGraph	the graph
+	 * @return			the canonical form of the graph
+	 */
+	public static Graph canonicalize(final Graph theGraph) {
+		return new Canonicalizer(theGraph).canonicalize();
+	}
+
+	/**
+	 * Return a 128-bit hash of the graph which is the same for isomorphic graphs, suitable as a key for deduplicating
+	 * graphs.
+	 *
+	 * @param theGraph	the graph
+	 * @return			the fingerprint
+	 */
+	public static HashCode fingerprint(final Graph theGraph) {
+		return new Canonicalizer(theGraph).fingerprint();
+	}
+
+	/**
+	 * Return whether or not the two graphs are the same up to the ids of their blank nodes
+	 *
+	 * @param theGraph		the first graph
+	 * @param theOtherGraph	the second graph
+	 * @return				true if the graphs are isomorphic, false otherwise
+	 */
+	public static boolean isIsomorphic(final Graph theGraph, final Graph theOtherGraph) {
+		if (theGraph.size() != theOtherGraph.size()) {
+			return false;
+		}
+
+		final Canonicalizer aFirst = new Canonicalizer(theGraph);
+		final Canonicalizer aSecond = new Canonicalizer(theOtherGraph);
+
+		return aFirst.mNodes.size() == aSecond.mNodes.size()
+		       && aFirst.fingerprint().equals(aSecond.fingerprint())
+		       && aFirst.canonicalize().equals(aSecond.canonicalize());
+	}
+
+	/**
+	 * Return a hash of the neighbourhood of each blank node of the graph, out to the given number of statements away
+	 * from it.  Unlike the canonical labels, which depend on the whole graph, the signature of a blank node only
+	 * changes when something changes within that distance of it, but blank nodes whose neighbourhoods look the same
+	 * get the same signature.
+	 *
+	 * @param theGraph	the graph
+	 * @param theDepth	the number of statements out from each blank node to cover
+	 * @return			the signature of each blank node of the graph
+	 */
+	static Map<BNode, HashCode> signatures(final Graph theGraph, final int theDepth) {
+		final Canonicalizer aCanonicalizer = new Canonicalizer(theGraph);
+
+		HashCode[] aColours = new HashCode[aCanonicalizer.mNodes.size()];
+		Arrays.fill(aColours, INITIAL_COLOUR);
+
+		for (int i = 0; i < theDepth; i++) {
+			aColours = aCanonicalizer.round(aColours);
+		}
+
+		final Map<BNode, HashCode> aSignatures = Maps.newHashMapWithExpectedSize(aColours.length);
+		for (int i = 0; i < aColours.length; i++) {
+			aSignatures.put(aCanonicalizer.mNodes.get(i), aColours[i]);
+		}
+
+		return aSignatures;
+	}
+
+	private Map<BNode, BNode> labels() {
+		final HashCode[] aColours = colours();
+		final ValueFactory aFactory = ValueFactoryImpl.getInstance();
+
+		final Map<BNode, BNode> aLabels = Maps.newHashMapWithExpectedSize(mNodes.size());
+		for (int i = 0; i < aColours.length; i++) {
+			aLabels.put(mNodes.get(i), aFactory.createBNode("c" + aColours[i]));
+		}
+
+		return aLabels;
+	}
+
+	private Graph canonicalize() {
+		final Map<BNode, BNode> aLabels = labels();
+
+		final Graph aGraph = new SetGraph();
+		for (Statement aStmt : mStatements) {
+			aGraph.add(new ContextAwareStatement((Resource) relabel(aStmt.getSubject(), aLabels),
+			                                     aStmt.getPredicate(),
+			                                     relabel(aStmt.getObject(), aLabels),
+			                                     (Resource) relabel(aStmt.getContext(), aLabels)));
+		}
+
+		return aGraph;
+	}
+
+	private HashCode fingerprint() {
+		return graphHash(colours());
+	}
+
+	private static Value relabel(final Value theValue, final Map<BNode, BNode> theLabels) {
+		return theValue instanceof BNode ? theLabels.get(theValue) : theValue;
+	}
+
+	private HashCode[] colours() {
+		if (mColours == null) {
+			final HashCode[] aColours = new HashCode[mNodes.size()];
+			Arrays.fill(aColours, INITIAL_COLOUR);
+
+			mColours = search(aColours);
+		}
+
+		return mColours;
+	}
+
+	/**
+	 * Refine the colours and, if some blank nodes are still indistinguishable, distinguish a member of each orbit of
+	 * the smallest class in turn, keeping the colouring with the least graph hash
+	 */
+	private HashCode[] search(final HashCode[] theColours) {
+		final HashCode[] aColours = refine(theColours);
+
+		final Map<HashCode, List<Integer>> aClasses = Maps.newHashMap();
+		for (int i = 0; i < aColours.length; i++) {
+			List<Integer> aClass = aClasses.get(aColours[i]);
+			if (aClass == null) {
+				aClass = Lists.newArrayList();
+				aClasses.put(aColours[i], aClass);
+			}
+			aClass.add(i);
+		}
+
+		if (aClasses.size() == aColours.length) {
+			return aColours;
+		}
+
+		// pick the smallest class with more than one member, ties are broken by colour so the choice is the same for
+		// every isomorphic graph
+		HashCode aTarget = null;
+		for (Map.Entry<HashCode, List<Integer>> aEntry : aClasses.entrySet()) {
+			final int aSize = aEntry.getValue().size();
+			if (aSize > 1 && (aTarget == null
+			                  || aSize < aClasses.get(aTarget).size()
+			                  || (aSize == aClasses.get(aTarget).size() && ORDER.compare(aEntry.getKey(), aTarget) < 0))) {
+				aTarget = aEntry.getKey();
+			}
+		}
+
+		final List<Integer> aClass = aClasses.get(aTarget);
+		final Orbits aOrbits = new Orbits(aClass);
+		final List<Integer> aTried = Lists.newArrayList();
+
+		HashCode[] aBest = null;
+		HashCode aBestHash = null;
+
+		for (int aNode : aClass) {
+			if (aOrbits.isTried(aNode) || isSwappableWithAny(aNode, aTried, aOrbits, aColours)) {
+				continue;
+			}
+
+			final HashCode[] aCandidate = aColours.clone();
+			aCandidate[aNode] = HASH.newHasher().putBytes(aCandidate[aNode].asBytes()).putInt(DISTINGUISHED).hash();
+
+			final HashCode[] aResult = search(aCandidate);
+			final HashCode aHash = graphHash(aResult);
+
+			aOrbits.tried(aNode);
+			aTried.add(aNode);
+
+			if (aBest == null || ORDER.compare(aHash, aBestHash) < 0) {
+				aBest = aResult;
+				aBestHash = aHash;
+			}
+			else if (aHash.equals(aBestHash)) {
+				// both colourings are discrete and give the same graph, so mapping each node to the node of the same
+				// colour in the other is an automorphism, and each node of the class is in the orbit of its image
+				final Map<HashCode, Integer> aNodeOf = Maps.newHashMapWithExpectedSize(aResult.length);
+				for (int i = 0; i < aResult.length; i++) {
+					aNodeOf.put(aResult[i], i);
+				}
+
+				for (int aMember : aClass) {
+					final Integer aImage = aNodeOf.get(aBest[aMember]);
+					if (aImage != null) {
+						aOrbits.join(aMember, aImage);
+					}
+				}
+			}
+		}
+
+		return aBest;
+	}
+
+	/**
+	 * Return whether swapping the node with one of the nodes already tried is an automorphism of the graph, joining
+	 * their orbits if so
+	 */
+	private boolean isSwappableWithAny(final int theNode, final List<Integer> theTried, final Orbits theOrbits,
+	                                   final HashCode[] theColours) {
+		for (int aTried : theTried) {
+			if (isSwappable(theNode, aTried, theColours)) {
+				theOrbits.join(theNode, aTried);
+				return true;
+			}
+		}
+
+		return false;
+	}
+
+	/**
+	 * Return whether swapping the two blank nodes, along with any blank nodes in their neighbourhoods which the swap
+	 * forces to be exchanged as well, maps the graph onto itself and keeps the colouring.  A neighbour is only swapped
+	 * when a single statement could be the image of the one it occurs in; where there is a choice this gives up and
+	 * leaves the nodes to the search.
+	 */
+	private boolean isSwappable(final int theNode, final int theOther, final HashCode[] theColours) {
+		final Map<Integer, Integer> aSwap = Maps.newHashMap();
+		aSwap.put(theNode, theOther);
+		aSwap.put(theOther, theNode);
+
+		final List<Integer> aQueue = Lists.newArrayList(theNode, theOther);
+		for (int i = 0; i < aQueue.size(); i++) {
+			for (int aSlot : mOccurrences[aQueue.get(i)]) {
+				if (!extend(aSlot / 4, aSwap, aQueue, theColours)) {
+					return false;
+				}
+			}
+		}
+
+		if (mStatementSet == null) {
+			mStatementSet = Sets.newHashSetWithExpectedSize(mStatements.size());
+			for (Statement aStmt : mStatements) {
+				mStatementSet.add(new ContextAwareStatement(aStmt.getSubject(), aStmt.getPredicate(), aStmt.getObject(), aStmt.getContext()));
+			}
+		}
+
+		// the swap is a bijection, so it is an automorphism if every statement it moves is still in the graph
+		final Map<BNode, BNode> aNodes = Maps.newHashMapWithExpectedSize(aSwap.size());
+		for (Map.Entry<Integer, Integer> aEntry : aSwap.entrySet()) {
+			aNodes.put(mNodes.get(aEntry.getKey()), mNodes.get(aEntry.getValue()));
+		}
+
+		for (int aNode : aQueue) {
+			for (int aSlot : mOccurrences[aNode]) {
+				final Statement aStmt = mStatements.get(aSlot / 4);
+				final Statement aSwapped = new ContextAwareStatement((Resource) swap(aStmt.getSubject(), aNodes),
+				                                                     aStmt.getPredicate(),
+				                                                     swap(aStmt.getObject(), aNodes),
+				                                                     (Resource) swap(aStmt.getContext(), aNodes));
+
+				if (!mStatementSet.contains(aSwapped)) {
+					return false;
+				}
+			}
+		}
+
+		return true;
+	}
+
+	/**
+	 * Extend the swap to the blank nodes of the statement it does not cover yet, by finding the only statement which
+	 * can be its image.  Returns false if there is no such statement or more than one.
+	 */
+	private boolean extend(final int theStmt, final Map<Integer, Integer> theSwap, final List<Integer> theQueue,
+	                       final HashCode[] theColours) {
+		int aAnchor = -1;
+		boolean aComplete = true;
+
+		for (int aPos = 0; aPos < 4; aPos++) {
+			final int aNode = mNodeAt[theStmt * 4 + aPos];
+			if (aNode != -1) {
+				if (theSwap.containsKey(aNode)) {
+					aAnchor = aPos;
+				}
+				else {
+					aComplete = false;
+				}
+			}
+		}
+
+		if (aComplete) {
+			return true;
+		}
+
+		// the image has the image of the anchor in the same position, so it is one of the statements that node is in
+		int[] aMatch = null;
+
+		for (int aSlot : mOccurrences[theSwap.get(mNodeAt[theStmt * 4 + aAnchor])]) {
+			if (aSlot % 4 != aAnchor) {
+				continue;
+			}
+
+			final int[] aCandidate = match(theStmt, aSlot / 4, theSwap, theColours);
+			if (aCandidate != null) {
+				if (aMatch != null) {
+					return false;
+				}
+
+				aMatch = aCandidate;
+			}
+		}
+
+		if (aMatch == null) {
+			return false;
+		}
+
+		for (int aPos = 0; aPos < 4; aPos++) {
+			final int aNode = mNodeAt[theStmt * 4 + aPos];
+
+			if (aNode != -1 && !theSwap.containsKey(aNode)) {
+				final int aImage = aMatch[aPos];
+
+				if (theSwap.containsKey(aImage)) {
+					return false;
+				}
+
+				theSwap.put(aNode, aImage);
+				theSwap.put(aImage, aNode);
+				theQueue.add(aNode);
+
+				if (aImage != aNode) {
+					theQueue.add(aImage);
+				}
+			}
+		}
+
+		return true;
+	}
+
+	/**
+	 * Return the blank node in each position of the candidate statement if it can be the image of the statement under
+	 * the swap, extended to the blank nodes not yet covered by the swap with nodes of the same colour, or null
+	 */
+	private int[] match(final int theStmt, final int theCandidate, final Map<Integer, Integer> theSwap,
+	                    final HashCode[] theColours) {
+		final int[] aImage = new int[4];
+
+		for (int aPos = 0; aPos < 4; aPos++) {
+			final int aNode = mNodeAt[theStmt * 4 + aPos];
+			final int aOther = mNodeAt[theCandidate * 4 + aPos];
+
+			aImage[aPos] = aOther;
+
+			if (aNode == -1) {
+				if (aOther != -1 || !mTerms[theStmt * 4 + aPos].equals(mTerms[theCandidate * 4 + aPos])) {
+					return null;
+				}
+			}
+			else if (theSwap.containsKey(aNode)) {
+				if (theSwap.get(aNode) != aOther) {
+					return null;
+				}
+			}
+			else if (aOther == -1 || !theColours[aNode].equals(theColours[aOther])) {
+				return null;
+			}
+		}
+
+		// a node occurring twice has to have the same image in both positions
+		for (int aPos = 0; aPos < 4; aPos++) {
+			for (int aOtherPos = aPos + 1; aOtherPos < 4; aOtherPos++) {
+				if ((mNodeAt[theStmt * 4 + aPos] == mNodeAt[theStmt * 4 + aOtherPos]) != (aImage[aPos] == aImage[aOtherPos])) {
+					return null;
+				}
+			}
+		}
+
+		return aImage;
+	}
+
+	private static Value swap(final Value theValue, final Map<BNode, BNode> theSwap) {
+		final BNode aSwapped = theValue instanceof BNode ? theSwap.get(theValue) : null;
+
+		return aSwapped == null ? theValue : aSwapped;
+	}
+
+	/**
+	 * Rehash the colour of every blank node with the statements it occurs in until the number of colour classes stops
+	 * growing
+	 */
+	private HashCode[] refine(final HashCode[] theColours) {
+		HashCode[] aColours = theColours;
+		int aClasses = Sets.newHashSet(Arrays.asList(aColours)).size();
+
+		while (aClasses < aColours.length) {
+			final HashCode[] aNext = round(aColours);
+
+			final int aNextClasses = Sets.newHashSet(Arrays.asList(aNext)).size();
+			aColours = aNext;
+
+			if (aNextClasses == aClasses) {
+				break;
+			}
+
+			aClasses = aNextClasses;
+		}
+
+		return aColours;
+	}
+
+	/**
+	 * Rehash the colour of every blank node with the statements it occurs in, once
+	 */
+	private HashCode[] round(final HashCode[] theColours) {
+		final HashCode[] aNext = new HashCode[theColours.length];
+
+		for (int i = 0; i < aNext.length; i++) {
+			final List<HashCode> aEdges = Lists.newArrayListWithCapacity(mOccurrences[i].length);
+
+			for (int aSlot : mOccurrences[i]) {
+				final int aStart = aSlot - aSlot % 4;
+				final Hasher aHasher = HASH.newHasher().putInt(aSlot % 4);
+
+				for (int aOther = aStart; aOther < aStart + 4; aOther++) {
+					if (aOther != aSlot) {
+						aHasher.putBytes(colour(aOther, theColours).asBytes());
+					}
+				}
+
+				aEdges.add(aHasher.hash());
+			}
+
+			aNext[i] = HASH.newHasher()
+			               .putBytes(theColours[i].asBytes())
+			               .putBytes(Hashing.combineUnordered(aEdges).asBytes())
+			               .hash();
+		}
+
+		return aNext;
+	}
+
+	private HashCode graphHash(final HashCode[] theColours) {
+		if (mStatements.isEmpty()) {
+			return EMPTY_GRAPH;
+		}
+
+		final List<HashCode> aHashes = Lists.newArrayListWithCapacity(mStatements.size());
+		for (int i = 0; i < mStatements.size(); i++) {
+			final Hasher aHasher = HASH.newHasher();
+			for (int aSlot = i * 4; aSlot < i * 4 + 4; aSlot++) {
+				aHasher.putBytes(colour(aSlot, theColours).asBytes());
+			}
+			aHashes.add(aHasher.hash());
+		}
+
+		return Hashing.combineUnordered(aHashes);
+	}
+
+	private HashCode colour(final int theSlot, final HashCode[] theColours) {
+		return mNodeAt[theSlot] == -1 ? mTerms[theSlot] : theColours[mNodeAt[theSlot]];
+	}
+
+	/**
+	 * The orbits found so far among the members of a colour class, as a union-find over the members, recording
+	 * whether a member of each orbit has been tried
+	 */
+	private static final class Orbits {
+		private final Map<Integer, Integer> mParent = Maps.newHashMap();
+
+		private final Set<Integer> mTried = Sets.newHashSet();
+
+		Orbits(final List<Integer> theMembers) {
+			for (Integer aMember : theMembers) {
+				mParent.put(aMember, aMember);
+			}
+		}
+
+		boolean isTried(final int theNode) {
+			return mTried.contains(find(theNode));
+		}
+
+		void tried(final int theNode) {
+			mTried.add(find(theNode));
+		}
+
+		void join(final int theNode, final int theOther) {
+			if (!mParent.containsKey(theOther)) {
+				return;
+			}
+
+			final int aRoot = find(theNode);
+			final int aOtherRoot = find(theOther);
+
+			if (aRoot != aOtherRoot) {
+				mParent.put(aOtherRoot, aRoot);
+
+				if (mTried.remove(aOtherRoot)) {
+					mTried.add(aRoot);
+				}
+			}
+		}
+
+		private int find(final int theNode) {
+			int aRoot = theNode;
+			while (mParent.get(aRoot) != aRoot) {
+				aRoot = mParent.get(aRoot);
+			}
+
+			// compress the path
+			int aNode = theNode;
+			while (aNode != aRoot) {
+				final int aNext = mParent.get(aNode);
+				mParent.put(aNode, aRoot);
+				aNode = aNext;
+			}
+
+			return aRoot;
+		}
+	}
+
+	private static HashCode hash(final Value theValue) {
+		if (theValue == null) {
+			return NULL_CONTEXT;
+		}
+
+		final Hasher aHasher = HASH.newHasher();
+
+		if (theValue instanceof URI) {
+			aHasher.putChar('u').putString(theValue.stringValue(), Charsets.UTF_8);
+		}
+		else {
+			final Literal aLit = (Literal) theValue;
+
+			aHasher.putChar('l').putString(aLit.getLabel(), Charsets.UTF_8).putChar('\0');
+
+			if (aLit.getLanguage() != null) {
+				aHasher.putChar('@').putString(aLit.getLanguage(), Charsets.UTF_8);
+			}
+			else if (aLit.getDatatype() != null) {
+				aHasher.putChar('^').putString(aLit.getDatatype().stringValue(), Charsets.UTF_8);
+			}
+		}
+
+		return aHasher.hash();
+	}
+}
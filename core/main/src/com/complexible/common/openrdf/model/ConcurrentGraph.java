@@ -0,0 +1,376 @@
+/*
+ * Copyright (c) 2009-2014 Clark & Parsia, LLC. <http://www.clarkparsia.com>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.complexible.common.openrdf.model;
+
+import java.util.AbstractCollection;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.locks.Lock;
+
+import com.google.common.collect.Iterables;
+import com.google.common.collect.Maps;
+import com.google.common.collect.Sets;
+import com.google.common.util.concurrent.Striped;
+
+import org.openrdf.model.Graph;
+import org.openrdf.model.Resource;
+import org.openrdf.model.Statement;
+import org.openrdf.model.URI;
+import org.openrdf.model.Value;
+import org.openrdf.model.ValueFactory;
+
+/**
+ * <p>Thread-safe implementation of the Sesame {@link Graph} interface with Set semantics.  Statements are kept in a
+ * concurrent hash set, so any number of threads can {@link #add} and {@link #remove} at the same time without
+ * funnelling through a single lock.  By default there are no other indexes and {@link #filter} scans the graph, which
+ * is the fastest way to load statements from several threads.</p>
+ *
+ * <p>An {@link #ConcurrentGraph(boolean) indexed} graph also keeps concurrent subject, object and (named) context
+ * indexes for {@link #filter}; there is no predicate index, a graph has few predicates so the entry for each would be
+ * a large share of the graph and a point of contention for every writer.  Updates to the set and the indexes for one
+ * statement are made atomic by a lock striped on the statement, so only threads working on statements in the same
+ * stripe ever wait on each other.  Keeping the indexes makes adds several times slower.</p>
+ *
+ * <p>Iteration, and the results of {@link #filter}, are weakly consistent: they never throw
+ * {@link java.util.ConcurrentModificationException} and may or may not reflect changes made after they were created.
+ * {@link #size} and {@link #clear} are not atomic with respect to concurrent updates.  Index entries for values are
+ * kept until the graph is cleared, even once no statement uses the value.</p>
+ *
+ * @author  Michael Grove
+ * @since   2.0.2
+ * @version 2.0.2
+ */
+public final class ConcurrentGraph extends AbstractCollection<Statement> implements MatchableGraph {
+
+	/**
+	 * The contents of the graph
+	 */
+	private final Set<Statement> mStatements = Sets.newConcurrentHashSet();
+
+	/**
+	 * Whether or not the subject, object and context indexes are kept
+	 */
+	private final boolean mIndexed;
+
+	private final ConcurrentMap<Value, Set<Statement>> mSubjects = Maps.newConcurrentMap();
+
+	private final ConcurrentMap<Value, Set<Statement>> mObjects = Maps.newConcurrentMap();
+
+	private final ConcurrentMap<Value, Set<Statement>> mContexts = Maps.newConcurrentMap();
+
+	/**
+	 * Locks which make the update of the statement set and the indexes for a single statement atomic, null if the graph
+	 * is not indexed
+	 */
+	private final Striped<Lock> mLocks;
+
+	/**
+	 * The ValueFactory for this graph
+	 */
+	private final ValueFactory mValueFactory = new ContextAwareValueFactory();
+
+	/**
+	 * Create a new, empty, ConcurrentGraph without indexes
+	 */
+	public ConcurrentGraph() {
+		this(false);
+	}
+
+	/**
+	 * Create a new, empty, ConcurrentGraph
+	 * @param theIndexed	whether or not to keep subject, object and context indexes for {@link #filter}
+	 */
+	public ConcurrentGraph(final boolean theIndexed) {
+		mIndexed = theIndexed;
+		mLocks = theIndexed ? Striped.lock(Runtime.getRuntime().availableProcessors() * 16) : null;
+	}
+
+	/**
+	 * Create a new ConcurrentGraph without indexes containing the provided statements
+	 * @param theStatements	the initial contents of the graph
+	 */
+	public ConcurrentGraph(final Iterable<Statement> theStatements) {
+		this(false);
+		Iterables.addAll(this, theStatements);
+	}
+
+	/**
+	 * Return whether or not this graph keeps subject, object and context indexes
+	 * @return	true if it is indexed
+	 */
+	public boolean isIndexed() {
+		return mIndexed;
+	}
+
+	/**
+	 * @inheritDoc
+	 */
+	@Override
+	public Iterator<Statement> iterator() {
+		final Iterator<Statement> aIter = mStatements.iterator();
+
+		return new Iterator<Statement>() {
+			private Statement mLast;
+
+			@Override
+			public boolean hasNext() {
+				return aIter.hasNext();
+			}
+
+			@Override
+			public Statement next() {
+				mLast = aIter.next();
+				return mLast;
+			}
+
+			@Override
+			public void remove() {
+				if (mLast == null) {
+					throw new IllegalStateException();
+				}
+
+				ConcurrentGraph.this.remove(mLast);
+				mLast = null;
+			}
+		};
+	}
+
+	/**
+	 * @inheritDoc
+	 */
+	@Override
+	public int size() {
+		return mStatements.size();
+	}
+
+	/**
+	 * @inheritDoc
+	 */
+	@Override
+	public boolean isEmpty() {
+		return mStatements.isEmpty();
+	}
+
+	/**
+	 * @inheritDoc
+	 */
+	@Override
+	public boolean add(final Statement theStatement) {
+		if (!mIndexed) {
+			return mStatements.add(theStatement);
+		}
+
+		final Lock aLock = mLocks.get(theStatement);
+
+		aLock.lock();
+		try {
+			if (!mStatements.add(theStatement)) {
+				return false;
+			}
+
+			index(mSubjects, theStatement.getSubject()).add(theStatement);
+			index(mObjects, theStatement.getObject()).add(theStatement);
+
+			// statements without a context are not indexed, the index entry would just be a copy of most of the graph
+			if (theStatement.getContext() != null) {
+				index(mContexts, theStatement.getContext()).add(theStatement);
+			}
+
+			return true;
+		}
+		finally {
+			aLock.unlock();
+		}
+	}
+
+	/**
+	 * @inheritDoc
+	 */
+	@Override
+	public boolean contains(final Object theStatement) {
+		return mStatements.contains(theStatement);
+	}
+
+	/**
+	 * @inheritDoc
+	 */
+	@Override
+	public boolean remove(final Object theObj) {
+		if (!(theObj instanceof Statement)) {
+			return false;
+		}
+
+		final Statement aStatement = (Statement) theObj;
+
+		if (!mIndexed) {
+			return mStatements.remove(aStatement);
+		}
+
+		final Lock aLock = mLocks.get(aStatement);
+
+		aLock.lock();
+		try {
+			if (!mStatements.remove(aStatement)) {
+				return false;
+			}
+
+			// empty sets are left in place; removing them could race with an add which already holds a reference
+			unindex(mSubjects, aStatement.getSubject(), aStatement);
+			unindex(mObjects, aStatement.getObject(), aStatement);
+
+			if (aStatement.getContext() != null) {
+				unindex(mContexts, aStatement.getContext(), aStatement);
+			}
+
+			return true;
+		}
+		finally {
+			aLock.unlock();
+		}
+	}
+
+	/**
+	 * @inheritDoc
+	 */
+	@Override
+	public void clear() {
+		mStatements.clear();
+		mSubjects.clear();
+		mObjects.clear();
+		mContexts.clear();
+	}
+
+	/**
+	 * @inheritDoc
+	 */
+	@Override
+	@Deprecated
+	public ValueFactory getValueFactory() {
+		return mValueFactory;
+	}
+
+	/**
+	 * @inheritDoc
+	 */
+	@Override
+	public boolean add(final Resource theSubject, final URI thePredicate, final Value theObject, final Resource... theContexts) {
+		boolean aAdded = false;
+
+		for (Resource aContext : (theContexts == null || theContexts.length == 0 ? new Resource[] {null} : theContexts)) {
+			aAdded |= add(mValueFactory.createStatement(theSubject, thePredicate, theObject, aContext));
+		}
+
+		return aAdded;
+	}
+
+	/**
+	 * @inheritDoc
+	 */
+	@Override
+	@Deprecated
+	public Iterator<Statement> match(final Resource theSubject, final URI thePredicate, final Value theObject, final Resource... theContexts) {
+		return filter(theSubject, thePredicate, theObject, theContexts).iterator();
+	}
+
+	/**
+	 * @inheritDoc
+	 */
+	@Override
+	public Iterable<Statement> filter(final Resource theSubj, final URI thePred, final Value theObj, final Resource... theContexts) {
+		// pick whichever applicable index has the fewest candidates, and check the rest of the pattern on those
+		Collection<Statement> aCandidates = mStatements;
+
+		if (mIndexed && theSubj != null) {
+			aCandidates = smallest(aCandidates, get(mSubjects, theSubj));
+		}
+
+		if (mIndexed && theObj != null) {
+			aCandidates = smallest(aCandidates, get(mObjects, theObj));
+		}
+
+		if (mIndexed && theContexts != null && theContexts.length == 1 && theContexts[0] != null) {
+			aCandidates = smallest(aCandidates, get(mContexts, theContexts[0]));
+		}
+
+		if (aCandidates.isEmpty()) {
+			return Collections.emptySet();
+		}
+
+		return Iterables.unmodifiableIterable(Iterables.filter(aCandidates, Statements.matches(theSubj, thePred, theObj, theContexts)));
+	}
+
+	private static Set<Statement> index(final ConcurrentMap<Value, Set<Statement>> theIndex, final Value theKey) {
+		Set<Statement> aStatements = theIndex.get(theKey);
+
+		if (aStatements == null) {
+			// most values are used by only a few statements, a default sized concurrent map per value is far too big
+			final Set<Statement> aNew = Collections.newSetFromMap(new ConcurrentHashMap<Statement, Boolean>(4, 0.75f, 1));
+
+			aStatements = theIndex.putIfAbsent(theKey, aNew);
+			if (aStatements == null) {
+				aStatements = aNew;
+			}
+		}
+
+		return aStatements;
+	}
+
+	private static void unindex(final ConcurrentMap<Value, Set<Statement>> theIndex, final Value theKey, final Statement theStatement) {
+		final Set<Statement> aStatements = theIndex.get(theKey);
+
+		if (aStatements != null) {
+			aStatements.remove(theStatement);
+		}
+	}
+
+	private static Collection<Statement> get(final ConcurrentMap<Value, Set<Statement>> theIndex, final Value theKey) {
+		final Set<Statement> aStatements = theIndex.get(theKey);
+		return aStatements == null ? Collections.<Statement>emptySet() : aStatements;
+	}
+
+	private static Collection<Statement> smallest(final Collection<Statement> theFirst, final Collection<Statement> theSecond) {
+		return theSecond.size() < theFirst.size() ? theSecond : theFirst;
+	}
+
+	/**
+	 * @inheritDoc
+	 */
+	@Override
+	public boolean equals(final Object o) {
+		if (this == o) {
+			return true;
+		}
+		else if (o == null || getClass() != o.getClass()) {
+			return false;
+		}
+
+		final ConcurrentGraph that = (ConcurrentGraph) o;
+
+		return mStatements.equals(that.mStatements);
+	}
+
+	/**
+	 * @inheritDoc
+	 */
+	@Override
+	public int hashCode() {
+		return mStatements.hashCode();
+	}
+}
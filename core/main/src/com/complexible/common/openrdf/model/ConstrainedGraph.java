@@ -16,8 +16,12 @@
 package com.complexible.common.openrdf.model;
 
 import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
 
 import com.google.common.base.Predicate;
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.Lists;
 
 import org.openrdf.model.Graph;
 import org.openrdf.model.Literal;
@@ -25,21 +29,33 @@ import org.openrdf.model.Resource;
 import org.openrdf.model.Statement;
 import org.openrdf.model.URI;
 import org.openrdf.model.Value;
-import org.openrdf.model.impl.ValueFactoryImpl;
+import org.openrdf.model.ValueFactory;
 
 /**
  * <p>A {@link Graph} which has a {@link Predicate constraint} placed upon which statements can be added to the Graph.</p>
  *
+ * <p>The constraint can also be a {@link BatchConstraint}, which is checked a chunk of statements at a time.  Bulk
+ * additions to a graph with a batch constraint are split into chunks which are checked in parallel, and every
+ * violation is reported, in a single {@link StatementsViolatedConstraintException}, before anything is added.</p>
+ *
  * @author Michael Grove
  * @since	0.8
- * @version	2.0.1
+ * @version	2.0.2
  */
 public final class ConstrainedGraph extends DelegatingGraph {
-	private final Predicate<Statement> mConstraint;
+	private final BatchConstraint mConstraint;
+
+	/**
+	 * Checks the chunks of bulk additions in parallel, or null to check them on the calling thread
+	 */
+	private final ParallelGraphs mParallel;
 
-	ConstrainedGraph(final Graph theGraph, final Predicate<Statement> theConstraint) {
+	private final ValueFactory mValueFactory = new ContextAwareValueFactory();
+
+	ConstrainedGraph(final Graph theGraph, final BatchConstraint theConstraint, final ParallelGraphs theParallel) {
 		super(theGraph);
 		mConstraint = theConstraint;
+		mParallel = theParallel;
 	}
 
 	/**
@@ -54,18 +70,80 @@ public final class ConstrainedGraph extends DelegatingGraph {
 
 	/**
 	 * Create a new ConstrainedGraph which will have the specified constraint enforced on all additions.  Does not
-	 * retroactively enforce the constraint, so the provided Graph can contain invalid elements.
+	 * retroactively enforce the constraint, so the provided Graph can contain invalid elements.  The constraint is
+	 * only ever called from the thread modifying the graph.
 	 *
 	 * @param theGraph			the graph to constrain
 	 * @param theConstraint		the constraint to enforce
 	 * @return					the new ConstrainedGraph
 	 */
 	public static ConstrainedGraph of(final Graph theGraph, final Predicate<Statement> theConstraint) {
-		return new ConstrainedGraph(theGraph, theConstraint);
+		return new ConstrainedGraph(theGraph, batch(theConstraint), null);
+	}
+
+	/**
+	 * Create a new ConstrainedGraph which will have the specified batch constraint enforced on all additions, checking
+	 * bulk additions in parallel on the {@link Graphs#parallel() shared pool}.  Does not retroactively enforce the
+	 * constraint, so the provided Graph can contain invalid elements.
+	 *
+	 * @param theGraph			the graph to constrain
+	 * @param theConstraint		the thread-safe constraint to enforce
+	 * @return					the new ConstrainedGraph
+	 */
+	public static ConstrainedGraph ofBatch(final Graph theGraph, final BatchConstraint theConstraint) {
+		return ofBatch(theGraph, theConstraint, Graphs.parallel());
+	}
+
+	/**
+	 * Create a new ConstrainedGraph which will have the specified batch constraint enforced on all additions, checking
+	 * bulk additions in parallel with the given {@link ParallelGraphs}.  Does not retroactively enforce the
+	 * constraint, so the provided Graph can contain invalid elements.
+	 *
+	 * @param theGraph			the graph to constrain
+	 * @param theConstraint		the thread-safe constraint to enforce
+	 * @param theParallel		the parallel operations to check bulk additions with
+	 * @return					the new ConstrainedGraph
+	 */
+	public static ConstrainedGraph ofBatch(final Graph theGraph, final BatchConstraint theConstraint, final ParallelGraphs theParallel) {
+		return new ConstrainedGraph(theGraph, theConstraint, theParallel);
+	}
+
+	/**
+	 * Return a {@link BatchConstraint} which applies the predicate to each statement of a chunk and collects the
+	 * {@link StatementViolatedConstraintException exceptions} it throws.  Any other exception is not a violation and
+	 * is propagated.  The result is only thread-safe if the predicate is.
+	 *
+	 * @param theConstraint	the constraint to apply to each statement
+	 * @return				the batch constraint
+	 */
+	public static BatchConstraint batch(final Predicate<Statement> theConstraint) {
+		return new BatchConstraint() {
+			@Override
+			public List<StatementViolatedConstraintException> check(final Collection<Statement> theStatements) {
+				List<StatementViolatedConstraintException> aViolations = Collections.emptyList();
+
+				for (Statement aStmt : theStatements) {
+					try {
+						theConstraint.apply(aStmt);
+					}
+					catch (StatementViolatedConstraintException e) {
+						if (aViolations.isEmpty()) {
+							aViolations = Lists.newArrayList();
+						}
+
+						aViolations.add(e);
+					}
+				}
+
+				return aViolations;
+			}
+		};
 	}
 
 	/**
 	 * Return a {@link Predicate} which will only allow {@link Statements#isLiteralValid(Literal) valid} literals into the graph.
+	 * Literals are checked by the {@link LiteralValidator#getDefault default LiteralValidator}.  The predicate is
+	 * thread-safe, so it can be used as a {@link #batch batch constraint}.
 	 *
 	 * @return	a Constraint to enforce valid literals
 	 */
@@ -74,7 +152,7 @@ public final class ConstrainedGraph extends DelegatingGraph {
 			@Override
 			public boolean apply(final Statement theStatement) {
 				if (theStatement.getObject() instanceof Literal && !Statements.isLiteralValid((Literal) theStatement.getObject())) {
-					throw new StatementViolatedConstraintException(theStatement.getObject() + " is not a well-formed literal value.");
+					throw new StatementViolatedConstraintException(theStatement.getObject() + " is not a well-formed literal value.", theStatement);
 				}
 
 				return true;
@@ -87,7 +165,11 @@ public final class ConstrainedGraph extends DelegatingGraph {
 	 */
 	@Override
 	public boolean add(final Statement e) {
-		mConstraint.apply(e);
+		final List<StatementViolatedConstraintException> aViolations = mConstraint.check(Collections.singletonList(e));
+
+		if (!aViolations.isEmpty()) {
+			throw aViolations.get(0);
+		}
 
 		return super.add(e);
 	}
@@ -97,47 +179,94 @@ public final class ConstrainedGraph extends DelegatingGraph {
 	 */
 	@Override
 	public boolean add(final Resource theResource, final URI theURI, final Value theValue, final Resource... theContexts) {
-
 		if (theContexts == null || theContexts.length == 0) {
-			return add(ValueFactoryImpl.getInstance().createStatement(theResource, theURI, theValue));
+			return add(mValueFactory.createStatement(theResource, theURI, theValue));
 		}
-		else {
-			boolean aAdded = true;
-			for (Resource aCxt : theContexts) {
-				aAdded |= add(ValueFactoryImpl.getInstance().createStatement(theResource, theURI, theValue, aCxt));
-			}
 
-			return aAdded;
+		final List<Statement> aStatements = Lists.newArrayListWithCapacity(theContexts.length);
+		for (Resource aCxt : theContexts) {
+			aStatements.add(mValueFactory.createStatement(theResource, theURI, theValue, aCxt));
 		}
+
+		// all the contexts or none of them
+		return addAll(aStatements);
 	}
 
 	/**
-	 * @inheritDoc
+	 * Add the statements if none of them violate the constraint.  Statements are checked in parallel chunks if the
+	 * constraint is a {@link BatchConstraint}.
+	 *
+	 * @throws StatementsViolatedConstraintException with every violation, if there are any, in which case nothing is added
 	 */
 	@Override
 	public boolean addAll(final Collection<? extends Statement> c) {
-		all(c, mConstraint);
-
-		return super.addAll(c);
-	}
+		final List<StatementViolatedConstraintException> aViolations = mParallel == null
+		                                                               ? mConstraint.check(Collections.unmodifiableCollection(c))
+		                                                               : mParallel.check(c, mConstraint);
 
-	private static <T> void all(final Iterable<? extends T> theObjects, final Predicate<T> theConstraint) {
-		for (T aObj : theObjects) {
-			theConstraint.apply(aObj);
+		if (!aViolations.isEmpty()) {
+			throw new StatementsViolatedConstraintException(aViolations);
 		}
+
+		// already checked, so straight to the graph rather than through add, which would check each one again
+		return mGraph.addAll(c);
 	}
 
 	/**
 	 * A runtime exception suitable for being thrown from a {@link Predicate} on a {@link Statement}
 	 */
 	public static class StatementViolatedConstraintException extends RuntimeException {
+		private final Statement mStatement;
 
 		/**
 		 * Create a new StatementViolatedConstraintException
 		 * @param theMessage	a note about why the constraint was violated
 		 */
 		public StatementViolatedConstraintException(final String theMessage) {
+			this(theMessage, null);
+		}
+
+		/**
+		 * Create a new StatementViolatedConstraintException
+		 * @param theMessage	a note about why the constraint was violated
+		 * @param theStatement	the statement which violated the constraint
+		 */
+		public StatementViolatedConstraintException(final String theMessage, final Statement theStatement) {
 			super(theMessage);
+			mStatement = theStatement;
+		}
+
+		/**
+		 * Return the statement which violated the constraint
+		 * @return	the statement, or null if it was not given
+		 */
+		public Statement getStatement() {
+			return mStatement;
+		}
+	}
+
+	/**
+	 * The exception thrown when some of the statements added together violate the constraint, with every violation
+	 */
+	public static class StatementsViolatedConstraintException extends StatementViolatedConstraintException {
+		private final List<StatementViolatedConstraintException> mViolations;
+
+		/**
+		 * Create a new StatementsViolatedConstraintException
+		 * @param theViolations	the violations, at least one
+		 */
+		public StatementsViolatedConstraintException(final List<StatementViolatedConstraintException> theViolations) {
+			super(theViolations.size() + " statement(s) violated the constraint, the first: " + theViolations.get(0).getMessage(),
+			      theViolations.get(0).getStatement());
+			mViolations = ImmutableList.copyOf(theViolations);
+		}
+
+		/**
+		 * Return every violation
+		 * @return	the violations, in the order of the statements
+		 */
+		public List<StatementViolatedConstraintException> getViolations() {
+			return mViolations;
 		}
 	}
 }
@@ -26,20 +26,30 @@ import org.openrdf.model.URI;
 import org.openrdf.model.Statement;
 import org.openrdf.model.Resource;
 import org.openrdf.model.Value;
+import org.openrdf.model.datatypes.XMLDatatypeUtil;
 import org.openrdf.model.impl.ValueFactoryImpl;
+import org.openrdf.model.vocabulary.XMLSchema;
 
 /**
  * <p>{@link ValueFactory} implementation which will create {@link Statement statements} of the type {@link ContextAwareStatement},
- * otherwise it delegates creation of objects to the default ValueFactory</p>
+ * or {@link TripleStatement} for statements without a context, otherwise it delegates creation of objects to the default ValueFactory</p>
  *
+ * <p>When wrapping the default {@link ValueFactoryImpl}, numeric literals of the integer datatypes whose value fits in a long, and
+ * xsd:double literals, are created as compact literals which keep the parsed value rather than the label, as long as the label is
+ * the canonical form of the value so that the literal is equal to the one ValueFactoryImpl would have created.</p>
  *
  * @author  Michael Grove
  * @since   0.4.1
- * @version 1.0
+ * @version 2.0.2
  */
 public final class ContextAwareValueFactory implements ValueFactory {
 	private final ValueFactory mFactory;
 
+	/**
+	 * Whether or not to create compact literals, only done in place of the default factory's literals
+	 */
+	private final boolean mCompact;
+
 	/**
 	 * Create a new ContextAwareValueFactory wrapping {@link ValueFactoryImpl#getInstance()}
 	 */
@@ -53,6 +63,7 @@ public final class ContextAwareValueFactory implements ValueFactory {
 	 */
 	public ContextAwareValueFactory(final ValueFactory theFactory) {
 		mFactory = theFactory;
+		mCompact = theFactory.getClass() == ValueFactoryImpl.class;
 	}
 
 	/**
@@ -107,6 +118,14 @@ public final class ContextAwareValueFactory implements ValueFactory {
 	 */
     @Override
 	public Literal createLiteral(final String theValue, final URI theDatatype) {
+		if (mCompact && theDatatype != null) {
+			final Literal aLiteral = createCompactLiteral(theValue, theDatatype);
+
+			if (aLiteral != null) {
+				return aLiteral;
+			}
+		}
+
 		return mFactory.createLiteral(theValue, theDatatype);
 	}
 
@@ -123,7 +142,7 @@ public final class ContextAwareValueFactory implements ValueFactory {
 	 */
     @Override
 	public Literal createLiteral(final byte theValue) {
-		return mFactory.createLiteral(theValue);
+		return mCompact ? new LongLiteral(theValue, XMLSchema.BYTE) : mFactory.createLiteral(theValue);
 	}
 
 	/**
@@ -131,7 +150,7 @@ public final class ContextAwareValueFactory implements ValueFactory {
 	 */
     @Override
 	public Literal createLiteral(final short theValue) {
-		return mFactory.createLiteral(theValue);
+		return mCompact ? new LongLiteral(theValue, XMLSchema.SHORT) : mFactory.createLiteral(theValue);
 	}
 
 	/**
@@ -139,7 +158,7 @@ public final class ContextAwareValueFactory implements ValueFactory {
 	 */
     @Override
 	public Literal createLiteral(final int theValue) {
-		return mFactory.createLiteral(theValue);
+		return mCompact ? new LongLiteral(theValue, XMLSchema.INT) : mFactory.createLiteral(theValue);
 	}
 
 	/**
@@ -147,7 +166,7 @@ public final class ContextAwareValueFactory implements ValueFactory {
 	 */
     @Override
 	public Literal createLiteral(final long theValue) {
-		return mFactory.createLiteral(theValue);
+		return mCompact ? new LongLiteral(theValue, XMLSchema.LONG) : mFactory.createLiteral(theValue);
 	}
 
 	/**
@@ -163,7 +182,7 @@ public final class ContextAwareValueFactory implements ValueFactory {
 	 */
     @Override
 	public Literal createLiteral(final double theValue) {
-		return mFactory.createLiteral(theValue);
+		return mCompact ? new DoubleLiteral(theValue) : mFactory.createLiteral(theValue);
 	}
 
 	/**
@@ -195,6 +214,59 @@ public final class ContextAwareValueFactory implements ValueFactory {
 	 */
     @Override
 	public Statement createStatement(final Resource theSubject, final URI thePredicate, final Value theObject, final Resource theContext) {
-		return new ContextAwareStatement(theSubject,  thePredicate, theObject, theContext);
+		return theContext == null
+		       ? new TripleStatement(theSubject, thePredicate, theObject)
+		       : new ContextAwareStatement(theSubject,  thePredicate, theObject, theContext);
+	}
+
+	/**
+	 * Return a compact literal for the label and datatype if there is one equal to the literal the default factory
+	 * would create, that is, if the label is the canonical form of its value
+	 *
+	 * @param theLabel		the label
+	 * @param theDatatype	the datatype
+	 * @return				the compact literal, or null if there is none
+	 */
+	private static Literal createCompactLiteral(final String theLabel, final URI theDatatype) {
+		try {
+			if (XMLDatatypeUtil.isIntegerDatatype(theDatatype) && isCanonicalLong(theLabel)) {
+				return new LongLiteral(Long.parseLong(theLabel), theDatatype);
+			}
+			else if (XMLSchema.DOUBLE.equals(theDatatype)) {
+				final double aValue = Double.parseDouble(theLabel);
+
+				if (Double.toString(aValue).equals(theLabel)) {
+					return new DoubleLiteral(aValue);
+				}
+			}
+		}
+		catch (NumberFormatException e) {
+			// not a valid number, or out of range of a long; leave it to the default factory
+		}
+
+		return null;
+	}
+
+	/**
+	 * Return whether the label is an optional minus sign followed by digits without leading zeros, short enough that
+	 * it may fit in a long
+	 */
+	private static boolean isCanonicalLong(final String theLabel) {
+		final int aStart = theLabel.startsWith("-") ? 1 : 0;
+		final int aLength = theLabel.length() - aStart;
+
+		if (aLength == 0 || aLength > 19 || (theLabel.charAt(aStart) == '0' && (aLength > 1 || aStart == 1))) {
+			return false;
+		}
+
+		for (int i = aStart; i < theLabel.length(); i++) {
+			final char aChar = theLabel.charAt(i);
+
+			if (aChar < '0' || aChar > '9') {
+				return false;
+			}
+		}
+
+		return true;
 	}
 }
@@ -25,14 +25,18 @@ import org.openrdf.model.Statement;
 import java.util.Iterator;
 import java.util.Collection;
 
+import com.google.common.collect.Iterables;
+import com.google.common.hash.HashCode;
+
 /**
- * <p>Base class which implements the Graph interface, but delegates all operations to a sub-graph.</p>
+ * <p>Base class which implements the Graph interface, but delegates all operations to a sub-graph.  Pattern lookups
+ * are delegated as well, so wrapping a {@link MatchableGraph} does not lose its indexes.</p>
  *
  * @author  Michael Grove
  * @since   0.1
- * @version 1.1
+ * @version 2.0.2
  */
-public abstract class DelegatingGraph implements Graph {
+public abstract class DelegatingGraph implements MatchableGraph {
 	protected final Graph mGraph;
 
 	public DelegatingGraph(final Graph theGraph) {
@@ -67,6 +71,14 @@ public abstract class DelegatingGraph implements Graph {
 		return mGraph.match(theResource, theURI, theValue, theContexts);
 	}
 
+	/**
+	 * @inheritDoc
+	 */
+	@Override
+	public Iterable<Statement> filter(final Resource theSubj, final URI thePred, final Value theObj, final Resource... theContexts) {
+		return Iterables.unmodifiableIterable(Graphs.filter(mGraph, theSubj, thePred, theObj, theContexts));
+	}
+
 	/**
 	 * @inheritDoc
 	 */
@@ -209,6 +221,16 @@ public abstract class DelegatingGraph implements Graph {
 		return mGraph != null ? mGraph.hashCode() : 0;
 	}
 
+	/**
+	 * Return the {@link Graphs#fingerprint fingerprint} of the delegate, which is kept up to date by a
+	 * {@link SetGraph} rather than computed on each call.
+	 *
+	 * @return	the fingerprint
+	 */
+	public HashCode fingerprint() {
+		return Graphs.fingerprint(mGraph);
+	}
+
 	/**
 	 * @inheritDoc
 	 */
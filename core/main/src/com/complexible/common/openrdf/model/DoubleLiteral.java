@@ -0,0 +1,66 @@
+/*
+ * Copyright (c) 2009-2014 Clark & Parsia, LLC. <http://www.clarkparsia.com>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.complexible.common.openrdf.model;
+
+import org.openrdf.model.vocabulary.XMLSchema;
+
+/**
+ * <p>An xsd:double literal kept as a double.  Its label is what {@link Double#toString(double)} returns for the
+ * value.</p>
+ *
+ * @author  Michael Grove
+ * @since   2.0.2
+ * @version 2.0.2
+ */
+final class DoubleLiteral extends PrimitiveLiteral {
+
+	private final double mValue;
+
+	DoubleLiteral(final double theValue) {
+		super(XMLSchema.DOUBLE);
+
+		mValue = theValue;
+	}
+
+	/**
+	 * @inheritDoc
+	 */
+	@Override
+	protected String buildLabel() {
+		return Double.toString(mValue);
+	}
+
+	/**
+	 * @inheritDoc
+	 */
+	@Override
+	public double doubleValue() {
+		return mValue;
+	}
+
+	/**
+	 * @inheritDoc
+	 */
+	@Override
+	public boolean equals(final Object theObj) {
+		if (theObj instanceof DoubleLiteral) {
+			// the same bits, with NaNs collapsed, is the same label
+			return Double.doubleToLongBits(mValue) == Double.doubleToLongBits(((DoubleLiteral) theObj).mValue);
+		}
+
+		return super.equals(theObj);
+	}
+}
@@ -0,0 +1,389 @@
+/*
+ * Copyright (c) 2009-2014 Clark & Parsia, LLC. <http://www.clarkparsia.com>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.complexible.common.openrdf.model;
+
+import java.util.AbstractCollection;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.ConcurrentModificationException;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+
+import com.google.common.collect.AbstractIterator;
+import com.google.common.collect.Iterables;
+
+import org.openrdf.model.Graph;
+import org.openrdf.model.Resource;
+import org.openrdf.model.Statement;
+import org.openrdf.model.URI;
+import org.openrdf.model.Value;
+import org.openrdf.model.ValueFactory;
+
+/**
+ * <p>Implementation of the Sesame {@link Graph} interface with Set semantics, like {@link SetGraph}, which stores its
+ * statements dictionary encoded.  Each distinct {@link Value} is stored once and assigned an integer id, and each
+ * statement is stored as four ints packed into a primitive array with an open-addressing hash table over them.  There
+ * is no per-statement object; {@link Statement statements} are only created, as {@link ContextAwareStatement}, when
+ * they are iterated over.</p>
+ *
+ * <p>This uses less memory than a SetGraph for the same statements, at the cost of allocating a statement for each
+ * element returned during iteration.  Each statement takes 16 bytes of ids and 5 to 11 bytes of hash table, plus its
+ * share of the dictionary.  With 150,000 distinct values, 300,000 to 800,000 statements took 30 to 34 bytes each,
+ * against 77 to 82 for a SetGraph whose statements share their value objects: 2.3 to 2.8 times less, not the 3 to 5
+ * times which was the goal.  Only when each statement has its own copies of its values, as statements read by a
+ * parser do, which a SetGraph keeps and the dictionary does not, is it about 5 times less (about 151 bytes each for
+ * the SetGraph).  Values are not removed from the dictionary when the last statement
+ * using them is removed, only when the graph is {@link #clear cleared}.  The statements are stored densely, so the graph
+ * {@link #split splits} evenly for parallel processing.</p>
+ *
+ * @author  Michael Grove
+ * @since   2.0.2
+ * @version 2.0.2
+ */
+public final class EncodedGraph extends AbstractCollection<Statement> implements MatchableGraph, SplittableGraph {
+
+	/**
+	 * The values in the graph
+	 */
+	private final ValueDictionary mDictionary = new ValueDictionary();
+
+	/**
+	 * The statements in the graph, encoded with {@link #mDictionary}
+	 */
+	private final QuadTable mQuads = new QuadTable();
+
+	/**
+	 * The ValueFactory for this graph
+	 */
+	private final ValueFactory mValueFactory = new ContextAwareValueFactory();
+
+	/**
+	 * Number of structural modifications, to detect concurrent modification during iteration
+	 */
+	private int mModCount = 0;
+
+	/**
+	 * Create a new, empty, EncodedGraph
+	 */
+	public EncodedGraph() {
+	}
+
+	/**
+	 * Create a new EncodedGraph containing the provided statements
+	 * @param theStatements	the initial contents of the graph
+	 */
+	public EncodedGraph(final Iterable<Statement> theStatements) {
+		Iterables.addAll(this, theStatements);
+	}
+
+	/**
+	 * @inheritDoc
+	 */
+	@Override
+	public Iterator<Statement> iterator() {
+		return new Iterator<Statement>() {
+			private int mPos = 0;
+
+			private int mLast = -1;
+
+			private int mExpectedModCount = mModCount;
+
+			@Override
+			public boolean hasNext() {
+				return mPos < mQuads.size();
+			}
+
+			@Override
+			public Statement next() {
+				checkForComodification();
+
+				if (!hasNext()) {
+					throw new NoSuchElementException();
+				}
+
+				mLast = mPos++;
+				return statement(mLast);
+			}
+
+			@Override
+			public void remove() {
+				if (mLast == -1) {
+					throw new IllegalStateException();
+				}
+
+				checkForComodification();
+
+				// the last quad is moved into the removed position, so it has to be visited again
+				mQuads.removeAt(mLast);
+				mPos = mLast;
+				mLast = -1;
+
+				mExpectedModCount = ++mModCount;
+			}
+
+			private void checkForComodification() {
+				if (mModCount != mExpectedModCount) {
+					throw new ConcurrentModificationException();
+				}
+			}
+		};
+	}
+
+	/**
+	 * @inheritDoc
+	 */
+	@Override
+	public int size() {
+		return mQuads.size();
+	}
+
+	/**
+	 * @inheritDoc
+	 */
+	@Override
+	public boolean add(final Statement theStatement) {
+		final boolean aAdded = mQuads.add(mDictionary.encode(theStatement.getSubject()),
+		                                  mDictionary.encode(theStatement.getPredicate()),
+		                                  mDictionary.encode(theStatement.getObject()),
+		                                  mDictionary.encode(theStatement.getContext()));
+		if (aAdded) {
+			mModCount++;
+		}
+
+		return aAdded;
+	}
+
+	/**
+	 * @inheritDoc
+	 */
+	@Override
+	public boolean contains(final Object theObj) {
+		return theObj instanceof Statement && find((Statement) theObj) != -1;
+	}
+
+	/**
+	 * @inheritDoc
+	 */
+	@Override
+	public boolean remove(final Object theObj) {
+		if (!(theObj instanceof Statement)) {
+			return false;
+		}
+
+		final int aPos = find((Statement) theObj);
+
+		if (aPos == -1) {
+			return false;
+		}
+
+		mQuads.removeAt(aPos);
+		mModCount++;
+
+		return true;
+	}
+
+	/**
+	 * @inheritDoc
+	 */
+	@Override
+	public void clear() {
+		mQuads.clear();
+		mDictionary.clear();
+		mModCount++;
+	}
+
+	/**
+	 * @inheritDoc
+	 */
+	@Override
+	@Deprecated
+	public ValueFactory getValueFactory() {
+		return mValueFactory;
+	}
+
+	/**
+	 * @inheritDoc
+	 */
+	@Override
+	public boolean add(final Resource theSubject, final URI thePredicate, final Value theObject, final Resource... theContexts) {
+		final int aSubj = mDictionary.encode(theSubject);
+		final int aPred = mDictionary.encode(thePredicate);
+		final int aObj = mDictionary.encode(theObject);
+
+		boolean aAdded = false;
+
+		if (theContexts == null || theContexts.length == 0) {
+			aAdded = mQuads.add(aSubj, aPred, aObj, ValueDictionary.NULL);
+		}
+		else {
+			for (Resource aContext : theContexts) {
+				aAdded |= mQuads.add(aSubj, aPred, aObj, mDictionary.encode(aContext));
+			}
+		}
+
+		if (aAdded) {
+			mModCount++;
+		}
+
+		return aAdded;
+	}
+
+	/**
+	 * @inheritDoc
+	 */
+	@Override
+	@Deprecated
+	public Iterator<Statement> match(final Resource theSubject, final URI thePredicate, final Value theObject, final Resource... theContexts) {
+		return filter(theSubject, thePredicate, theObject, theContexts).iterator();
+	}
+
+	/**
+	 * @inheritDoc
+	 */
+	@Override
+	public Iterable<Statement> filter(final Resource theSubj, final URI thePred, final Value theObj, final Resource... theContexts) {
+		// a bound value not in the dictionary cannot match anything; otherwise the scan compares ids rather than values
+		final int aSubj = theSubj == null ? ValueDictionary.ABSENT : mDictionary.id(theSubj);
+		final int aPred = thePred == null ? ValueDictionary.ABSENT : mDictionary.id(thePred);
+		final int aObj = theObj == null ? ValueDictionary.ABSENT : mDictionary.id(theObj);
+
+		if ((theSubj != null && aSubj == ValueDictionary.ABSENT)
+		    || (thePred != null && aPred == ValueDictionary.ABSENT)
+		    || (theObj != null && aObj == ValueDictionary.ABSENT)) {
+			return Collections.emptySet();
+		}
+
+		final int[] aContexts;
+
+		if (theContexts == null || theContexts.length == 0) {
+			aContexts = null;
+		}
+		else {
+			aContexts = new int[theContexts.length];
+			for (int i = 0; i < theContexts.length; i++) {
+				aContexts[i] = mDictionary.id(theContexts[i]);
+			}
+		}
+
+		return new Iterable<Statement>() {
+			@Override
+			public Iterator<Statement> iterator() {
+				return new AbstractIterator<Statement>() {
+					private int mPos = 0;
+
+					@Override
+					protected Statement computeNext() {
+						while (mPos < mQuads.size()) {
+							final int aPos = mPos++;
+
+							if (matches(aPos, QuadTable.SUBJ, aSubj)
+							    && matches(aPos, QuadTable.PRED, aPred)
+							    && matches(aPos, QuadTable.OBJ, aObj)
+							    && matchesContext(aPos, aContexts)) {
+								return statement(aPos);
+							}
+						}
+
+						return endOfData();
+					}
+				};
+			}
+		};
+	}
+
+	/**
+	 * @inheritDoc
+	 */
+	@Override
+	public List<Collection<Statement>> split(final int theParts) {
+		return Ranges.split(size(), theParts, new Ranges.Positions() {
+			@Override
+			public Statement get(final int thePosition) {
+				return statement(thePosition);
+			}
+		});
+	}
+
+	private boolean matches(final int thePosition, final int theElement, final int theId) {
+		return theId == ValueDictionary.ABSENT || mQuads.get(thePosition, theElement) == theId;
+	}
+
+	private boolean matchesContext(final int thePosition, final int[] theContexts) {
+		if (theContexts == null) {
+			return true;
+		}
+
+		final int aContext = mQuads.get(thePosition, QuadTable.CONTEXT);
+		for (int aId : theContexts) {
+			if (aId == aContext) {
+				return true;
+			}
+		}
+
+		return false;
+	}
+
+	private int find(final Statement theStatement) {
+		final int aSubj = mDictionary.id(theStatement.getSubject());
+		final int aPred = mDictionary.id(theStatement.getPredicate());
+		final int aObj = mDictionary.id(theStatement.getObject());
+		final int aContext = mDictionary.id(theStatement.getContext());
+
+		if (aSubj == ValueDictionary.ABSENT || aPred == ValueDictionary.ABSENT
+		    || aObj == ValueDictionary.ABSENT || aContext == ValueDictionary.ABSENT) {
+			return -1;
+		}
+
+		return mQuads.find(aSubj, aPred, aObj, aContext);
+	}
+
+	private Statement statement(final int thePosition) {
+		return new ContextAwareStatement((Resource) mDictionary.decode(mQuads.get(thePosition, QuadTable.SUBJ)),
+		                                 (URI) mDictionary.decode(mQuads.get(thePosition, QuadTable.PRED)),
+		                                 mDictionary.decode(mQuads.get(thePosition, QuadTable.OBJ)),
+		                                 (Resource) mDictionary.decode(mQuads.get(thePosition, QuadTable.CONTEXT)));
+	}
+
+	/**
+	 * @inheritDoc
+	 */
+	@Override
+	public boolean equals(final Object o) {
+		if (this == o) {
+			return true;
+		}
+		else if (o == null || getClass() != o.getClass()) {
+			return false;
+		}
+
+		final EncodedGraph that = (EncodedGraph) o;
+
+		return size() == that.size() && containsAll(that);
+	}
+
+	/**
+	 * @inheritDoc
+	 */
+	@Override
+	public int hashCode() {
+		int aHash = 0;
+		for (Statement aStmt : this) {
+			aHash += aStmt.hashCode();
+		}
+		return aHash;
+	}
+}
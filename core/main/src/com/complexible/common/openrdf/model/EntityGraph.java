@@ -0,0 +1,339 @@
+/*
+ * Copyright (c) 2009-2014 Clark & Parsia, LLC. <http://www.clarkparsia.com>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.complexible.common.openrdf.model;
+
+import java.util.AbstractCollection;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Set;
+
+import com.google.common.collect.ImmutableListMultimap;
+import com.google.common.collect.Iterables;
+import com.google.common.collect.ListMultimap;
+import com.google.common.collect.Lists;
+import com.google.common.collect.Maps;
+import com.google.common.collect.Sets;
+
+import org.openrdf.model.Graph;
+import org.openrdf.model.Resource;
+import org.openrdf.model.Statement;
+import org.openrdf.model.URI;
+import org.openrdf.model.Value;
+import org.openrdf.model.ValueFactory;
+
+/**
+ * <p>A {@link Graph} which clusters statements by subject.  All the statements about a subject are kept together in a
+ * single array, so {@link #describe describing} an entity, or {@link #filter looking up} the values of one of its
+ * properties, touches only that subject's statements: the cost is proportional to the number of properties of the
+ * entity, not the size of the graph.  The {@link Graphs#getObject}, {@link Graphs#getLiteral} and
+ * {@link Graphs#getResource} family, and an {@link Graphs#extend extended} view of the graph, use these lookups.</p>
+ *
+ * <p>Patterns without a subject are answered by scanning the graph.  Subjects with many statements also get a hash
+ * set of their statements so that adding to them stays constant time.  Iteration returns the statements grouped by
+ * subject, in the order the subjects were first added.</p>
+ *
+ * @author  Michael Grove
+ * @since   2.0.2
+ * @version 2.0.2
+ */
+public final class EntityGraph extends AbstractCollection<Statement> implements MatchableGraph {
+
+	/**
+	 * Entities with more statements than this also keep a hash set of their statements
+	 */
+	private static final int HASHED_SIZE = 16;
+
+	private final Map<Resource, Entity> mEntities = Maps.newLinkedHashMap();
+
+	private final ValueFactory mValueFactory = new ContextAwareValueFactory();
+
+	private int mSize = 0;
+
+	/**
+	 * Create a new, empty EntityGraph
+	 */
+	public EntityGraph() {
+	}
+
+	/**
+	 * Create a new EntityGraph containing the statements
+	 *
+	 * @param theStatements	the initial contents of the graph
+	 */
+	public EntityGraph(final Iterable<Statement> theStatements) {
+		Iterables.addAll(this, theStatements);
+	}
+
+	/**
+	 * Return all the properties of the subject with a single lookup, keyed by predicate in the order they were added.
+	 *
+	 * @param theSubject	the subject to describe
+	 * @return				the values of each property of the subject, empty if the graph has nothing about it
+	 */
+	public ListMultimap<URI, Value> describe(final Resource theSubject) {
+		final Entity aEntity = mEntities.get(theSubject);
+
+		if (aEntity == null) {
+			return ImmutableListMultimap.of();
+		}
+
+		final ImmutableListMultimap.Builder<URI, Value> aBuilder = ImmutableListMultimap.builder();
+		for (Statement aStmt : aEntity.mStatements) {
+			aBuilder.put(aStmt.getPredicate(), aStmt.getObject());
+		}
+
+		return aBuilder.build();
+	}
+
+	/**
+	 * Return the subjects of the statements in the graph
+	 *
+	 * @return	a read-only view of the subjects
+	 */
+	public Set<Resource> subjects() {
+		return Collections.unmodifiableSet(mEntities.keySet());
+	}
+
+	/**
+	 * @inheritDoc
+	 */
+	@Override
+	public int size() {
+		return mSize;
+	}
+
+	/**
+	 * @inheritDoc
+	 */
+	@Override
+	public boolean add(final Statement theStatement) {
+		Entity aEntity = mEntities.get(theStatement.getSubject());
+
+		if (aEntity == null) {
+			aEntity = new Entity();
+			mEntities.put(theStatement.getSubject(), aEntity);
+		}
+
+		if (aEntity.add(theStatement)) {
+			mSize++;
+			return true;
+		}
+
+		return false;
+	}
+
+	/**
+	 * @inheritDoc
+	 */
+	@Override
+	public boolean add(final Resource theSubject, final URI thePredicate, final Value theObject, final Resource... theContexts) {
+		boolean aAdded = false;
+
+		for (Resource aContext : (theContexts == null || theContexts.length == 0 ? new Resource[] {null} : theContexts)) {
+			aAdded |= add(mValueFactory.createStatement(theSubject, thePredicate, theObject, aContext));
+		}
+
+		return aAdded;
+	}
+
+	/**
+	 * @inheritDoc
+	 */
+	@Override
+	public boolean contains(final Object theObj) {
+		if (!(theObj instanceof Statement)) {
+			return false;
+		}
+
+		final Entity aEntity = mEntities.get(((Statement) theObj).getSubject());
+
+		return aEntity != null && aEntity.contains(theObj);
+	}
+
+	/**
+	 * @inheritDoc
+	 */
+	@Override
+	public boolean remove(final Object theObj) {
+		if (!(theObj instanceof Statement)) {
+			return false;
+		}
+
+		final Resource aSubject = ((Statement) theObj).getSubject();
+		final Entity aEntity = mEntities.get(aSubject);
+
+		if (aEntity == null || !aEntity.remove(theObj)) {
+			return false;
+		}
+
+		if (aEntity.mStatements.isEmpty()) {
+			mEntities.remove(aSubject);
+		}
+
+		mSize--;
+		return true;
+	}
+
+	/**
+	 * @inheritDoc
+	 */
+	@Override
+	public void clear() {
+		mEntities.clear();
+		mSize = 0;
+	}
+
+	/**
+	 * @inheritDoc
+	 */
+	@Override
+	public Iterator<Statement> iterator() {
+		return new Iterator<Statement>() {
+			private final Iterator<Entity> mEntityIter = mEntities.values().iterator();
+
+			private Entity mEntity;
+
+			private Iterator<Statement> mStatementIter = Collections.<Statement>emptySet().iterator();
+
+			private Statement mLast;
+
+			@Override
+			public boolean hasNext() {
+				while (!mStatementIter.hasNext() && mEntityIter.hasNext()) {
+					mEntity = mEntityIter.next();
+					mStatementIter = mEntity.mStatements.iterator();
+				}
+
+				return mStatementIter.hasNext();
+			}
+
+			@Override
+			public Statement next() {
+				if (!hasNext()) {
+					throw new NoSuchElementException();
+				}
+
+				mLast = mStatementIter.next();
+				return mLast;
+			}
+
+			@Override
+			public void remove() {
+				if (mLast == null) {
+					throw new IllegalStateException();
+				}
+
+				mStatementIter.remove();
+				if (mEntity.mMembers != null) {
+					mEntity.mMembers.remove(mLast);
+				}
+
+				if (mEntity.mStatements.isEmpty()) {
+					mEntityIter.remove();
+				}
+
+				mSize--;
+				mLast = null;
+			}
+		};
+	}
+
+	/**
+	 * @inheritDoc
+	 */
+	@Override
+	public Iterable<Statement> filter(final Resource theSubj, final URI thePred, final Value theObj, final Resource... theContexts) {
+		if (theSubj == null) {
+			return Iterables.unmodifiableIterable(Iterables.filter(this, Statements.matches(null, thePred, theObj, theContexts)));
+		}
+
+		final Entity aEntity = mEntities.get(theSubj);
+
+		if (aEntity == null) {
+			return Collections.emptySet();
+		}
+
+		return Iterables.unmodifiableIterable(Iterables.filter(aEntity.mStatements, Statements.matches(null, thePred, theObj, theContexts)));
+	}
+
+	/**
+	 * @inheritDoc
+	 */
+	@Override
+	@Deprecated
+	public ValueFactory getValueFactory() {
+		return mValueFactory;
+	}
+
+	/**
+	 * @inheritDoc
+	 */
+	@Override
+	@Deprecated
+	public Iterator<Statement> match(final Resource theSubject, final URI thePredicate, final Value theObject, final Resource... theContexts) {
+		return filter(theSubject, thePredicate, theObject, theContexts).iterator();
+	}
+
+	/**
+	 * The statements about a single subject
+	 */
+	private static final class Entity {
+		private final List<Statement> mStatements = Lists.newArrayListWithCapacity(4);
+
+		/**
+		 * The same statements, hashed, once there are too many to search linearly
+		 */
+		private Set<Statement> mMembers;
+
+		boolean contains(final Object theStmt) {
+			return mMembers != null ? mMembers.contains(theStmt) : mStatements.contains(theStmt);
+		}
+
+		boolean add(final Statement theStmt) {
+			if (contains(theStmt)) {
+				return false;
+			}
+
+			mStatements.add(theStmt);
+
+			if (mMembers != null) {
+				mMembers.add(theStmt);
+			}
+			else if (mStatements.size() > HASHED_SIZE) {
+				mMembers = Sets.newHashSet(mStatements);
+			}
+
+			return true;
+		}
+
+		boolean remove(final Object theStmt) {
+			if (!contains(theStmt)) {
+				return false;
+			}
+
+			mStatements.remove(theStmt);
+
+			if (mMembers != null) {
+				mMembers.remove(theStmt);
+			}
+
+			return true;
+		}
+	}
+}
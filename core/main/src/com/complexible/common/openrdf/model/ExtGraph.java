@@ -16,6 +16,7 @@
 package com.complexible.common.openrdf.model;
 
 import java.util.List;
+import java.util.Map;
 
 import com.google.common.base.Optional;
 
@@ -66,6 +67,16 @@ public interface ExtGraph extends IOGraph, FunctionalGraph {
 	 */
 	public Iterable<Resource> getInstancesOf(final URI theType);
 
+	/**
+	 * Returns all the instances of the specified type, and optionally, of all of its rdfs:subClassOf descendants as
+	 * asserted in the graph
+	 *
+	 * @param theType			the type for instances to return
+	 * @param theSubClasses		true to include the instances of the subclasses of the type
+	 * @return					the distinct instances of the type
+	 */
+	public Iterable<Resource> getInstancesOf(final URI theType, final boolean theSubClasses);
+
 	/**
 	 * Return a collection of all the individuals in the graph
 	 * @return all individuals
@@ -124,6 +135,14 @@ public interface ExtGraph extends IOGraph, FunctionalGraph {
 	 */
 	public List<Value> asList(final Resource theRes);
 
+	/**
+	 * Return the contents of every rdf:List in the graph, keyed by the head of the list
+	 * @return	the lists
+	 *
+	 * @see Graphs#lists
+	 */
+	public Map<Resource, List<Value>> lists();
+
 	/**
 	 * Return the types of the provided instance
 	 * @param theRes	the instance
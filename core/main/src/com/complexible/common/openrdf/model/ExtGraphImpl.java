@@ -19,6 +19,8 @@ import com.google.common.base.Function;
 import com.google.common.base.Optional;
 import com.google.common.base.Predicate;
 import com.google.common.collect.Iterables;
+import com.google.common.collect.Queues;
+import com.google.common.collect.Sets;
 import org.openrdf.model.Graph;
 import org.openrdf.model.Value;
 import org.openrdf.model.URI;
@@ -27,6 +29,7 @@ import org.openrdf.model.Literal;
 import org.openrdf.model.Statement;
 
 import org.openrdf.model.vocabulary.RDF;
+import org.openrdf.model.vocabulary.RDFS;
 import org.openrdf.model.util.GraphUtil;
 import org.openrdf.rio.RDFFormat;
 import org.openrdf.rio.RDFParseException;
@@ -35,7 +38,10 @@ import java.io.OutputStream;
 import java.io.OutputStreamWriter;
 import java.io.Writer;
 import java.util.Collection;
+import java.util.Deque;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
 
 import java.io.File;
 import java.io.InputStream;
@@ -74,6 +80,34 @@ final class ExtGraphImpl extends DelegatingGraph implements ExtGraph {
         return GraphUtil.getSubjects(this, RDF.TYPE, theType);
     }
 
+	/**
+	 * @inheritDoc
+	 */
+	@Override
+	public Iterable<Resource> getInstancesOf(final URI theType, final boolean theSubClasses) {
+		if (!theSubClasses) {
+			return Sets.newLinkedHashSet(getInstancesOf(theType));
+		}
+
+		final Set<Resource> aInstances = Sets.newLinkedHashSet();
+		final Set<Resource> aTypes = Sets.<Resource>newHashSet(theType);
+		final Deque<Resource> aQueue = Queues.<Resource>newArrayDeque(aTypes);
+
+		while (!aQueue.isEmpty()) {
+			final Resource aType = aQueue.poll();
+
+			Iterables.addAll(aInstances, GraphUtil.getSubjects(this, RDF.TYPE, aType));
+
+			for (Resource aSubClass : GraphUtil.getSubjects(this, RDFS.SUBCLASSOF, aType)) {
+				if (aTypes.add(aSubClass)) {
+					aQueue.add(aSubClass);
+				}
+			}
+		}
+
+		return aInstances;
+	}
+
 	/**
 	 * @inheritDoc
 	 */
@@ -98,6 +132,14 @@ final class ExtGraphImpl extends DelegatingGraph implements ExtGraph {
        return Graphs.asList(this, theRes);
 	}
 
+	/**
+	 * @inheritDoc
+	 */
+	@Override
+	public Map<Resource, List<Value>> lists() {
+		return Graphs.lists(this);
+	}
+
 	/**
 	 * @inheritDoc
 	 */
@@ -0,0 +1,129 @@
+/*
+ * Copyright (c) 2009-2014 Clark & Parsia, LLC. <http://www.clarkparsia.com>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.complexible.common.openrdf.model;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+
+import com.google.common.base.Charsets;
+import com.google.common.hash.HashCode;
+import com.google.common.hash.HashFunction;
+import com.google.common.hash.Hasher;
+import com.google.common.hash.Hashing;
+
+import org.openrdf.model.BNode;
+import org.openrdf.model.Literal;
+import org.openrdf.model.Statement;
+import org.openrdf.model.URI;
+import org.openrdf.model.Value;
+
+/**
+ * <p>Order-independent 128-bit hash of a set of statements, kept as the sum of a 128-bit murmur3 hash of each
+ * statement so that it can be updated as statements are added and removed rather than recomputed.  Each half of
+ * the sum is kept separately, modulo 2<sup>64</sup>.</p>
+ *
+ * <p>The hash of a statement covers its subject, predicate, object and context, with blank nodes hashed by their
+ * id, so statements which are equal have the same hash.  Unlike {@link Canonicalizer#fingerprint}, graphs which
+ * differ only in the ids of their blank nodes will have different fingerprints.</p>
+ *
+ * @author  Michael Grove
+ * @since   2.0.2
+ * @version 2.0.2
+ */
+final class Fingerprint {
+	private static final HashFunction HASH = Hashing.murmur3_128();
+
+	private long mLow;
+
+	private long mHigh;
+
+	/**
+	 * Add the statement to the fingerprint
+	 *
+	 * @param theStatement	the statement
+	 */
+	void add(final Statement theStatement) {
+		final ByteBuffer aHash = hash(theStatement);
+
+		mLow += aHash.getLong();
+		mHigh += aHash.getLong();
+	}
+
+	/**
+	 * Remove the statement, which must have been added, from the fingerprint
+	 *
+	 * @param theStatement	the statement
+	 */
+	void remove(final Statement theStatement) {
+		final ByteBuffer aHash = hash(theStatement);
+
+		mLow -= aHash.getLong();
+		mHigh -= aHash.getLong();
+	}
+
+	/**
+	 * Reset the fingerprint to that of an empty set of statements
+	 */
+	void clear() {
+		mLow = 0;
+		mHigh = 0;
+	}
+
+	/**
+	 * Return the current value of the fingerprint
+	 *
+	 * @return	the fingerprint
+	 */
+	HashCode hash() {
+		return HashCode.fromBytes(ByteBuffer.allocate(16).order(ByteOrder.LITTLE_ENDIAN).putLong(mLow).putLong(mHigh).array());
+	}
+
+	private static ByteBuffer hash(final Statement theStatement) {
+		final Hasher aHasher = HASH.newHasher();
+
+		put(aHasher, theStatement.getSubject());
+		put(aHasher, theStatement.getPredicate());
+		put(aHasher, theStatement.getObject());
+		put(aHasher, theStatement.getContext());
+
+		return ByteBuffer.wrap(aHasher.hash().asBytes()).order(ByteOrder.LITTLE_ENDIAN);
+	}
+
+	private static void put(final Hasher theHasher, final Value theValue) {
+		// each term is tagged and terminated so that adjacent terms cannot run together
+		if (theValue == null) {
+			theHasher.putChar('n');
+		}
+		else if (theValue instanceof URI) {
+			theHasher.putChar('u').putString(theValue.stringValue(), Charsets.UTF_8).putChar('\0');
+		}
+		else if (theValue instanceof BNode) {
+			theHasher.putChar('b').putString(((BNode) theValue).getID(), Charsets.UTF_8).putChar('\0');
+		}
+		else {
+			final Literal aLit = (Literal) theValue;
+
+			theHasher.putChar('l').putString(aLit.getLabel(), Charsets.UTF_8).putChar('\0');
+
+			if (aLit.getLanguage() != null) {
+				theHasher.putChar('@').putString(aLit.getLanguage(), Charsets.UTF_8).putChar('\0');
+			}
+			else if (aLit.getDatatype() != null) {
+				theHasher.putChar('^').putString(aLit.getDatatype().stringValue(), Charsets.UTF_8).putChar('\0');
+			}
+		}
+	}
+}
@@ -0,0 +1,508 @@
+/*
+ * Copyright (c) 2009-2014 Clark & Parsia, LLC. <http://www.clarkparsia.com>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.complexible.common.openrdf.model;
+
+import java.util.AbstractCollection;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+
+import com.google.common.collect.AbstractIterator;
+import com.google.common.collect.UnmodifiableIterator;
+
+import org.openrdf.model.Graph;
+import org.openrdf.model.Resource;
+import org.openrdf.model.Statement;
+import org.openrdf.model.URI;
+import org.openrdf.model.Value;
+import org.openrdf.model.ValueFactory;
+
+/**
+ * <p>A read-only {@link Graph} compacted into sorted primitive arrays.  Values are dictionary encoded and the
+ * statements are stored once, as rows of four ids sorted in SPOC order, with two permutations of the rows in POSC and
+ * OSPC order.  {@link #filter Pattern lookups} binary search whichever order has the bound terms as a prefix, and
+ * the hash code is computed once when the graph is built.</p>
+ *
+ * <p>Nothing is modified after construction, so the graph can be read from any number of threads without
+ * locking.  Statements are distinguished by their subject, predicate, object and context.  Created via
+ * {@link ImmutableGraph#of(Iterable)} and friends.</p>
+ *
+ * @author  Michael Grove
+ * @since   2.0.2
+ * @version 2.0.2
+ */
+final class FrozenGraph extends AbstractCollection<Statement> implements MatchableGraph, SplittableGraph {
+	private static final int[] SPOC = { QuadTable.SUBJ, QuadTable.PRED, QuadTable.OBJ, QuadTable.CONTEXT };
+	private static final int[] POSC = { QuadTable.PRED, QuadTable.OBJ, QuadTable.SUBJ, QuadTable.CONTEXT };
+	private static final int[] OSPC = { QuadTable.OBJ, QuadTable.SUBJ, QuadTable.PRED, QuadTable.CONTEXT };
+
+	private final ValueDictionary mDictionary;
+
+	/**
+	 * The statements, four ids per row, sorted in SPOC order
+	 */
+	private final int[] mQuads;
+
+	/**
+	 * Row numbers of {@link #mQuads} in POSC order
+	 */
+	private final int[] mPOS;
+
+	/**
+	 * Row numbers of {@link #mQuads} in OSPC order
+	 */
+	private final int[] mOSP;
+
+	private final int mSize;
+
+	private final int mHashCode;
+
+	private final ValueFactory mValueFactory = new ContextAwareValueFactory();
+
+	FrozenGraph(final Iterator<? extends Statement> theStatements) {
+		mDictionary = new ValueDictionary();
+
+		int[] aQuads = new int[64];
+		int aRows = 0;
+
+		while (theStatements.hasNext()) {
+			final Statement aStmt = theStatements.next();
+
+			if (aRows * 4 == aQuads.length) {
+				int[] aCopy = new int[aQuads.length * 2];
+				System.arraycopy(aQuads, 0, aCopy, 0, aQuads.length);
+				aQuads = aCopy;
+			}
+
+			final int aOffset = aRows++ * 4;
+			aQuads[aOffset + QuadTable.SUBJ] = mDictionary.encode(aStmt.getSubject());
+			aQuads[aOffset + QuadTable.PRED] = mDictionary.encode(aStmt.getPredicate());
+			aQuads[aOffset + QuadTable.OBJ] = mDictionary.encode(aStmt.getObject());
+			aQuads[aOffset + QuadTable.CONTEXT] = mDictionary.encode(aStmt.getContext());
+		}
+
+		mDictionary.trimToSize();
+
+		// sort, then copy the rows over in order dropping duplicates
+		final int[] aOrder = sort(rows(aRows), aQuads, SPOC);
+
+		int aSize = 0;
+		for (int i = 0; i < aRows; i++) {
+			if (i == 0 || compareRows(aQuads, aOrder[i - 1], aOrder[i], SPOC) != 0) {
+				aOrder[aSize++] = aOrder[i];
+			}
+		}
+
+		mSize = aSize;
+		mQuads = new int[aSize * 4];
+		for (int i = 0; i < aSize; i++) {
+			System.arraycopy(aQuads, aOrder[i] * 4, mQuads, i * 4, 4);
+		}
+
+		mPOS = sort(rows(aSize), mQuads, POSC);
+		mOSP = sort(rows(aSize), mQuads, OSPC);
+
+		int aHash = 0;
+		for (int i = 0; i < aSize; i++) {
+			aHash += statement(i).hashCode();
+		}
+		mHashCode = aHash;
+	}
+
+	/**
+	 * @inheritDoc
+	 */
+	@Override
+	public int size() {
+		return mSize;
+	}
+
+	/**
+	 * @inheritDoc
+	 */
+	@Override
+	public Iterator<Statement> iterator() {
+		return new UnmodifiableIterator<Statement>() {
+			private int mRow = 0;
+
+			@Override
+			public boolean hasNext() {
+				return mRow < mSize;
+			}
+
+			@Override
+			public Statement next() {
+				if (!hasNext()) {
+					throw new NoSuchElementException();
+				}
+
+				return statement(mRow++);
+			}
+		};
+	}
+
+	/**
+	 * @inheritDoc
+	 */
+	@Override
+	public boolean contains(final Object theObj) {
+		if (!(theObj instanceof Statement)) {
+			return false;
+		}
+
+		final Statement aStmt = (Statement) theObj;
+		final int[] aKey = { mDictionary.id(aStmt.getSubject()), mDictionary.id(aStmt.getPredicate()),
+		                     mDictionary.id(aStmt.getObject()), mDictionary.id(aStmt.getContext()) };
+
+		for (int aId : aKey) {
+			if (aId == ValueDictionary.ABSENT) {
+				return false;
+			}
+		}
+
+		return lowerBound(null, SPOC, aKey, 4) != upperBound(null, SPOC, aKey, 4);
+	}
+
+	/**
+	 * @inheritDoc
+	 */
+	@Override
+	public Iterable<Statement> filter(final Resource theSubj, final URI thePred, final Value theObj, final Resource... theContexts) {
+		final int aSubj = theSubj == null ? ValueDictionary.ABSENT : mDictionary.id(theSubj);
+		final int aPred = thePred == null ? ValueDictionary.ABSENT : mDictionary.id(thePred);
+		final int aObj = theObj == null ? ValueDictionary.ABSENT : mDictionary.id(theObj);
+
+		if ((theSubj != null && aSubj == ValueDictionary.ABSENT)
+		    || (thePred != null && aPred == ValueDictionary.ABSENT)
+		    || (theObj != null && aObj == ValueDictionary.ABSENT)) {
+			return Collections.emptySet();
+		}
+
+		final int[] aContexts;
+		if (theContexts == null || theContexts.length == 0) {
+			aContexts = null;
+		}
+		else {
+			aContexts = new int[theContexts.length];
+			for (int i = 0; i < theContexts.length; i++) {
+				aContexts[i] = mDictionary.id(theContexts[i]);
+			}
+		}
+
+		// pick the order in which the bound terms form a prefix, the key is the bound ids in that order
+		final int[] aRows;
+		final int[] aOrder;
+		final int[] aKey;
+
+		if (theSubj != null) {
+			if (thePred == null && theObj != null) {
+				aRows = mOSP;
+				aOrder = OSPC;
+				aKey = new int[] { aObj, aSubj };
+			}
+			else {
+				aRows = null;
+				aOrder = SPOC;
+				aKey = thePred == null ? new int[] { aSubj }
+				                       : theObj == null ? new int[] { aSubj, aPred } : new int[] { aSubj, aPred, aObj };
+			}
+		}
+		else if (thePred != null) {
+			aRows = mPOS;
+			aOrder = POSC;
+			aKey = theObj == null ? new int[] { aPred } : new int[] { aPred, aObj };
+		}
+		else if (theObj != null) {
+			aRows = mOSP;
+			aOrder = OSPC;
+			aKey = new int[] { aObj };
+		}
+		else {
+			aRows = null;
+			aOrder = SPOC;
+			aKey = new int[0];
+		}
+
+		final int aStart = lowerBound(aRows, aOrder, aKey, aKey.length);
+		final int aEnd = upperBound(aRows, aOrder, aKey, aKey.length);
+
+		return new Iterable<Statement>() {
+			@Override
+			public Iterator<Statement> iterator() {
+				return new AbstractIterator<Statement>() {
+					private int mIndex = aStart;
+
+					@Override
+					protected Statement computeNext() {
+						while (mIndex < aEnd) {
+							final int aRow = aRows == null ? mIndex : aRows[mIndex];
+							mIndex++;
+
+							if (matchesContext(aRow, aContexts)) {
+								return statement(aRow);
+							}
+						}
+
+						return endOfData();
+					}
+				};
+			}
+		};
+	}
+
+	/**
+	 * @inheritDoc
+	 */
+	@Override
+	public List<Collection<Statement>> split(final int theParts) {
+		return Ranges.split(mSize, theParts, new Ranges.Positions() {
+			@Override
+			public Statement get(final int thePosition) {
+				return statement(thePosition);
+			}
+		});
+	}
+
+	/**
+	 * @inheritDoc
+	 */
+	@Override
+	@Deprecated
+	public Iterator<Statement> match(final Resource theSubject, final URI thePredicate, final Value theObject, final Resource... theContexts) {
+		return filter(theSubject, thePredicate, theObject, theContexts).iterator();
+	}
+
+	/**
+	 * @inheritDoc
+	 */
+	@Override
+	@Deprecated
+	public ValueFactory getValueFactory() {
+		return mValueFactory;
+	}
+
+	/**
+	 * @inheritDoc
+	 */
+	@Override
+	public boolean add(final Resource theSubject, final URI thePredicate, final Value theObject, final Resource... theContexts) {
+		throw new UnsupportedOperationException();
+	}
+
+	/**
+	 * @inheritDoc
+	 */
+	@Override
+	public boolean add(final Statement theStatement) {
+		throw new UnsupportedOperationException();
+	}
+
+	/**
+	 * @inheritDoc
+	 */
+	@Override
+	public boolean remove(final Object theObj) {
+		throw new UnsupportedOperationException();
+	}
+
+	/**
+	 * @inheritDoc
+	 */
+	@Override
+	public boolean removeAll(final Collection<?> theObjs) {
+		throw new UnsupportedOperationException();
+	}
+
+	/**
+	 * @inheritDoc
+	 */
+	@Override
+	public boolean retainAll(final Collection<?> theObjs) {
+		throw new UnsupportedOperationException();
+	}
+
+	/**
+	 * @inheritDoc
+	 */
+	@Override
+	public void clear() {
+		throw new UnsupportedOperationException();
+	}
+
+	/**
+	 * @inheritDoc
+	 */
+	@Override
+	public boolean equals(final Object o) {
+		if (this == o) {
+			return true;
+		}
+		else if (o == null || getClass() != o.getClass()) {
+			return false;
+		}
+
+		final FrozenGraph that = (FrozenGraph) o;
+
+		return mSize == that.mSize && mHashCode == that.mHashCode && containsAll(that);
+	}
+
+	/**
+	 * @inheritDoc
+	 */
+	@Override
+	public int hashCode() {
+		return mHashCode;
+	}
+
+	private boolean matchesContext(final int theRow, final int[] theContexts) {
+		if (theContexts == null) {
+			return true;
+		}
+
+		final int aContext = mQuads[theRow * 4 + QuadTable.CONTEXT];
+		for (int aId : theContexts) {
+			if (aId == aContext) {
+				return true;
+			}
+		}
+
+		return false;
+	}
+
+	private Statement statement(final int theRow) {
+		final int aOffset = theRow * 4;
+
+		return new ContextAwareStatement((Resource) mDictionary.decode(mQuads[aOffset + QuadTable.SUBJ]),
+		                                 (URI) mDictionary.decode(mQuads[aOffset + QuadTable.PRED]),
+		                                 mDictionary.decode(mQuads[aOffset + QuadTable.OBJ]),
+		                                 (Resource) mDictionary.decode(mQuads[aOffset + QuadTable.CONTEXT]));
+	}
+
+	/**
+	 * Return the first index whose row is not less than the key
+	 * @param theRows	the rows in the order, or null for the rows of {@link #mQuads} themselves
+	 */
+	private int lowerBound(final int[] theRows, final int[] theOrder, final int[] theKey, final int theLength) {
+		int aLow = 0;
+		int aHigh = mSize;
+
+		while (aLow < aHigh) {
+			final int aMid = (aLow + aHigh) >>> 1;
+
+			if (compareKey(theRows == null ? aMid : theRows[aMid], theOrder, theKey, theLength) < 0) {
+				aLow = aMid + 1;
+			}
+			else {
+				aHigh = aMid;
+			}
+		}
+
+		return aLow;
+	}
+
+	/**
+	 * Return the first index whose row is greater than the key
+	 * @param theRows	the rows in the order, or null for the rows of {@link #mQuads} themselves
+	 */
+	private int upperBound(final int[] theRows, final int[] theOrder, final int[] theKey, final int theLength) {
+		int aLow = 0;
+		int aHigh = mSize;
+
+		while (aLow < aHigh) {
+			final int aMid = (aLow + aHigh) >>> 1;
+
+			if (compareKey(theRows == null ? aMid : theRows[aMid], theOrder, theKey, theLength) <= 0) {
+				aLow = aMid + 1;
+			}
+			else {
+				aHigh = aMid;
+			}
+		}
+
+		return aLow;
+	}
+
+	/**
+	 * Compare the first elements of the row, in the given order, to the key
+	 */
+	private int compareKey(final int theRow, final int[] theOrder, final int[] theKey, final int theLength) {
+		for (int i = 0; i < theLength; i++) {
+			final int aId = mQuads[theRow * 4 + theOrder[i]];
+
+			if (aId != theKey[i]) {
+				return aId < theKey[i] ? -1 : 1;
+			}
+		}
+
+		return 0;
+	}
+
+	private static int compareRows(final int[] theQuads, final int theRow, final int theOther, final int[] theOrder) {
+		for (int aElement : theOrder) {
+			final int aId = theQuads[theRow * 4 + aElement];
+			final int aOther = theQuads[theOther * 4 + aElement];
+
+			if (aId != aOther) {
+				return aId < aOther ? -1 : 1;
+			}
+		}
+
+		return 0;
+	}
+
+	private static int[] rows(final int theCount) {
+		final int[] aRows = new int[theCount];
+		for (int i = 0; i < theCount; i++) {
+			aRows[i] = i;
+		}
+		return aRows;
+	}
+
+	/**
+	 * Merge sort the row numbers by the rows they refer to, compared in the given order
+	 * @return the sorted rows
+	 */
+	private static int[] sort(final int[] theRows, final int[] theQuads, final int[] theOrder) {
+		int[] aFrom = theRows;
+		int[] aTo = new int[theRows.length];
+
+		for (int aWidth = 1; aWidth < theRows.length; aWidth *= 2) {
+			for (int aLow = 0; aLow < theRows.length; aLow += 2 * aWidth) {
+				final int aMid = Math.min(aLow + aWidth, theRows.length);
+				final int aHigh = Math.min(aLow + 2 * aWidth, theRows.length);
+
+				int i = aLow, j = aMid, k = aLow;
+				while (i < aMid && j < aHigh) {
+					aTo[k++] = compareRows(theQuads, aFrom[i], aFrom[j], theOrder) <= 0 ? aFrom[i++] : aFrom[j++];
+				}
+				while (i < aMid) {
+					aTo[k++] = aFrom[i++];
+				}
+				while (j < aHigh) {
+					aTo[k++] = aFrom[j++];
+				}
+			}
+
+			final int[] aTemp = aFrom;
+			aFrom = aTo;
+			aTo = aTemp;
+		}
+
+		return aFrom;
+	}
+}
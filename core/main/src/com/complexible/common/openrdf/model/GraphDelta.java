@@ -0,0 +1,534 @@
+/*
+ * Copyright (c) 2009-2014 Clark & Parsia, LLC. <http://www.clarkparsia.com>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.complexible.common.openrdf.model;
+
+import java.util.BitSet;
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import com.google.common.base.Charsets;
+import com.google.common.base.Objects;
+import com.google.common.base.Predicate;
+import com.google.common.base.Predicates;
+import com.google.common.collect.HashMultimap;
+import com.google.common.collect.HashMultiset;
+import com.google.common.collect.Iterables;
+import com.google.common.collect.LinkedHashMultimap;
+import com.google.common.collect.Lists;
+import com.google.common.collect.Maps;
+import com.google.common.collect.Multimap;
+import com.google.common.collect.Multiset;
+import com.google.common.collect.Sets;
+import com.google.common.hash.HashCode;
+import com.google.common.hash.HashFunction;
+import com.google.common.hash.Hasher;
+import com.google.common.hash.Hashing;
+
+import org.openrdf.model.BNode;
+import org.openrdf.model.Graph;
+import org.openrdf.model.Literal;
+import org.openrdf.model.Resource;
+import org.openrdf.model.Statement;
+import org.openrdf.model.URI;
+import org.openrdf.model.Value;
+import org.openrdf.model.ValueFactory;
+import org.openrdf.model.impl.ValueFactoryImpl;
+
+/**
+ * <p>The difference between two versions of a {@link Graph}: the statements to remove from the old version and the
+ * statements to add to it to get the new version.  Applying a delta with
+ * {@link com.complexible.common.openrdf.repository.RepositoryConnections#apply RepositoryConnections.apply} or
+ * {@link com.complexible.common.openrdf.sail.SailConnections#apply SailConnections.apply} touches only the changed
+ * statements, in a single transaction, rather than removing the old graph and adding the new one.</p>
+ *
+ * <p>The delta is computed by hashing every statement of both graphs, sorting the hashes and merging the two sorted
+ * runs, so it takes O(n log n) time however many statements changed.  Statements with equal hashes are compared
+ * directly, so a hash collision can not hide a change.  Statements are distinguished by their subject, predicate,
+ * object and context.</p>
+ *
+ * <p>When either graph has blank nodes, the blank nodes of the new graph are matched to those of the old graph by
+ * structure rather than by id, so re-reading an unchanged file does not produce a delta.  Blank nodes are matched by a
+ * signature of their own neighbourhood, a few statements deep, so a change to the graph only affects the matching of
+ * the blank nodes near it.  Blank nodes whose signatures are not unique, or changed, are matched by their
+ * {@link Canonicalizer canonical labels} where those agree, and the rest of those with the same signature are paired
+ * up in turn.  A blank node whose own statements changed is matched to the old blank node it shares the most
+ * statements with.  Added statements use the blank node of the old graph it was matched to, so they connect to what
+ * is already stored.  A blank node which could not be matched shows up as the removal of all its statements and the
+ * addition of the statements of its replacement; statements without blank nodes are always diffed exactly.</p>
+ *
+ * @author  Michael Grove
+ * @since   2.0.2
+ * @version 2.0.2
+ */
+public final class GraphDelta {
+	private static final HashFunction HASH = Hashing.murmur3_128();
+
+	/**
+	 * How many statements out from a blank node its signature covers
+	 */
+	private static final int SIGNATURE_DEPTH = 3;
+
+	/**
+	 * Stands for the blank node itself in the {@link #edges edges} of a statement
+	 */
+	private static final Object SELF = new Object();
+
+	private static final Predicate<Statement> HAS_BNODE = new Predicate<Statement>() {
+		@Override
+		public boolean apply(final Statement theStatement) {
+			return theStatement.getSubject() instanceof BNode
+			       || theStatement.getObject() instanceof BNode
+			       || theStatement.getContext() instanceof BNode;
+		}
+	};
+
+	private final Graph mAdditions;
+
+	private final Graph mRemovals;
+
+	private GraphDelta(final Graph theAdditions, final Graph theRemovals) {
+		mAdditions = ImmutableGraph.of(theAdditions);
+		mRemovals = ImmutableGraph.of(theRemovals);
+	}
+
+	/**
+	 * Compute the delta which turns the old graph into the new graph
+	 *
+	 * @param theOld	the old version of the graph
+	 * @param theNew	the new version of the graph
+	 * @return			the delta between the versions
+	 */
+	public static GraphDelta between(final Graph theOld, final Graph theNew) {
+		final List<Statement> aOld = Lists.newArrayList(theOld);
+		final List<Statement> aNew = Lists.newArrayList(theNew);
+
+		// the blank node of the old graph each blank node of the new graph is matched to, so additions attach to stored
+		// blank nodes, and a label for each blank node which is the same for matched nodes
+		final Map<BNode, BNode> aReuse = Maps.newHashMap();
+		final Map<BNode, BNode> aOldLabels = Maps.newHashMap();
+		final Map<BNode, BNode> aNewLabels = Maps.newHashMap();
+
+		if (Iterables.any(aOld, HAS_BNODE) || Iterables.any(aNew, HAS_BNODE)) {
+			match(theOld, theNew, aReuse);
+
+			final ValueFactory aFactory = ValueFactoryImpl.getInstance();
+			for (Map.Entry<BNode, BNode> aEntry : aReuse.entrySet()) {
+				final BNode aLabel = aFactory.createBNode("m" + aOldLabels.size());
+				aOldLabels.put(aEntry.getValue(), aLabel);
+				aNewLabels.put(aEntry.getKey(), aLabel);
+			}
+
+			for (Statement aStmt : Iterables.filter(aOld, HAS_BNODE)) {
+				label(aStmt, aOldLabels, "o", aFactory);
+			}
+			for (Statement aStmt : Iterables.filter(aNew, HAS_BNODE)) {
+				label(aStmt, aNewLabels, "n", aFactory);
+			}
+		}
+
+		final long[] aOldKeys = keys(aOld, aOldLabels);
+		final long[] aNewKeys = keys(aNew, aNewLabels);
+
+		final int[] aOldOrder = order(aOldKeys);
+		final int[] aNewOrder = order(aNewKeys);
+
+		final Graph aRemovals = new SetGraph();
+		final Graph aAdditions = new SetGraph();
+
+		int i = 0, j = 0;
+		while (i < aOldOrder.length || j < aNewOrder.length) {
+			final long aOldKey = i < aOldOrder.length ? aOldKeys[aOldOrder[i]] : Long.MAX_VALUE;
+			final long aNewKey = j < aNewOrder.length ? aNewKeys[aNewOrder[j]] : Long.MAX_VALUE;
+
+			if (j == aNewOrder.length || (i < aOldOrder.length && aOldKey < aNewKey)) {
+				aRemovals.add(aOld.get(aOldOrder[i++]));
+			}
+			else if (i == aOldOrder.length || aNewKey < aOldKey) {
+				aAdditions.add(relabel(aNew.get(aNewOrder[j++]), aReuse));
+			}
+			else {
+				// the runs of equal keys on each side, matched up by comparing the statements
+				int aOldEnd = i, aNewEnd = j;
+				while (aOldEnd < aOldOrder.length && aOldKeys[aOldOrder[aOldEnd]] == aOldKey) {
+					aOldEnd++;
+				}
+				while (aNewEnd < aNewOrder.length && aNewKeys[aNewOrder[aNewEnd]] == aNewKey) {
+					aNewEnd++;
+				}
+
+				final BitSet aMatched = new BitSet();
+				for (int aOldPos = i; aOldPos < aOldEnd; aOldPos++) {
+					final Statement aOldStmt = relabel(aOld.get(aOldOrder[aOldPos]), aOldLabels);
+
+					boolean aFound = false;
+					for (int aNewPos = j; aNewPos < aNewEnd && !aFound; aNewPos++) {
+						if (!aMatched.get(aNewPos - j) && same(aOldStmt, relabel(aNew.get(aNewOrder[aNewPos]), aNewLabels))) {
+							aMatched.set(aNewPos - j);
+							aFound = true;
+						}
+					}
+
+					if (!aFound) {
+						aRemovals.add(aOld.get(aOldOrder[aOldPos]));
+					}
+				}
+
+				for (int aNewPos = j; aNewPos < aNewEnd; aNewPos++) {
+					if (!aMatched.get(aNewPos - j)) {
+						aAdditions.add(relabel(aNew.get(aNewOrder[aNewPos]), aReuse));
+					}
+				}
+
+				i = aOldEnd;
+				j = aNewEnd;
+			}
+		}
+
+		return new GraphDelta(aAdditions, aRemovals);
+	}
+
+	/**
+	 * Return the statements to add
+	 * @return	the additions
+	 */
+	public Graph getAdditions() {
+		return mAdditions;
+	}
+
+	/**
+	 * Return the statements to remove
+	 * @return	the removals
+	 */
+	public Graph getRemovals() {
+		return mRemovals;
+	}
+
+	/**
+	 * Return whether or not the two graphs were the same
+	 * @return	true if there are no changes, false otherwise
+	 */
+	public boolean isEmpty() {
+		return mAdditions.isEmpty() && mRemovals.isEmpty();
+	}
+
+	/**
+	 * Return the number of changed statements
+	 * @return	the number of additions plus the number of removals
+	 */
+	public int size() {
+		return mAdditions.size() + mRemovals.size();
+	}
+
+	/**
+	 * Apply the delta to the graph, removing the {@link #getRemovals removals} and then adding the
+	 * {@link #getAdditions additions}
+	 *
+	 * @param theGraph	the graph to update
+	 */
+	public void apply(final Graph theGraph) {
+		theGraph.removeAll(mRemovals);
+		theGraph.addAll(mAdditions);
+	}
+
+	/**
+	 * @inheritDoc
+	 */
+	@Override
+	public String toString() {
+		return "GraphDelta(+" + mAdditions.size() + ", -" + mRemovals.size() + ")";
+	}
+
+	/**
+	 * Match the blank nodes of the new graph to those of the old graph: first those whose
+	 * {@link Canonicalizer#signatures signature} is unique in both graphs, then the rest by canonical label where the
+	 * labels agree, and lastly the remaining nodes with the same signature in turn
+	 */
+	private static void match(final Graph theOld, final Graph theNew, final Map<BNode, BNode> theMatches) {
+		final Multimap<HashCode, BNode> aOldNodes = bySignature(theOld);
+		final Multimap<HashCode, BNode> aNewNodes = bySignature(theNew);
+
+		final Set<BNode> aMatched = Sets.newHashSet();
+
+		for (HashCode aSignature : aOldNodes.keySet()) {
+			final Collection<BNode> aOld = aOldNodes.get(aSignature);
+			final Collection<BNode> aNew = aNewNodes.get(aSignature);
+
+			if (aOld.size() == 1 && aNew.size() == 1) {
+				theMatches.put(aNew.iterator().next(), aOld.iterator().next());
+				aMatched.add(aOld.iterator().next());
+			}
+		}
+
+		if (theMatches.size() == aOldNodes.size() || theMatches.size() == aNewNodes.size()) {
+			return;
+		}
+
+		// canonical labels cover the whole graph, so they only agree where the blank node structure is unchanged, but
+		// that is enough to tell apart nodes whose neighbourhoods only differ further away than the signatures reach
+		final Map<BNode, BNode> aOldLabels = Canonicalizer.labels(theOld);
+		final Map<BNode, BNode> aNewLabels = Canonicalizer.labels(theNew);
+
+		final Map<BNode, BNode> aOldByLabel = Maps.newHashMap();
+		for (BNode aNode : aOldNodes.values()) {
+			if (!aMatched.contains(aNode)) {
+				aOldByLabel.put(aOldLabels.get(aNode), aNode);
+			}
+		}
+
+		for (BNode aNode : aNewNodes.values()) {
+			final BNode aOld = theMatches.containsKey(aNode) ? null : aOldByLabel.remove(aNewLabels.get(aNode));
+
+			if (aOld != null) {
+				theMatches.put(aNode, aOld);
+				aMatched.add(aOld);
+			}
+		}
+
+		for (HashCode aSignature : aOldNodes.keySet()) {
+			final Iterator<BNode> aOld = Iterables.filter(aOldNodes.get(aSignature), Predicates.not(Predicates.in(aMatched))).iterator();
+
+			for (BNode aNode : aNewNodes.get(aSignature)) {
+				if (!aOld.hasNext()) {
+					break;
+				}
+				else if (!theMatches.containsKey(aNode)) {
+					final BNode aOldNode = aOld.next();
+					theMatches.put(aNode, aOldNode);
+					aMatched.add(aOldNode);
+				}
+			}
+		}
+
+		matchByStatements(theOld, theNew, theMatches, aMatched);
+	}
+
+	/**
+	 * Match the blank nodes left over, whose own neighbourhood changed, to the old node they share the most statements
+	 * with, taking the blank nodes matched so far as the same.  A node is left unmatched when no old node shares a
+	 * statement with it, or when several share the most.
+	 */
+	private static void matchByStatements(final Graph theOld, final Graph theNew, final Map<BNode, BNode> theMatches,
+	                                      final Set<BNode> theMatched) {
+		final Map<BNode, BNode> aOldNodes = Maps.newHashMap();
+		for (BNode aNode : theMatched) {
+			aOldNodes.put(aNode, aNode);
+		}
+
+		final Multimap<List<Object>, BNode> aOldEdges = HashMultimap.create();
+		for (Statement aStmt : Iterables.filter(theOld, HAS_BNODE)) {
+			for (Map.Entry<BNode, List<Object>> aEdge : edges(aStmt, aOldNodes).entrySet()) {
+				if (!theMatched.contains(aEdge.getKey())) {
+					aOldEdges.put(aEdge.getValue(), aEdge.getKey());
+				}
+			}
+		}
+
+		if (aOldEdges.isEmpty()) {
+			return;
+		}
+
+		final Map<BNode, Multiset<BNode>> aShared = Maps.newLinkedHashMap();
+		for (Statement aStmt : Iterables.filter(theNew, HAS_BNODE)) {
+			for (Map.Entry<BNode, List<Object>> aEdge : edges(aStmt, theMatches).entrySet()) {
+				if (!theMatches.containsKey(aEdge.getKey()) && aOldEdges.containsKey(aEdge.getValue())) {
+					if (!aShared.containsKey(aEdge.getKey())) {
+						aShared.put(aEdge.getKey(), HashMultiset.<BNode>create());
+					}
+
+					aShared.get(aEdge.getKey()).addAll(aOldEdges.get(aEdge.getValue()));
+				}
+			}
+		}
+
+		for (Map.Entry<BNode, Multiset<BNode>> aEntry : aShared.entrySet()) {
+			BNode aBest = null;
+			int aBestCount = 0;
+			boolean aTied = false;
+
+			for (Multiset.Entry<BNode> aCandidate : aEntry.getValue().entrySet()) {
+				if (theMatched.contains(aCandidate.getElement())) {
+					continue;
+				}
+
+				if (aCandidate.getCount() > aBestCount) {
+					aBest = aCandidate.getElement();
+					aBestCount = aCandidate.getCount();
+					aTied = false;
+				}
+				else if (aCandidate.getCount() == aBestCount) {
+					aTied = true;
+				}
+			}
+
+			if (aBest != null && !aTied) {
+				theMatches.put(aEntry.getKey(), aBest);
+				theMatched.add(aBest);
+			}
+		}
+	}
+
+	/**
+	 * Return, for each blank node of the statement, the statement as seen from that node: its terms with the node
+	 * itself replaced by a marker, other matched blank nodes by the old node they are matched to and the rest by null
+	 */
+	private static Map<BNode, List<Object>> edges(final Statement theStmt, final Map<BNode, BNode> theMatches) {
+		final Value[] aTerms = { theStmt.getSubject(), theStmt.getPredicate(), theStmt.getObject(), theStmt.getContext() };
+		final Map<BNode, List<Object>> aEdges = Maps.newHashMapWithExpectedSize(2);
+
+		for (int aPos = 0; aPos < aTerms.length; aPos++) {
+			if (aTerms[aPos] instanceof BNode && !aEdges.containsKey(aTerms[aPos])) {
+				final List<Object> aEdge = Lists.newArrayListWithCapacity(aTerms.length);
+				for (int aOther = 0; aOther < aTerms.length; aOther++) {
+					if (aTerms[aOther] instanceof BNode) {
+						aEdge.add(aTerms[aOther].equals(aTerms[aPos]) ? SELF : theMatches.get(aTerms[aOther]));
+					}
+					else {
+						aEdge.add(aTerms[aOther]);
+					}
+				}
+
+				aEdges.put((BNode) aTerms[aPos], aEdge);
+			}
+		}
+
+		return aEdges;
+	}
+
+	private static Multimap<HashCode, BNode> bySignature(final Graph theGraph) {
+		final Multimap<HashCode, BNode> aNodes = LinkedHashMultimap.create();
+
+		for (Map.Entry<BNode, HashCode> aEntry : Canonicalizer.signatures(theGraph, SIGNATURE_DEPTH).entrySet()) {
+			aNodes.put(aEntry.getValue(), aEntry.getKey());
+		}
+
+		return aNodes;
+	}
+
+	/**
+	 * Give each blank node of the statement which does not have a label yet a new one
+	 */
+	private static void label(final Statement theStmt, final Map<BNode, BNode> theLabels, final String thePrefix,
+	                          final ValueFactory theFactory) {
+		for (Value aValue : new Value[] { theStmt.getSubject(), theStmt.getObject(), theStmt.getContext() }) {
+			if (aValue instanceof BNode && !theLabels.containsKey(aValue)) {
+				theLabels.put((BNode) aValue, theFactory.createBNode(thePrefix + theLabels.size()));
+			}
+		}
+	}
+
+	private static long[] keys(final List<Statement> theStatements, final Map<BNode, BNode> theLabels) {
+		final long[] aKeys = new long[theStatements.size()];
+
+		for (int i = 0; i < aKeys.length; i++) {
+			final Statement aStmt = theStatements.get(i);
+			final Hasher aHasher = HASH.newHasher();
+
+			put(aHasher, aStmt.getSubject(), theLabels);
+			put(aHasher, aStmt.getPredicate(), theLabels);
+			put(aHasher, aStmt.getObject(), theLabels);
+			put(aHasher, aStmt.getContext(), theLabels);
+
+			aKeys[i] = aHasher.hash().asLong();
+		}
+
+		return aKeys;
+	}
+
+	private static void put(final Hasher theHasher, final Value theValue, final Map<BNode, BNode> theLabels) {
+		if (theValue == null) {
+			theHasher.putChar('n');
+		}
+		else if (theValue instanceof BNode) {
+			theHasher.putChar('b').putString(theLabels.get(theValue).getID(), Charsets.UTF_8);
+		}
+		else if (theValue instanceof URI) {
+			theHasher.putChar('u').putString(theValue.stringValue(), Charsets.UTF_8);
+		}
+		else {
+			final Literal aLit = (Literal) theValue;
+
+			theHasher.putChar('l').putString(aLit.getLabel(), Charsets.UTF_8).putChar('\0')
+			         .putString(Objects.firstNonNull(aLit.getLanguage(), ""), Charsets.UTF_8).putChar('\0')
+			         .putString(aLit.getDatatype() == null ? "" : aLit.getDatatype().stringValue(), Charsets.UTF_8);
+		}
+
+		theHasher.putChar('\0');
+	}
+
+	/**
+	 * Return the positions of the keys in ascending order of key
+	 */
+	private static int[] order(final long[] theKeys) {
+		int[] aOrder = new int[theKeys.length];
+		int[] aBuffer = new int[theKeys.length];
+
+		for (int i = 0; i < aOrder.length; i++) {
+			aOrder[i] = i;
+		}
+
+		// bottom-up merge sort, swapping the roles of the arrays after each pass
+		for (int aWidth = 1; aWidth < aOrder.length; aWidth *= 2) {
+			for (int aStart = 0; aStart < aOrder.length; aStart += 2 * aWidth) {
+				final int aMid = Math.min(aStart + aWidth, aOrder.length);
+				final int aEnd = Math.min(aStart + 2 * aWidth, aOrder.length);
+
+				int aLeft = aStart, aRight = aMid, aOut = aStart;
+				while (aLeft < aMid && aRight < aEnd) {
+					aBuffer[aOut++] = theKeys[aOrder[aRight]] < theKeys[aOrder[aLeft]] ? aOrder[aRight++] : aOrder[aLeft++];
+				}
+				while (aLeft < aMid) {
+					aBuffer[aOut++] = aOrder[aLeft++];
+				}
+				while (aRight < aEnd) {
+					aBuffer[aOut++] = aOrder[aRight++];
+				}
+			}
+
+			final int[] aTmp = aOrder;
+			aOrder = aBuffer;
+			aBuffer = aTmp;
+		}
+
+		return aOrder;
+	}
+
+	private static Statement relabel(final Statement theStmt, final Map<BNode, BNode> theLabels) {
+		if (theLabels.isEmpty() || !HAS_BNODE.apply(theStmt)) {
+			return theStmt;
+		}
+
+		return new ContextAwareStatement((Resource) relabel(theStmt.getSubject(), theLabels),
+		                                 theStmt.getPredicate(),
+		                                 relabel(theStmt.getObject(), theLabels),
+		                                 (Resource) relabel(theStmt.getContext(), theLabels));
+	}
+
+	private static Value relabel(final Value theValue, final Map<BNode, BNode> theLabels) {
+		final BNode aLabel = theValue instanceof BNode ? theLabels.get(theValue) : null;
+
+		return aLabel == null ? theValue : aLabel;
+	}
+
+	private static boolean same(final Statement theStmt, final Statement theOther) {
+		return theStmt.getSubject().equals(theOther.getSubject())
+		       && theStmt.getPredicate().equals(theOther.getPredicate())
+		       && theStmt.getObject().equals(theOther.getObject())
+		       && Objects.equal(theStmt.getContext(), theOther.getContext());
+	}
+}
@@ -25,6 +25,7 @@ import org.openrdf.rio.RDFParseException;
 import org.openrdf.rio.RDFHandler;
 import org.openrdf.model.Graph;
 import org.openrdf.model.Statement;
+import org.openrdf.model.ValueFactory;
 
 import java.io.OutputStream;
 import java.io.OutputStreamWriter;
@@ -68,6 +69,37 @@ public final class GraphIO {
 		return readGraph(new FileInputStream(theFile), RDFFormat.forFileName(theFile.getName()));
 	}
 
+	/**
+	 * Read the RDF in the specified file into the given graph, such as a {@link MappedGraph}, rather than a new in-memory graph.
+	 * @param theFile	the file to read from
+	 * @param theGraph	the graph to add the statements to
+	 * @return			the graph
+	 *
+	 * @throws IOException			if there was an error reading from the file
+	 * @throws RDFParseException	if the RDF could not be parsed
+	 */
+	public static <T extends Graph> T readGraph(final File theFile, final T theGraph) throws IOException, RDFParseException {
+		return readGraph(theFile, theGraph, null);
+	}
+
+	/**
+	 * Read the RDF in the specified file into the given graph, creating the values and statements with the given
+	 * ValueFactory, such as an {@link InterningValueFactory}, rather than the parser's own.
+	 * @param theFile			the file to read from
+	 * @param theGraph			the graph to add the statements to
+	 * @param theValueFactory	the factory the parser creates values and statements with, or null for the default
+	 * @return					the graph
+	 *
+	 * @throws IOException			if there was an error reading from the file
+	 * @throws RDFParseException	if the RDF could not be parsed
+	 */
+	public static <T extends Graph> T readGraph(final File theFile, final T theGraph, final ValueFactory theValueFactory) throws IOException, RDFParseException {
+		readGraph(new GraphBuildingRDFHandler(theGraph), new InputStreamReader(new FileInputStream(theFile), Charsets.UTF_8),
+		          RDFFormat.forFileName(theFile.getName()), "http://openrdf.clarkparsia.com/", theValueFactory);
+
+		return theGraph;
+	}
+
 	/**
 	 * Read an RDF graph from the stream using the specified format
 	 * @param theInput the stream to read from
@@ -117,28 +149,9 @@ public final class GraphIO {
 	 * @throws RDFParseException if there is an error while trying to parse the data as the specified format
 	 */
 	public static Graph readGraph(Reader theInput, RDFFormat theFormat, String theBase) throws IOException, RDFParseException {
-		RDFParser aParser = Rio.createParser(theFormat);
-
-        aParser.getParserConfig().set(BasicParserSettings.VERIFY_DATATYPE_VALUES, false);
-        aParser.getParserConfig().set(BasicParserSettings.FAIL_ON_UNKNOWN_DATATYPES, false);
-        aParser.getParserConfig().set(BasicParserSettings.NORMALIZE_DATATYPE_VALUES, false);
-        aParser.getParserConfig().set(BasicParserSettings.PRESERVE_BNODE_IDS, true);
-
 		GraphBuildingRDFHandler aHandler = new GraphBuildingRDFHandler();
 
-		aParser.setRDFHandler(aHandler);
-
-		try {
-			aParser.parse(theInput, theBase);
-		}
-		catch (RDFHandlerException e) {
-			throw new RDFParseException(e);
-		}
-		finally {
-			if (theInput != null) {
-				theInput.close();
-			}
-		}
+		readGraph(aHandler, theInput, theFormat, theBase);
 
 		return aHandler.getGraph();
 	}
@@ -154,6 +167,22 @@ public final class GraphIO {
 	 * @throws RDFParseException if there is an error while trying to parse the data as the specified format
 	 */
 	public static void readGraph(RDFHandler theHandler, Reader theInput, RDFFormat theFormat, String theBase) throws IOException, RDFParseException {
+		readGraph(theHandler, theInput, theFormat, theBase, null);
+	}
+
+	/**
+	 * Read an RDF graph from the Reader using the specified format, creating the values and statements with the given
+	 * ValueFactory, such as an {@link InterningValueFactory}.  The reader is closed after parsing.
+	 *
+	 * @param theHandler the handler for the results of reading the data
+	 * @param theInput the reader to read from
+	 * @param theFormat the format the data is in
+	 * @param theBase the base url for parsing
+	 * @param theValueFactory the factory the parser creates values and statements with, or null for the parser's default
+	 * @throws IOException if there is an error while reading
+	 * @throws RDFParseException if there is an error while trying to parse the data as the specified format
+	 */
+	public static void readGraph(RDFHandler theHandler, Reader theInput, RDFFormat theFormat, String theBase, ValueFactory theValueFactory) throws IOException, RDFParseException {
 		RDFParser aParser = Rio.createParser(theFormat);
 
         aParser.getParserConfig().set(BasicParserSettings.VERIFY_DATATYPE_VALUES, false);
@@ -161,6 +190,10 @@ public final class GraphIO {
         aParser.getParserConfig().set(BasicParserSettings.NORMALIZE_DATATYPE_VALUES, false);
         aParser.getParserConfig().set(BasicParserSettings.PRESERVE_BNODE_IDS, true);
 
+		if (theValueFactory != null) {
+			aParser.setValueFactory(theValueFactory);
+		}
+
 		aParser.setRDFHandler(theHandler);
 
 		try {
@@ -0,0 +1,403 @@
+/*
+ * Copyright (c) 2009-2014 Clark & Parsia, LLC. <http://www.clarkparsia.com>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.complexible.common.openrdf.model;
+
+import java.util.AbstractCollection;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+
+import com.google.common.base.Function;
+import com.google.common.base.Functions;
+import com.google.common.base.Objects;
+import com.google.common.base.Optional;
+import com.google.common.base.Predicate;
+import com.google.common.base.Predicates;
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.Iterables;
+import com.google.common.collect.Iterators;
+import com.google.common.collect.Lists;
+
+import org.openrdf.model.Graph;
+import org.openrdf.model.Resource;
+import org.openrdf.model.Statement;
+import org.openrdf.model.URI;
+import org.openrdf.model.Value;
+import org.openrdf.model.ValueFactory;
+
+/**
+ * <p>A read-only, lazily computed view of one or more graphs.  Nothing is copied when a view is created; membership,
+ * iteration and pattern lookups are computed from the source graphs each time, so changes to the sources are visible
+ * through the view.  {@link #filter(Predicate) Filtering} or {@link #transform transforming} a view returns another
+ * view, with the stages fused together, so pipelines do not allocate intermediate graphs.  Use {@link #materialize}
+ * when a copy is really wanted.</p>
+ *
+ * <p>Since views are not backed by a set, {@link #size} is computed by iterating over the view.  Views created via
+ * {@link #transform} or {@link GraphViews#withContext} can produce the same statement more than once when the
+ * function maps two statements to equal results; {@link #materialize} removes such duplicates.</p>
+ *
+ * @author  Michael Grove
+ * @since   2.0.2
+ * @version 2.0.2
+ *
+ * @see GraphViews
+ */
+public abstract class GraphView extends AbstractCollection<Statement> implements FunctionalGraph, MatchableGraph {
+
+	private final ValueFactory mValueFactory = new ContextAwareValueFactory();
+
+	GraphView() {
+	}
+
+	/**
+	 * Return a view of the graph, or the graph itself if it is already a view
+	 * @param theGraph	the graph
+	 * @return			a view of the graph
+	 */
+	static GraphView of(final Graph theGraph) {
+		return theGraph instanceof GraphView ? (GraphView) theGraph : new FilteredView(theGraph, Predicates.<Statement>alwaysTrue());
+	}
+
+	static GraphView union(final Graph... theGraphs) {
+		return new UnionView(ImmutableList.copyOf(theGraphs));
+	}
+
+	static GraphView withContext(final Graph theGraph, final Resource theContext) {
+		return new ContextView(theGraph, theContext);
+	}
+
+	/**
+	 * Copy the contents of the view into a new graph
+	 * @return a new graph with the contents of this view
+	 */
+	public Graph materialize() {
+		return Graphs.newGraph(this);
+	}
+
+	/**
+	 * Return a view of the statements of this view which satisfy the predicate.  Nothing is copied.
+	 *
+	 * @param thePredicate	the predicate to use for filtering
+	 * @return				the filtered view
+	 */
+	@Override
+	public GraphView filter(final Predicate<Statement> thePredicate) {
+		return new FilteredView(this, thePredicate);
+	}
+
+	/**
+	 * Return a view of the statements of this view with the function applied.  Nothing is copied.
+	 *
+	 * @param theFunction	the function for the transform
+	 * @return				the transformed view
+	 */
+	@Override
+	public GraphView transform(final Function<Statement, Statement> theFunction) {
+		return new TransformedView(this, theFunction);
+	}
+
+	/**
+	 * @inheritDoc
+	 */
+	@Override
+	public Iterable<Statement> filter(final Resource theSubj, final URI thePred, final Value theObj, final Resource... theContexts) {
+		return Iterables.filter(this, Statements.matches(theSubj, thePred, theObj, theContexts));
+	}
+
+	/**
+	 * @inheritDoc
+	 */
+	@Override
+	public Optional<Statement> find(final Predicate<Statement> thePredicate) {
+		return Iterables.tryFind(this, thePredicate);
+	}
+
+	/**
+	 * @inheritDoc
+	 */
+	@Override
+	public boolean any(final Predicate<Statement> thePredicate) {
+		return Iterables.any(this, thePredicate);
+	}
+
+	/**
+	 * @inheritDoc
+	 */
+	@Override
+	public boolean all(final Predicate<Statement> thePredicate) {
+		return Iterables.all(this, thePredicate);
+	}
+
+	/**
+	 * @inheritDoc
+	 */
+	@Override
+	public <T> Collection<T> collect(final Function<Statement, Optional<T>> theFunction) {
+		return Graphs.collect(this, theFunction);
+	}
+
+	/**
+	 * @inheritDoc
+	 */
+	@Override
+	public int size() {
+		return Iterators.size(iterator());
+	}
+
+	/**
+	 * @inheritDoc
+	 */
+	@Override
+	public boolean isEmpty() {
+		return !iterator().hasNext();
+	}
+
+	/**
+	 * @inheritDoc
+	 */
+	@Override
+	@Deprecated
+	public ValueFactory getValueFactory() {
+		return mValueFactory;
+	}
+
+	/**
+	 * @inheritDoc
+	 */
+	@Override
+	@Deprecated
+	public Iterator<Statement> match(final Resource theSubject, final URI thePredicate, final Value theObject, final Resource... theContexts) {
+		return filter(theSubject, thePredicate, theObject, theContexts).iterator();
+	}
+
+	/**
+	 * @inheritDoc
+	 */
+	@Override
+	public boolean add(final Resource theSubject, final URI thePredicate, final Value theObject, final Resource... theContexts) {
+		throw new UnsupportedOperationException();
+	}
+
+	/**
+	 * @inheritDoc
+	 */
+	@Override
+	public boolean remove(final Object theObj) {
+		throw new UnsupportedOperationException();
+	}
+
+	/**
+	 * @inheritDoc
+	 */
+	@Override
+	public boolean removeAll(final Collection<?> theObjs) {
+		throw new UnsupportedOperationException();
+	}
+
+	/**
+	 * @inheritDoc
+	 */
+	@Override
+	public boolean retainAll(final Collection<?> theObjs) {
+		throw new UnsupportedOperationException();
+	}
+
+	/**
+	 * @inheritDoc
+	 */
+	@Override
+	public void clear() {
+		throw new UnsupportedOperationException();
+	}
+
+	/**
+	 * The statements of a graph which satisfy a predicate
+	 */
+	private static final class FilteredView extends GraphView {
+		private final Graph mGraph;
+
+		private final Predicate<Statement> mPredicate;
+
+		FilteredView(final Graph theGraph, final Predicate<Statement> thePredicate) {
+			mGraph = theGraph;
+			mPredicate = thePredicate;
+		}
+
+		@Override
+		public GraphView filter(final Predicate<Statement> thePredicate) {
+			return new FilteredView(mGraph, Predicates.and(mPredicate, thePredicate));
+		}
+
+		@Override
+		public Iterator<Statement> iterator() {
+			return Iterators.filter(mGraph.iterator(), mPredicate);
+		}
+
+		@Override
+		public boolean contains(final Object theObj) {
+			return theObj instanceof Statement && mGraph.contains(theObj) && mPredicate.apply((Statement) theObj);
+		}
+
+		@Override
+		public Iterable<Statement> filter(final Resource theSubj, final URI thePred, final Value theObj, final Resource... theContexts) {
+			// let the source answer the pattern, it may have indexes for it
+			return Iterables.unmodifiableIterable(Iterables.filter(Graphs.filter(mGraph, theSubj, thePred, theObj, theContexts), mPredicate));
+		}
+	}
+
+	/**
+	 * The statements of a graph with a function applied
+	 */
+	private static final class TransformedView extends GraphView {
+		private final Graph mGraph;
+
+		private final Function<Statement, Statement> mFunction;
+
+		TransformedView(final Graph theGraph, final Function<Statement, Statement> theFunction) {
+			mGraph = theGraph;
+			mFunction = theFunction;
+		}
+
+		@Override
+		public GraphView transform(final Function<Statement, Statement> theFunction) {
+			return new TransformedView(mGraph, Functions.compose(theFunction, mFunction));
+		}
+
+		@Override
+		public Iterator<Statement> iterator() {
+			return Iterators.unmodifiableIterator(Iterators.transform(mGraph.iterator(), mFunction));
+		}
+	}
+
+	/**
+	 * The statements of a graph moved into a single context
+	 */
+	private static final class ContextView extends GraphView {
+		private final Graph mGraph;
+
+		private final Resource mContext;
+
+		ContextView(final Graph theGraph, final Resource theContext) {
+			mGraph = theGraph;
+			mContext = theContext;
+		}
+
+		private Iterable<Statement> withContext(final Iterable<Statement> theStatements) {
+			return Iterables.transform(theStatements, new Function<Statement, Statement>() {
+				@Override
+				public Statement apply(final Statement theStatement) {
+					return new ContextAwareStatement(theStatement.getSubject(), theStatement.getPredicate(), theStatement.getObject(), mContext);
+				}
+			});
+		}
+
+		@Override
+		public Iterator<Statement> iterator() {
+			return Iterators.unmodifiableIterator(withContext(mGraph).iterator());
+		}
+
+		@Override
+		public boolean contains(final Object theObj) {
+			if (!(theObj instanceof Statement)) {
+				return false;
+			}
+
+			final Statement aStmt = (Statement) theObj;
+
+			return Objects.equal(aStmt.getContext(), mContext)
+			       && Graphs.contains(mGraph, aStmt.getSubject(), aStmt.getPredicate(), aStmt.getObject());
+		}
+
+		@Override
+		public Iterable<Statement> filter(final Resource theSubj, final URI thePred, final Value theObj, final Resource... theContexts) {
+			if (theContexts != null && theContexts.length > 0 && !Arrays.asList(theContexts).contains(mContext)) {
+				return Collections.emptySet();
+			}
+
+			return Iterables.unmodifiableIterable(withContext(Graphs.filter(mGraph, theSubj, thePred, theObj)));
+		}
+	}
+
+	/**
+	 * The union of several graphs.  A statement is produced by the first graph which contains it, later graphs skip it.
+	 */
+	private static final class UnionView extends GraphView {
+		private final List<Graph> mGraphs;
+
+		UnionView(final List<Graph> theGraphs) {
+			mGraphs = theGraphs;
+		}
+
+		@Override
+		public Iterator<Statement> iterator() {
+			return Iterators.unmodifiableIterator(union(new Function<Graph, Iterable<Statement>>() {
+				@Override
+				public Iterable<Statement> apply(final Graph theGraph) {
+					return theGraph;
+				}
+			}).iterator());
+		}
+
+		@Override
+		public boolean contains(final Object theObj) {
+			for (Graph aGraph : mGraphs) {
+				if (aGraph.contains(theObj)) {
+					return true;
+				}
+			}
+
+			return false;
+		}
+
+		@Override
+		public Iterable<Statement> filter(final Resource theSubj, final URI thePred, final Value theObj, final Resource... theContexts) {
+			return Iterables.unmodifiableIterable(union(new Function<Graph, Iterable<Statement>>() {
+				@Override
+				public Iterable<Statement> apply(final Graph theGraph) {
+					return Graphs.filter(theGraph, theSubj, thePred, theObj, theContexts);
+				}
+			}));
+		}
+
+		/**
+		 * Concatenate the statements selected from each graph, skipping those already in an earlier graph
+		 */
+		private Iterable<Statement> union(final Function<Graph, Iterable<Statement>> theSelector) {
+			final List<Iterable<Statement>> aParts = Lists.newArrayListWithCapacity(mGraphs.size());
+
+			for (int i = 0; i < mGraphs.size(); i++) {
+				final List<Graph> aEarlier = mGraphs.subList(0, i);
+
+				aParts.add(Iterables.filter(theSelector.apply(mGraphs.get(i)), new Predicate<Statement>() {
+					@Override
+					public boolean apply(final Statement theStatement) {
+						for (Graph aGraph : aEarlier) {
+							if (aGraph.contains(theStatement)) {
+								return false;
+							}
+						}
+
+						return true;
+					}
+				}));
+			}
+
+			return Iterables.concat(aParts);
+		}
+	}
+}
@@ -0,0 +1,98 @@
+/*
+ * Copyright (c) 2009-2014 Clark & Parsia, LLC. <http://www.clarkparsia.com>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.complexible.common.openrdf.model;
+
+import com.google.common.base.Function;
+import com.google.common.base.Predicate;
+
+import org.openrdf.model.Graph;
+import org.openrdf.model.Resource;
+import org.openrdf.model.Statement;
+
+/**
+ * <p>Lazy counterparts of {@link Graphs#union}, {@link Graphs#filter(Graph, Predicate)}, {@link Graphs#transform} and
+ * {@link Graphs#withContext}.  Rather than copying into a new graph, each returns a {@link GraphView} computed from
+ * the source graphs on demand.  Obtained via {@link Graphs#views()}.</p>
+ *
+ * <p>For example, {@code Graphs.views().of(aGraph).filter(aPredicate).transform(aFunction).materialize()} makes a
+ * single copy of the result rather than one per step.</p>
+ *
+ * @author  Michael Grove
+ * @since   2.0.2
+ * @version 2.0.2
+ */
+public final class GraphViews {
+	static final GraphViews INSTANCE = new GraphViews();
+
+	private GraphViews() {
+	}
+
+	/**
+	 * Return a view of the graph, to start a chain of {@link GraphView#filter(Predicate) filter} and
+	 * {@link GraphView#transform transform} steps
+	 *
+	 * @param theGraph	the graph
+	 * @return			a view of the graph
+	 */
+	public GraphView of(final Graph theGraph) {
+		return GraphView.of(theGraph);
+	}
+
+	/**
+	 * Return a view of the union of the graphs.  As with {@link Graphs#union}, statements are compared with their own
+	 * equals method, which does not consider the context unless they are {@link ContextAwareStatement ContextAwareStatements}.
+	 *
+	 * @param theGraphs	the graphs
+	 * @return			the union of the graphs
+	 */
+	public GraphView union(final Graph... theGraphs) {
+		return GraphView.union(theGraphs);
+	}
+
+	/**
+	 * Return a view of the statements of the graph which satisfy the predicate
+	 *
+	 * @param theGraph		the graph to filter
+	 * @param thePredicate	the predicate to use for filtering
+	 * @return				the filtered view
+	 */
+	public GraphView filter(final Graph theGraph, final Predicate<Statement> thePredicate) {
+		return of(theGraph).filter(thePredicate);
+	}
+
+	/**
+	 * Return a view of the statements of the graph with the function applied
+	 *
+	 * @param theGraph		the graph to transform
+	 * @param theFunction	the function for the transform
+	 * @return				the transformed view
+	 */
+	public GraphView transform(final Graph theGraph, final Function<Statement, Statement> theFunction) {
+		return of(theGraph).transform(theFunction);
+	}
+
+	/**
+	 * Return a view of the statements of the graph where every statement is in the given context, replacing any
+	 * context the statement already had.  Statements which differ only by context appear more than once.
+	 *
+	 * @param theGraph		the graph
+	 * @param theContext	the context for all the statements in the view
+	 * @return				the view
+	 */
+	public GraphView withContext(final Graph theGraph, final Resource theContext) {
+		return GraphView.withContext(theGraph, theContext);
+	}
+}
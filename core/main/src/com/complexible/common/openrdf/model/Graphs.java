@@ -23,16 +23,22 @@ import java.io.OutputStreamWriter;
 import java.io.Writer;
 import java.util.Arrays;
 import java.util.Collection;
+import java.util.Collections;
 import java.util.Iterator;
 import java.util.List;
+import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.ExecutorService;
 
 import com.complexible.common.openrdf.repository.Repositories;
 import com.google.common.base.Function;
+import com.google.common.base.Functions;
 import com.google.common.base.Optional;
 import com.google.common.base.Predicate;
 import com.google.common.collect.Iterables;
 import com.google.common.collect.Lists;
+import com.google.common.collect.Maps;
+import com.google.common.hash.HashCode;
 import org.openrdf.model.Literal;
 import org.openrdf.model.Statement;
 import org.openrdf.model.Resource;
@@ -84,6 +90,59 @@ public final class Graphs {
         }
 	}
 
+	/**
+	 * Return the lazy, non-copying versions of {@link #union}, {@link #filter(Graph, Predicate)}, {@link #transform}
+	 * and {@link #withContext}
+	 * @return	the graph views
+	 */
+	public static GraphViews views() {
+		return GraphViews.INSTANCE;
+	}
+
+	/**
+	 * Return parallel versions of {@link #filter(Graph, Predicate)}, {@link #transform}, {@link #find}, {@link #any},
+	 * {@link #all} and {@link #collect(Iterable, Function)} which run on a shared pool with one thread per processor
+	 * @return	the parallel operations
+	 */
+	public static ParallelGraphs parallel() {
+		return ParallelGraphs.getDefault();
+	}
+
+	/**
+	 * Return parallel versions of {@link #filter(Graph, Predicate)}, {@link #transform}, {@link #find}, {@link #any},
+	 * {@link #all} and {@link #collect(Iterable, Function)} which run on the given executor
+	 * @param theExecutor	the executor to run the operations with
+	 * @return				the parallel operations
+	 */
+	public static ParallelGraphs parallel(final ExecutorService theExecutor) {
+		return new ParallelGraphs(theExecutor, Runtime.getRuntime().availableProcessors());
+	}
+
+	/**
+	 * Split the graph into at most the given number of contiguous parts, in iteration order, whose sizes differ by at
+	 * most one.  A {@link SplittableGraph} is split directly over its storage, any other graph is copied first.  The
+	 * graph must not be modified while the parts are in use.
+	 * @param theGraph	the graph to split
+	 * @param theParts	the number of parts, at least one
+	 * @return			the parts
+	 *
+	 * @see SplittableGraph#split
+	 */
+	public static List<Collection<Statement>> partition(final Graph theGraph, final int theParts) {
+		if (theGraph instanceof SplittableGraph) {
+			return ((SplittableGraph) theGraph).split(theParts);
+		}
+
+		final List<Statement> aStatements = Collections.unmodifiableList(Arrays.asList(theGraph.toArray(new Statement[theGraph.size()])));
+
+		return Ranges.split(aStatements.size(), theParts, new Ranges.Positions() {
+			@Override
+			public Statement get(final int thePosition) {
+				return aStatements.get(thePosition);
+			}
+		});
+	}
+
 	/**
 	 * Return an immutable version of the specified graph
 	 * @param theGraph  the graph
@@ -115,6 +174,21 @@ public final class Graphs {
 		return GraphIO.readGraph(theFile);
 	}
 
+	/**
+	 * Add the RDF in the specified file to the given graph.  Use this with a {@link MappedGraph} to load files which
+	 * are too large to hold in memory.
+	 *
+	 * @param theFile	the file to read the RDF from
+	 * @param theGraph	the graph to add the RDF to
+	 * @return			the graph
+	 *
+	 * @throws IOException			if there was an error reading the file
+	 * @throws RDFParseException	if the file did not contain valid RDF
+	 */
+	public static <T extends Graph> T of(final File theFile, final T theGraph) throws IOException, RDFParseException {
+		return GraphIO.readGraph(theFile, theGraph);
+	}
+
 	/**
 	 * Create a Sesame graph from the GraphQueryResult.  The query result is always closed regardless of whether or not
 	 * it was successfully transformed into a graph.
@@ -125,18 +199,30 @@ public final class Graphs {
 	 * @throws org.openrdf.query.QueryEvaluationException if there was an error while creating the graph from the query result
 	 */
 	public static Graph newGraph(final GraphQueryResult theResult) throws QueryEvaluationException {
-		Graph aGraph = new SetGraph();
+		return newGraph(theResult, new SetGraph());
+	}
 
+	/**
+	 * Add the results of the GraphQueryResult to the graph, such as a {@link SpillingGraph} for results which may not fit
+	 * in memory.  The query result is always closed regardless of whether or not it was successfully added to the graph.
+	 *
+	 * @param theResult	the result of the query
+	 * @param theGraph	the graph to add the results to
+	 * @return			the graph
+	 *
+	 * @throws org.openrdf.query.QueryEvaluationException if there was an error while adding the query result to the graph
+	 */
+	public static <T extends Graph> T newGraph(final GraphQueryResult theResult, final T theGraph) throws QueryEvaluationException {
 		try {
 			while (theResult.hasNext()) {
-				aGraph.add(theResult.next());
+				theGraph.add(theResult.next());
 			}
 		}
 		finally {
 			theResult.close();
 		}
 
-		return aGraph;
+		return theGraph;
 	}
 
 	/**
@@ -248,6 +334,8 @@ public final class Graphs {
 	 * @param theGraph		the graph
 	 * @param theResource	the context for all the statements in the graph
 	 * @return 				the new graph
+	 *
+	 * @see GraphViews#withContext
 	 */
 	public static Graph withContext(final Graph theGraph, final Resource theResource) {
 		final Graph aGraph = contextGraph();
@@ -275,6 +363,8 @@ public final class Graphs {
 	 * 
 	 * @param theGraphs the graphs to union
 	 * @return			the union of the graphs
+	 *
+	 * @see GraphViews#union
 	 */
 	public static Graph union(final Graph... theGraphs) {
 		SetGraph aSetGraph = new SetGraph();
@@ -307,6 +397,8 @@ public final class Graphs {
 	 * @param theGraph		the graph to filter
 	 * @param thePredicate	the predicate to use for filtering
 	 * @return				the filtered graph
+	 *
+	 * @see GraphViews#filter
 	 */
 	public static Graph filter(final Graph theGraph, final Predicate<Statement> thePredicate) {
 		final SetGraph aGraph = new SetGraph();
@@ -323,6 +415,10 @@ public final class Graphs {
     }
 
     public static Iterable<Statement> filter(final Iterable<Statement> theGraph, final Resource theSubject, final URI thePredicate, final Value theObject, final Resource... theContexts) {
+        if (theGraph instanceof MatchableGraph) {
+            return ((MatchableGraph) theGraph).filter(theSubject, thePredicate, theObject, theContexts);
+        }
+
         return Iterables.filter(theGraph, new Predicate<Statement>() {
             @Override
             public boolean apply(final Statement theStatement) {
@@ -365,6 +461,8 @@ public final class Graphs {
 	 * @param theGraph		the graph to transform
 	 * @param theFunction	the function for the transform
 	 * @return				the transformed graph
+	 *
+	 * @see GraphViews#transform
 	 */
 	public static Graph transform(final Graph theGraph, final Function<Statement, Statement> theFunction) {
 		final SetGraph aGraph = new SetGraph();
@@ -475,10 +573,10 @@ public final class Graphs {
 	 * @see org.openrdf.model.util.GraphUtil#getOptionalObject
 	 */
 	public static Optional<Value> getObject(final Graph theGraph, final Resource theSubj, final URI thePred) {
-		Iterator<Value> aCollection = GraphUtil.getObjectIterator(theGraph, theSubj, thePred);
+		Iterator<Statement> aCollection = filter(theGraph, theSubj, thePred, null).iterator();
 
 		if (aCollection.hasNext()) {
-			return Optional.of(aCollection.next());
+			return Optional.of(aCollection.next().getObject());
 		}
 		else {
 			return Optional.absent();
@@ -555,6 +653,46 @@ public final class Graphs {
 		}
 	}
 
+	/**
+	 * Return whether or not the two graphs are the same up to the ids of their blank nodes
+	 *
+	 * @param theGraph		the first graph
+	 * @param theOtherGraph	the second graph
+	 * @return				true if the graphs are isomorphic, false otherwise
+	 *
+	 * @see Canonicalizer
+	 */
+	public static boolean isIsomorphic(final Graph theGraph, final Graph theOtherGraph) {
+		return Canonicalizer.isIsomorphic(theGraph, theOtherGraph);
+	}
+
+	/**
+	 * Return an order-independent 128-bit hash of the statements in the graph.  For a {@link SetGraph}, or a
+	 * {@link DelegatingGraph} over one, this is the fingerprint the graph keeps up to date as it changes; for any
+	 * other graph it is computed from the statements, counting each copy of a statement in graphs which allow
+	 * duplicates.
+	 *
+	 * @param theGraph	the graph
+	 * @return			the fingerprint
+	 *
+	 * @see SetGraph#fingerprint
+	 */
+	public static HashCode fingerprint(final Graph theGraph) {
+		if (theGraph instanceof SetGraph) {
+			return ((SetGraph) theGraph).fingerprint();
+		}
+		else if (theGraph instanceof DelegatingGraph) {
+			return ((DelegatingGraph) theGraph).fingerprint();
+		}
+
+		final Fingerprint aFingerprint = new Fingerprint();
+		for (Statement aStmt : theGraph) {
+			aFingerprint.add(aStmt);
+		}
+
+		return aFingerprint.hash();
+	}
+
 	/**
 	 * Returns whether or not the given resource is a rdf:List
 	 *
@@ -570,32 +708,134 @@ public final class Graphs {
 	}
 
 	/**
-	 * Return the contents of the given list by following the rdf:first/rdf:rest structure of the list
+	 * Return the contents of the given list by following the rdf:first/rdf:rest structure of the list.  The first and
+	 * rest of each cell are found with a single lookup when the graph is indexed by subject, such as an
+	 * {@link IndexedGraph} or an {@link EntityGraph}, otherwise the cells of all the lists are read in one pass over the
+	 * graph; use {@link #lists} to read many lists at once.
+	 *
 	 * @param theGraph	the graph
 	 * @param theRes	the resource which is the head of the list
 	 *
 	 * @return 			the contents of the list.
+	 * @throws IllegalArgumentException if the list has a cycle
 	 */
 	public static List<Value> asList(final Graph theGraph, final Resource theRes) {
-		List<Value> aList = Lists.newArrayList();
+		if (isIndexedBySubject(theGraph)) {
+			return asList(theRes, new Function<Resource, Value[]>() {
+				@Override
+				public Value[] apply(final Resource theCell) {
+					Value[] aCell = null;
+
+					for (Statement aStmt : filter(theGraph, theCell, null, null)) {
+						aCell = cell(aCell, aStmt);
+					}
+
+					return aCell;
+				}
+			});
+		}
+		else {
+			return asList(theRes, Functions.forMap(cells(theGraph, null), null));
+		}
+	}
+
+	/**
+	 * Return the contents of every rdf:List in the graph, keyed by the head of the list, reading the list structure in
+	 * a single pass over the graph.  A head is a resource with an rdf:first or rdf:rest which is not itself the rest of
+	 * another list.
+	 *
+	 * @param theGraph	the graph
+	 * @return			the lists in the graph
+	 * @throws IllegalArgumentException if a list has a cycle
+	 */
+	public static Map<Resource, List<Value>> lists(final Graph theGraph) {
+		final Set<Value> aRests = Sets.newHashSet();
+		final Map<Resource, Value[]> aCells = cells(theGraph, aRests);
+
+		final Map<Resource, List<Value>> aLists = Maps.newLinkedHashMap();
+		for (Resource aCell : aCells.keySet()) {
+			if (!aRests.contains(aCell)) {
+				aLists.put(aCell, asList(aCell, Functions.forMap(aCells, null)));
+			}
+		}
+
+		return aLists;
+	}
 
-		Resource aListRes = theRes;
+	/**
+	 * Whether a lookup by subject on the graph is cheaper than a scan.  Other {@link MatchableGraph matchable graphs}
+	 * scan the whole graph for each lookup.
+	 */
+	private static boolean isIndexedBySubject(final Graph theGraph) {
+		if (theGraph instanceof DelegatingGraph) {
+			return isIndexedBySubject(((DelegatingGraph) theGraph).mGraph);
+		}
+
+		return theGraph instanceof IndexedGraph
+		       || theGraph instanceof EntityGraph
+		       || theGraph instanceof FrozenGraph
+		       || (theGraph instanceof ConcurrentGraph && ((ConcurrentGraph) theGraph).isIndexed());
+	}
+
+	/**
+	 * Collect the rdf:first and rdf:rest of every list cell in the graph, and when theRests is not null, the objects of
+	 * all the rdf:rest statements
+	 */
+	private static Map<Resource, Value[]> cells(final Graph theGraph, final Set<Value> theRests) {
+		final Map<Resource, Value[]> aCells = Maps.newLinkedHashMap();
+
+		for (Statement aStmt : theGraph) {
+			if (aStmt.getPredicate().equals(RDF.FIRST) || aStmt.getPredicate().equals(RDF.REST)) {
+				aCells.put(aStmt.getSubject(), cell(aCells.get(aStmt.getSubject()), aStmt));
+
+				if (theRests != null && aStmt.getPredicate().equals(RDF.REST)) {
+					theRests.add(aStmt.getObject());
+				}
+			}
+		}
 
-		while (aListRes != null) {
+		return aCells;
+	}
+
+	/**
+	 * Record the statement in the cell, an array of the rdf:first and rdf:rest of a list cell
+	 */
+	private static Value[] cell(final Value[] theCell, final Statement theStmt) {
+		final int aIndex = theStmt.getPredicate().equals(RDF.FIRST) ? 0
+		                   : theStmt.getPredicate().equals(RDF.REST) ? 1
+		                   : -1;
 
-			Optional<Resource> aFirst = getResource(theGraph, aListRes, RDF.FIRST);
-			Optional<Resource> aRest = getResource(theGraph, aListRes, RDF.REST);
+		if (aIndex == -1 || (theCell != null && theCell[aIndex] != null)) {
+			return theCell;
+		}
+
+		final Value[] aCell = theCell == null ? new Value[2] : theCell;
+		aCell[aIndex] = theStmt.getObject();
+		return aCell;
+	}
 
-			if (aFirst.isPresent()) {
-				aList.add(aFirst.get());
+	private static List<Value> asList(final Resource theHead, final Function<Resource, Value[]> theCells) {
+		final List<Value> aList = Lists.newArrayList();
+		final Set<Resource> aVisited = Sets.newHashSet();
+
+		Resource aCurr = theHead;
+
+		while (aCurr != null && !aCurr.equals(RDF.NIL)) {
+			if (!aVisited.add(aCurr)) {
+				throw new IllegalArgumentException("The rdf:List starting at " + theHead + " has a cycle at " + aCurr);
 			}
 
-			if (aRest.or(RDF.NIL).equals(RDF.NIL)) {
-				aListRes = null;
+			final Value[] aCell = theCells.apply(aCurr);
+
+			if (aCell == null) {
+				break;
 			}
-			else {
-				aListRes = aRest.get();
+
+			if (aCell[0] != null) {
+				aList.add(aCell[0]);
 			}
+
+			aCurr = aCell[1] instanceof Resource ? (Resource) aCell[1] : null;
 		}
 
 		return aList;
@@ -15,8 +15,11 @@
 
 package com.complexible.common.openrdf.model;
 
+import java.util.Arrays;
 import java.util.Collection;
+import java.util.Collections;
 import java.util.Iterator;
+import java.util.List;
 
 import org.openrdf.model.Graph;
 import org.openrdf.model.Statement;
@@ -24,15 +27,18 @@ import org.openrdf.model.Resource;
 import org.openrdf.model.URI;
 import org.openrdf.model.Value;
 import com.google.common.collect.Iterators;
+import com.google.common.collect.Lists;
 
 /**
- * <p>An immutable version of an OpenRdf {@link org.openrdf.model.Graph}</p>
+ * <p>An immutable version of an OpenRdf {@link org.openrdf.model.Graph}.  {@link #of(Graph)} is a read-only view of a
+ * graph, the other factory methods copy the statements into a compact, array-backed graph with sorted indexes which
+ * is never modified, so it is safe to read concurrently.</p>
  *
  * @author	Michael Grove
  * @since	0.4
- * @version	0.4
+ * @version	2.0.2
  */
-public final class ImmutableGraph extends DelegatingGraph {
+public final class ImmutableGraph extends DelegatingGraph implements SplittableGraph {
 
 	/**
 	 * Create a new ImmutableGraph
@@ -43,7 +49,8 @@ public final class ImmutableGraph extends DelegatingGraph {
 	}
 
 	/**
-	 * Return an immutable version of the graph
+	 * Return an immutable view of the graph.  Changes to the graph will be visible through the view; use
+	 * {@link #copyOf} for an immutable copy.
 	 * @param theGraph	the graph
 	 * @return 			an immutable version of the graph
 	 */
@@ -62,7 +69,7 @@ public final class ImmutableGraph extends DelegatingGraph {
 	 * @return				an immutable version of the statements
 	 */
 	public static ImmutableGraph of(final Statement... theStatements) {
-		return new ImmutableGraph(Graphs.newGraph(theStatements));
+		return of(Arrays.asList(theStatements).iterator());
 	}
 
 	/**
@@ -71,7 +78,7 @@ public final class ImmutableGraph extends DelegatingGraph {
 	 * @return 				an immutable version of the statements
 	 */
 	public static ImmutableGraph of(final Iterator<Statement> theStatements) {
-		return new ImmutableGraph(Graphs.newGraph(theStatements));
+		return new ImmutableGraph(new FrozenGraph(theStatements));
 	}
 
 	/**
@@ -80,7 +87,21 @@ public final class ImmutableGraph extends DelegatingGraph {
 	 * @return 				an immutable version of the statements
 	 */
 	public static ImmutableGraph of(final Iterable<Statement> theStatements) {
-		return new ImmutableGraph(Graphs.newGraph(theStatements));
+		return of(theStatements.iterator());
+	}
+
+	/**
+	 * Return an immutable copy of the graph.  Returns the graph itself if it is already an immutable copy.
+	 * @param theGraph	the graph
+	 * @return			an immutable copy of the graph
+	 */
+	public static ImmutableGraph copyOf(final Graph theGraph) {
+		if (theGraph instanceof ImmutableGraph && ((ImmutableGraph) theGraph).mGraph instanceof FrozenGraph) {
+			return (ImmutableGraph) theGraph;
+		}
+		else {
+			return of(theGraph.iterator());
+		}
 	}
 
 	/**
@@ -146,4 +167,41 @@ public final class ImmutableGraph extends DelegatingGraph {
 	public Iterator<Statement> iterator() {
 		return Iterators.unmodifiableIterator(super.iterator());
 	}
+
+	/**
+	 * Immutable graphs are equal if they contain the same statements, whether they are a view of a graph or a copy
+	 */
+	@Override
+	public boolean equals(final Object o) {
+		if (this == o) {
+			return true;
+		}
+		else if (!(o instanceof ImmutableGraph)) {
+			return false;
+		}
+
+		final ImmutableGraph that = (ImmutableGraph) o;
+
+		return size() == that.size() && hashCode() == that.hashCode() && mGraph.containsAll(that.mGraph);
+	}
+
+	/**
+	 * @inheritDoc
+	 */
+	@Override
+	public int hashCode() {
+		return mGraph.hashCode();
+	}
+
+	/**
+	 * @inheritDoc
+	 */
+	@Override
+	public List<Collection<Statement>> split(final int theParts) {
+		final List<Collection<Statement>> aParts = Lists.newArrayList();
+		for (Collection<Statement> aPart : Graphs.partition(mGraph, theParts)) {
+			aParts.add(Collections.unmodifiableCollection(aPart));
+		}
+		return aParts;
+	}
 }
@@ -0,0 +1,432 @@
+/*
+ * Copyright (c) 2009-2014 Clark & Parsia, LLC. <http://www.clarkparsia.com>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.complexible.common.openrdf.model;
+
+import java.util.AbstractCollection;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import com.google.common.collect.Iterables;
+import com.google.common.collect.Iterators;
+import com.google.common.collect.Lists;
+import com.google.common.collect.Maps;
+import com.google.common.collect.Sets;
+
+import org.openrdf.model.Graph;
+import org.openrdf.model.Resource;
+import org.openrdf.model.Statement;
+import org.openrdf.model.URI;
+import org.openrdf.model.Value;
+import org.openrdf.model.ValueFactory;
+
+/**
+ * <p>Implementation of the Sesame {@link Graph} interface with Set semantics, like {@link SetGraph}, which also keeps
+ * hash indexes in SPO, POS, OSP and C order.  Every bound pattern shape can be answered by one of the indexes, so
+ * pattern lookups via {@link #filter} and {@link #match} are proportional to the size of the smallest matching index
+ * entry rather than the size of the graph.</p>
+ *
+ * <p>The indexes are not free; this uses noticeably more memory than a SetGraph and should be used when the graph is
+ * queried far more often than it is modified.</p>
+ *
+ * @author  Michael Grove
+ * @since   2.0.2
+ * @version 2.0.2
+ */
+public final class IndexedGraph extends AbstractCollection<Statement> implements MatchableGraph {
+
+	/**
+	 * The contents of the graph as a Set
+	 */
+	private final Set<Statement> mStatements = Sets.newLinkedHashSet();
+
+	/**
+	 * Subject, then predicate index
+	 */
+	private final Index<Resource, URI> mSPO = new Index<Resource, URI>();
+
+	/**
+	 * Predicate, then object index
+	 */
+	private final Index<URI, Value> mPOS = new Index<URI, Value>();
+
+	/**
+	 * Object, then subject index
+	 */
+	private final Index<Value, Resource> mOSP = new Index<Value, Resource>();
+
+	/**
+	 * Context index, the null key holds the statements without a context
+	 */
+	private final Map<Resource, Set<Statement>> mContexts = Maps.newHashMap();
+
+	/**
+	 * The ValueFactory for this graph
+	 */
+	private final ValueFactory mValueFactory = new ContextAwareValueFactory();
+
+	/**
+	 * Create a new, empty, IndexedGraph
+	 */
+	public IndexedGraph() {
+	}
+
+	/**
+	 * Create a new IndexedGraph containing the provided statements
+	 * @param theStatements	the initial contents of the graph
+	 */
+	public IndexedGraph(final Iterable<Statement> theStatements) {
+		Iterables.addAll(this, theStatements);
+	}
+
+	/**
+	 * @inheritDoc
+	 */
+	@Override
+	public Iterator<Statement> iterator() {
+		final Iterator<Statement> aIter = mStatements.iterator();
+
+		return new Iterator<Statement>() {
+			private Statement mLast;
+
+			@Override
+			public boolean hasNext() {
+				return aIter.hasNext();
+			}
+
+			@Override
+			public Statement next() {
+				mLast = aIter.next();
+				return mLast;
+			}
+
+			@Override
+			public void remove() {
+				aIter.remove();
+				unindex(mLast);
+			}
+		};
+	}
+
+	/**
+	 * @inheritDoc
+	 */
+	@Override
+	public int size() {
+		return mStatements.size();
+	}
+
+	/**
+	 * @inheritDoc
+	 */
+	@Override
+	public boolean add(final Statement theStatement) {
+		if (mStatements.add(theStatement)) {
+			mSPO.add(theStatement.getSubject(), theStatement.getPredicate(), theStatement);
+			mPOS.add(theStatement.getPredicate(), theStatement.getObject(), theStatement);
+			mOSP.add(theStatement.getObject(), theStatement.getSubject(), theStatement);
+
+			Set<Statement> aContext = mContexts.get(theStatement.getContext());
+			if (aContext == null) {
+				aContext = Sets.newHashSet();
+				mContexts.put(theStatement.getContext(), aContext);
+			}
+
+			aContext.add(theStatement);
+
+			return true;
+		}
+		else {
+			return false;
+		}
+	}
+
+	/**
+	 * @inheritDoc
+	 */
+	@Override
+	public boolean contains(final Object theStatement) {
+		return mStatements.contains(theStatement);
+	}
+
+	/**
+	 * @inheritDoc
+	 */
+	@Override
+	public boolean remove(final Object theStatement) {
+		if (mStatements.remove(theStatement)) {
+			unindex((Statement) theStatement);
+			return true;
+		}
+		else {
+			return false;
+		}
+	}
+
+	/**
+	 * @inheritDoc
+	 */
+	@Override
+	public void clear() {
+		mStatements.clear();
+		mSPO.clear();
+		mPOS.clear();
+		mOSP.clear();
+		mContexts.clear();
+	}
+
+	private void unindex(final Statement theStatement) {
+		mSPO.remove(theStatement.getSubject(), theStatement.getPredicate(), theStatement);
+		mPOS.remove(theStatement.getPredicate(), theStatement.getObject(), theStatement);
+		mOSP.remove(theStatement.getObject(), theStatement.getSubject(), theStatement);
+
+		Set<Statement> aContext = mContexts.get(theStatement.getContext());
+		if (aContext != null) {
+			aContext.remove(theStatement);
+
+			if (aContext.isEmpty()) {
+				mContexts.remove(theStatement.getContext());
+			}
+		}
+	}
+
+	/**
+	 * @inheritDoc
+	 */
+	@Override
+	@Deprecated
+	public ValueFactory getValueFactory() {
+		return mValueFactory;
+	}
+
+	/**
+	 * @inheritDoc
+	 */
+	@Override
+	public boolean add(final Resource theSubject, final URI thePredicate, final Value theObject, final Resource... theContexts) {
+		boolean aAdded = false;
+
+		for (Resource aContext : (theContexts == null || theContexts.length == 0 ? new Resource[] {null} : theContexts)) {
+			aAdded |= add(mValueFactory.createStatement(theSubject, thePredicate, theObject, aContext));
+		}
+
+		return aAdded;
+	}
+
+	/**
+	 * @inheritDoc
+	 */
+	@Override
+	@Deprecated
+	public Iterator<Statement> match(final Resource theSubject, final URI thePredicate, final Value theObject, final Resource... theContexts) {
+		return filter(theSubject, thePredicate, theObject, theContexts).iterator();
+	}
+
+	/**
+	 * @inheritDoc
+	 */
+	@Override
+	public Iterable<Statement> filter(final Resource theSubj, final URI thePred, final Value theObj, final Resource... theContexts) {
+		// pick whichever applicable index has the fewest candidates, and check the rest of the pattern on those
+		Collection<Statement> aCandidates = mStatements;
+
+		if (theSubj != null && thePred != null) {
+			aCandidates = smallest(aCandidates, mSPO.get(theSubj, thePred));
+		}
+		else if (theSubj != null) {
+			aCandidates = smallest(aCandidates, mSPO.get(theSubj));
+		}
+
+		if (thePred != null && theObj != null) {
+			aCandidates = smallest(aCandidates, mPOS.get(thePred, theObj));
+		}
+		else if (thePred != null) {
+			aCandidates = smallest(aCandidates, mPOS.get(thePred));
+		}
+
+		if (theObj != null && theSubj != null) {
+			aCandidates = smallest(aCandidates, mOSP.get(theObj, theSubj));
+		}
+		else if (theObj != null) {
+			aCandidates = smallest(aCandidates, mOSP.get(theObj));
+		}
+
+		if (theContexts != null && theContexts.length > 0) {
+			aCandidates = smallest(aCandidates, contexts(theContexts));
+		}
+
+		if (aCandidates.isEmpty()) {
+			return Collections.emptySet();
+		}
+
+		return Iterables.unmodifiableIterable(Iterables.filter(aCandidates, Statements.matches(theSubj, thePred, theObj, theContexts)));
+	}
+
+	private Collection<Statement> contexts(final Resource... theContexts) {
+		if (theContexts.length == 1) {
+			return nullToEmpty(mContexts.get(theContexts[0]));
+		}
+
+		final List<Collection<Statement>> aContexts = Lists.newArrayListWithCapacity(theContexts.length);
+		for (Resource aContext : Sets.newHashSet(theContexts)) {
+			aContexts.add(nullToEmpty(mContexts.get(aContext)));
+		}
+
+		return new Concatenation(aContexts);
+	}
+
+	private static Collection<Statement> smallest(final Collection<Statement> theFirst, final Collection<Statement> theSecond) {
+		return theSecond.size() < theFirst.size() ? theSecond : theFirst;
+	}
+
+	private static Collection<Statement> nullToEmpty(final Collection<Statement> theStatements) {
+		return theStatements == null ? Collections.<Statement>emptySet() : theStatements;
+	}
+
+	/**
+	 * @inheritDoc
+	 */
+	@Override
+	public boolean equals(final Object o) {
+		if (this == o) {
+			return true;
+		}
+		else if (o == null || getClass() != o.getClass()) {
+			return false;
+		}
+
+		final IndexedGraph that = (IndexedGraph) o;
+
+		return mStatements.equals(that.mStatements);
+	}
+
+	/**
+	 * @inheritDoc
+	 */
+	@Override
+	public int hashCode() {
+		return mStatements.hashCode();
+	}
+
+	/**
+	 * A two level hash index, the first level is keyed on one position of the statement, the second on another.  The
+	 * total number of statements under each first-level key is tracked so single key lookups can report their size
+	 * without counting.
+	 */
+	private static final class Index<A, B> {
+		private final Map<A, Node<B>> mIndex = Maps.newHashMap();
+
+		void add(final A theFirst, final B theSecond, final Statement theStatement) {
+			Node<B> aNode = mIndex.get(theFirst);
+			if (aNode == null) {
+				aNode = new Node<B>();
+				mIndex.put(theFirst, aNode);
+			}
+
+			Set<Statement> aStatements = aNode.mChildren.get(theSecond);
+			if (aStatements == null) {
+				aStatements = Sets.newHashSetWithExpectedSize(2);
+				aNode.mChildren.put(theSecond, aStatements);
+			}
+
+			if (aStatements.add(theStatement)) {
+				aNode.mSize++;
+			}
+		}
+
+		void remove(final A theFirst, final B theSecond, final Statement theStatement) {
+			final Node<B> aNode = mIndex.get(theFirst);
+			if (aNode == null) {
+				return;
+			}
+
+			final Set<Statement> aStatements = aNode.mChildren.get(theSecond);
+			if (aStatements != null && aStatements.remove(theStatement)) {
+				aNode.mSize--;
+
+				if (aStatements.isEmpty()) {
+					aNode.mChildren.remove(theSecond);
+				}
+
+				if (aNode.mChildren.isEmpty()) {
+					mIndex.remove(theFirst);
+				}
+			}
+		}
+
+		Collection<Statement> get(final A theFirst, final B theSecond) {
+			final Node<B> aNode = mIndex.get(theFirst);
+			return aNode == null ? Collections.<Statement>emptySet() : nullToEmpty(aNode.mChildren.get(theSecond));
+		}
+
+		Collection<Statement> get(final A theFirst) {
+			final Node<B> aNode = mIndex.get(theFirst);
+			return aNode == null ? Collections.<Statement>emptySet() : aNode.statements();
+		}
+
+		void clear() {
+			mIndex.clear();
+		}
+	}
+
+	private static final class Node<B> {
+		private final Map<B, Set<Statement>> mChildren = Maps.newHashMap();
+
+		private int mSize = 0;
+
+		Collection<Statement> statements() {
+			return new AbstractCollection<Statement>() {
+				@Override
+				public Iterator<Statement> iterator() {
+					return Iterables.concat(mChildren.values()).iterator();
+				}
+
+				@Override
+				public int size() {
+					return mSize;
+				}
+			};
+		}
+	}
+
+	/**
+	 * Read-only concatenation of disjoint collections which knows its size
+	 */
+	private static final class Concatenation extends AbstractCollection<Statement> {
+		private final List<Collection<Statement>> mCollections;
+
+		private Concatenation(final List<Collection<Statement>> theCollections) {
+			mCollections = theCollections;
+		}
+
+		@Override
+		public Iterator<Statement> iterator() {
+			return Iterators.unmodifiableIterator(Iterables.concat(mCollections).iterator());
+		}
+
+		@Override
+		public int size() {
+			int aSize = 0;
+			for (Collection<Statement> aCollection : mCollections) {
+				aSize += aCollection.size();
+			}
+			return aSize;
+		}
+	}
+}
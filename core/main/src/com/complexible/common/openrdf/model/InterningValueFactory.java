@@ -0,0 +1,307 @@
+/*
+ * Copyright (c) 2009-2014 Clark & Parsia, LLC. <http://www.clarkparsia.com>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.complexible.common.openrdf.model;
+
+import java.util.Date;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+
+import javax.xml.datatype.XMLGregorianCalendar;
+
+import com.google.common.base.Preconditions;
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.cache.CacheStats;
+import com.google.common.cache.Weigher;
+
+import org.openrdf.model.BNode;
+import org.openrdf.model.Literal;
+import org.openrdf.model.Resource;
+import org.openrdf.model.Statement;
+import org.openrdf.model.URI;
+import org.openrdf.model.Value;
+import org.openrdf.model.ValueFactory;
+
+/**
+ * <p>{@link ValueFactory} implementation which interns the values it creates in a bounded cache, so that equal values
+ * created while they are in the cache are the same instance.  Data which repeats a modest number of predicates,
+ * classes and literals across many statements then holds one copy of each rather than one per statement, and equality
+ * checks between them succeed on identity.  Creation of the values, and of statements, is delegated to another
+ * ValueFactory, by default a {@link ContextAwareValueFactory}; the values of created statements are interned too.</p>
+ *
+ * <p>The cache is bounded either by the number of values or by the total length of their labels, evicting the least
+ * recently used, and is safe to use from many threads.  Hit and miss counts are available from {@link #stats}.  Use it
+ * anywhere a ValueFactory is accepted, e.g. {@link SetGraph#SetGraph(ValueFactory)},
+ * {@link com.complexible.common.openrdf.util.GraphBuilder#GraphBuilder(ValueFactory)} or
+ * {@link GraphIO#readGraph(java.io.File, org.openrdf.model.Graph, ValueFactory)}.</p>
+ *
+ * @author  Michael Grove
+ * @since   2.0.2
+ * @version 2.0.2
+ */
+public final class InterningValueFactory implements ValueFactory {
+
+	/**
+	 * The default maximum number of values in the cache
+	 */
+	public static final long DEFAULT_MAXIMUM_SIZE = 100000;
+
+	/**
+	 * Weighs values by the length of their label, plus a little for the object itself
+	 */
+	private static final Weigher<Value, Value> LABEL_LENGTH = new Weigher<Value, Value>() {
+		@Override
+		public int weigh(final Value theKey, final Value theValue) {
+			return 16 + theKey.stringValue().length();
+		}
+	};
+
+	private final ValueFactory mFactory;
+
+	private final Cache<Value, Value> mCache;
+
+	/**
+	 * Create a new InterningValueFactory wrapping a {@link ContextAwareValueFactory} and caching up to the
+	 * {@link #DEFAULT_MAXIMUM_SIZE default} number of values
+	 */
+	public InterningValueFactory() {
+		this(new ContextAwareValueFactory(), DEFAULT_MAXIMUM_SIZE);
+	}
+
+	/**
+	 * Create a new InterningValueFactory
+	 *
+	 * @param theFactory		the ValueFactory which creates the values and statements
+	 * @param theMaximumSize	the maximum number of values in the cache
+	 */
+	public InterningValueFactory(final ValueFactory theFactory, final long theMaximumSize) {
+		this(theFactory, CacheBuilder.newBuilder().maximumSize(theMaximumSize).recordStats().<Value, Value>build());
+	}
+
+	private InterningValueFactory(final ValueFactory theFactory, final Cache<Value, Value> theCache) {
+		mFactory = Preconditions.checkNotNull(theFactory);
+		mCache = theCache;
+	}
+
+	/**
+	 * Create a new InterningValueFactory whose cache is bounded by the total length of the labels of the values in it,
+	 * rather than their number, for data whose labels vary widely in size
+	 *
+	 * @param theFactory		the ValueFactory which creates the values and statements
+	 * @param theMaximumChars	the maximum total length of the labels of the values in the cache
+	 * @return					the new InterningValueFactory
+	 */
+	public static InterningValueFactory byLabelLength(final ValueFactory theFactory, final long theMaximumChars) {
+		return new InterningValueFactory(theFactory, CacheBuilder.newBuilder().maximumWeight(theMaximumChars).weigher(LABEL_LENGTH).recordStats().build());
+	}
+
+	/**
+	 * Return the cached instance equal to the value, caching the value itself if there is none
+	 *
+	 * @param theValue	the value to intern, or null
+	 * @return			the interned value, or null if the value was null
+	 */
+	@SuppressWarnings("unchecked")
+	public <T extends Value> T intern(final T theValue) {
+		if (theValue == null) {
+			return null;
+		}
+
+		try {
+			return (T) mCache.get(theValue, new Callable<Value>() {
+				@Override
+				public Value call() {
+					return theValue;
+				}
+			});
+		}
+		catch (ExecutionException e) {
+			// the loader only returns the value, it cannot fail
+			throw new AssertionError(e);
+		}
+	}
+
+	/**
+	 * Return the hit and miss counts of the cache of values
+	 *
+	 * @return	the cache statistics
+	 */
+	public CacheStats stats() {
+		return mCache.stats();
+	}
+
+	/**
+	 * Return the approximate number of values in the cache
+	 *
+	 * @return	the number of cached values
+	 */
+	public long size() {
+		return mCache.size();
+	}
+
+	/**
+	 * Empty the cache of values
+	 */
+	public void clear() {
+		mCache.invalidateAll();
+	}
+
+	/**
+	 * @inheritDoc
+	 */
+	@Override
+	public URI createURI(final String theURI) {
+		return intern(mFactory.createURI(theURI));
+	}
+
+	/**
+	 * @inheritDoc
+	 */
+	@Override
+	public URI createURI(final String theNamespace, final String theLocalName) {
+		return intern(mFactory.createURI(theNamespace, theLocalName));
+	}
+
+	/**
+	 * Create a new, fresh blank node.  Fresh blank nodes are not equal to anything else, so they are not interned.
+	 *
+	 * @return	the new blank node
+	 */
+	@Override
+	public BNode createBNode() {
+		return mFactory.createBNode();
+	}
+
+	/**
+	 * @inheritDoc
+	 */
+	@Override
+	public BNode createBNode(final String theId) {
+		return intern(mFactory.createBNode(theId));
+	}
+
+	/**
+	 * @inheritDoc
+	 */
+	@Override
+	public Literal createLiteral(final String theValue) {
+		return intern(mFactory.createLiteral(theValue));
+	}
+
+	/**
+	 * @inheritDoc
+	 */
+	@Override
+	public Literal createLiteral(final String theValue, final String theLang) {
+		return intern(mFactory.createLiteral(theValue, theLang));
+	}
+
+	/**
+	 * @inheritDoc
+	 */
+	@Override
+	public Literal createLiteral(final String theValue, final URI theDatatype) {
+		return intern(mFactory.createLiteral(theValue, intern(theDatatype)));
+	}
+
+	/**
+	 * @inheritDoc
+	 */
+	@Override
+	public Literal createLiteral(final boolean theValue) {
+		return intern(mFactory.createLiteral(theValue));
+	}
+
+	/**
+	 * @inheritDoc
+	 */
+	@Override
+	public Literal createLiteral(final byte theValue) {
+		return intern(mFactory.createLiteral(theValue));
+	}
+
+	/**
+	 * @inheritDoc
+	 */
+	@Override
+	public Literal createLiteral(final short theValue) {
+		return intern(mFactory.createLiteral(theValue));
+	}
+
+	/**
+	 * @inheritDoc
+	 */
+	@Override
+	public Literal createLiteral(final int theValue) {
+		return intern(mFactory.createLiteral(theValue));
+	}
+
+	/**
+	 * @inheritDoc
+	 */
+	@Override
+	public Literal createLiteral(final long theValue) {
+		return intern(mFactory.createLiteral(theValue));
+	}
+
+	/**
+	 * @inheritDoc
+	 */
+	@Override
+	public Literal createLiteral(final float theValue) {
+		return intern(mFactory.createLiteral(theValue));
+	}
+
+	/**
+	 * @inheritDoc
+	 */
+	@Override
+	public Literal createLiteral(final double theValue) {
+		return intern(mFactory.createLiteral(theValue));
+	}
+
+	/**
+	 * @inheritDoc
+	 */
+	@Override
+	public Literal createLiteral(final XMLGregorianCalendar theCalendar) {
+		return intern(mFactory.createLiteral(theCalendar));
+	}
+
+	/**
+	 * @inheritDoc
+	 */
+	@Override
+	public Literal createLiteral(final Date theDate) {
+		return intern(mFactory.createLiteral(theDate));
+	}
+
+	/**
+	 * @inheritDoc
+	 */
+	@Override
+	public Statement createStatement(final Resource theSubject, final URI thePredicate, final Value theObject) {
+		return mFactory.createStatement(intern(theSubject), intern(thePredicate), intern(theObject));
+	}
+
+	/**
+	 * @inheritDoc
+	 */
+	@Override
+	public Statement createStatement(final Resource theSubject, final URI thePredicate, final Value theObject, final Resource theContext) {
+		return mFactory.createStatement(intern(theSubject), intern(thePredicate), intern(theObject), intern(theContext));
+	}
+}
@@ -0,0 +1,962 @@
+/*
+ * Copyright (c) 2009-2014 Clark & Parsia, LLC. <http://www.clarkparsia.com>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.complexible.common.openrdf.model;
+
+import java.util.Map;
+
+import com.google.common.base.Preconditions;
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.collect.ImmutableMap;
+
+import org.openrdf.model.Literal;
+import org.openrdf.model.URI;
+import org.openrdf.model.ValueFactory;
+import org.openrdf.model.impl.ValueFactoryImpl;
+import org.openrdf.model.vocabulary.XMLSchema;
+import org.openrdf.rio.turtle.TurtleUtil;
+
+/**
+ * <p>Validates the lexical form of literals against their datatype.  Every XSD built-in datatype has a hand-written
+ * scanner which checks the label in place, without parsing it into a value, creating substrings or throwing
+ * exceptions, and the scanner is picked by a single hash lookup on the datatype.  Leading and trailing whitespace is
+ * allowed for the datatypes whose whitespace facet collapses it, as it is when the value of the literal is parsed.
+ * Literals of other datatypes are considered valid.</p>
+ *
+ * <p>The validity of typed literals is also cached, so literals which recur, as they do throughout a bulk load, are
+ * only scanned once.  Instances are thread-safe.</p>
+ *
+ * @author  Michael Grove
+ * @since   2.0.2
+ * @version 2.0.2
+ *
+ * @see Statements#isLiteralValid
+ * @see ConstrainedGraph#onlyValidLiterals
+ */
+public final class LiteralValidator {
+
+	/**
+	 * The number of literals whose validity the {@link #getDefault default validator} remembers
+	 */
+	public static final int DEFAULT_CACHE_SIZE = 10000;
+
+	private static final LiteralValidator DEFAULT = new LiteralValidator(DEFAULT_CACHE_SIZE);
+
+	private static final Map<URI, Syntax> SYNTAXES = syntaxes();
+
+	private final Cache<Literal, Boolean> mCache;
+
+	/**
+	 * Create a new LiteralValidator
+	 *
+	 * @param theCacheSize	the number of literals whose validity to remember, 0 to scan every literal
+	 */
+	public LiteralValidator(final int theCacheSize) {
+		Preconditions.checkArgument(theCacheSize >= 0, "Cache size cannot be negative");
+
+		mCache = theCacheSize == 0
+		         ? null
+		         : CacheBuilder.newBuilder().maximumSize(theCacheSize).<Literal, Boolean>build();
+	}
+
+	/**
+	 * Return the shared validator, which caches the validity of the last {@link #DEFAULT_CACHE_SIZE} literals
+	 *
+	 * @return	the default validator
+	 */
+	public static LiteralValidator getDefault() {
+		return DEFAULT;
+	}
+
+	/**
+	 * Return whether or not the literal is valid: its language tag, if it has one, is well-formed, and its label is in
+	 * the lexical space of its datatype, if that is an XSD built-in datatype.
+	 *
+	 * @param theLiteral	the literal to validate
+	 * @return				true if the literal is valid, false otherwise
+	 */
+	public boolean isValid(final Literal theLiteral) {
+		if (theLiteral.getLanguage() != null && theLiteral.getLanguage().length() > 0) {
+			return isLanguageValid(theLiteral.getLanguage());
+		}
+
+		if (theLiteral.getDatatype() == null) {
+			return true;
+		}
+
+		final Syntax aSyntax = SYNTAXES.get(theLiteral.getDatatype());
+
+		if (aSyntax == null) {
+			return true;
+		}
+
+		if (mCache == null) {
+			return aSyntax.accepts(theLiteral.getLabel());
+		}
+
+		Boolean aValid = mCache.getIfPresent(theLiteral);
+
+		if (aValid == null) {
+			aValid = aSyntax.accepts(theLiteral.getLabel());
+			mCache.put(theLiteral, aValid);
+		}
+
+		return aValid;
+	}
+
+	/**
+	 * Return whether or not the label is in the lexical space of the datatype.  Labels of datatypes which are not XSD
+	 * built-in datatypes are always valid.
+	 *
+	 * @param theLabel		the label
+	 * @param theDatatype	the datatype
+	 * @return				true if the label is a valid lexical form of the datatype, false otherwise
+	 */
+	public static boolean isLexicalFormValid(final String theLabel, final URI theDatatype) {
+		final Syntax aSyntax = SYNTAXES.get(theDatatype);
+
+		return aSyntax == null || aSyntax.accepts(theLabel);
+	}
+
+	private static boolean isLanguageValid(final String theLang) {
+		if (!TurtleUtil.isLanguageStartChar(theLang.charAt(0))) {
+			return false;
+		}
+
+		for (int aIndex = 1; aIndex < theLang.length(); aIndex++) {
+			if (!TurtleUtil.isLanguageChar(theLang.charAt(aIndex))) {
+				return false;
+			}
+		}
+
+		return true;
+	}
+
+	private static Map<URI, Syntax> syntaxes() {
+		final ValueFactory aFactory = ValueFactoryImpl.getInstance();
+		final ImmutableMap.Builder<URI, Syntax> aBuilder = ImmutableMap.builder();
+
+		for (Syntax aSyntax : Syntax.values()) {
+			aBuilder.put(aFactory.createURI(XMLSchema.NAMESPACE, aSyntax.mLocalName), aSyntax);
+		}
+
+		return aBuilder.build();
+	}
+
+	/**
+	 * The lexical space of each XSD built-in datatype.  Scanners check the characters of the label from theStart,
+	 * inclusive, to theEnd, exclusive.
+	 */
+	private enum Syntax {
+		STRING("string", false) {
+			@Override
+			boolean scan(final String theLabel, final int theStart, final int theEnd) {
+				return true;
+			}
+		},
+		NORMALIZED_STRING("normalizedString", false) {
+			@Override
+			boolean scan(final String theLabel, final int theStart, final int theEnd) {
+				for (int i = theStart; i < theEnd; i++) {
+					final char aChar = theLabel.charAt(i);
+					if (aChar == '\t' || aChar == '\n' || aChar == '\r') {
+						return false;
+					}
+				}
+
+				return true;
+			}
+		},
+		TOKEN("token", false) {
+			@Override
+			boolean scan(final String theLabel, final int theStart, final int theEnd) {
+				return isToken(theLabel, theStart, theEnd);
+			}
+		},
+		LANGUAGE("language", true) {
+			@Override
+			boolean scan(final String theLabel, final int theStart, final int theEnd) {
+				int i = theStart;
+				int aPart = 0;
+
+				while (i < theEnd) {
+					final int aPartStart = i;
+					while (i < theEnd && i - aPartStart < 8 && (isAsciiLetter(theLabel.charAt(i)) || (aPart > 0 && isDigit(theLabel.charAt(i))))) {
+						i++;
+					}
+
+					if (i == aPartStart || (i < theEnd && theLabel.charAt(i) != '-') || i == theEnd - 1) {
+						return false;
+					}
+
+					i++;
+					aPart++;
+				}
+
+				return aPart > 0;
+			}
+		},
+		NAME("Name", true) {
+			@Override
+			boolean scan(final String theLabel, final int theStart, final int theEnd) {
+				return scanName(theLabel, theStart, theEnd, true) == theEnd;
+			}
+		},
+		NCNAME("NCName", true) {
+			@Override
+			boolean scan(final String theLabel, final int theStart, final int theEnd) {
+				return scanName(theLabel, theStart, theEnd, false) == theEnd;
+			}
+		},
+		ID("ID", true) {
+			@Override
+			boolean scan(final String theLabel, final int theStart, final int theEnd) {
+				return NCNAME.scan(theLabel, theStart, theEnd);
+			}
+		},
+		IDREF("IDREF", true) {
+			@Override
+			boolean scan(final String theLabel, final int theStart, final int theEnd) {
+				return NCNAME.scan(theLabel, theStart, theEnd);
+			}
+		},
+		IDREFS("IDREFS", true) {
+			@Override
+			boolean scan(final String theLabel, final int theStart, final int theEnd) {
+				return scanList(NCNAME, theLabel, theStart, theEnd);
+			}
+		},
+		ENTITY("ENTITY", true) {
+			@Override
+			boolean scan(final String theLabel, final int theStart, final int theEnd) {
+				return NCNAME.scan(theLabel, theStart, theEnd);
+			}
+		},
+		ENTITIES("ENTITIES", true) {
+			@Override
+			boolean scan(final String theLabel, final int theStart, final int theEnd) {
+				return scanList(NCNAME, theLabel, theStart, theEnd);
+			}
+		},
+		NMTOKEN("NMTOKEN", true) {
+			@Override
+			boolean scan(final String theLabel, final int theStart, final int theEnd) {
+				if (theStart == theEnd) {
+					return false;
+				}
+
+				for (int i = theStart; i < theEnd; i++) {
+					if (!isNameChar(theLabel.charAt(i), true)) {
+						return false;
+					}
+				}
+
+				return true;
+			}
+		},
+		NMTOKENS("NMTOKENS", true) {
+			@Override
+			boolean scan(final String theLabel, final int theStart, final int theEnd) {
+				return scanList(NMTOKEN, theLabel, theStart, theEnd);
+			}
+		},
+		QNAME("QName", true) {
+			@Override
+			boolean scan(final String theLabel, final int theStart, final int theEnd) {
+				final int aPrefixEnd = scanName(theLabel, theStart, theEnd, false);
+
+				if (aPrefixEnd == theEnd) {
+					return true;
+				}
+
+				return aPrefixEnd != -1 && theLabel.charAt(aPrefixEnd) == ':' && NCNAME.scan(theLabel, aPrefixEnd + 1, theEnd);
+			}
+		},
+		NOTATION("NOTATION", true) {
+			@Override
+			boolean scan(final String theLabel, final int theStart, final int theEnd) {
+				return QNAME.scan(theLabel, theStart, theEnd);
+			}
+		},
+		ANY_URI("anyURI", true) {
+			@Override
+			boolean scan(final String theLabel, final int theStart, final int theEnd) {
+				// almost any string can be escaped into a uri reference
+				return true;
+			}
+		},
+		BOOLEAN("boolean", true) {
+			@Override
+			boolean scan(final String theLabel, final int theStart, final int theEnd) {
+				final int aLength = theEnd - theStart;
+
+				if (aLength == 1) {
+					return theLabel.charAt(theStart) == '0' || theLabel.charAt(theStart) == '1';
+				}
+
+				return (aLength == 4 && theLabel.startsWith("true", theStart))
+				       || (aLength == 5 && theLabel.startsWith("false", theStart));
+			}
+		},
+		DECIMAL("decimal", true) {
+			@Override
+			boolean scan(final String theLabel, final int theStart, final int theEnd) {
+				return scanDecimal(theLabel, theStart, theEnd) == theEnd;
+			}
+		},
+		FLOAT("float", true) {
+			@Override
+			boolean scan(final String theLabel, final int theStart, final int theEnd) {
+				return scanFloatingPoint(theLabel, theStart, theEnd);
+			}
+		},
+		DOUBLE("double", true) {
+			@Override
+			boolean scan(final String theLabel, final int theStart, final int theEnd) {
+				return scanFloatingPoint(theLabel, theStart, theEnd);
+			}
+		},
+		INTEGER("integer", null, null),
+		NON_POSITIVE_INTEGER("nonPositiveInteger", null, "0"),
+		NEGATIVE_INTEGER("negativeInteger", null, "-1"),
+		NON_NEGATIVE_INTEGER("nonNegativeInteger", "0", null),
+		POSITIVE_INTEGER("positiveInteger", "1", null),
+		LONG("long", "-9223372036854775808", "9223372036854775807"),
+		INT("int", "-2147483648", "2147483647"),
+		SHORT("short", "-32768", "32767"),
+		BYTE("byte", "-128", "127"),
+		UNSIGNED_LONG("unsignedLong", "0", "18446744073709551615"),
+		UNSIGNED_INT("unsignedInt", "0", "4294967295"),
+		UNSIGNED_SHORT("unsignedShort", "0", "65535"),
+		UNSIGNED_BYTE("unsignedByte", "0", "255"),
+		DURATION("duration", true) {
+			@Override
+			boolean scan(final String theLabel, final int theStart, final int theEnd) {
+				return scanDuration(theLabel, theStart, theEnd, true, true);
+			}
+		},
+		YEAR_MONTH_DURATION("yearMonthDuration", true) {
+			@Override
+			boolean scan(final String theLabel, final int theStart, final int theEnd) {
+				return scanDuration(theLabel, theStart, theEnd, true, false);
+			}
+		},
+		DAY_TIME_DURATION("dayTimeDuration", true) {
+			@Override
+			boolean scan(final String theLabel, final int theStart, final int theEnd) {
+				return scanDuration(theLabel, theStart, theEnd, false, true);
+			}
+		},
+		DATE_TIME("dateTime", true) {
+			@Override
+			boolean scan(final String theLabel, final int theStart, final int theEnd) {
+				return scanDateTime(theLabel, theStart, theEnd, false);
+			}
+		},
+		DATE_TIME_STAMP("dateTimeStamp", true) {
+			@Override
+			boolean scan(final String theLabel, final int theStart, final int theEnd) {
+				return scanDateTime(theLabel, theStart, theEnd, true);
+			}
+		},
+		TIME("time", true) {
+			@Override
+			boolean scan(final String theLabel, final int theStart, final int theEnd) {
+				return scanTimezone(theLabel, scanTime(theLabel, theStart, theEnd), theEnd, false);
+			}
+		},
+		DATE("date", true) {
+			@Override
+			boolean scan(final String theLabel, final int theStart, final int theEnd) {
+				return scanTimezone(theLabel, scanDate(theLabel, theStart, theEnd), theEnd, false);
+			}
+		},
+		G_YEAR_MONTH("gYearMonth", true) {
+			@Override
+			boolean scan(final String theLabel, final int theStart, final int theEnd) {
+				final int aYearEnd = scanYear(theLabel, theStart, theEnd);
+
+				if (aYearEnd == -1 || aYearEnd >= theEnd || theLabel.charAt(aYearEnd) != '-') {
+					return false;
+				}
+
+				final int aMonth = twoDigits(theLabel, aYearEnd + 1, theEnd);
+
+				return aMonth >= 1 && aMonth <= 12 && scanTimezone(theLabel, aYearEnd + 3, theEnd, false);
+			}
+		},
+		G_YEAR("gYear", true) {
+			@Override
+			boolean scan(final String theLabel, final int theStart, final int theEnd) {
+				return scanTimezone(theLabel, scanYear(theLabel, theStart, theEnd), theEnd, false);
+			}
+		},
+		G_MONTH_DAY("gMonthDay", true) {
+			@Override
+			boolean scan(final String theLabel, final int theStart, final int theEnd) {
+				if (!theLabel.startsWith("--", theStart) || theStart + 5 > theEnd || theLabel.charAt(theStart + 4) != '-') {
+					return false;
+				}
+
+				final int aMonth = twoDigits(theLabel, theStart + 2, theEnd);
+				final int aDay = twoDigits(theLabel, theStart + 5, theEnd);
+
+				// a leap year is assumed, so the 29th of February is allowed
+				return aMonth >= 1 && aMonth <= 12 && aDay >= 1 && aDay <= daysInMonth(aMonth, true)
+				       && scanTimezone(theLabel, theStart + 7, theEnd, false);
+			}
+		},
+		G_DAY("gDay", true) {
+			@Override
+			boolean scan(final String theLabel, final int theStart, final int theEnd) {
+				if (!theLabel.startsWith("---", theStart)) {
+					return false;
+				}
+
+				final int aDay = twoDigits(theLabel, theStart + 3, theEnd);
+
+				return aDay >= 1 && aDay <= 31 && scanTimezone(theLabel, theStart + 5, theEnd, false);
+			}
+		},
+		G_MONTH("gMonth", true) {
+			@Override
+			boolean scan(final String theLabel, final int theStart, final int theEnd) {
+				if (!theLabel.startsWith("--", theStart)) {
+					return false;
+				}
+
+				final int aMonth = twoDigits(theLabel, theStart + 2, theEnd);
+
+				return aMonth >= 1 && aMonth <= 12 && scanTimezone(theLabel, theStart + 4, theEnd, false);
+			}
+		},
+		HEX_BINARY("hexBinary", true) {
+			@Override
+			boolean scan(final String theLabel, final int theStart, final int theEnd) {
+				if ((theEnd - theStart) % 2 != 0) {
+					return false;
+				}
+
+				for (int i = theStart; i < theEnd; i++) {
+					final char aChar = theLabel.charAt(i);
+					if (!isDigit(aChar) && !(aChar >= 'a' && aChar <= 'f') && !(aChar >= 'A' && aChar <= 'F')) {
+						return false;
+					}
+				}
+
+				return true;
+			}
+		},
+		BASE64_BINARY("base64Binary", true) {
+			@Override
+			boolean scan(final String theLabel, final int theStart, final int theEnd) {
+				int aCount = 0;
+				int aPadding = 0;
+				char aLast = 0;
+
+				for (int i = theStart; i < theEnd; i++) {
+					final char aChar = theLabel.charAt(i);
+
+					if (aChar == ' ') {
+						continue;
+					}
+					else if (aChar == '=') {
+						aPadding++;
+					}
+					else if (aPadding == 0 && (isAsciiLetter(aChar) || isDigit(aChar) || aChar == '+' || aChar == '/')) {
+						aLast = aChar;
+					}
+					else {
+						return false;
+					}
+
+					aCount++;
+				}
+
+				// the unused bits of the last character before the padding must be zero
+				return aCount % 4 == 0
+				       && (aPadding == 0
+				           || (aPadding == 1 && "AEIMQUYcgkosw048".indexOf(aLast) != -1)
+				           || (aPadding == 2 && "AQgw".indexOf(aLast) != -1));
+			}
+		};
+
+		private final String mLocalName;
+
+		/**
+		 * Whether the whitespace facet of the datatype collapses leading and trailing whitespace
+		 */
+		private final boolean mCollapse;
+
+		/**
+		 * The bounds of an integer datatype, null if it is not an integer datatype or is unbounded
+		 */
+		private final String mMin;
+
+		private final String mMax;
+
+		Syntax(final String theLocalName, final boolean theCollapse) {
+			mLocalName = theLocalName;
+			mCollapse = theCollapse;
+			mMin = null;
+			mMax = null;
+		}
+
+		Syntax(final String theLocalName, final String theMin, final String theMax) {
+			mLocalName = theLocalName;
+			mCollapse = true;
+			mMin = theMin;
+			mMax = theMax;
+		}
+
+		/**
+		 * Scan the range of the label, the integer datatypes share this implementation
+		 */
+		boolean scan(final String theLabel, final int theStart, final int theEnd) {
+			return scanInteger(theLabel, theStart, theEnd, mMin, mMax);
+		}
+
+		boolean accepts(final String theLabel) {
+			int aStart = 0;
+			int aEnd = theLabel.length();
+
+			if (mCollapse) {
+				while (aStart < aEnd && isWhitespace(theLabel.charAt(aStart))) {
+					aStart++;
+				}
+
+				while (aEnd > aStart && isWhitespace(theLabel.charAt(aEnd - 1))) {
+					aEnd--;
+				}
+			}
+
+			return scan(theLabel, aStart, aEnd);
+		}
+	}
+
+	private static boolean isWhitespace(final char theChar) {
+		return theChar == ' ' || theChar == '\t' || theChar == '\n' || theChar == '\r';
+	}
+
+	private static boolean isDigit(final char theChar) {
+		return theChar >= '0' && theChar <= '9';
+	}
+
+	private static boolean isAsciiLetter(final char theChar) {
+		return (theChar >= 'a' && theChar <= 'z') || (theChar >= 'A' && theChar <= 'Z');
+	}
+
+	private static boolean isNameStartChar(final char theChar, final boolean theColon) {
+		return isAsciiLetter(theChar) || theChar == '_' || (theColon && theChar == ':')
+		       || (theChar >= 0xC0 && Character.isLetter(theChar));
+	}
+
+	private static boolean isNameChar(final char theChar, final boolean theColon) {
+		return isNameStartChar(theChar, theColon) || isDigit(theChar) || theChar == '-' || theChar == '.' || theChar == 0xB7
+		       || (theChar >= 0xC0 && Character.isLetterOrDigit(theChar));
+	}
+
+	private static int digits(final String theLabel, final int theStart, final int theEnd) {
+		int i = theStart;
+		while (i < theEnd && isDigit(theLabel.charAt(i))) {
+			i++;
+		}
+
+		return i;
+	}
+
+	/**
+	 * Return the value of the two digits at the position, or -1 if there are not two digits there
+	 */
+	private static int twoDigits(final String theLabel, final int theStart, final int theEnd) {
+		if (theStart < 0 || theStart + 2 > theEnd || !isDigit(theLabel.charAt(theStart)) || !isDigit(theLabel.charAt(theStart + 1))) {
+			return -1;
+		}
+
+		return (theLabel.charAt(theStart) - '0') * 10 + (theLabel.charAt(theStart + 1) - '0');
+	}
+
+	private static boolean isToken(final String theLabel, final int theStart, final int theEnd) {
+		for (int i = theStart; i < theEnd; i++) {
+			final char aChar = theLabel.charAt(i);
+
+			if (aChar == '\t' || aChar == '\n' || aChar == '\r') {
+				return false;
+			}
+
+			if (aChar == ' ' && (i == theStart || i == theEnd - 1 || theLabel.charAt(i - 1) == ' ')) {
+				return false;
+			}
+		}
+
+		return true;
+	}
+
+	/**
+	 * Return the end of the name starting at the position, or -1 if there is no name there
+	 */
+	private static int scanName(final String theLabel, final int theStart, final int theEnd, final boolean theColon) {
+		if (theStart >= theEnd || !isNameStartChar(theLabel.charAt(theStart), theColon)) {
+			return -1;
+		}
+
+		int i = theStart + 1;
+		while (i < theEnd && isNameChar(theLabel.charAt(i), theColon)) {
+			i++;
+		}
+
+		return i;
+	}
+
+	/**
+	 * Scan a whitespace separated list of at least one item
+	 */
+	private static boolean scanList(final Syntax theItem, final String theLabel, final int theStart, final int theEnd) {
+		int i = theStart;
+		int aItems = 0;
+
+		while (i < theEnd) {
+			int aItemEnd = i;
+			while (aItemEnd < theEnd && !isWhitespace(theLabel.charAt(aItemEnd))) {
+				aItemEnd++;
+			}
+
+			if (!theItem.scan(theLabel, i, aItemEnd)) {
+				return false;
+			}
+
+			aItems++;
+
+			i = aItemEnd;
+			while (i < theEnd && isWhitespace(theLabel.charAt(i))) {
+				i++;
+			}
+		}
+
+		return aItems > 0;
+	}
+
+	private static boolean scanInteger(final String theLabel, final int theStart, final int theEnd, final String theMin, final String theMax) {
+		int i = theStart;
+		boolean aNegative = false;
+
+		if (i < theEnd && (theLabel.charAt(i) == '+' || theLabel.charAt(i) == '-')) {
+			aNegative = theLabel.charAt(i) == '-';
+			i++;
+		}
+
+		if (i == theEnd || digits(theLabel, i, theEnd) != theEnd) {
+			return false;
+		}
+
+		return (theMin == null || compareInteger(theLabel, i, theEnd, aNegative, theMin) >= 0)
+		       && (theMax == null || compareInteger(theLabel, i, theEnd, aNegative, theMax) <= 0);
+	}
+
+	/**
+	 * Compare the integer whose digits are in the range of the label with the bound, in canonical form
+	 */
+	private static int compareInteger(final String theLabel, final int theStart, final int theEnd, final boolean theNegative, final String theBound) {
+		int aStart = theStart;
+		while (aStart < theEnd - 1 && theLabel.charAt(aStart) == '0') {
+			aStart++;
+		}
+
+		// negative zero is zero
+		final boolean aNegative = theNegative && !(aStart == theEnd - 1 && theLabel.charAt(aStart) == '0');
+		final boolean aBoundNegative = theBound.charAt(0) == '-';
+
+		if (aNegative != aBoundNegative) {
+			return aNegative ? -1 : 1;
+		}
+
+		final int aBoundStart = aBoundNegative ? 1 : 0;
+		int aMagnitude = (theEnd - aStart) - (theBound.length() - aBoundStart);
+
+		for (int i = 0; aMagnitude == 0 && i < theEnd - aStart; i++) {
+			aMagnitude = theLabel.charAt(aStart + i) - theBound.charAt(aBoundStart + i);
+		}
+
+		return aNegative ? -aMagnitude : aMagnitude;
+	}
+
+	/**
+	 * Return the end of the decimal number at the position, or -1 if there is not one there
+	 */
+	private static int scanDecimal(final String theLabel, final int theStart, final int theEnd) {
+		int i = theStart;
+
+		if (i < theEnd && (theLabel.charAt(i) == '+' || theLabel.charAt(i) == '-')) {
+			i++;
+		}
+
+		final int aIntegerEnd = digits(theLabel, i, theEnd);
+		int aEnd = aIntegerEnd;
+
+		if (aEnd < theEnd && theLabel.charAt(aEnd) == '.') {
+			aEnd = digits(theLabel, aEnd + 1, theEnd);
+
+			// there has to be a digit on at least one side of the point
+			if (aIntegerEnd == i && aEnd == aIntegerEnd + 1) {
+				return -1;
+			}
+		}
+		else if (aIntegerEnd == i) {
+			return -1;
+		}
+
+		return aEnd;
+	}
+
+	private static boolean scanFloatingPoint(final String theLabel, final int theStart, final int theEnd) {
+		final int aLength = theEnd - theStart;
+
+		if ((aLength == 3 && (theLabel.startsWith("INF", theStart) || theLabel.startsWith("NaN", theStart)))
+		    || (aLength == 4 && (theLabel.startsWith("-INF", theStart) || theLabel.startsWith("+INF", theStart)))) {
+			return true;
+		}
+
+		final int aMantissaEnd = scanDecimal(theLabel, theStart, theEnd);
+
+		if (aMantissaEnd == -1) {
+			return false;
+		}
+
+		if (aMantissaEnd == theEnd) {
+			return true;
+		}
+
+		if (theLabel.charAt(aMantissaEnd) != 'e' && theLabel.charAt(aMantissaEnd) != 'E') {
+			return false;
+		}
+
+		return scanInteger(theLabel, aMantissaEnd + 1, theEnd, null, null);
+	}
+
+	private static boolean scanDuration(final String theLabel, final int theStart, final int theEnd,
+	                                    final boolean theYearMonth, final boolean theDayTime) {
+		int i = theStart;
+
+		if (i < theEnd && theLabel.charAt(i) == '-') {
+			i++;
+		}
+
+		if (i >= theEnd || theLabel.charAt(i) != 'P') {
+			return false;
+		}
+		i++;
+
+		boolean aTime = false;
+		boolean aAnyDate = false;
+		boolean aAnyTime = false;
+		int aNext = 0;
+
+		while (i < theEnd) {
+			if (theLabel.charAt(i) == 'T') {
+				if (aTime || !theDayTime) {
+					return false;
+				}
+
+				aTime = true;
+				aNext = 0;
+				i++;
+				continue;
+			}
+
+			int aEnd = digits(theLabel, i, theEnd);
+			if (aEnd == i) {
+				return false;
+			}
+
+			boolean aFraction = false;
+			if (aEnd < theEnd && theLabel.charAt(aEnd) == '.') {
+				aFraction = true;
+				final int aFractionEnd = digits(theLabel, aEnd + 1, theEnd);
+				if (aFractionEnd == aEnd + 1) {
+					return false;
+				}
+				aEnd = aFractionEnd;
+			}
+
+			if (aEnd >= theEnd) {
+				return false;
+			}
+
+			final int aDesignator = (aTime ? "HMS" : "YMD").indexOf(theLabel.charAt(aEnd), aNext);
+
+			// designators in order, only seconds can be fractional, and only the ones the datatype allows
+			if (aDesignator == -1
+			    || (aFraction && !(aTime && aDesignator == 2))
+			    || (!aTime && aDesignator < 2 && !theYearMonth)
+			    || (!aTime && aDesignator == 2 && !theDayTime)) {
+				return false;
+			}
+
+			if (aTime) {
+				aAnyTime = true;
+			}
+			else {
+				aAnyDate = true;
+			}
+
+			aNext = aDesignator + 1;
+			i = aEnd + 1;
+		}
+
+		return aTime ? aAnyTime : aAnyDate;
+	}
+
+	private static boolean scanDateTime(final String theLabel, final int theStart, final int theEnd, final boolean theTimezone) {
+		final int aDateEnd = scanDate(theLabel, theStart, theEnd);
+
+		if (aDateEnd == -1 || aDateEnd >= theEnd || theLabel.charAt(aDateEnd) != 'T') {
+			return false;
+		}
+
+		return scanTimezone(theLabel, scanTime(theLabel, aDateEnd + 1, theEnd), theEnd, theTimezone);
+	}
+
+	/**
+	 * Return the end of the year at the position, or -1 if there is not one there
+	 */
+	private static int scanYear(final String theLabel, final int theStart, final int theEnd) {
+		final int aDigitsStart = theStart < theEnd && theLabel.charAt(theStart) == '-' ? theStart + 1 : theStart;
+		final int aDigitsEnd = digits(theLabel, aDigitsStart, theEnd);
+
+		// at least four digits, and no leading zero when there are more
+		if (aDigitsEnd - aDigitsStart < 4 || (aDigitsEnd - aDigitsStart > 4 && theLabel.charAt(aDigitsStart) == '0')) {
+			return -1;
+		}
+
+		return aDigitsEnd;
+	}
+
+	/**
+	 * Return the end of the date at the position, or -1 if there is not one there
+	 */
+	private static int scanDate(final String theLabel, final int theStart, final int theEnd) {
+		final int aYearEnd = scanYear(theLabel, theStart, theEnd);
+
+		if (aYearEnd == -1 || aYearEnd + 6 > theEnd || theLabel.charAt(aYearEnd) != '-' || theLabel.charAt(aYearEnd + 3) != '-') {
+			return -1;
+		}
+
+		final int aMonth = twoDigits(theLabel, aYearEnd + 1, theEnd);
+		final int aDay = twoDigits(theLabel, aYearEnd + 4, theEnd);
+
+		if (aMonth < 1 || aMonth > 12 || aDay < 1 || aDay > daysInMonth(aMonth, isLeapYear(theLabel, theStart, aYearEnd))) {
+			return -1;
+		}
+
+		return aYearEnd + 6;
+	}
+
+	/**
+	 * Return the end of the time at the position, or -1 if there is not one there
+	 */
+	private static int scanTime(final String theLabel, final int theStart, final int theEnd) {
+		if (theStart + 8 > theEnd || theLabel.charAt(theStart + 2) != ':' || theLabel.charAt(theStart + 5) != ':') {
+			return -1;
+		}
+
+		final int aHour = twoDigits(theLabel, theStart, theEnd);
+		final int aMinute = twoDigits(theLabel, theStart + 3, theEnd);
+		final int aSecond = twoDigits(theLabel, theStart + 6, theEnd);
+
+		if (aHour < 0 || aHour > 24 || aMinute < 0 || aMinute > 59 || aSecond < 0 || aSecond > 59) {
+			return -1;
+		}
+
+		int aEnd = theStart + 8;
+		boolean aZeroFraction = true;
+
+		if (aEnd < theEnd && theLabel.charAt(aEnd) == '.') {
+			final int aFractionEnd = digits(theLabel, aEnd + 1, theEnd);
+
+			if (aFractionEnd == aEnd + 1) {
+				return -1;
+			}
+
+			for (int i = aEnd + 1; i < aFractionEnd; i++) {
+				aZeroFraction &= theLabel.charAt(i) == '0';
+			}
+
+			aEnd = aFractionEnd;
+		}
+
+		// 24:00:00 is the end of the day, any other time in the 24th hour is invalid
+		if (aHour == 24 && (aMinute != 0 || aSecond != 0 || !aZeroFraction)) {
+			return -1;
+		}
+
+		return aEnd;
+	}
+
+	/**
+	 * Return whether the range from the position to the end is a timezone, or empty if the timezone is optional
+	 */
+	private static boolean scanTimezone(final String theLabel, final int theStart, final int theEnd, final boolean theRequired) {
+		if (theStart == -1) {
+			return false;
+		}
+
+		if (theStart == theEnd) {
+			return !theRequired;
+		}
+
+		if (theEnd - theStart == 1) {
+			return theLabel.charAt(theStart) == 'Z';
+		}
+
+		if (theEnd - theStart != 6 || (theLabel.charAt(theStart) != '+' && theLabel.charAt(theStart) != '-') || theLabel.charAt(theStart + 3) != ':') {
+			return false;
+		}
+
+		final int aHour = twoDigits(theLabel, theStart + 1, theEnd);
+		final int aMinute = twoDigits(theLabel, theStart + 4, theEnd);
+
+		return aHour >= 0 && aMinute >= 0 && aMinute <= 59 && (aHour < 14 || (aHour == 14 && aMinute == 0));
+	}
+
+	/**
+	 * Return whether the year in the range of the label is a leap year, only its value modulo 400 is needed
+	 */
+	private static boolean isLeapYear(final String theLabel, final int theStart, final int theEnd) {
+		int aYear = 0;
+
+		for (int i = theStart; i < theEnd; i++) {
+			if (isDigit(theLabel.charAt(i))) {
+				aYear = (aYear * 10 + theLabel.charAt(i) - '0') % 400;
+			}
+		}
+
+		return aYear % 4 == 0 && (aYear % 100 != 0 || aYear == 0);
+	}
+
+	private static int daysInMonth(final int theMonth, final boolean theLeapYear) {
+		switch (theMonth) {
+			case 2:
+				return theLeapYear ? 29 : 28;
+			case 4:
+			case 6:
+			case 9:
+			case 11:
+				return 30;
+			default:
+				return 31;
+		}
+	}
+}
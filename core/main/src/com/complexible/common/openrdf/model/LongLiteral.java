@@ -0,0 +1,168 @@
+/*
+ * Copyright (c) 2009-2014 Clark & Parsia, LLC. <http://www.clarkparsia.com>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.complexible.common.openrdf.model;
+
+import java.math.BigDecimal;
+import java.math.BigInteger;
+
+import org.openrdf.model.URI;
+
+/**
+ * <p>A literal of one of the XSD integer datatypes whose value fits in a long, kept as a long.  Its label is the
+ * value's canonical form; the hash code is computed from the digits without building the label.</p>
+ *
+ * @author  Michael Grove
+ * @since   2.0.2
+ * @version 2.0.2
+ */
+final class LongLiteral extends PrimitiveLiteral {
+
+	private final long mValue;
+
+	LongLiteral(final long theValue, final URI theDatatype) {
+		super(theDatatype);
+
+		mValue = theValue;
+	}
+
+	/**
+	 * @inheritDoc
+	 */
+	@Override
+	protected String buildLabel() {
+		return Long.toString(mValue);
+	}
+
+	/**
+	 * @inheritDoc
+	 */
+	@Override
+	public byte byteValue() {
+		if (mValue < Byte.MIN_VALUE || mValue > Byte.MAX_VALUE) {
+			throw new NumberFormatException("Value out of range for a byte: " + mValue);
+		}
+
+		return (byte) mValue;
+	}
+
+	/**
+	 * @inheritDoc
+	 */
+	@Override
+	public short shortValue() {
+		if (mValue < Short.MIN_VALUE || mValue > Short.MAX_VALUE) {
+			throw new NumberFormatException("Value out of range for a short: " + mValue);
+		}
+
+		return (short) mValue;
+	}
+
+	/**
+	 * @inheritDoc
+	 */
+	@Override
+	public int intValue() {
+		if (mValue < Integer.MIN_VALUE || mValue > Integer.MAX_VALUE) {
+			throw new NumberFormatException("Value out of range for an int: " + mValue);
+		}
+
+		return (int) mValue;
+	}
+
+	/**
+	 * @inheritDoc
+	 */
+	@Override
+	public long longValue() {
+		return mValue;
+	}
+
+	/**
+	 * @inheritDoc
+	 */
+	@Override
+	public BigInteger integerValue() {
+		return BigInteger.valueOf(mValue);
+	}
+
+	/**
+	 * @inheritDoc
+	 */
+	@Override
+	public BigDecimal decimalValue() {
+		return BigDecimal.valueOf(mValue);
+	}
+
+	/**
+	 * @inheritDoc
+	 */
+	@Override
+	public float floatValue() {
+		return (float) mValue;
+	}
+
+	/**
+	 * @inheritDoc
+	 */
+	@Override
+	public double doubleValue() {
+		return (double) mValue;
+	}
+
+	/**
+	 * @inheritDoc
+	 */
+	@Override
+	public boolean equals(final Object theObj) {
+		if (theObj instanceof LongLiteral) {
+			final LongLiteral that = (LongLiteral) theObj;
+
+			return mValue == that.mValue && getDatatype().equals(that.getDatatype());
+		}
+
+		return super.equals(theObj);
+	}
+
+	/**
+	 * Return the hash code of the label, {@link String#hashCode} of the decimal digits, without building it
+	 *
+	 * @return	the hash code
+	 */
+	@Override
+	public int hashCode() {
+		int aHash = 0;
+
+		// work with the value negated so that Long.MIN_VALUE does not overflow
+		long aValue = mValue;
+		if (aValue < 0) {
+			aHash = '-';
+		}
+		else {
+			aValue = -aValue;
+		}
+
+		long aDivisor = 1;
+		while (aValue / aDivisor <= -10) {
+			aDivisor *= 10;
+		}
+
+		for (; aDivisor > 0; aDivisor /= 10) {
+			aHash = 31 * aHash + ('0' + (int) Math.abs((aValue / aDivisor) % 10));
+		}
+
+		return aHash;
+	}
+}
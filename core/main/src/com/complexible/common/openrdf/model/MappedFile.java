@@ -0,0 +1,185 @@
+/*
+ * Copyright (c) 2009-2014 Clark & Parsia, LLC. <http://www.clarkparsia.com>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.complexible.common.openrdf.model;
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.List;
+
+import com.google.common.collect.Lists;
+
+/**
+ * <p>A file which is memory mapped in fixed size chunks, so it can be larger than the 2GB limit of a single
+ * {@link MappedByteBuffer}.  Chunks are mapped as the file grows.  ints and longs must be read and written at positions
+ * aligned to their size so that they never straddle two chunks; byte arrays may be written anywhere.</p>
+ *
+ * <p>Not thread-safe.</p>
+ *
+ * @author  Michael Grove
+ * @since   2.0.2
+ * @version 2.0.2
+ */
+final class MappedFile implements Closeable {
+	/**
+	 * The default size of each mapped region, 64MB
+	 */
+	static final int DEFAULT_CHUNK_BITS = 26;
+
+	private final int mChunkBits;
+
+	private final long mChunkSize;
+
+	private final File mFile;
+
+	private final RandomAccessFile mRandomAccessFile;
+
+	private final FileChannel mChannel;
+
+	private final List<MappedByteBuffer> mChunks = Lists.newArrayList();
+
+	/**
+	 * Open, or create, the mapped file using the {@link #DEFAULT_CHUNK_BITS default} chunk size
+	 * @param theFile	the file
+	 * @throws IOException	if the file cannot be opened or mapped
+	 */
+	MappedFile(final File theFile) throws IOException {
+		this(theFile, DEFAULT_CHUNK_BITS);
+	}
+
+	/**
+	 * Open, or create, the mapped file
+	 * @param theFile		the file
+	 * @param theChunkBits	log2 of the size of each mapped region
+	 * @throws IOException	if the file cannot be opened or mapped
+	 */
+	MappedFile(final File theFile, final int theChunkBits) throws IOException {
+		mChunkBits = theChunkBits;
+		mChunkSize = 1L << theChunkBits;
+		mFile = theFile;
+		mRandomAccessFile = new RandomAccessFile(theFile, "rw");
+		mChannel = mRandomAccessFile.getChannel();
+
+		ensureCapacity(Math.max(mChannel.size(), 1));
+	}
+
+	File getFile() {
+		return mFile;
+	}
+
+	/**
+	 * Return the number of bytes which are currently mapped
+	 * @return the capacity
+	 */
+	long capacity() {
+		return mChunks.size() * mChunkSize;
+	}
+
+	/**
+	 * Make sure that at least the given number of bytes is mapped, growing the file if necessary
+	 * @param theBytes	the required capacity
+	 * @throws IOException	if the file cannot be grown or mapped
+	 */
+	void ensureCapacity(final long theBytes) throws IOException {
+		while (capacity() < theBytes) {
+			mChunks.add(mChannel.map(FileChannel.MapMode.READ_WRITE, capacity(), mChunkSize));
+		}
+	}
+
+	int getInt(final long thePosition) {
+		return chunk(thePosition).getInt(offset(thePosition));
+	}
+
+	void putInt(final long thePosition, final int theValue) {
+		chunk(thePosition).putInt(offset(thePosition), theValue);
+	}
+
+	long getLong(final long thePosition) {
+		return chunk(thePosition).getLong(offset(thePosition));
+	}
+
+	void putLong(final long thePosition, final long theValue) {
+		chunk(thePosition).putLong(offset(thePosition), theValue);
+	}
+
+	void get(final long thePosition, final byte[] theBytes) {
+		long aPos = thePosition;
+		int aDone = 0;
+
+		while (aDone < theBytes.length) {
+			final MappedByteBuffer aChunk = chunk(aPos);
+			final int aOffset = offset(aPos);
+			final int aLength = (int) Math.min(theBytes.length - aDone, mChunkSize - aOffset);
+
+			for (int i = 0; i < aLength; i++) {
+				theBytes[aDone + i] = aChunk.get(aOffset + i);
+			}
+
+			aDone += aLength;
+			aPos += aLength;
+		}
+	}
+
+	void put(final long thePosition, final byte[] theBytes) {
+		long aPos = thePosition;
+		int aDone = 0;
+
+		while (aDone < theBytes.length) {
+			final MappedByteBuffer aChunk = chunk(aPos);
+			final int aOffset = offset(aPos);
+			final int aLength = (int) Math.min(theBytes.length - aDone, mChunkSize - aOffset);
+
+			for (int i = 0; i < aLength; i++) {
+				aChunk.put(aOffset + i, theBytes[aDone + i]);
+			}
+
+			aDone += aLength;
+			aPos += aLength;
+		}
+	}
+
+	/**
+	 * Flush any changes to the mapped regions to disk
+	 */
+	void force() {
+		for (MappedByteBuffer aChunk : mChunks) {
+			aChunk.force();
+		}
+	}
+
+	/**
+	 * @inheritDoc
+	 */
+	@Override
+	public void close() throws IOException {
+		force();
+
+		// there is no way to unmap a buffer before it is collected, so all we can do is let go of them
+		mChunks.clear();
+		mRandomAccessFile.close();
+	}
+
+	private MappedByteBuffer chunk(final long thePosition) {
+		return mChunks.get((int) (thePosition >>> mChunkBits));
+	}
+
+	private int offset(final long thePosition) {
+		return (int) (thePosition & (mChunkSize - 1));
+	}
+}
@@ -0,0 +1,751 @@
+/*
+ * Copyright (c) 2009-2014 Clark & Parsia, LLC. <http://www.clarkparsia.com>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.complexible.common.openrdf.model;
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.util.AbstractCollection;
+import java.util.Collections;
+import java.util.ConcurrentModificationException;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+
+import com.google.common.collect.AbstractIterator;
+
+import org.openrdf.model.Graph;
+import org.openrdf.model.Resource;
+import org.openrdf.model.Statement;
+import org.openrdf.model.URI;
+import org.openrdf.model.Value;
+import org.openrdf.model.ValueFactory;
+import org.openrdf.model.impl.ValueFactoryImpl;
+
+/**
+ * <p>Implementation of the Sesame {@link Graph} interface with Set semantics whose contents live in memory mapped
+ * files rather than on the heap, so it can hold more statements than fit in memory and is persistent.  Like
+ * {@link EncodedGraph}, values are dictionary encoded to integer ids and statements are stored as quads of ids; both
+ * the value dictionary and the statement table, and the hash tables over them, are kept in files in a directory.</p>
+ *
+ * <p>{@link #open Opening} a directory which already contains a graph only maps the files, it does not re-read or
+ * re-parse anything.  Changes are written to the mapped files directly, {@link #flush} forces them to disk and
+ * {@link #close} must be called when the graph is no longer used.  Use {@link GraphIO#readGraph(File, Graph)} to load
+ * RDF files into a MappedGraph.</p>
+ *
+ * <p>The counts in the header are only written on {@link #flush} and {@link #close}, so the header is marked dirty on
+ * the first change after either and marked clean again by them.  A graph which was not flushed or closed after its
+ * last change, for example because the process died, cannot be reopened; {@link #open} fails rather than trust
+ * counts which may not match the data.</p>
+ *
+ * <p>Removed statements are only marked as removed; the space they use is not reclaimed.  Not thread-safe.</p>
+ *
+ * @author  Michael Grove
+ * @since   2.0.2
+ * @version 2.0.2
+ */
+public final class MappedGraph extends AbstractCollection<Statement> implements MatchableGraph, Closeable {
+	private static final long MAGIC = 0x4d61707065644731L;
+
+	private static final int INITIAL_TABLE_CAPACITY = 1 << 10;
+
+	private static final int HEADER_MAGIC = 0;
+	private static final int HEADER_NEXT_ID = 8;
+	private static final int HEADER_VALUE_BYTES = 16;
+	private static final int HEADER_QUADS = 24;
+	private static final int HEADER_SIZE = 32;
+	private static final int HEADER_VALUE_TABLE = 40;
+	private static final int HEADER_QUAD_TABLE = 48;
+	private static final int HEADER_DIRTY = 56;
+
+	/**
+	 * Number of decoded values to cache, must be a power of two
+	 */
+	private static final int CACHE_SIZE = 1 << 13;
+
+	private final File mDirectory;
+
+	/**
+	 * Counts and table sizes, so reopening the graph is just a matter of mapping the files
+	 */
+	private final MappedFile mHeader;
+
+	/**
+	 * Encoded values, each a length followed by the {@link ValueCodec encoded} value, aligned to 4 bytes
+	 */
+	private final MappedFile mValues;
+
+	/**
+	 * The offset of each value in {@link #mValues}, indexed by id
+	 */
+	private final MappedFile mOffsets;
+
+	/**
+	 * The statements, four ints per statement.  Removed statements have their subject id negated.
+	 */
+	private final MappedFile mQuads;
+
+	/**
+	 * Open addressing table of longs, the value hash code in the high bits and its id in the low
+	 */
+	private MappedFile mValueTable;
+
+	/**
+	 * Open addressing table of (statement position + 1)
+	 */
+	private MappedFile mQuadTable;
+
+	private int mNextId;
+
+	private long mValueBytes;
+
+	private int mQuadCount;
+
+	private long mSize;
+
+	private int mValueTableCapacity;
+
+	private int mQuadTableCapacity;
+
+	private final ValueFactory mValueFactory = new ContextAwareValueFactory();
+
+	private final Value[] mCache = new Value[CACHE_SIZE];
+
+	private final int[] mCacheIds = new int[CACHE_SIZE];
+
+	private int mModCount = 0;
+
+	/**
+	 * Whether the header is marked dirty on disk, ie there are changes since the last flush
+	 */
+	private boolean mDirty = false;
+
+	private MappedGraph(final File theDirectory) throws IOException {
+		mDirectory = theDirectory;
+
+		mHeader = new MappedFile(new File(theDirectory, "header.dat"), 12);
+		mValues = new MappedFile(new File(theDirectory, "values.dat"));
+		mOffsets = new MappedFile(new File(theDirectory, "offsets.dat"));
+		mQuads = new MappedFile(new File(theDirectory, "quads.dat"));
+
+		if (mHeader.getLong(HEADER_MAGIC) == MAGIC && mHeader.getInt(HEADER_DIRTY) != 0) {
+			mHeader.close();
+			mValues.close();
+			mOffsets.close();
+			mQuads.close();
+
+			throw new IOException(theDirectory + " contains a mapped graph which was not closed cleanly");
+		}
+		else if (mHeader.getLong(HEADER_MAGIC) == MAGIC) {
+			mNextId = mHeader.getInt(HEADER_NEXT_ID);
+			mValueBytes = mHeader.getLong(HEADER_VALUE_BYTES);
+			mQuadCount = mHeader.getInt(HEADER_QUADS);
+			mSize = mHeader.getLong(HEADER_SIZE);
+			mValueTableCapacity = mHeader.getInt(HEADER_VALUE_TABLE);
+			mQuadTableCapacity = mHeader.getInt(HEADER_QUAD_TABLE);
+		}
+		else if (mHeader.getLong(HEADER_MAGIC) == 0) {
+			mNextId = ValueDictionary.NULL + 1;
+			mValueBytes = 0;
+			mQuadCount = 0;
+			mSize = 0;
+			mValueTableCapacity = INITIAL_TABLE_CAPACITY;
+			mQuadTableCapacity = INITIAL_TABLE_CAPACITY;
+
+			mHeader.putLong(HEADER_MAGIC, MAGIC);
+			writeHeader();
+		}
+		else {
+			throw new IOException(theDirectory + " does not contain a mapped graph");
+		}
+
+		mValueTable = new MappedFile(valueTableFile(mValueTableCapacity));
+		mQuadTable = new MappedFile(quadTableFile(mQuadTableCapacity));
+		mValueTable.ensureCapacity(mValueTableCapacity * 8L);
+		mQuadTable.ensureCapacity(mQuadTableCapacity * 4L);
+	}
+
+	/**
+	 * Open the graph stored in the directory, creating a new empty graph if the directory does not contain one
+	 *
+	 * @param theDirectory	the directory
+	 * @return				the graph
+	 * @throws IOException	if the directory cannot be created, does not contain a graph, contains one which was not
+	 * 						closed cleanly, or the files cannot be mapped
+	 */
+	public static MappedGraph open(final File theDirectory) throws IOException {
+		if (!theDirectory.isDirectory() && !theDirectory.mkdirs()) {
+			throw new IOException("Could not create " + theDirectory);
+		}
+
+		return new MappedGraph(theDirectory);
+	}
+
+	/**
+	 * Return the directory the graph is stored in
+	 * @return the directory
+	 */
+	public File getDirectory() {
+		return mDirectory;
+	}
+
+	/**
+	 * Force all changes to the graph to disk
+	 */
+	public void flush() {
+		mValues.force();
+		mOffsets.force();
+		mQuads.force();
+		mValueTable.force();
+		mQuadTable.force();
+
+		// only once the data is on disk can the header say it is consistent with it
+		writeHeader();
+		markClean();
+	}
+
+	/**
+	 * Flush and close the graph.  The graph cannot be used once it is closed.
+	 * @throws IOException	if there is an error closing the files
+	 */
+	@Override
+	public void close() throws IOException {
+		mValues.close();
+		mOffsets.close();
+		mQuads.close();
+		mValueTable.close();
+		mQuadTable.close();
+
+		writeHeader();
+		markClean();
+		mHeader.close();
+	}
+
+	/**
+	 * @inheritDoc
+	 */
+	@Override
+	public int size() {
+		return (int) Math.min(mSize, Integer.MAX_VALUE);
+	}
+
+	/**
+	 * @inheritDoc
+	 */
+	@Override
+	public boolean isEmpty() {
+		return mSize == 0;
+	}
+
+	/**
+	 * @inheritDoc
+	 */
+	@Override
+	public Iterator<Statement> iterator() {
+		return new Iterator<Statement>() {
+			private int mPos = next(0);
+
+			private int mLast = -1;
+
+			private int mExpectedModCount = mModCount;
+
+			private int next(int thePos) {
+				while (thePos < mQuadCount && isRemoved(thePos)) {
+					thePos++;
+				}
+				return thePos;
+			}
+
+			@Override
+			public boolean hasNext() {
+				return mPos < mQuadCount;
+			}
+
+			@Override
+			public Statement next() {
+				if (mModCount != mExpectedModCount) {
+					throw new ConcurrentModificationException();
+				}
+				if (!hasNext()) {
+					throw new NoSuchElementException();
+				}
+
+				mLast = mPos;
+				mPos = next(mPos + 1);
+
+				return statement(mLast);
+			}
+
+			@Override
+			public void remove() {
+				if (mLast == -1) {
+					throw new IllegalStateException();
+				}
+				if (mModCount != mExpectedModCount) {
+					throw new ConcurrentModificationException();
+				}
+
+				markRemoved(mLast);
+				mLast = -1;
+				mExpectedModCount = mModCount;
+			}
+		};
+	}
+
+	/**
+	 * @inheritDoc
+	 */
+	@Override
+	public boolean add(final Statement theStatement) {
+		return add(encode(theStatement.getSubject()), encode(theStatement.getPredicate()),
+		           encode(theStatement.getObject()), encode(theStatement.getContext()));
+	}
+
+	/**
+	 * @inheritDoc
+	 */
+	@Override
+	public boolean add(final Resource theSubject, final URI thePredicate, final Value theObject, final Resource... theContexts) {
+		final int aSubj = encode(theSubject);
+		final int aPred = encode(thePredicate);
+		final int aObj = encode(theObject);
+
+		if (theContexts == null || theContexts.length == 0) {
+			return add(aSubj, aPred, aObj, ValueDictionary.NULL);
+		}
+
+		boolean aAdded = false;
+		for (Resource aContext : theContexts) {
+			aAdded |= add(aSubj, aPred, aObj, encode(aContext));
+		}
+
+		return aAdded;
+	}
+
+	/**
+	 * @inheritDoc
+	 */
+	@Override
+	public boolean contains(final Object theObj) {
+		return theObj instanceof Statement && find((Statement) theObj) != -1;
+	}
+
+	/**
+	 * @inheritDoc
+	 */
+	@Override
+	public boolean remove(final Object theObj) {
+		if (!(theObj instanceof Statement)) {
+			return false;
+		}
+
+		final int aPos = find((Statement) theObj);
+		if (aPos == -1) {
+			return false;
+		}
+
+		markRemoved(aPos);
+		return true;
+	}
+
+	/**
+	 * Mark all statements as removed.  Like {@link #remove}, this does not reclaim any space.
+	 */
+	@Override
+	public void clear() {
+		for (int aPos = 0; aPos < mQuadCount; aPos++) {
+			if (!isRemoved(aPos)) {
+				markRemoved(aPos);
+			}
+		}
+	}
+
+	/**
+	 * @inheritDoc
+	 */
+	@Override
+	@Deprecated
+	public ValueFactory getValueFactory() {
+		return mValueFactory;
+	}
+
+	/**
+	 * @inheritDoc
+	 */
+	@Override
+	@Deprecated
+	public Iterator<Statement> match(final Resource theSubject, final URI thePredicate, final Value theObject, final Resource... theContexts) {
+		return filter(theSubject, thePredicate, theObject, theContexts).iterator();
+	}
+
+	/**
+	 * @inheritDoc
+	 */
+	@Override
+	public Iterable<Statement> filter(final Resource theSubj, final URI thePred, final Value theObj, final Resource... theContexts) {
+		final int aSubj = theSubj == null ? ValueDictionary.ABSENT : id(theSubj);
+		final int aPred = thePred == null ? ValueDictionary.ABSENT : id(thePred);
+		final int aObj = theObj == null ? ValueDictionary.ABSENT : id(theObj);
+
+		if ((theSubj != null && aSubj == ValueDictionary.ABSENT)
+		    || (thePred != null && aPred == ValueDictionary.ABSENT)
+		    || (theObj != null && aObj == ValueDictionary.ABSENT)) {
+			return Collections.emptySet();
+		}
+
+		final int[] aContexts;
+		if (theContexts == null || theContexts.length == 0) {
+			aContexts = null;
+		}
+		else {
+			aContexts = new int[theContexts.length];
+			for (int i = 0; i < theContexts.length; i++) {
+				aContexts[i] = id(theContexts[i]);
+			}
+		}
+
+		return new Iterable<Statement>() {
+			@Override
+			public Iterator<Statement> iterator() {
+				return new AbstractIterator<Statement>() {
+					private int mPos = 0;
+
+					@Override
+					protected Statement computeNext() {
+						while (mPos < mQuadCount) {
+							final long aOffset = (mPos++) * 16L;
+
+							if (mQuads.getInt(aOffset) <= 0
+							    || (aSubj != ValueDictionary.ABSENT && mQuads.getInt(aOffset) != aSubj)
+							    || (aPred != ValueDictionary.ABSENT && mQuads.getInt(aOffset + 4) != aPred)
+							    || (aObj != ValueDictionary.ABSENT && mQuads.getInt(aOffset + 8) != aObj)
+							    || !matchesContext(mQuads.getInt(aOffset + 12), aContexts)) {
+								continue;
+							}
+
+							return statement(mPos - 1);
+						}
+
+						return endOfData();
+					}
+				};
+			}
+		};
+	}
+
+	private static boolean matchesContext(final int theContext, final int[] theContexts) {
+		if (theContexts == null) {
+			return true;
+		}
+
+		for (int aId : theContexts) {
+			if (aId == theContext) {
+				return true;
+			}
+		}
+
+		return false;
+	}
+
+	private boolean add(final int theSubj, final int thePred, final int theObj, final int theContext) {
+		final int aMask = mQuadTableCapacity - 1;
+
+		int aSlot = QuadTable.hash(theSubj, thePred, theObj, theContext) & aMask;
+		for (int aEntry; (aEntry = mQuadTable.getInt(aSlot * 4L)) != 0; aSlot = (aSlot + 1) & aMask) {
+			final long aOffset = (aEntry - 1) * 16L;
+			final int aSubj = mQuads.getInt(aOffset);
+
+			if (Math.abs(aSubj) == theSubj && mQuads.getInt(aOffset + 4) == thePred
+			    && mQuads.getInt(aOffset + 8) == theObj && mQuads.getInt(aOffset + 12) == theContext) {
+				if (aSubj > 0) {
+					return false;
+				}
+
+				// the statement was previously removed, just bring it back
+				markDirty();
+				mQuads.putInt(aOffset, theSubj);
+				mSize++;
+				mModCount++;
+				return true;
+			}
+		}
+
+		markDirty();
+
+		final long aOffset = mQuadCount * 16L;
+
+		grow(mQuads, aOffset + 16);
+
+		mQuads.putInt(aOffset, theSubj);
+		mQuads.putInt(aOffset + 4, thePred);
+		mQuads.putInt(aOffset + 8, theObj);
+		mQuads.putInt(aOffset + 12, theContext);
+
+		mQuadTable.putInt(aSlot * 4L, ++mQuadCount);
+		mSize++;
+		mModCount++;
+
+		if (mQuadCount * 2L > mQuadTableCapacity) {
+			rehashQuads(mQuadTableCapacity * 2);
+		}
+
+		return true;
+	}
+
+	private int find(final Statement theStatement) {
+		final int aSubj = id(theStatement.getSubject());
+		final int aPred = id(theStatement.getPredicate());
+		final int aObj = id(theStatement.getObject());
+		final int aContext = id(theStatement.getContext());
+
+		if (aSubj == ValueDictionary.ABSENT || aPred == ValueDictionary.ABSENT
+		    || aObj == ValueDictionary.ABSENT || aContext == ValueDictionary.ABSENT) {
+			return -1;
+		}
+
+		final int aMask = mQuadTableCapacity - 1;
+
+		for (int aSlot = QuadTable.hash(aSubj, aPred, aObj, aContext) & aMask, aEntry;
+		     (aEntry = mQuadTable.getInt(aSlot * 4L)) != 0; aSlot = (aSlot + 1) & aMask) {
+			final long aOffset = (aEntry - 1) * 16L;
+
+			if (mQuads.getInt(aOffset) == aSubj && mQuads.getInt(aOffset + 4) == aPred
+			    && mQuads.getInt(aOffset + 8) == aObj && mQuads.getInt(aOffset + 12) == aContext) {
+				return aEntry - 1;
+			}
+		}
+
+		return -1;
+	}
+
+	private boolean isRemoved(final int thePosition) {
+		return mQuads.getInt(thePosition * 16L) < 0;
+	}
+
+	private void markRemoved(final int thePosition) {
+		final long aOffset = thePosition * 16L;
+
+		markDirty();
+		mQuads.putInt(aOffset, -mQuads.getInt(aOffset));
+		mSize--;
+		mModCount++;
+	}
+
+	private Statement statement(final int thePosition) {
+		final long aOffset = thePosition * 16L;
+
+		return new ContextAwareStatement((Resource) decode(mQuads.getInt(aOffset)),
+		                                 (URI) decode(mQuads.getInt(aOffset + 4)),
+		                                 decode(mQuads.getInt(aOffset + 8)),
+		                                 (Resource) decode(mQuads.getInt(aOffset + 12)));
+	}
+
+	private int id(final Value theValue) {
+		if (theValue == null) {
+			return ValueDictionary.NULL;
+		}
+
+		final int aHash = theValue.hashCode();
+		final int aMask = mValueTableCapacity - 1;
+
+		for (int aSlot = ValueDictionary.mix(aHash) & aMask; ; aSlot = (aSlot + 1) & aMask) {
+			final long aEntry = mValueTable.getLong(aSlot * 8L);
+
+			if (aEntry == 0) {
+				return ValueDictionary.ABSENT;
+			}
+			else if ((int) (aEntry >>> 32) == aHash && decode((int) aEntry).equals(theValue)) {
+				return (int) aEntry;
+			}
+		}
+	}
+
+	private int encode(final Value theValue) {
+		if (theValue == null) {
+			return ValueDictionary.NULL;
+		}
+
+		final int aHash = theValue.hashCode();
+		final int aMask = mValueTableCapacity - 1;
+
+		int aSlot = ValueDictionary.mix(aHash) & aMask;
+		for (long aEntry; (aEntry = mValueTable.getLong(aSlot * 8L)) != 0; aSlot = (aSlot + 1) & aMask) {
+			if ((int) (aEntry >>> 32) == aHash && decode((int) aEntry).equals(theValue)) {
+				return (int) aEntry;
+			}
+		}
+
+		markDirty();
+
+		final byte[] aBytes = ValueCodec.toBytes(theValue);
+		final int aId = mNextId++;
+
+		grow(mValues, mValueBytes + 4 + aBytes.length);
+		grow(mOffsets, (aId + 1) * 8L);
+
+		mValues.putInt(mValueBytes, aBytes.length);
+		mValues.put(mValueBytes + 4, aBytes);
+		mOffsets.putLong(aId * 8L, mValueBytes);
+
+		// keep the length prefix of the next value aligned
+		mValueBytes += (4 + aBytes.length + 3) & ~3;
+
+		mValueTable.putLong(aSlot * 8L, ((long) aHash << 32) | aId);
+
+		if (mNextId * 2L > mValueTableCapacity) {
+			rehashValues(mValueTableCapacity * 2);
+		}
+
+		return aId;
+	}
+
+	private Value decode(final int theId) {
+		if (theId == ValueDictionary.NULL) {
+			return null;
+		}
+
+		final int aId = Math.abs(theId);
+		final int aSlot = aId & (CACHE_SIZE - 1);
+
+		if (mCacheIds[aSlot] == aId) {
+			return mCache[aSlot];
+		}
+
+		final long aOffset = mOffsets.getLong(aId * 8L);
+		final byte[] aBytes = new byte[mValues.getInt(aOffset)];
+		mValues.get(aOffset + 4, aBytes);
+
+		final Value aValue = ValueCodec.fromBytes(aBytes, ValueFactoryImpl.getInstance());
+
+		mCacheIds[aSlot] = aId;
+		mCache[aSlot] = aValue;
+
+		return aValue;
+	}
+
+	private void rehashValues(final int theCapacity) {
+		final MappedFile aOld = mValueTable;
+		final int aOldCapacity = mValueTableCapacity;
+
+		try {
+			final MappedFile aTable = new MappedFile(valueTableFile(theCapacity));
+			aTable.ensureCapacity(theCapacity * 8L);
+
+			final int aMask = theCapacity - 1;
+			for (int i = 0; i < aOldCapacity; i++) {
+				final long aEntry = aOld.getLong(i * 8L);
+
+				if (aEntry != 0) {
+					int aSlot = ValueDictionary.mix((int) (aEntry >>> 32)) & aMask;
+					while (aTable.getLong(aSlot * 8L) != 0) {
+						aSlot = (aSlot + 1) & aMask;
+					}
+					aTable.putLong(aSlot * 8L, aEntry);
+				}
+			}
+
+			mValueTable = aTable;
+			mValueTableCapacity = theCapacity;
+			writeHeader();
+
+			aOld.close();
+			delete(aOld.getFile());
+		}
+		catch (IOException e) {
+			throw new RuntimeException("Could not grow the value table of the mapped graph", e);
+		}
+	}
+
+	private void rehashQuads(final int theCapacity) {
+		final MappedFile aOld = mQuadTable;
+
+		try {
+			final MappedFile aTable = new MappedFile(quadTableFile(theCapacity));
+			aTable.ensureCapacity(theCapacity * 4L);
+
+			final int aMask = theCapacity - 1;
+			for (int aPos = 0; aPos < mQuadCount; aPos++) {
+				final long aOffset = aPos * 16L;
+
+				int aSlot = QuadTable.hash(Math.abs(mQuads.getInt(aOffset)), mQuads.getInt(aOffset + 4),
+				                           mQuads.getInt(aOffset + 8), mQuads.getInt(aOffset + 12)) & aMask;
+				while (aTable.getInt(aSlot * 4L) != 0) {
+					aSlot = (aSlot + 1) & aMask;
+				}
+				aTable.putInt(aSlot * 4L, aPos + 1);
+			}
+
+			mQuadTable = aTable;
+			mQuadTableCapacity = theCapacity;
+			writeHeader();
+
+			aOld.close();
+			delete(aOld.getFile());
+		}
+		catch (IOException e) {
+			throw new RuntimeException("Could not grow the statement table of the mapped graph", e);
+		}
+	}
+
+	/**
+	 * Mark the header dirty, on disk, before the first change since the graph was last flushed
+	 */
+	private void markDirty() {
+		if (!mDirty) {
+			mHeader.putInt(HEADER_DIRTY, 1);
+			mHeader.force();
+			mDirty = true;
+		}
+	}
+
+	private void markClean() {
+		mHeader.putInt(HEADER_DIRTY, 0);
+		mHeader.force();
+		mDirty = false;
+	}
+
+	private void writeHeader() {
+		mHeader.putInt(HEADER_NEXT_ID, mNextId);
+		mHeader.putLong(HEADER_VALUE_BYTES, mValueBytes);
+		mHeader.putInt(HEADER_QUADS, mQuadCount);
+		mHeader.putLong(HEADER_SIZE, mSize);
+		mHeader.putInt(HEADER_VALUE_TABLE, mValueTableCapacity);
+		mHeader.putInt(HEADER_QUAD_TABLE, mQuadTableCapacity);
+	}
+
+	private File valueTableFile(final int theCapacity) {
+		return new File(mDirectory, "values." + theCapacity + ".idx");
+	}
+
+	private File quadTableFile(final int theCapacity) {
+		return new File(mDirectory, "quads." + theCapacity + ".idx");
+	}
+
+	private static void grow(final MappedFile theFile, final long theBytes) {
+		try {
+			theFile.ensureCapacity(theBytes);
+		}
+		catch (IOException e) {
+			throw new RuntimeException("Could not grow " + theFile.getFile(), e);
+		}
+	}
+
+	private static void delete(final File theFile) {
+		// on some platforms a file cannot be deleted while it is still mapped, in which case it is left behind
+		if (!theFile.delete()) {
+			theFile.deleteOnExit();
+		}
+	}
+}
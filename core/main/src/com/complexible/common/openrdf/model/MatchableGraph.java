@@ -0,0 +1,46 @@
+/*
+ * Copyright (c) 2009-2014 Clark & Parsia, LLC. <http://www.clarkparsia.com>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.complexible.common.openrdf.model;
+
+import org.openrdf.model.Graph;
+import org.openrdf.model.Resource;
+import org.openrdf.model.Statement;
+import org.openrdf.model.URI;
+import org.openrdf.model.Value;
+
+/**
+ * <p>A {@link Graph} which can answer triple pattern lookups itself, typically using some form of index, rather than
+ * requiring a scan over all of its statements.  {@link Graphs#filter(Iterable, Resource, URI, Value, Resource...)}
+ * and the methods built on it will use this when the graph supports it.</p>
+ *
+ * @author  Michael Grove
+ * @since   2.0.2
+ * @version 2.0.2
+ */
+public interface MatchableGraph extends Graph {
+
+	/**
+	 * Return the {@link Statement statements} in this graph which match the given pattern.  The returned Iterable
+	 * is a read-only view; removing elements via its iterator is not supported.
+	 *
+	 * @param theSubj		the subject, or null for wildcard
+	 * @param thePred		the predicate, or null for wildcard
+	 * @param theObj		the object, or null for wildcard
+	 * @param theContexts	optionally, the contexts to match; none for any context
+	 * @return				the matching statements
+	 */
+	public Iterable<Statement> filter(final Resource theSubj, final URI thePred, final Value theObj, final Resource... theContexts);
+}
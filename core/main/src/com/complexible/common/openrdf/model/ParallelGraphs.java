@@ -0,0 +1,418 @@
+/*
+ * Copyright (c) 2009-2014 Clark & Parsia, LLC. <http://www.clarkparsia.com>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.complexible.common.openrdf.model;
+
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import com.google.common.base.Function;
+import com.google.common.base.Optional;
+import com.google.common.base.Predicate;
+import com.google.common.base.Predicates;
+import com.google.common.base.Throwables;
+import com.google.common.collect.Iterables;
+import com.google.common.collect.Lists;
+import com.google.common.collect.Sets;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+
+import org.openrdf.model.Graph;
+import org.openrdf.model.Statement;
+
+/**
+ * <p>Parallel versions of the {@link FunctionalGraph} operations in {@link Graphs}.  The graph is split into chunks
+ * which are processed by the tasks of an {@link ExecutorService}.  {@link #find}, {@link #any} and {@link #all} stop
+ * all the tasks as soon as the answer is known, and {@link #collect}, {@link #filter} and {@link #transform}
+ * accumulate into a separate collection per chunk, merged once all the chunks are done, so the tasks never contend
+ * with each other.</p>
+ *
+ * <p>The functions and predicates passed in are called from several threads at once, so they must be thread-safe, and
+ * the graph must not be modified while an operation runs.  Graphs too small to be worth splitting are processed on
+ * the calling thread, and for larger graphs the calling thread works through the chunks alongside the executor, so
+ * operations can be nested, eg a predicate can itself use the shared pool.  Obtained via
+ * {@link Graphs#parallel()}.</p>
+ *
+ * @author  Michael Grove
+ * @since   2.0.2
+ * @version 2.0.2
+ */
+public final class ParallelGraphs {
+
+	/**
+	 * Chunks smaller than this are not worth the overhead of a task
+	 */
+	private static final int MIN_CHUNK_SIZE = 1024;
+
+	/**
+	 * Number of chunks per thread, more than one so that uneven chunks balance out
+	 */
+	private static final int CHUNKS_PER_THREAD = 4;
+
+	private final ExecutorService mExecutor;
+
+	private final int mParallelism;
+
+	/**
+	 * Create a new ParallelGraphs
+	 * @param theExecutor		the executor to run the tasks with
+	 * @param theParallelism	the number of threads of the executor
+	 */
+	ParallelGraphs(final ExecutorService theExecutor, final int theParallelism) {
+		mExecutor = theExecutor;
+		mParallelism = theParallelism;
+	}
+
+	/**
+	 * Return the instance which uses a shared pool with one daemon thread per processor
+	 * @return the default instance
+	 */
+	static ParallelGraphs getDefault() {
+		return DefaultHolder.INSTANCE;
+	}
+
+	/**
+	 * Return the statements of the graph which satisfy the predicate, as a new graph
+	 *
+	 * @param theGraph		the graph to filter
+	 * @param thePredicate	the predicate to use for filtering
+	 * @return				the filtered graph
+	 *
+	 * @see Graphs#filter(Graph, Predicate)
+	 */
+	public Graph filter(final Graph theGraph, final Predicate<Statement> thePredicate) {
+		final List<Callable<List<Statement>>> aTasks = Lists.newArrayList();
+
+		for (final Collection<Statement> aChunk : chunks(theGraph)) {
+			aTasks.add(new Callable<List<Statement>>() {
+				@Override
+				public List<Statement> call() {
+					final List<Statement> aResult = Lists.newArrayList();
+					for (Statement aStmt : aChunk) {
+						if (thePredicate.apply(aStmt)) {
+							aResult.add(aStmt);
+						}
+					}
+					return aResult;
+				}
+			});
+		}
+
+		return merge(run(aTasks));
+	}
+
+	/**
+	 * Apply the function to the statements of the graph, returning the results as a new graph
+	 *
+	 * @param theGraph		the graph to transform
+	 * @param theFunction	the function for the transform
+	 * @return				the transformed graph
+	 *
+	 * @see Graphs#transform
+	 */
+	public Graph transform(final Graph theGraph, final Function<Statement, Statement> theFunction) {
+		final List<Callable<List<Statement>>> aTasks = Lists.newArrayList();
+
+		for (final Collection<Statement> aChunk : chunks(theGraph)) {
+			aTasks.add(new Callable<List<Statement>>() {
+				@Override
+				public List<Statement> call() {
+					return Lists.newArrayList(Iterables.transform(aChunk, theFunction));
+				}
+			});
+		}
+
+		return merge(run(aTasks));
+	}
+
+	/**
+	 * Find the first {@link Statement}, in iteration order, which satisfies the given {@link Predicate}.  Chunks
+	 * after one which has found a match stop as soon as they see it.
+	 *
+	 * @param theGraph		the graph
+	 * @param thePredicate	the predicate
+	 * @return				{@link Optional Optionally}, the first Statement to satisfy the Predicate, or an absent Optional if none do
+	 *
+	 * @see Graphs#find
+	 */
+	public Optional<Statement> find(final Graph theGraph, final Predicate<Statement> thePredicate) {
+		final List<Collection<Statement>> aChunks = chunks(theGraph);
+
+		// the index of the first chunk with a match; later chunks can stop, earlier ones still have to finish
+		final AtomicInteger aFirst = new AtomicInteger(Integer.MAX_VALUE);
+
+		final List<Callable<Statement>> aTasks = Lists.newArrayList();
+		for (int i = 0; i < aChunks.size(); i++) {
+			final int aIndex = i;
+			final Collection<Statement> aChunk = aChunks.get(i);
+
+			aTasks.add(new Callable<Statement>() {
+				@Override
+				public Statement call() {
+					for (Statement aStmt : aChunk) {
+						if (aFirst.get() < aIndex) {
+							return null;
+						}
+
+						if (thePredicate.apply(aStmt)) {
+							int aCurrent;
+							while ((aCurrent = aFirst.get()) > aIndex && !aFirst.compareAndSet(aCurrent, aIndex)) {
+								// retry
+							}
+
+							return aStmt;
+						}
+					}
+
+					return null;
+				}
+			});
+		}
+
+		for (Statement aStmt : run(aTasks)) {
+			if (aStmt != null) {
+				return Optional.of(aStmt);
+			}
+		}
+
+		return Optional.absent();
+	}
+
+	/**
+	 * Return whether or not at least one {@link Statement} satisfies the {@link Predicate}.  All the tasks stop as soon
+	 * as any of them finds one.
+	 *
+	 * @param theGraph		the graph
+	 * @param thePredicate	the predicate
+	 * @return				true if at least one Statement satisfies the Predicate, false otherwise
+	 *
+	 * @see Graphs#any
+	 */
+	public boolean any(final Graph theGraph, final Predicate<Statement> thePredicate) {
+		final AtomicBoolean aFound = new AtomicBoolean(false);
+
+		final List<Callable<Void>> aTasks = Lists.newArrayList();
+		for (final Collection<Statement> aChunk : chunks(theGraph)) {
+			aTasks.add(new Callable<Void>() {
+				@Override
+				public Void call() {
+					for (Statement aStmt : aChunk) {
+						if (aFound.get()) {
+							return null;
+						}
+
+						if (thePredicate.apply(aStmt)) {
+							aFound.set(true);
+							return null;
+						}
+					}
+
+					return null;
+				}
+			});
+		}
+
+		run(aTasks);
+
+		return aFound.get();
+	}
+
+	/**
+	 * Return whether or not all {@link Statement statements} satisfy the {@link Predicate}.  All the tasks stop as
+	 * soon as any of them finds a statement which does not.
+	 *
+	 * @param theGraph		the graph
+	 * @param thePredicate	the predicate
+	 * @return				true if at all Statements satisfy the Predicate, false otherwise
+	 *
+	 * @see Graphs#all
+	 */
+	public boolean all(final Graph theGraph, final Predicate<Statement> thePredicate) {
+		return !any(theGraph, Predicates.not(thePredicate));
+	}
+
+	/**
+	 * Collect the results of the {@link Function} as it is applied to each {@link Statement}.  {@link Optional Absent}
+	 * values are not collected; the provided function should never return a null value.
+	 *
+	 * @param theGraph		the graph
+	 * @param theFunction	the function
+	 * @return				the collected values
+	 *
+	 * @see Graphs#collect(Iterable, Function)
+	 */
+	public <T> Collection<T> collect(final Graph theGraph, final Function<Statement, Optional<T>> theFunction) {
+		final List<Callable<Set<T>>> aTasks = Lists.newArrayList();
+
+		for (final Collection<Statement> aChunk : chunks(theGraph)) {
+			aTasks.add(new Callable<Set<T>>() {
+				@Override
+				public Set<T> call() {
+					final Set<T> aResult = Sets.newHashSet();
+					for (Statement aStmt : aChunk) {
+						final Optional<T> aValue = theFunction.apply(aStmt);
+						if (aValue.isPresent()) {
+							aResult.add(aValue.get());
+						}
+					}
+					return aResult;
+				}
+			});
+		}
+
+		final Set<T> aSet = Sets.newHashSet();
+		for (Set<T> aResult : run(aTasks)) {
+			aSet.addAll(aResult);
+		}
+
+		return aSet;
+	}
+
+	/**
+	 * Check the statements against the {@link BatchConstraint constraint}, a chunk per task, and return every
+	 * violation.  Unlike {@link #all}, the tasks do not stop at the first violation.
+	 *
+	 * @param theStatements	the statements to check
+	 * @param theConstraint	the constraint
+	 * @return				the violations, in iteration order
+	 *
+	 * @see ConstrainedGraph#addAll
+	 */
+	public List<ConstrainedGraph.StatementViolatedConstraintException> check(final Collection<? extends Statement> theStatements,
+	                                                                        final BatchConstraint theConstraint) {
+		final List<Callable<List<ConstrainedGraph.StatementViolatedConstraintException>>> aTasks = Lists.newArrayList();
+
+		for (final Collection<Statement> aChunk : chunks(theStatements)) {
+			aTasks.add(new Callable<List<ConstrainedGraph.StatementViolatedConstraintException>>() {
+				@Override
+				public List<ConstrainedGraph.StatementViolatedConstraintException> call() {
+					return theConstraint.check(aChunk);
+				}
+			});
+		}
+
+		final List<ConstrainedGraph.StatementViolatedConstraintException> aViolations = Lists.newArrayList();
+		for (List<ConstrainedGraph.StatementViolatedConstraintException> aResult : run(aTasks)) {
+			aViolations.addAll(aResult);
+		}
+
+		return aViolations;
+	}
+
+	/**
+	 * Split the graph into contiguous chunks, in iteration order.  {@link SplittableGraph Splittable graphs} are chunked
+	 * without copying.
+	 */
+	private List<Collection<Statement>> chunks(final Collection<? extends Statement> theGraph) {
+		final int aChunks = Math.min(mParallelism * CHUNKS_PER_THREAD, theGraph.size() / MIN_CHUNK_SIZE + 1);
+
+		if (theGraph instanceof Graph) {
+			return Graphs.partition((Graph) theGraph, aChunks);
+		}
+
+		final Statement[] aStatements = theGraph.toArray(new Statement[theGraph.size()]);
+
+		return Ranges.split(aStatements.length, aChunks, new Ranges.Positions() {
+			@Override
+			public Statement get(final int thePosition) {
+				return aStatements[thePosition];
+			}
+		});
+	}
+
+	private static Graph merge(final List<List<Statement>> theResults) {
+		final Graph aGraph = new SetGraph();
+
+		for (List<Statement> aResult : theResults) {
+			aGraph.addAll(aResult);
+		}
+
+		return aGraph;
+	}
+
+	/**
+	 * Run the tasks and return their results in the same order.  A single task is run on the calling thread.
+	 *
+	 * The calling thread does not just wait for the executor: it runs every task which the executor has not started
+	 * yet itself, and then only waits for tasks which are already running.  Otherwise a caller which is itself a
+	 * thread of the executor, such as a predicate which uses {@link Graphs#parallel()}, would wait on tasks queued
+	 * behind it and could deadlock the pool.
+	 */
+	private <T> List<T> run(final List<Callable<T>> theTasks) {
+		final List<FutureTask<T>> aFutures = Lists.newArrayListWithCapacity(theTasks.size());
+
+		try {
+			if (theTasks.size() == 1) {
+				return Collections.singletonList(theTasks.get(0).call());
+			}
+
+			for (Callable<T> aTask : theTasks) {
+				final FutureTask<T> aFuture = new FutureTask<T>(aTask);
+				aFutures.add(aFuture);
+				mExecutor.execute(aFuture);
+			}
+
+			// a task which has already been started, here or by the executor, is not run again
+			for (FutureTask<T> aFuture : aFutures) {
+				aFuture.run();
+			}
+
+			final List<T> aResults = Lists.newArrayListWithCapacity(theTasks.size());
+			for (Future<T> aFuture : aFutures) {
+				aResults.add(aFuture.get());
+			}
+
+			return aResults;
+		}
+		catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new RuntimeException(e);
+		}
+		catch (ExecutionException e) {
+			throw Throwables.propagate(e.getCause());
+		}
+		catch (Exception e) {
+			throw Throwables.propagate(e);
+		}
+		finally {
+			// stop whatever is left once one of the tasks fails
+			for (Future<T> aFuture : aFutures) {
+				aFuture.cancel(true);
+			}
+		}
+	}
+
+	/**
+	 * Lazily creates the shared pool on first use
+	 */
+	private static final class DefaultHolder {
+		private static final int THREADS = Runtime.getRuntime().availableProcessors();
+
+		private static final ParallelGraphs INSTANCE = new ParallelGraphs(Executors.newFixedThreadPool(THREADS, new ThreadFactoryBuilder()
+		                                                                                                         .setDaemon(true)
+		                                                                                                         .setNameFormat("parallel-graphs-%d")
+		                                                                                                         .build()),
+		                                                                  THREADS);
+	}
+}
@@ -0,0 +1,526 @@
+/*
+ * Copyright (c) 2009-2014 Clark & Parsia, LLC. <http://www.clarkparsia.com>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.complexible.common.openrdf.model;
+
+import java.util.AbstractCollection;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Set;
+
+import com.google.common.base.Predicate;
+import com.google.common.base.Preconditions;
+import com.google.common.collect.Iterables;
+import com.google.common.collect.Iterators;
+import com.google.common.collect.Maps;
+import com.google.common.collect.Sets;
+
+import org.openrdf.model.Graph;
+import org.openrdf.model.Resource;
+import org.openrdf.model.Statement;
+import org.openrdf.model.URI;
+import org.openrdf.model.Value;
+import org.openrdf.model.ValueFactory;
+import org.openrdf.model.vocabulary.SESAME;
+import org.openrdf.query.Dataset;
+
+/**
+ * <p>Implementation of the Sesame {@link Graph} interface with Set semantics, like {@link SetGraph}, which keeps the
+ * statements of each context in a separate partition.  Sizing, iterating over, matching against or clearing one
+ * context only touches that context's partition, so a graph holding many named graphs can work with one of them in
+ * time proportional to its size, and drop it in constant time, rather than scanning every quad.</p>
+ *
+ * <p>{@link #context} returns a live view of one context, and {@link #select} a live, read-only view of the default
+ * and named graphs of a {@link Dataset}, such as an {@link com.complexible.common.openrdf.query.ImmutableDataset}.
+ * Statements without a context are in the partition of the null context, which datasets name as
+ * {@link SESAME#NIL}.  Not thread-safe.</p>
+ *
+ * @author  Michael Grove
+ * @since   2.0.2
+ * @version 2.0.2
+ */
+public final class PartitionedGraph extends AbstractCollection<Statement> implements MatchableGraph {
+
+	/**
+	 * The partitions, keyed on context.  Partitions are dropped once they are empty, except by removal through an
+	 * iterator which has already moved on to the next partition, so anything comparing partitions skips empty ones.
+	 */
+	private final Map<Resource, Set<Statement>> mPartitions = Maps.newLinkedHashMap();
+
+	private int mSize = 0;
+
+	/**
+	 * The ValueFactory for this graph
+	 */
+	private final ValueFactory mValueFactory = new ContextAwareValueFactory();
+
+	/**
+	 * Create a new, empty, PartitionedGraph
+	 */
+	public PartitionedGraph() {
+	}
+
+	/**
+	 * Create a new PartitionedGraph containing the provided statements
+	 * @param theStatements	the initial contents of the graph
+	 */
+	public PartitionedGraph(final Iterable<Statement> theStatements) {
+		Iterables.addAll(this, theStatements);
+	}
+
+	/**
+	 * Return the contexts which have statements in this graph, including null if there are statements without a
+	 * context.  The set is a live, read-only view.
+	 *
+	 * @return	the contexts
+	 */
+	public Set<Resource> contexts() {
+		return Collections.unmodifiableSet(Maps.filterValues(mPartitions, new Predicate<Set<Statement>>() {
+			@Override
+			public boolean apply(final Set<Statement> thePartition) {
+				return !thePartition.isEmpty();
+			}
+		}).keySet());
+	}
+
+	/**
+	 * Return a live view of the statements in the context.  Changes to the view are made to this graph; statements
+	 * added to it must be in the context, and those added via {@link Graph#add(Resource, URI, Value, Resource...)}
+	 * without a context are put in it.
+	 *
+	 * @param theContext	the context, or null for the statements without a context
+	 * @return				the context
+	 */
+	public Graph context(final Resource theContext) {
+		return new View(Collections.singleton(theContext), true);
+	}
+
+	/**
+	 * Return a live, read-only view of the default and named graphs of the dataset.  Each graph of the dataset is a
+	 * partition of this graph, {@link SESAME#NIL} being the statements without a context.  A dataset which names no
+	 * graphs at all selects the whole graph.
+	 *
+	 * @param theDataset	the dataset
+	 * @return				the statements of the graphs in the dataset
+	 */
+	public Graph select(final Dataset theDataset) {
+		final Set<Resource> aContexts = Sets.newLinkedHashSet();
+
+		for (URI aGraph : Iterables.concat(theDataset.getDefaultGraphs(), theDataset.getNamedGraphs())) {
+			aContexts.add(SESAME.NIL.equals(aGraph) ? null : aGraph);
+		}
+
+		return new View(aContexts.isEmpty() ? null : aContexts, false);
+	}
+
+	/**
+	 * Remove all the statements in the given contexts.  Each context is dropped in constant time.  Pass a null
+	 * {@link Resource} for the statements without a context; {@link #clear()} with no arguments clears the whole graph.
+	 *
+	 * @param theContexts	the contexts to clear, null for the statements without a context
+	 * @return				true if the graph changed, false otherwise
+	 */
+	public boolean clear(final Resource... theContexts) {
+		boolean aChanged = false;
+
+		for (Resource aContext : (theContexts == null || theContexts.length == 0 ? new Resource[] {null} : theContexts)) {
+			final Set<Statement> aPartition = mPartitions.remove(aContext);
+
+			if (aPartition != null) {
+				mSize -= aPartition.size();
+				aChanged = true;
+			}
+		}
+
+		return aChanged;
+	}
+
+	/**
+	 * @inheritDoc
+	 */
+	@Override
+	public Iterator<Statement> iterator() {
+		final Iterator<Set<Statement>> aPartitions = mPartitions.values().iterator();
+
+		return new Iterator<Statement>() {
+			private Set<Statement> mPartition = Collections.emptySet();
+
+			private Iterator<Statement> mCurrent = mPartition.iterator();
+
+			private Iterator<Statement> mLast;
+
+			@Override
+			public boolean hasNext() {
+				while (!mCurrent.hasNext() && aPartitions.hasNext()) {
+					mPartition = aPartitions.next();
+					mCurrent = mPartition.iterator();
+				}
+
+				return mCurrent.hasNext();
+			}
+
+			@Override
+			public Statement next() {
+				if (!hasNext()) {
+					throw new NoSuchElementException();
+				}
+
+				mLast = mCurrent;
+				return mCurrent.next();
+			}
+
+			@Override
+			public void remove() {
+				Preconditions.checkState(mLast != null);
+
+				mLast.remove();
+				mSize--;
+
+				// the current partition is the last one returned by the partitions iterator until we move off it
+				if (mLast == mCurrent && mPartition.isEmpty()) {
+					aPartitions.remove();
+				}
+
+				mLast = null;
+			}
+		};
+	}
+
+	/**
+	 * @inheritDoc
+	 */
+	@Override
+	public int size() {
+		return mSize;
+	}
+
+	/**
+	 * @inheritDoc
+	 */
+	@Override
+	public boolean add(final Statement theStatement) {
+		Set<Statement> aPartition = mPartitions.get(theStatement.getContext());
+
+		if (aPartition == null) {
+			aPartition = new StatementSet(true);
+			mPartitions.put(theStatement.getContext(), aPartition);
+		}
+
+		if (aPartition.add(theStatement)) {
+			mSize++;
+			return true;
+		}
+		else {
+			return false;
+		}
+	}
+
+	/**
+	 * @inheritDoc
+	 */
+	@Override
+	public boolean contains(final Object theObj) {
+		if (!(theObj instanceof Statement)) {
+			return false;
+		}
+
+		final Set<Statement> aPartition = mPartitions.get(((Statement) theObj).getContext());
+
+		return aPartition != null && aPartition.contains(theObj);
+	}
+
+	/**
+	 * @inheritDoc
+	 */
+	@Override
+	public boolean remove(final Object theObj) {
+		if (!(theObj instanceof Statement)) {
+			return false;
+		}
+
+		final Resource aContext = ((Statement) theObj).getContext();
+		final Set<Statement> aPartition = mPartitions.get(aContext);
+
+		if (aPartition != null && aPartition.remove(theObj)) {
+			mSize--;
+
+			if (aPartition.isEmpty()) {
+				mPartitions.remove(aContext);
+			}
+
+			return true;
+		}
+		else {
+			return false;
+		}
+	}
+
+	/**
+	 * @inheritDoc
+	 */
+	@Override
+	public void clear() {
+		mPartitions.clear();
+		mSize = 0;
+	}
+
+	/**
+	 * @inheritDoc
+	 */
+	@Override
+	@Deprecated
+	public ValueFactory getValueFactory() {
+		return mValueFactory;
+	}
+
+	/**
+	 * @inheritDoc
+	 */
+	@Override
+	public boolean add(final Resource theSubject, final URI thePredicate, final Value theObject, final Resource... theContexts) {
+		boolean aAdded = false;
+
+		for (Resource aContext : (theContexts == null || theContexts.length == 0 ? new Resource[] {null} : theContexts)) {
+			aAdded |= add(mValueFactory.createStatement(theSubject, thePredicate, theObject, aContext));
+		}
+
+		return aAdded;
+	}
+
+	/**
+	 * @inheritDoc
+	 */
+	@Override
+	@Deprecated
+	public Iterator<Statement> match(final Resource theSubject, final URI thePredicate, final Value theObject, final Resource... theContexts) {
+		return filter(theSubject, thePredicate, theObject, theContexts).iterator();
+	}
+
+	/**
+	 * @inheritDoc
+	 */
+	@Override
+	public Iterable<Statement> filter(final Resource theSubj, final URI thePred, final Value theObj, final Resource... theContexts) {
+		final Iterable<Statement> aCandidates = theContexts == null || theContexts.length == 0
+		                                        ? this
+		                                        : partitions(Sets.newLinkedHashSet(Arrays.asList(theContexts)));
+
+		return Iterables.unmodifiableIterable(Iterables.filter(aCandidates, Statements.matches(theSubj, thePred, theObj)));
+	}
+
+	/**
+	 * Return the statements of the partitions of the contexts, looked up on each iteration so later changes are seen
+	 */
+	private Iterable<Statement> partitions(final Collection<Resource> theContexts) {
+		return Iterables.concat(Iterables.transform(theContexts, new com.google.common.base.Function<Resource, Iterable<Statement>>() {
+			@Override
+			public Iterable<Statement> apply(final Resource theContext) {
+				final Set<Statement> aPartition = mPartitions.get(theContext);
+				return aPartition == null ? Collections.<Statement>emptySet() : aPartition;
+			}
+		}));
+	}
+
+	/**
+	 * @inheritDoc
+	 */
+	@Override
+	public boolean equals(final Object o) {
+		if (this == o) {
+			return true;
+		}
+		else if (o == null || getClass() != o.getClass()) {
+			return false;
+		}
+
+		final PartitionedGraph that = (PartitionedGraph) o;
+
+		return size() == that.size() && nonEmptyPartitions().equals(that.nonEmptyPartitions());
+	}
+
+	/**
+	 * @inheritDoc
+	 */
+	@Override
+	public int hashCode() {
+		return nonEmptyPartitions().hashCode();
+	}
+
+	private Map<Resource, Set<Statement>> nonEmptyPartitions() {
+		return Maps.filterValues(mPartitions, new Predicate<Set<Statement>>() {
+			@Override
+			public boolean apply(final Set<Statement> thePartition) {
+				return !thePartition.isEmpty();
+			}
+		});
+	}
+
+	/**
+	 * A live view of some of the partitions of the graph
+	 */
+	private final class View extends AbstractCollection<Statement> implements MatchableGraph {
+
+		/**
+		 * The contexts in the view, or null for all of them
+		 */
+		private final Set<Resource> mContexts;
+
+		private final boolean mMutable;
+
+		private View(final Set<Resource> theContexts, final boolean theMutable) {
+			mContexts = theContexts;
+			mMutable = theMutable;
+		}
+
+		private boolean inView(final Resource theContext) {
+			return mContexts == null || mContexts.contains(theContext);
+		}
+
+		private void checkMutable() {
+			if (!mMutable) {
+				throw new UnsupportedOperationException("Dataset views are read-only");
+			}
+		}
+
+		@Override
+		public Iterator<Statement> iterator() {
+			final Iterable<Statement> aStatements = mContexts == null ? PartitionedGraph.this : partitions(mContexts);
+
+			if (!mMutable) {
+				return Iterators.unmodifiableIterator(aStatements.iterator());
+			}
+
+			// views which can be modified are of a single context, removals have to keep the graph's size up to date
+			final Resource aContext = mContexts.iterator().next();
+			final Iterator<Statement> aIter = aStatements.iterator();
+
+			return new Iterator<Statement>() {
+				@Override
+				public boolean hasNext() {
+					return aIter.hasNext();
+				}
+
+				@Override
+				public Statement next() {
+					return aIter.next();
+				}
+
+				@Override
+				public void remove() {
+					aIter.remove();
+					mSize--;
+
+					if (mPartitions.containsKey(aContext) && mPartitions.get(aContext).isEmpty()) {
+						mPartitions.remove(aContext);
+					}
+				}
+			};
+		}
+
+		@Override
+		public int size() {
+			if (mContexts == null) {
+				return mSize;
+			}
+
+			int aSize = 0;
+			for (Resource aContext : mContexts) {
+				final Set<Statement> aPartition = mPartitions.get(aContext);
+
+				if (aPartition != null) {
+					aSize += aPartition.size();
+				}
+			}
+
+			return aSize;
+		}
+
+		@Override
+		public boolean contains(final Object theObj) {
+			return theObj instanceof Statement && inView(((Statement) theObj).getContext()) && PartitionedGraph.this.contains(theObj);
+		}
+
+		@Override
+		public boolean add(final Statement theStatement) {
+			checkMutable();
+			Preconditions.checkArgument(inView(theStatement.getContext()), "Statement is not in the context of this view");
+
+			return PartitionedGraph.this.add(theStatement);
+		}
+
+		@Override
+		public boolean add(final Resource theSubject, final URI thePredicate, final Value theObject, final Resource... theContexts) {
+			checkMutable();
+
+			if (theContexts == null || theContexts.length == 0) {
+				return PartitionedGraph.this.add(theSubject, thePredicate, theObject, mContexts.iterator().next());
+			}
+
+			for (Resource aContext : theContexts) {
+				Preconditions.checkArgument(inView(aContext), "Statement is not in the context of this view");
+			}
+
+			return PartitionedGraph.this.add(theSubject, thePredicate, theObject, theContexts);
+		}
+
+		@Override
+		public boolean remove(final Object theObj) {
+			checkMutable();
+
+			return contains(theObj) && PartitionedGraph.this.remove(theObj);
+		}
+
+		@Override
+		public void clear() {
+			checkMutable();
+
+			PartitionedGraph.this.clear(mContexts.toArray(new Resource[mContexts.size()]));
+		}
+
+		@Override
+		public Iterable<Statement> filter(final Resource theSubj, final URI thePred, final Value theObj, final Resource... theContexts) {
+			if (theContexts == null || theContexts.length == 0) {
+				return mContexts == null
+				       ? PartitionedGraph.this.filter(theSubj, thePred, theObj)
+				       : PartitionedGraph.this.filter(theSubj, thePred, theObj, mContexts.toArray(new Resource[mContexts.size()]));
+			}
+
+			final Set<Resource> aContexts = Sets.newHashSet(theContexts);
+			if (mContexts != null) {
+				aContexts.retainAll(mContexts);
+			}
+
+			return aContexts.isEmpty()
+			       ? Collections.<Statement>emptySet()
+			       : PartitionedGraph.this.filter(theSubj, thePred, theObj, aContexts.toArray(new Resource[aContexts.size()]));
+		}
+
+		@Override
+		@Deprecated
+		public Iterator<Statement> match(final Resource theSubject, final URI thePredicate, final Value theObject, final Resource... theContexts) {
+			return filter(theSubject, thePredicate, theObject, theContexts).iterator();
+		}
+
+		@Override
+		@Deprecated
+		public ValueFactory getValueFactory() {
+			return mValueFactory;
+		}
+	}
+}
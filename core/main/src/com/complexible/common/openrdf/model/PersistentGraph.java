@@ -0,0 +1,550 @@
+/*
+ * Copyright (c) 2009-2014 Clark & Parsia, LLC. <http://www.clarkparsia.com>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.complexible.common.openrdf.model;
+
+import java.util.AbstractCollection;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+
+import org.openrdf.model.Graph;
+import org.openrdf.model.Resource;
+import org.openrdf.model.Statement;
+import org.openrdf.model.URI;
+import org.openrdf.model.Value;
+import org.openrdf.model.ValueFactory;
+
+/**
+ * <p>Implementation of the Sesame {@link Graph} interface with Set semantics backed by a persistent hash array mapped
+ * trie.  The trie is never modified in place; adding or removing a statement copies only the path from the root to
+ * the changed node and shares everything else with the previous version.</p>
+ *
+ * <p>This makes versions cheap: {@link #snapshot} returns an independent copy of the graph in constant time, and
+ * {@link #plus} and {@link #minus} return a new version with the change applied, leaving this graph as it was.  The
+ * usual {@link Graph} mutators change this graph only; other versions never see the change.  Iterators traverse the
+ * version which was current when they were created, so they are not affected by later changes.  Any version can be
+ * used with {@link Graphs#extend} and the other helpers in {@link Graphs}.</p>
+ *
+ * <p>A PersistentGraph is not thread-safe, but the versions it shares structure with can be used from different
+ * threads, e.g. by taking a snapshot per request.</p>
+ *
+ * @author  Michael Grove
+ * @since   2.0.2
+ * @version 2.0.2
+ */
+public final class PersistentGraph extends AbstractCollection<Statement> implements Graph {
+	private static final int BITS = 5;
+
+	private static final int MASK = (1 << BITS) - 1;
+
+	private static final Node EMPTY = new BitmapNode(0, new Object[0]);
+
+	/**
+	 * The ValueFactory for this graph
+	 */
+	private final ValueFactory mValueFactory = new ContextAwareValueFactory();
+
+	private Node mRoot;
+
+	private int mSize;
+
+	/**
+	 * Create a new, empty, PersistentGraph
+	 */
+	public PersistentGraph() {
+		this(EMPTY, 0);
+	}
+
+	/**
+	 * Create a new PersistentGraph containing the provided statements
+	 * @param theStatements	the initial contents of the graph
+	 */
+	public PersistentGraph(final Iterable<Statement> theStatements) {
+		this();
+
+		for (Statement aStmt : theStatements) {
+			add(aStmt);
+		}
+	}
+
+	private PersistentGraph(final Node theRoot, final int theSize) {
+		mRoot = theRoot;
+		mSize = theSize;
+	}
+
+	/**
+	 * Return a copy of this graph, in constant time.  Changes to the copy are not visible in this graph and vice versa.
+	 * @return a snapshot of the graph
+	 */
+	public PersistentGraph snapshot() {
+		return new PersistentGraph(mRoot, mSize);
+	}
+
+	/**
+	 * Return a new version of this graph which also contains the statement.  This graph is not changed.
+	 * @param theStatement	the statement to add
+	 * @return				the new version
+	 */
+	public PersistentGraph plus(final Statement theStatement) {
+		final PersistentGraph aGraph = snapshot();
+		aGraph.add(theStatement);
+		return aGraph;
+	}
+
+	/**
+	 * Return a new version of this graph which also contains the statements.  This graph is not changed.
+	 * @param theStatements	the statements to add
+	 * @return				the new version
+	 */
+	public PersistentGraph plus(final Iterable<Statement> theStatements) {
+		final PersistentGraph aGraph = snapshot();
+		for (Statement aStmt : theStatements) {
+			aGraph.add(aStmt);
+		}
+		return aGraph;
+	}
+
+	/**
+	 * Return a new version of this graph which does not contain the statement.  This graph is not changed.
+	 * @param theStatement	the statement to remove
+	 * @return				the new version
+	 */
+	public PersistentGraph minus(final Statement theStatement) {
+		final PersistentGraph aGraph = snapshot();
+		aGraph.remove(theStatement);
+		return aGraph;
+	}
+
+	/**
+	 * Return a new version of this graph which does not contain any of the statements.  This graph is not changed.
+	 * @param theStatements	the statements to remove
+	 * @return				the new version
+	 */
+	public PersistentGraph minus(final Iterable<Statement> theStatements) {
+		final PersistentGraph aGraph = snapshot();
+		for (Statement aStmt : theStatements) {
+			aGraph.remove(aStmt);
+		}
+		return aGraph;
+	}
+
+	/**
+	 * @inheritDoc
+	 */
+	@Override
+	public int size() {
+		return mSize;
+	}
+
+	/**
+	 * @inheritDoc
+	 */
+	@Override
+	public Iterator<Statement> iterator() {
+		return new NodeIterator(mRoot);
+	}
+
+	/**
+	 * @inheritDoc
+	 */
+	@Override
+	public boolean add(final Statement theStatement) {
+		final Node aRoot = mRoot.add(theStatement, hash(theStatement), 0);
+
+		if (aRoot == mRoot) {
+			return false;
+		}
+
+		mRoot = aRoot;
+		mSize++;
+		return true;
+	}
+
+	/**
+	 * @inheritDoc
+	 */
+	@Override
+	public boolean contains(final Object theObj) {
+		return theObj instanceof Statement && mRoot.contains(theObj, hash(theObj), 0);
+	}
+
+	/**
+	 * @inheritDoc
+	 */
+	@Override
+	public boolean remove(final Object theObj) {
+		if (!(theObj instanceof Statement)) {
+			return false;
+		}
+
+		final Node aRoot = mRoot.remove(theObj, hash(theObj), 0);
+
+		if (aRoot == mRoot) {
+			return false;
+		}
+
+		mRoot = aRoot == null ? EMPTY : aRoot;
+		mSize--;
+		return true;
+	}
+
+	/**
+	 * @inheritDoc
+	 */
+	@Override
+	public void clear() {
+		mRoot = EMPTY;
+		mSize = 0;
+	}
+
+	/**
+	 * @inheritDoc
+	 */
+	@Override
+	@Deprecated
+	public ValueFactory getValueFactory() {
+		return mValueFactory;
+	}
+
+	/**
+	 * @inheritDoc
+	 */
+	@Override
+	public boolean add(final Resource theSubject, final URI thePredicate, final Value theObject, final Resource... theContexts) {
+		boolean aAdded = false;
+
+		for (Resource aContext : (theContexts == null || theContexts.length == 0 ? new Resource[] {null} : theContexts)) {
+			aAdded |= add(mValueFactory.createStatement(theSubject, thePredicate, theObject, aContext));
+		}
+
+		return aAdded;
+	}
+
+	/**
+	 * @inheritDoc
+	 */
+	@Override
+	@Deprecated
+	public Iterator<Statement> match(final Resource theSubject, final URI thePredicate, final Value theObject, final Resource... theContexts) {
+		return Graphs.filter(this, theSubject, thePredicate, theObject, theContexts).iterator();
+	}
+
+	/**
+	 * @inheritDoc
+	 */
+	@Override
+	public boolean equals(final Object o) {
+		if (this == o) {
+			return true;
+		}
+		else if (o == null || getClass() != o.getClass()) {
+			return false;
+		}
+
+		final PersistentGraph that = (PersistentGraph) o;
+
+		return mSize == that.mSize && (mRoot == that.mRoot || containsAll(that));
+	}
+
+	/**
+	 * @inheritDoc
+	 */
+	@Override
+	public int hashCode() {
+		int aHash = 0;
+		for (Statement aStmt : this) {
+			aHash += aStmt.hashCode();
+		}
+		return aHash;
+	}
+
+	private static int hash(final Object theObj) {
+		return ValueDictionary.mix(theObj.hashCode());
+	}
+
+	private static int index(final int theHash, final int theShift) {
+		return (theHash >>> theShift) & MASK;
+	}
+
+	/**
+	 * Return a node containing the two statements, whose hashes agree below the shift
+	 */
+	private static Node merge(final Statement theFirst, final int theFirstHash, final Statement theSecond, final int theSecondHash, final int theShift) {
+		if (theFirstHash == theSecondHash) {
+			return new CollisionNode(theFirstHash, new Object[] { theFirst, theSecond });
+		}
+
+		final int aFirst = index(theFirstHash, theShift);
+		final int aSecond = index(theSecondHash, theShift);
+
+		if (aFirst == aSecond) {
+			return new BitmapNode(1 << aFirst, new Object[] { merge(theFirst, theFirstHash, theSecond, theSecondHash, theShift + BITS) });
+		}
+		else if (aFirst < aSecond) {
+			return new BitmapNode((1 << aFirst) | (1 << aSecond), new Object[] { theFirst, theSecond });
+		}
+		else {
+			return new BitmapNode((1 << aFirst) | (1 << aSecond), new Object[] { theSecond, theFirst });
+		}
+	}
+
+	private static Object[] insert(final Object[] theArray, final int theIndex, final Object theObj) {
+		final Object[] aArray = new Object[theArray.length + 1];
+		System.arraycopy(theArray, 0, aArray, 0, theIndex);
+		aArray[theIndex] = theObj;
+		System.arraycopy(theArray, theIndex, aArray, theIndex + 1, theArray.length - theIndex);
+		return aArray;
+	}
+
+	private static Object[] replace(final Object[] theArray, final int theIndex, final Object theObj) {
+		final Object[] aArray = theArray.clone();
+		aArray[theIndex] = theObj;
+		return aArray;
+	}
+
+	private static Object[] delete(final Object[] theArray, final int theIndex) {
+		final Object[] aArray = new Object[theArray.length - 1];
+		System.arraycopy(theArray, 0, aArray, 0, theIndex);
+		System.arraycopy(theArray, theIndex + 1, aArray, theIndex, aArray.length - theIndex);
+		return aArray;
+	}
+
+	/**
+	 * A node of the trie.  Nodes are immutable; operations return the node itself when nothing changed, a new node when
+	 * something did, or null from {@link #remove} when the node is left empty.
+	 */
+	private static abstract class Node {
+		/**
+		 * The entries of the node, either statements or child nodes
+		 */
+		final Object[] mEntries;
+
+		Node(final Object[] theEntries) {
+			mEntries = theEntries;
+		}
+
+		abstract Node add(final Statement theStatement, final int theHash, final int theShift);
+
+		abstract Node remove(final Object theObj, final int theHash, final int theShift);
+
+		abstract boolean contains(final Object theObj, final int theHash, final int theShift);
+	}
+
+	/**
+	 * Node with up to 32 entries, one per 5 bit slice of the hash, with a bitmap of which slices are present
+	 */
+	private static final class BitmapNode extends Node {
+		private final int mBitmap;
+
+		BitmapNode(final int theBitmap, final Object[] theEntries) {
+			super(theEntries);
+			mBitmap = theBitmap;
+		}
+
+		private int position(final int theBit) {
+			return Integer.bitCount(mBitmap & (theBit - 1));
+		}
+
+		@Override
+		Node add(final Statement theStatement, final int theHash, final int theShift) {
+			final int aBit = 1 << index(theHash, theShift);
+			final int aPos = position(aBit);
+
+			if ((mBitmap & aBit) == 0) {
+				return new BitmapNode(mBitmap | aBit, insert(mEntries, aPos, theStatement));
+			}
+
+			final Object aEntry = mEntries[aPos];
+
+			if (aEntry instanceof Node) {
+				final Node aChild = ((Node) aEntry).add(theStatement, theHash, theShift + BITS);
+				return aChild == aEntry ? this : new BitmapNode(mBitmap, replace(mEntries, aPos, aChild));
+			}
+			else if (aEntry.equals(theStatement)) {
+				return this;
+			}
+			else {
+				return new BitmapNode(mBitmap, replace(mEntries, aPos, merge((Statement) aEntry, hash(aEntry),
+				                                                              theStatement, theHash, theShift + BITS)));
+			}
+		}
+
+		@Override
+		Node remove(final Object theObj, final int theHash, final int theShift) {
+			final int aBit = 1 << index(theHash, theShift);
+
+			if ((mBitmap & aBit) == 0) {
+				return this;
+			}
+
+			final int aPos = position(aBit);
+			final Object aEntry = mEntries[aPos];
+
+			if (aEntry instanceof Node) {
+				final Node aChild = ((Node) aEntry).remove(theObj, theHash, theShift + BITS);
+
+				if (aChild == aEntry) {
+					return this;
+				}
+				else if (aChild == null) {
+					return mBitmap == aBit ? null : new BitmapNode(mBitmap & ~aBit, delete(mEntries, aPos));
+				}
+				else if (aChild.mEntries.length == 1 && !(aChild.mEntries[0] instanceof Node)) {
+					// pull a lone statement up into this node so the trie does not keep chains of single entry nodes
+					return new BitmapNode(mBitmap, replace(mEntries, aPos, aChild.mEntries[0]));
+				}
+				else {
+					return new BitmapNode(mBitmap, replace(mEntries, aPos, aChild));
+				}
+			}
+			else if (aEntry.equals(theObj)) {
+				return mBitmap == aBit ? null : new BitmapNode(mBitmap & ~aBit, delete(mEntries, aPos));
+			}
+			else {
+				return this;
+			}
+		}
+
+		@Override
+		boolean contains(final Object theObj, final int theHash, final int theShift) {
+			final int aBit = 1 << index(theHash, theShift);
+
+			if ((mBitmap & aBit) == 0) {
+				return false;
+			}
+
+			final Object aEntry = mEntries[position(aBit)];
+
+			return aEntry instanceof Node ? ((Node) aEntry).contains(theObj, theHash, theShift + BITS)
+			                              : aEntry.equals(theObj);
+		}
+	}
+
+	/**
+	 * Node for statements whose hashes are all the same
+	 */
+	private static final class CollisionNode extends Node {
+		private final int mHash;
+
+		CollisionNode(final int theHash, final Object[] theEntries) {
+			super(theEntries);
+			mHash = theHash;
+		}
+
+		private int indexOf(final Object theObj) {
+			for (int i = 0; i < mEntries.length; i++) {
+				if (mEntries[i].equals(theObj)) {
+					return i;
+				}
+			}
+
+			return -1;
+		}
+
+		@Override
+		Node add(final Statement theStatement, final int theHash, final int theShift) {
+			if (theHash != mHash) {
+				return new BitmapNode(1 << index(mHash, theShift), new Object[] { this }).add(theStatement, theHash, theShift);
+			}
+
+			return indexOf(theStatement) != -1 ? this : new CollisionNode(mHash, insert(mEntries, mEntries.length, theStatement));
+		}
+
+		@Override
+		Node remove(final Object theObj, final int theHash, final int theShift) {
+			final int aPos = theHash == mHash ? indexOf(theObj) : -1;
+
+			if (aPos == -1) {
+				return this;
+			}
+
+			return mEntries.length == 1 ? null : new CollisionNode(mHash, delete(mEntries, aPos));
+		}
+
+		@Override
+		boolean contains(final Object theObj, final int theHash, final int theShift) {
+			return theHash == mHash && indexOf(theObj) != -1;
+		}
+	}
+
+	/**
+	 * Depth first iterator over the statements of a trie
+	 */
+	private final class NodeIterator implements Iterator<Statement> {
+		private final Object[][] mStack = new Object[(32 / BITS) + 3][];
+
+		private final int[] mPositions = new int[mStack.length];
+
+		private int mDepth = 0;
+
+		private Statement mNext;
+
+		private Statement mLast;
+
+		NodeIterator(final Node theRoot) {
+			mStack[0] = theRoot.mEntries;
+			advance();
+		}
+
+		private void advance() {
+			mNext = null;
+
+			while (mDepth >= 0) {
+				if (mPositions[mDepth] == mStack[mDepth].length) {
+					mDepth--;
+					continue;
+				}
+
+				final Object aEntry = mStack[mDepth][mPositions[mDepth]++];
+
+				if (aEntry instanceof Node) {
+					mDepth++;
+					mStack[mDepth] = ((Node) aEntry).mEntries;
+					mPositions[mDepth] = 0;
+				}
+				else {
+					mNext = (Statement) aEntry;
+					return;
+				}
+			}
+		}
+
+		@Override
+		public boolean hasNext() {
+			return mNext != null;
+		}
+
+		@Override
+		public Statement next() {
+			if (mNext == null) {
+				throw new NoSuchElementException();
+			}
+
+			mLast = mNext;
+			advance();
+			return mLast;
+		}
+
+		@Override
+		public void remove() {
+			if (mLast == null) {
+				throw new IllegalStateException();
+			}
+
+			PersistentGraph.this.remove(mLast);
+			mLast = null;
+		}
+	}
+}
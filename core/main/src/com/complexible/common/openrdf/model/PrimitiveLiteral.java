@@ -0,0 +1,207 @@
+/*
+ * Copyright (c) 2009-2014 Clark & Parsia, LLC. <http://www.clarkparsia.com>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.complexible.common.openrdf.model;
+
+import java.math.BigDecimal;
+import java.math.BigInteger;
+
+import javax.xml.datatype.XMLGregorianCalendar;
+
+import org.openrdf.model.Literal;
+import org.openrdf.model.URI;
+import org.openrdf.model.datatypes.XMLDatatypeUtil;
+
+/**
+ * <p>Base for {@link Literal literals} which keep their value as a Java primitive rather than as a label, building
+ * the label only when it is asked for.  Conversions which the primitive cannot answer directly go through the label,
+ * as they do for {@link org.openrdf.model.impl.LiteralImpl}, and equality and hash code are the same as LiteralImpl's,
+ * so primitive literals and label-based literals with the same label and datatype are interchangeable.</p>
+ *
+ * @author  Michael Grove
+ * @since   2.0.2
+ * @version 2.0.2
+ */
+abstract class PrimitiveLiteral implements Literal {
+
+	private final URI mDatatype;
+
+	/**
+	 * The label, built on first use
+	 */
+	private String mLabel;
+
+	PrimitiveLiteral(final URI theDatatype) {
+		mDatatype = theDatatype;
+	}
+
+	/**
+	 * Return the canonical label of the value, what {@link Number#toString} would return for it
+	 *
+	 * @return	the label
+	 */
+	protected abstract String buildLabel();
+
+	/**
+	 * @inheritDoc
+	 */
+	@Override
+	public String getLabel() {
+		if (mLabel == null) {
+			mLabel = buildLabel();
+		}
+
+		return mLabel;
+	}
+
+	/**
+	 * @inheritDoc
+	 */
+	@Override
+	public String stringValue() {
+		return getLabel();
+	}
+
+	/**
+	 * @inheritDoc
+	 */
+	@Override
+	public String getLanguage() {
+		return null;
+	}
+
+	/**
+	 * @inheritDoc
+	 */
+	@Override
+	public URI getDatatype() {
+		return mDatatype;
+	}
+
+	/**
+	 * @inheritDoc
+	 */
+	@Override
+	public byte byteValue() {
+		return XMLDatatypeUtil.parseByte(getLabel());
+	}
+
+	/**
+	 * @inheritDoc
+	 */
+	@Override
+	public short shortValue() {
+		return XMLDatatypeUtil.parseShort(getLabel());
+	}
+
+	/**
+	 * @inheritDoc
+	 */
+	@Override
+	public int intValue() {
+		return XMLDatatypeUtil.parseInt(getLabel());
+	}
+
+	/**
+	 * @inheritDoc
+	 */
+	@Override
+	public long longValue() {
+		return XMLDatatypeUtil.parseLong(getLabel());
+	}
+
+	/**
+	 * @inheritDoc
+	 */
+	@Override
+	public BigInteger integerValue() {
+		return XMLDatatypeUtil.parseInteger(getLabel());
+	}
+
+	/**
+	 * @inheritDoc
+	 */
+	@Override
+	public BigDecimal decimalValue() {
+		return XMLDatatypeUtil.parseDecimal(getLabel());
+	}
+
+	/**
+	 * @inheritDoc
+	 */
+	@Override
+	public float floatValue() {
+		return XMLDatatypeUtil.parseFloat(getLabel());
+	}
+
+	/**
+	 * @inheritDoc
+	 */
+	@Override
+	public double doubleValue() {
+		return XMLDatatypeUtil.parseDouble(getLabel());
+	}
+
+	/**
+	 * @inheritDoc
+	 */
+	@Override
+	public boolean booleanValue() {
+		return XMLDatatypeUtil.parseBoolean(getLabel());
+	}
+
+	/**
+	 * @inheritDoc
+	 */
+	@Override
+	public XMLGregorianCalendar calendarValue() {
+		return XMLDatatypeUtil.parseCalendar(getLabel());
+	}
+
+	/**
+	 * @inheritDoc
+	 */
+	@Override
+	public boolean equals(final Object theObj) {
+		if (this == theObj) {
+			return true;
+		}
+		else if (!(theObj instanceof Literal)) {
+			return false;
+		}
+
+		final Literal that = (Literal) theObj;
+
+		return that.getLanguage() == null
+		       && mDatatype.equals(that.getDatatype())
+		       && getLabel().equals(that.getLabel());
+	}
+
+	/**
+	 * @inheritDoc
+	 */
+	@Override
+	public int hashCode() {
+		return getLabel().hashCode();
+	}
+
+	/**
+	 * @inheritDoc
+	 */
+	@Override
+	public String toString() {
+		return "\"" + getLabel() + "\"^^<" + mDatatype + ">";
+	}
+}
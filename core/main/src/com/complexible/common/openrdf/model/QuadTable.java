@@ -0,0 +1,222 @@
+/*
+ * Copyright (c) 2009-2014 Clark & Parsia, LLC. <http://www.clarkparsia.com>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.complexible.common.openrdf.model;
+
+import java.util.Arrays;
+
+/**
+ * <p>A set of quads of integer ids.  Quads are packed four ints at a time into one dense array, and an
+ * open-addressing table of positions in that array (linear probing, backward shift deletion) provides the set
+ * semantics.  Removing a quad moves the last quad into its place, so the dense array never has holes; positions are
+ * therefore only stable while the table is not modified.</p>
+ *
+ * <p>Not thread-safe.</p>
+ *
+ * @author  Michael Grove
+ * @since   2.0.2
+ * @version 2.0.2
+ */
+final class QuadTable {
+	static final int SUBJ = 0;
+	static final int PRED = 1;
+	static final int OBJ = 2;
+	static final int CONTEXT = 3;
+
+	/**
+	 * The quads, four ints per quad, the first {@link #mSize} of which are in use
+	 */
+	private int[] mQuads;
+
+	/**
+	 * Open addressing table holding (quad position + 1), 0 is an empty slot
+	 */
+	private int[] mTable;
+
+	private int mSize;
+
+	QuadTable() {
+		clear();
+	}
+
+	int size() {
+		return mSize;
+	}
+
+	/**
+	 * Return one element of the quad at the given position
+	 * @param thePosition	the position of the quad, between 0 and {@link #size}
+	 * @param theElement	which element, one of {@link #SUBJ}, {@link #PRED}, {@link #OBJ} or {@link #CONTEXT}
+	 * @return				the id
+	 */
+	int get(final int thePosition, final int theElement) {
+		return mQuads[(thePosition << 2) + theElement];
+	}
+
+	/**
+	 * Return the position of the quad, or -1 if it is not in the table
+	 */
+	int find(final int theSubj, final int thePred, final int theObj, final int theContext) {
+		final int aMask = mTable.length - 1;
+
+		for (int aSlot = hash(theSubj, thePred, theObj, theContext) & aMask; mTable[aSlot] != 0; aSlot = (aSlot + 1) & aMask) {
+			final int aPos = mTable[aSlot] - 1;
+			if (equals(aPos, theSubj, thePred, theObj, theContext)) {
+				return aPos;
+			}
+		}
+
+		return -1;
+	}
+
+	boolean contains(final int theSubj, final int thePred, final int theObj, final int theContext) {
+		return find(theSubj, thePred, theObj, theContext) != -1;
+	}
+
+	boolean add(final int theSubj, final int thePred, final int theObj, final int theContext) {
+		final int aMask = mTable.length - 1;
+
+		int aSlot = hash(theSubj, thePred, theObj, theContext) & aMask;
+		for (; mTable[aSlot] != 0; aSlot = (aSlot + 1) & aMask) {
+			if (equals(mTable[aSlot] - 1, theSubj, thePred, theObj, theContext)) {
+				return false;
+			}
+		}
+
+		if ((mSize << 2) == mQuads.length) {
+			// grow by half rather than doubling, the quads are the bulk of the memory and a full array wastes less
+			mQuads = Arrays.copyOf(mQuads, mQuads.length + ((mQuads.length >> 3) << 2));
+		}
+
+		final int aOffset = mSize << 2;
+		mQuads[aOffset] = theSubj;
+		mQuads[aOffset + 1] = thePred;
+		mQuads[aOffset + 2] = theObj;
+		mQuads[aOffset + 3] = theContext;
+
+		mTable[aSlot] = ++mSize;
+
+		// load factor of 3/4; entries in the table are a single int so a denser table is cheap to probe
+		if (mSize * 4 > mTable.length * 3) {
+			rehash(mTable.length * 2);
+		}
+
+		return true;
+	}
+
+	boolean remove(final int theSubj, final int thePred, final int theObj, final int theContext) {
+		final int aPos = find(theSubj, thePred, theObj, theContext);
+		if (aPos == -1) {
+			return false;
+		}
+
+		removeAt(aPos);
+		return true;
+	}
+
+	/**
+	 * Remove the quad at the given position.  The last quad is moved into the freed position.
+	 * @param thePosition	the position to remove
+	 */
+	void removeAt(final int thePosition) {
+		deleteSlot(slotOf(thePosition));
+
+		final int aLast = mSize - 1;
+
+		if (thePosition != aLast) {
+			// move the last quad into the hole and repoint its slot
+			mTable[slotOf(aLast)] = thePosition + 1;
+			System.arraycopy(mQuads, aLast << 2, mQuads, thePosition << 2, 4);
+		}
+
+		mSize--;
+	}
+
+	void clear() {
+		mQuads = new int[64];
+		mTable = new int[32];
+		mSize = 0;
+	}
+
+	private int slotOf(final int thePosition) {
+		final int aOffset = thePosition << 2;
+		final int aMask = mTable.length - 1;
+
+		int aSlot = hash(mQuads[aOffset], mQuads[aOffset + 1], mQuads[aOffset + 2], mQuads[aOffset + 3]) & aMask;
+		while (mTable[aSlot] != thePosition + 1) {
+			aSlot = (aSlot + 1) & aMask;
+		}
+
+		return aSlot;
+	}
+
+	/**
+	 * Empty the slot and shift back any later entries of the probe run which could occupy it
+	 */
+	private void deleteSlot(int theSlot) {
+		final int aMask = mTable.length - 1;
+
+		int aNext = theSlot;
+		while (true) {
+			aNext = (aNext + 1) & aMask;
+
+			if (mTable[aNext] == 0) {
+				break;
+			}
+
+			final int aOffset = (mTable[aNext] - 1) << 2;
+			final int aHome = hash(mQuads[aOffset], mQuads[aOffset + 1], mQuads[aOffset + 2], mQuads[aOffset + 3]) & aMask;
+
+			// the entry can move back into the hole unless its home slot lies cyclically in (hole, next]
+			if (theSlot <= aNext ? (theSlot < aHome && aHome <= aNext) : (theSlot < aHome || aHome <= aNext)) {
+				continue;
+			}
+
+			mTable[theSlot] = mTable[aNext];
+			theSlot = aNext;
+		}
+
+		mTable[theSlot] = 0;
+	}
+
+	private void rehash(final int theCapacity) {
+		final int[] aTable = new int[theCapacity];
+		final int aMask = theCapacity - 1;
+
+		for (int aPos = 0; aPos < mSize; aPos++) {
+			final int aOffset = aPos << 2;
+			int aSlot = hash(mQuads[aOffset], mQuads[aOffset + 1], mQuads[aOffset + 2], mQuads[aOffset + 3]) & aMask;
+			while (aTable[aSlot] != 0) {
+				aSlot = (aSlot + 1) & aMask;
+			}
+			aTable[aSlot] = aPos + 1;
+		}
+
+		mTable = aTable;
+	}
+
+	private boolean equals(final int thePosition, final int theSubj, final int thePred, final int theObj, final int theContext) {
+		final int aOffset = thePosition << 2;
+
+		return mQuads[aOffset + 2] == theObj
+		       && mQuads[aOffset] == theSubj
+		       && mQuads[aOffset + 1] == thePred
+		       && mQuads[aOffset + 3] == theContext;
+	}
+
+	static int hash(final int theSubj, final int thePred, final int theObj, final int theContext) {
+		return ValueDictionary.mix(((theSubj * 31 + thePred) * 31 + theObj) * 31 + theContext);
+	}
+}
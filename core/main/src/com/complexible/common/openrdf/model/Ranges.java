@@ -0,0 +1,114 @@
+/*
+ * Copyright (c) 2009-2014 Clark & Parsia, LLC. <http://www.clarkparsia.com>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.complexible.common.openrdf.model;
+
+import java.util.AbstractCollection;
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+
+import com.google.common.base.Preconditions;
+import com.google.common.collect.Lists;
+import com.google.common.collect.UnmodifiableIterator;
+
+import org.openrdf.model.Statement;
+
+/**
+ * <p>Splits graphs whose statements are stored at dense positions, such as rows of an array, into contiguous ranges
+ * for {@link SplittableGraph#split}.</p>
+ *
+ * @author  Michael Grove
+ * @since   2.0.2
+ * @version 2.0.2
+ */
+final class Ranges {
+
+	/**
+	 * Access to the statement at a position
+	 */
+	interface Positions {
+		Statement get(final int thePosition);
+	}
+
+	private Ranges() {
+		throw new AssertionError();
+	}
+
+	/**
+	 * Split the positions [0, theSize) into at most theParts contiguous ranges whose sizes differ by at most one
+	 * @param theSize		the number of positions
+	 * @param theParts		the number of parts
+	 * @param thePositions	the statements at each position
+	 * @return				the ranges
+	 */
+	static List<Collection<Statement>> split(final int theSize, final int theParts, final Positions thePositions) {
+		Preconditions.checkArgument(theParts > 0, "Must split into at least one part");
+
+		final int aParts = Math.max(1, Math.min(theParts, theSize));
+		final List<Collection<Statement>> aRanges = Lists.newArrayListWithCapacity(aParts);
+
+		// the first (size % parts) ranges get one extra position
+		int aStart = 0;
+		for (int i = 0; i < aParts; i++) {
+			final int aEnd = aStart + theSize / aParts + (i < theSize % aParts ? 1 : 0);
+			aRanges.add(new Range(aStart, aEnd, thePositions));
+			aStart = aEnd;
+		}
+
+		return aRanges;
+	}
+
+	private static final class Range extends AbstractCollection<Statement> {
+		private final int mStart;
+
+		private final int mEnd;
+
+		private final Positions mPositions;
+
+		Range(final int theStart, final int theEnd, final Positions thePositions) {
+			mStart = theStart;
+			mEnd = theEnd;
+			mPositions = thePositions;
+		}
+
+		@Override
+		public int size() {
+			return mEnd - mStart;
+		}
+
+		@Override
+		public Iterator<Statement> iterator() {
+			return new UnmodifiableIterator<Statement>() {
+				private int mPos = mStart;
+
+				@Override
+				public boolean hasNext() {
+					return mPos < mEnd;
+				}
+
+				@Override
+				public Statement next() {
+					if (!hasNext()) {
+						throw new NoSuchElementException();
+					}
+
+					return mPositions.get(mPos++);
+				}
+			};
+		}
+	}
+}
@@ -20,6 +20,7 @@ import java.util.Iterator;
 import java.util.Set;
 
 import com.google.common.collect.Sets;
+import com.google.common.hash.HashCode;
 
 import org.openrdf.model.Graph;
 import org.openrdf.model.Resource;
@@ -33,28 +34,98 @@ import org.openrdf.model.ValueFactory;
  * This implementation also assumes the user cares about context in statements and thus uses {@link ContextAwareValueFactory} for creating values and
  * statements.</p>
  *
+ * <p>The graph keeps its {@link #hashCode} and a 128-bit {@link #fingerprint} up to date as statements are added and
+ * removed, so neither costs a scan of the graph, and {@link #equals} only compares the statements when the sizes and
+ * fingerprints match.</p>
+ *
  * @author  Michael Grove
  * @since	0.5
- * @version 0.9
+ * @version 2.0.2
  */
 public final class SetGraph extends AbstractCollection<Statement> implements Graph {
 
 	/**
 	 * The contents of the graph as a Set
 	 */
-	private final Set<Statement> mStatements = Sets.newLinkedHashSet();
+	private final Set<Statement> mStatements;
 
 	/**
 	 * The ValueFactory for this graph
 	 */
-	private final ValueFactory mValueFactory = new ContextAwareValueFactory();
+	private final ValueFactory mValueFactory;
+
+	/**
+	 * The fingerprint of the statements in the graph
+	 */
+	private final Fingerprint mFingerprint = new Fingerprint();
+
+	/**
+	 * The hash code of the graph, the sum of the hash codes of its statements as for any {@link Set}
+	 */
+	private int mHashCode;
+
+	/**
+	 * Create a new, empty SetGraph
+	 */
+	public SetGraph() {
+		this(new ContextAwareValueFactory());
+	}
+
+	/**
+	 * Create a new, empty SetGraph which uses the given ValueFactory for the statements created by
+	 * {@link #add(Resource, URI, Value, Resource...)}, such as an {@link InterningValueFactory}.  The factory should
+	 * create statements whose equality includes the context, as {@link ContextAwareValueFactory} does.
+	 *
+	 * @param theValueFactory	the value factory
+	 */
+	public SetGraph(final ValueFactory theValueFactory) {
+		this(Sets.<Statement>newLinkedHashSet(), theValueFactory);
+	}
+
+	private SetGraph(final Set<Statement> theStatements, final ValueFactory theValueFactory) {
+		mStatements = theStatements;
+		mValueFactory = theValueFactory;
+	}
+
+	/**
+	 * Create a new, empty SetGraph which keeps its statements in open-addressed arrays rather than a
+	 * {@link java.util.LinkedHashSet}, about half the memory per statement with faster lookups.
+	 *
+	 * @param theInsertionOrder	whether or not iteration is in the order statements were added; if not, removing a
+	 *							statement changes the order of the others, but removal does not leave holes behind
+	 * @return					a new compact graph
+	 */
+	public static SetGraph compact(final boolean theInsertionOrder) {
+		return new SetGraph(new StatementSet(theInsertionOrder), new ContextAwareValueFactory());
+	}
 
 	/**
 	 * @inheritDoc
 	 */
 	@Override
 	public Iterator<Statement> iterator() {
-		return mStatements.iterator();
+		final Iterator<Statement> aIter = mStatements.iterator();
+
+		return new Iterator<Statement>() {
+			private Statement mLast;
+
+			@Override
+			public boolean hasNext() {
+				return aIter.hasNext();
+			}
+
+			@Override
+			public Statement next() {
+				mLast = aIter.next();
+				return mLast;
+			}
+
+			@Override
+			public void remove() {
+				aIter.remove();
+				removed(mLast);
+			}
+		};
 	}
 
 	/**
@@ -70,7 +141,12 @@ public final class SetGraph extends AbstractCollection<Statement> implements Gra
 	 */
 	@Override
 	public boolean add(final Statement theStatement) {
-		return mStatements.add(theStatement);
+		if (mStatements.add(theStatement)) {
+			added(theStatement);
+			return true;
+		}
+
+		return false;
 	}
 
 	/**
@@ -86,7 +162,23 @@ public final class SetGraph extends AbstractCollection<Statement> implements Gra
 	 */
 	@Override
 	public boolean remove(final Object theStatement) {
-		return mStatements.remove(theStatement);
+		if (!(theStatement instanceof Statement)) {
+			return false;
+		}
+
+		// a statement whose equality ignores the context could remove one in another context, which would then not be
+		// the statement taken out of the fingerprint
+		Statement aStmt = (Statement) theStatement;
+		if (!(aStmt instanceof ContextAwareStatement || aStmt instanceof TripleStatement)) {
+			aStmt = new ContextAwareStatement(aStmt.getSubject(), aStmt.getPredicate(), aStmt.getObject(), aStmt.getContext());
+		}
+
+		if (mStatements.remove(aStmt)) {
+			removed(aStmt);
+			return true;
+		}
+
+		return false;
 	}
 
 	/**
@@ -95,6 +187,8 @@ public final class SetGraph extends AbstractCollection<Statement> implements Gra
 	@Override
 	public void clear() {
 		mStatements.clear();
+		mFingerprint.clear();
+		mHashCode = 0;
 	}
 
 	/**
@@ -114,7 +208,7 @@ public final class SetGraph extends AbstractCollection<Statement> implements Gra
 		boolean aAdded = false;
 
 		for (Resource aContext : (theContexts == null || theContexts.length == 0 ? new Resource[] {null} : theContexts)) {
-			aAdded |= mStatements.add(mValueFactory.createStatement(theSubject, thePredicate, theObject, aContext));
+			aAdded |= add(mValueFactory.createStatement(theSubject, thePredicate, theObject, aContext));
 		}
 		
 		return aAdded;
@@ -143,7 +237,10 @@ public final class SetGraph extends AbstractCollection<Statement> implements Gra
 
         final SetGraph that = (SetGraph) o;
 
-        return mStatements.equals(that.mStatements);
+        return size() == that.size()
+               && mHashCode == that.mHashCode
+               && fingerprint().equals(that.fingerprint())
+               && mStatements.equals(that.mStatements);
     }
 
     /**
@@ -151,6 +248,31 @@ public final class SetGraph extends AbstractCollection<Statement> implements Gra
      */
     @Override
     public int hashCode() {
-        return mStatements.hashCode();
+        return mHashCode;
     }
+
+	/**
+	 * Return an order-independent 128-bit hash of the statements in the graph, which is kept up to date as the graph
+	 * changes rather than computed on each call.  Graphs with the same statements have the same fingerprint, making it
+	 * a suitable key for caching things derived from a graph; like any hash it can collide, so graphs with the same
+	 * fingerprint are only very likely to be equal.  Blank nodes are hashed by their id, see
+	 * {@link Canonicalizer#fingerprint} for a fingerprint which is the same for isomorphic graphs.
+	 *
+	 * @return	the fingerprint
+	 *
+	 * @see Graphs#fingerprint
+	 */
+	public HashCode fingerprint() {
+		return mFingerprint.hash();
+	}
+
+	private void added(final Statement theStatement) {
+		mFingerprint.add(theStatement);
+		mHashCode += theStatement.hashCode();
+	}
+
+	private void removed(final Statement theStatement) {
+		mFingerprint.remove(theStatement);
+		mHashCode -= theStatement.hashCode();
+	}
 }
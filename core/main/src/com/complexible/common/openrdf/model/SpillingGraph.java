@@ -0,0 +1,808 @@
+/*
+ * Copyright (c) 2009-2014 Clark & Parsia, LLC. <http://www.clarkparsia.com>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.complexible.common.openrdf.model;
+
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.util.AbstractCollection;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.ConcurrentModificationException;
+import java.util.Iterator;
+import java.util.List;
+import java.util.PriorityQueue;
+import java.util.Set;
+
+import com.google.common.base.Preconditions;
+import com.google.common.collect.AbstractIterator;
+import com.google.common.collect.Iterators;
+import com.google.common.collect.Lists;
+import com.google.common.collect.PeekingIterator;
+import com.google.common.collect.Sets;
+import com.google.common.hash.BloomFilter;
+import com.google.common.hash.Funnels;
+import com.google.common.io.ByteArrayDataInput;
+import com.google.common.io.ByteArrayDataOutput;
+import com.google.common.io.ByteStreams;
+import com.google.common.io.Files;
+import com.google.common.primitives.Longs;
+import com.google.common.primitives.UnsignedBytes;
+
+import org.openrdf.model.Graph;
+import org.openrdf.model.Resource;
+import org.openrdf.model.Statement;
+import org.openrdf.model.URI;
+import org.openrdf.model.Value;
+import org.openrdf.model.ValueFactory;
+
+/**
+ * <p>Implementation of the Sesame {@link Graph} interface with Set semantics which keeps its statements in memory up
+ * to a budget, and spills them to temporary files on disk beyond it, so that reading a file or a query result which
+ * does not fit in memory does not run the JVM out of heap.  Use it as the target of
+ * {@link GraphIO#readGraph(java.io.File, Graph)}, {@link Graphs#newGraph(org.openrdf.query.GraphQueryResult, Graph)} or
+ * a {@link com.complexible.common.openrdf.util.GraphBuildingRDFHandler}.</p>
+ *
+ * <p>When the estimated heap footprint of the statements in memory goes over the budget they are {@link ValueCodec
+ * encoded}, sorted and written out as a run.  Each run keeps a {@link BloomFilter} and a sparse index of its keys in
+ * memory, so checking whether a statement is already in the graph, which every addition does to keep the graph a
+ * set, reads at most one small block of a run, and usually nothing at all.  Statements removed from a run are
+ * remembered in memory until the runs are merged.  Once there are more than {@link #MAX_RUNS} runs they are merged
+ * into one on disk, leaving out the removed statements.</p>
+ *
+ * <p>The budget only covers the statements in memory.  The removed statements, and the filter and index of each run,
+ * about a byte per statement on disk plus every {@link #INDEX_INTERVAL}th key, are kept on the heap as well.</p>
+ *
+ * <p>Iterating over a graph which has spilled streams a merge of the runs and the sorted statements in memory, leaving
+ * out removed statements, without writing anything to disk, so iteration order is the encoded order rather than
+ * insertion order.  Statements are context-aware: the same triple in two contexts is two statements.  The graph must
+ * not be modified while it is being iterated, other than through the iterator.  {@link #close} deletes the files.  Not
+ * thread-safe.</p>
+ *
+ * @author  Michael Grove
+ * @since   2.0.2
+ * @version 2.0.2
+ */
+public final class SpillingGraph extends AbstractCollection<Statement> implements Graph, Closeable {
+
+	/**
+	 * The default budget, an eighth of the maximum heap
+	 */
+	public static final long DEFAULT_BUDGET = Runtime.getRuntime().maxMemory() / 8;
+
+	/**
+	 * The number of statements between the entries of the sparse index of a run
+	 */
+	private static final int INDEX_INTERVAL = 128;
+
+	/**
+	 * The number of runs above which they are merged into one, which bounds the runs an addition has to check
+	 */
+	private static final int MAX_RUNS = 16;
+
+	private static final double RUN_FPP = 0.01;
+
+	/**
+	 * Estimated heap used by a statement in memory, and by each of its values, besides the characters of the values
+	 */
+	private static final int STATEMENT_OVERHEAD = 80;
+
+	private static final int VALUE_OVERHEAD = 64;
+
+	private static final Comparator<byte[]> ORDER = UnsignedBytes.lexicographicalComparator();
+
+	private final long mBudget;
+
+	/**
+	 * The directory to create the spill directory in, or null for the system temporary directory
+	 */
+	private final File mParent;
+
+	/**
+	 * The directory holding the runs, created on the first spill
+	 */
+	private File mDirectory;
+
+	private final Set<Statement> mBuffer = Sets.newLinkedHashSet();
+
+	private long mBufferBytes = 0;
+
+	private final List<Run> mRuns = Lists.newArrayList();
+
+	/**
+	 * Statements removed from the runs, which are left out when the runs are merged
+	 */
+	private final Set<Statement> mRemoved = Sets.newHashSet();
+
+	private long mSize = 0;
+
+	private int mNextRun = 0;
+
+	private int mModCount = 0;
+
+	private final ValueFactory mValueFactory = new ContextAwareValueFactory();
+
+	/**
+	 * Create a new, empty SpillingGraph with the {@link #DEFAULT_BUDGET default budget}, spilling to the system
+	 * temporary directory
+	 */
+	public SpillingGraph() {
+		this(DEFAULT_BUDGET);
+	}
+
+	/**
+	 * Create a new, empty SpillingGraph which spills to the system temporary directory
+	 *
+	 * @param theBudget	the estimated number of bytes of heap to keep statements in before spilling them to disk
+	 */
+	public SpillingGraph(final long theBudget) {
+		this(theBudget, null);
+	}
+
+	/**
+	 * Create a new, empty SpillingGraph
+	 *
+	 * @param theBudget		the estimated number of bytes of heap to keep statements in before spilling them to disk
+	 * @param theDirectory	the directory to create the spill files in, or null for the system temporary directory
+	 */
+	public SpillingGraph(final long theBudget, final File theDirectory) {
+		Preconditions.checkArgument(theBudget > 0, "Budget must be positive");
+
+		mBudget = theBudget;
+		mParent = theDirectory;
+	}
+
+	/**
+	 * Return whether or not any statements have been spilled to disk
+	 *
+	 * @return	true if some of the statements are on disk
+	 */
+	public boolean isSpilled() {
+		return !mRuns.isEmpty();
+	}
+
+	/**
+	 * Delete the spill files.  The graph is empty afterwards.
+	 */
+	@Override
+	public void close() {
+		clear();
+
+		if (mDirectory != null) {
+			mDirectory.delete();
+			mDirectory = null;
+		}
+	}
+
+	/**
+	 * @inheritDoc
+	 */
+	@Override
+	public int size() {
+		return (int) Math.min(Integer.MAX_VALUE, mSize);
+	}
+
+	/**
+	 * @inheritDoc
+	 */
+	@Override
+	public boolean add(final Statement theStatement) {
+		final Statement aStmt = normalize(theStatement);
+
+		if (mRemoved.remove(aStmt)) {
+			// it is still in its run
+			mSize++;
+			mModCount++;
+			return true;
+		}
+
+		if (mBuffer.contains(aStmt) || inRuns(aStmt)) {
+			return false;
+		}
+
+		mBuffer.add(aStmt);
+		mBufferBytes += estimate(aStmt);
+		mSize++;
+		mModCount++;
+
+		if (mBufferBytes > mBudget) {
+			spill();
+		}
+
+		return true;
+	}
+
+	/**
+	 * @inheritDoc
+	 */
+	@Override
+	public boolean add(final Resource theSubject, final URI thePredicate, final Value theObject, final Resource... theContexts) {
+		boolean aAdded = false;
+
+		for (Resource aContext : (theContexts == null || theContexts.length == 0 ? new Resource[] {null} : theContexts)) {
+			aAdded |= add(mValueFactory.createStatement(theSubject, thePredicate, theObject, aContext));
+		}
+
+		return aAdded;
+	}
+
+	/**
+	 * @inheritDoc
+	 */
+	@Override
+	public boolean contains(final Object theObj) {
+		if (!(theObj instanceof Statement)) {
+			return false;
+		}
+
+		final Statement aStmt = normalize((Statement) theObj);
+
+		return mBuffer.contains(aStmt) || (!mRemoved.contains(aStmt) && inRuns(aStmt));
+	}
+
+	/**
+	 * @inheritDoc
+	 */
+	@Override
+	public boolean remove(final Object theObj) {
+		if (!(theObj instanceof Statement)) {
+			return false;
+		}
+
+		final Statement aStmt = normalize((Statement) theObj);
+
+		if (mBuffer.remove(aStmt)) {
+			mBufferBytes -= estimate(aStmt);
+		}
+		else if (mRemoved.contains(aStmt) || !inRuns(aStmt)) {
+			return false;
+		}
+		else {
+			mRemoved.add(aStmt);
+		}
+
+		mSize--;
+		mModCount++;
+		return true;
+	}
+
+	/**
+	 * @inheritDoc
+	 */
+	@Override
+	public void clear() {
+		for (Run aRun : mRuns) {
+			aRun.delete();
+		}
+
+		mRuns.clear();
+		mBuffer.clear();
+		mRemoved.clear();
+		mBufferBytes = 0;
+		mSize = 0;
+		mModCount++;
+	}
+
+	/**
+	 * @inheritDoc
+	 */
+	@Override
+	public Iterator<Statement> iterator() {
+		if (mRuns.isEmpty()) {
+			return new BufferIterator();
+		}
+
+		final byte[][] aBuffer = new byte[mBuffer.size()][];
+
+		int i = 0;
+		for (Statement aStmt : mBuffer) {
+			aBuffer[i++] = encode(aStmt);
+		}
+
+		Arrays.sort(aBuffer, ORDER);
+
+		final List<Iterator<byte[]>> aKeys = Lists.newArrayList();
+		for (Run aRun : mRuns) {
+			aKeys.add(aRun.keys());
+		}
+		aKeys.add(Iterators.forArray(aBuffer));
+
+		return new MergeIterator(aKeys);
+	}
+
+	/**
+	 * @inheritDoc
+	 */
+	@Override
+	@Deprecated
+	public ValueFactory getValueFactory() {
+		return mValueFactory;
+	}
+
+	/**
+	 * @inheritDoc
+	 */
+	@Override
+	@Deprecated
+	public Iterator<Statement> match(final Resource theSubject, final URI thePredicate, final Value theObject, final Resource... theContexts) {
+		return Graphs.filter(this, theSubject, thePredicate, theObject, theContexts).iterator();
+	}
+
+	/**
+	 * Write the statements in memory to disk as a new sorted run
+	 */
+	private void spill() {
+		final byte[][] aKeys = new byte[mBuffer.size()][];
+
+		int i = 0;
+		for (Statement aStmt : mBuffer) {
+			aKeys[i++] = encode(aStmt);
+		}
+
+		Arrays.sort(aKeys, ORDER);
+
+		try {
+			mRuns.add(Run.write(nextRunFile(), Iterators.forArray(aKeys), aKeys.length));
+		}
+		catch (IOException e) {
+			throw new RuntimeException("Could not spill statements to disk", e);
+		}
+
+		mBuffer.clear();
+		mBufferBytes = 0;
+		mModCount++;
+
+		if (mRuns.size() > MAX_RUNS) {
+			compact();
+		}
+	}
+
+	/**
+	 * Merge all the runs into one, leaving out the removed statements
+	 */
+	private void compact() {
+		final List<Iterator<byte[]>> aKeys = Lists.newArrayList();
+		for (Run aRun : mRuns) {
+			aKeys.add(aRun.keys());
+		}
+
+		final Iterator<byte[]> aMerged = withoutRemoved(merge(aKeys));
+
+		final Run aRun;
+		try {
+			aRun = Run.write(nextRunFile(), aMerged, (int) Math.min(Integer.MAX_VALUE, mSize));
+		}
+		catch (IOException e) {
+			throw new RuntimeException("Could not merge the statements spilled to disk", e);
+		}
+
+		for (Run aOld : mRuns) {
+			aOld.delete();
+		}
+
+		mRuns.clear();
+		mRuns.add(aRun);
+		mRemoved.clear();
+		mModCount++;
+	}
+
+	private boolean inRuns(final Statement theStmt) {
+		if (mRuns.isEmpty()) {
+			return false;
+		}
+
+		final byte[] aKey = encode(theStmt);
+
+		try {
+			for (Run aRun : mRuns) {
+				if (aRun.contains(aKey)) {
+					return true;
+				}
+			}
+		}
+		catch (IOException e) {
+			throw new RuntimeException("Could not read the statements spilled to disk", e);
+		}
+
+		return false;
+	}
+
+	private File nextRunFile() {
+		if (mDirectory == null) {
+			if (mParent == null) {
+				mDirectory = Files.createTempDir();
+			}
+			else {
+				mDirectory = new File(mParent, "spill-" + System.nanoTime());
+
+				if (!mDirectory.mkdirs()) {
+					throw new RuntimeException("Could not create the spill directory " + mDirectory);
+				}
+			}
+		}
+
+		return new File(mDirectory, "run-" + (mNextRun++) + ".dat");
+	}
+
+	private Statement normalize(final Statement theStmt) {
+		return theStmt instanceof ContextAwareStatement || theStmt instanceof TripleStatement
+		       ? theStmt
+		       : mValueFactory.createStatement(theStmt.getSubject(), theStmt.getPredicate(), theStmt.getObject(), theStmt.getContext());
+	}
+
+	private static byte[] encode(final Statement theStmt) {
+		final ByteArrayDataOutput aOut = ByteStreams.newDataOutput();
+
+		try {
+			ValueCodec.write(aOut, theStmt.getSubject());
+			ValueCodec.write(aOut, theStmt.getPredicate());
+			ValueCodec.write(aOut, theStmt.getObject());
+			ValueCodec.write(aOut, theStmt.getContext());
+		}
+		catch (IOException e) {
+			// ByteArrayDataOutput does not throw IOExceptions
+			throw new AssertionError(e);
+		}
+
+		return aOut.toByteArray();
+	}
+
+	private Statement decode(final byte[] theKey) {
+		final ByteArrayDataInput aIn = ByteStreams.newDataInput(theKey);
+
+		try {
+			return mValueFactory.createStatement((Resource) ValueCodec.read(aIn, mValueFactory),
+			                                     (URI) ValueCodec.read(aIn, mValueFactory),
+			                                     ValueCodec.read(aIn, mValueFactory),
+			                                     (Resource) ValueCodec.read(aIn, mValueFactory));
+		}
+		catch (IOException e) {
+			throw new RuntimeException("Invalid statement read from disk", e);
+		}
+	}
+
+	/**
+	 * Estimate the heap used by the statement while it is in memory
+	 */
+	private static long estimate(final Statement theStmt) {
+		long aBytes = STATEMENT_OVERHEAD + estimate(theStmt.getSubject()) + estimate(theStmt.getPredicate()) + estimate(theStmt.getObject());
+
+		if (theStmt.getContext() != null) {
+			aBytes += estimate(theStmt.getContext());
+		}
+
+		return aBytes;
+	}
+
+	private static long estimate(final Value theValue) {
+		return VALUE_OVERHEAD + 2L * theValue.stringValue().length();
+	}
+
+	/**
+	 * Leave the removed statements out of the sorted keys
+	 */
+	private Iterator<byte[]> withoutRemoved(final Iterator<byte[]> theKeys) {
+		return Iterators.filter(theKeys, new com.google.common.base.Predicate<byte[]>() {
+			@Override
+			public boolean apply(final byte[] theKey) {
+				return mRemoved.isEmpty() || !mRemoved.contains(decode(theKey));
+			}
+		});
+	}
+
+	/**
+	 * Merge the sorted sequences of keys into one sorted sequence without duplicates
+	 */
+	private static Iterator<byte[]> merge(final List<Iterator<byte[]>> theKeys) {
+		final PriorityQueue<PeekingIterator<byte[]>> aHeads = new PriorityQueue<PeekingIterator<byte[]>>(theKeys.size(), new Comparator<PeekingIterator<byte[]>>() {
+			@Override
+			public int compare(final PeekingIterator<byte[]> theFirst, final PeekingIterator<byte[]> theSecond) {
+				return ORDER.compare(theFirst.peek(), theSecond.peek());
+			}
+		});
+
+		for (Iterator<byte[]> aKeys : theKeys) {
+			final PeekingIterator<byte[]> aIter = Iterators.peekingIterator(aKeys);
+			if (aIter.hasNext()) {
+				aHeads.add(aIter);
+			}
+		}
+
+		return new AbstractIterator<byte[]>() {
+			private byte[] mLast;
+
+			@Override
+			protected byte[] computeNext() {
+				while (!aHeads.isEmpty()) {
+					final PeekingIterator<byte[]> aIter = aHeads.poll();
+					final byte[] aKey = aIter.next();
+
+					if (aIter.hasNext()) {
+						aHeads.add(aIter);
+					}
+
+					if (mLast == null || ORDER.compare(mLast, aKey) != 0) {
+						mLast = aKey;
+						return aKey;
+					}
+				}
+
+				return endOfData();
+			}
+		};
+	}
+
+	/**
+	 * Iterates over the statements while they are all in memory
+	 */
+	private final class BufferIterator implements Iterator<Statement> {
+		private final Iterator<Statement> mIter = mBuffer.iterator();
+
+		private Statement mLast;
+
+		@Override
+		public boolean hasNext() {
+			return mIter.hasNext();
+		}
+
+		@Override
+		public Statement next() {
+			mLast = mIter.next();
+			return mLast;
+		}
+
+		@Override
+		public void remove() {
+			mIter.remove();
+
+			mBufferBytes -= estimate(mLast);
+			mSize--;
+		}
+	}
+
+	/**
+	 * Streams the merge of the runs and a sorted copy of the statements in memory.  Removing through the iterator only
+	 * changes the statements in memory or the removed statements, neither of which the merge reads from again.
+	 */
+	private final class MergeIterator implements Iterator<Statement> {
+		private final Iterator<byte[]> mKeys;
+
+		private int mExpectedModCount = mModCount;
+
+		private Statement mLast;
+
+		MergeIterator(final List<Iterator<byte[]>> theKeys) {
+			mKeys = withoutRemoved(merge(theKeys));
+		}
+
+		@Override
+		public boolean hasNext() {
+			checkForComodification();
+			return mKeys.hasNext();
+		}
+
+		@Override
+		public Statement next() {
+			checkForComodification();
+
+			mLast = decode(mKeys.next());
+			return mLast;
+		}
+
+		@Override
+		public void remove() {
+			if (mLast == null) {
+				throw new IllegalStateException();
+			}
+
+			checkForComodification();
+
+			SpillingGraph.this.remove(mLast);
+			mExpectedModCount = mModCount;
+			mLast = null;
+		}
+
+		private void checkForComodification() {
+			if (mModCount != mExpectedModCount) {
+				throw new ConcurrentModificationException();
+			}
+		}
+	}
+
+	/**
+	 * A sorted run of encoded statements on disk, each record its length followed by the encoded statement, along with
+	 * the in-memory filter and sparse index used to look statements up in it
+	 */
+	private static final class Run {
+		private final File mFile;
+
+		private final BloomFilter<byte[]> mFilter;
+
+		/**
+		 * Every {@link #INDEX_INTERVAL}th key of the run, and the offset of its record
+		 */
+		private final List<byte[]> mIndexKeys;
+
+		private final long[] mIndexOffsets;
+
+		private final long mLength;
+
+		private RandomAccessFile mReader;
+
+		private Run(final File theFile, final BloomFilter<byte[]> theFilter, final List<byte[]> theIndexKeys,
+		            final long[] theIndexOffsets, final long theLength) {
+			mFile = theFile;
+			mFilter = theFilter;
+			mIndexKeys = theIndexKeys;
+			mIndexOffsets = theIndexOffsets;
+			mLength = theLength;
+		}
+
+		/**
+		 * Write the sorted keys to the file as a new run
+		 */
+		static Run write(final File theFile, final Iterator<byte[]> theKeys, final int theExpectedCount) throws IOException {
+			final BloomFilter<byte[]> aFilter = BloomFilter.create(Funnels.byteArrayFunnel(), Math.max(theExpectedCount, 1), RUN_FPP);
+			final List<byte[]> aIndexKeys = Lists.newArrayList();
+			final List<Long> aIndexOffsets = Lists.newArrayList();
+
+			final DataOutputStream aOut = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(theFile)));
+
+			long aOffset = 0;
+			int aCount = 0;
+
+			try {
+				while (theKeys.hasNext()) {
+					final byte[] aKey = theKeys.next();
+
+					if (aCount++ % INDEX_INTERVAL == 0) {
+						aIndexKeys.add(aKey);
+						aIndexOffsets.add(aOffset);
+					}
+
+					aFilter.put(aKey);
+
+					aOut.writeInt(aKey.length);
+					aOut.write(aKey);
+					aOffset += 4 + aKey.length;
+				}
+			}
+			finally {
+				aOut.close();
+			}
+
+			return new Run(theFile, aFilter, aIndexKeys, Longs.toArray(aIndexOffsets), aOffset);
+		}
+
+		/**
+		 * Return whether the run contains the key, reading at most one block of {@link #INDEX_INTERVAL} records
+		 */
+		boolean contains(final byte[] theKey) throws IOException {
+			if (!mFilter.mightContain(theKey)) {
+				return false;
+			}
+
+			// the last indexed key which is not after the key starts the only block it can be in
+			final int aPos = Collections.binarySearch(mIndexKeys, theKey, ORDER);
+			if (aPos >= 0) {
+				return true;
+			}
+
+			final int aBlock = -aPos - 2;
+			if (aBlock < 0) {
+				return false;
+			}
+
+			final byte[] aBlockBytes = readBlock(aBlock);
+
+			final ByteArrayDataInput aIn = ByteStreams.newDataInput(aBlockBytes);
+			int aRead = 0;
+			while (aRead < aBlockBytes.length) {
+				final byte[] aKey = new byte[aIn.readInt()];
+				aIn.readFully(aKey);
+				aRead += 4 + aKey.length;
+
+				final int aCompare = ORDER.compare(aKey, theKey);
+				if (aCompare == 0) {
+					return true;
+				}
+				else if (aCompare > 0) {
+					return false;
+				}
+			}
+
+			return false;
+		}
+
+		/**
+		 * Return the keys of the run in order.  The keys are read a block at a time through the run's reader, so an
+		 * iterator holds no file handle of its own and one which is abandoned part way needs no closing.
+		 */
+		Iterator<byte[]> keys() {
+			return new AbstractIterator<byte[]>() {
+				private int mBlock = 0;
+
+				private ByteArrayDataInput mIn;
+
+				private int mRemaining = 0;
+
+				@Override
+				protected byte[] computeNext() {
+					if (mRemaining == 0) {
+						if (mBlock == mIndexOffsets.length) {
+							return endOfData();
+						}
+
+						try {
+							final byte[] aBlock = readBlock(mBlock);
+
+							mIn = ByteStreams.newDataInput(aBlock);
+							mRemaining = aBlock.length;
+							mBlock++;
+						}
+						catch (IOException e) {
+							throw new RuntimeException("Could not read " + mFile, e);
+						}
+					}
+
+					final byte[] aKey = new byte[mIn.readInt()];
+					mIn.readFully(aKey);
+					mRemaining -= 4 + aKey.length;
+
+					return aKey;
+				}
+			};
+		}
+
+		/**
+		 * Read the records of the given block of the index
+		 */
+		private byte[] readBlock(final int theBlock) throws IOException {
+			final long aStart = mIndexOffsets[theBlock];
+			final long aEnd = theBlock + 1 < mIndexOffsets.length ? mIndexOffsets[theBlock + 1] : mLength;
+
+			if (mReader == null) {
+				mReader = new RandomAccessFile(mFile, "r");
+			}
+
+			final byte[] aBlock = new byte[(int) (aEnd - aStart)];
+			mReader.seek(aStart);
+			mReader.readFully(aBlock);
+
+			return aBlock;
+		}
+
+		void delete() {
+			if (mReader != null) {
+				try {
+					mReader.close();
+				}
+				catch (IOException e) {
+					// the file is being deleted, there is nothing left to read from it
+				}
+
+				mReader = null;
+			}
+
+			mFile.delete();
+		}
+	}
+}
@@ -0,0 +1,45 @@
+/*
+ * Copyright (c) 2009-2014 Clark & Parsia, LLC. <http://www.clarkparsia.com>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.complexible.common.openrdf.model;
+
+import java.util.Collection;
+import java.util.List;
+
+import org.openrdf.model.Graph;
+import org.openrdf.model.Statement;
+
+/**
+ * <p>A {@link Graph} which can split itself into evenly sized, disjoint parts directly over its backing storage,
+ * without copying, so the parts can be processed in parallel.  {@link Graphs#partition} and {@link ParallelGraphs}
+ * use this when the graph supports it.</p>
+ *
+ * @author  Michael Grove
+ * @since   2.0.2
+ * @version 2.0.2
+ */
+public interface SplittableGraph extends Graph {
+
+	/**
+	 * Split the graph into at most the given number of parts.  Together the parts contain every statement of the graph
+	 * exactly once, their sizes differ by at most one, and each has a known {@link Collection#size size}.  The parts are
+	 * read-only views which can be iterated from different threads at the same time, but the graph must not be
+	 * modified while they are in use.
+	 *
+	 * @param theParts	the number of parts, at least one
+	 * @return			the parts, in iteration order
+	 */
+	public List<Collection<Statement>> split(final int theParts);
+}
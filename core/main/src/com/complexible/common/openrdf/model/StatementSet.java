@@ -0,0 +1,371 @@
+/*
+ * Copyright (c) 2009-2014 Clark & Parsia, LLC. <http://www.clarkparsia.com>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.complexible.common.openrdf.model;
+
+import java.util.AbstractSet;
+import java.util.ConcurrentModificationException;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+
+import org.openrdf.model.Statement;
+
+/**
+ * <p>A compact Set of statements which avoids the entry object and links {@link java.util.LinkedHashSet} keeps for
+ * every element.  Statements are kept in a dense array, in the order they were added, next to an array of their cached
+ * hash codes, and looked up through an open-addressing table of indexes into those arrays with linear probing.  That
+ * is about sixteen bytes per statement against the forty odd of a LinkedHashSet, and a lookup compares cached hash
+ * codes before calling {@link Statement#equals}.</p>
+ *
+ * <p>When insertion order is kept, removal leaves a hole in the dense array which is reclaimed the next time the
+ * arrays are resized; otherwise the last statement is moved into the hole, so iteration order changes on removal.
+ * Not thread-safe.</p>
+ *
+ * @author  Michael Grove
+ * @since   2.0.2
+ * @version 2.0.2
+ */
+final class StatementSet extends AbstractSet<Statement> {
+
+	private static final int MIN_CAPACITY = 8;
+
+	private final boolean mOrdered;
+
+	/**
+	 * The statements, densely packed in the order they were added, with nulls where statements were removed if
+	 * insertion order is kept
+	 */
+	private Statement[] mEntries;
+
+	/**
+	 * The hash codes of the statements in {@link #mEntries}
+	 */
+	private int[] mHashes;
+
+	/**
+	 * The open-addressing table, the index in {@link #mEntries} of the statement plus one, or zero for an empty slot.
+	 * Always at least twice as long as {@link #mEntries} so the table is at most half full.
+	 */
+	private int[] mTable;
+
+	/**
+	 * The number of slots of {@link #mEntries} used, including holes
+	 */
+	private int mEnd;
+
+	private int mSize;
+
+	private int mModCount;
+
+	/**
+	 * Create a new, empty StatementSet
+	 *
+	 * @param theOrdered	whether or not iteration should be in insertion order
+	 */
+	StatementSet(final boolean theOrdered) {
+		mOrdered = theOrdered;
+		allocate(MIN_CAPACITY);
+	}
+
+	/**
+	 * @inheritDoc
+	 */
+	@Override
+	public int size() {
+		return mSize;
+	}
+
+	/**
+	 * @inheritDoc
+	 */
+	@Override
+	public boolean contains(final Object theObj) {
+		return theObj instanceof Statement && find(theObj, theObj.hashCode()) >= 0;
+	}
+
+	/**
+	 * @inheritDoc
+	 */
+	@Override
+	public boolean add(final Statement theStatement) {
+		if (theStatement == null) {
+			throw new NullPointerException();
+		}
+
+		final int aHash = theStatement.hashCode();
+
+		if (find(theStatement, aHash) >= 0) {
+			return false;
+		}
+
+		if (mEnd == mEntries.length) {
+			// reclaim the holes if that frees up a good part of the array, grow otherwise
+			resize(mSize < mEntries.length / 2 ? mEntries.length : mEntries.length * 2);
+		}
+
+		mEntries[mEnd] = theStatement;
+		mHashes[mEnd] = aHash;
+		mEnd++;
+
+		int aSlot = slot(aHash);
+		while (mTable[aSlot] != 0) {
+			aSlot = next(aSlot);
+		}
+		mTable[aSlot] = mEnd;
+
+		mSize++;
+		mModCount++;
+		return true;
+	}
+
+	/**
+	 * @inheritDoc
+	 */
+	@Override
+	public boolean remove(final Object theObj) {
+		if (!(theObj instanceof Statement)) {
+			return false;
+		}
+
+		final int aSlot = find(theObj, theObj.hashCode());
+
+		if (aSlot < 0) {
+			return false;
+		}
+
+		removeEntry(aSlot);
+		return true;
+	}
+
+	/**
+	 * @inheritDoc
+	 */
+	@Override
+	public void clear() {
+		allocate(MIN_CAPACITY);
+		mModCount++;
+	}
+
+	/**
+	 * @inheritDoc
+	 */
+	@Override
+	public int hashCode() {
+		int aHash = 0;
+
+		for (int i = 0; i < mEnd; i++) {
+			if (mEntries[i] != null) {
+				aHash += mHashes[i];
+			}
+		}
+
+		return aHash;
+	}
+
+	/**
+	 * @inheritDoc
+	 */
+	@Override
+	public Iterator<Statement> iterator() {
+		return new Iterator<Statement>() {
+			private int mNext = skipHoles(0);
+
+			private int mLast = -1;
+
+			private int mExpectedModCount = mModCount;
+
+			@Override
+			public boolean hasNext() {
+				return mNext < mEnd;
+			}
+
+			@Override
+			public Statement next() {
+				checkForComodification();
+
+				if (mNext >= mEnd) {
+					throw new NoSuchElementException();
+				}
+
+				mLast = mNext;
+				mNext = skipHoles(mNext + 1);
+
+				return mEntries[mLast];
+			}
+
+			@Override
+			public void remove() {
+				if (mLast < 0) {
+					throw new IllegalStateException();
+				}
+
+				checkForComodification();
+
+				removeEntry(find(mEntries[mLast], mHashes[mLast]));
+
+				if (!mOrdered) {
+					// the last statement was moved into the removed one's place, it's next
+					mNext = mLast;
+				}
+
+				mLast = -1;
+				mExpectedModCount = mModCount;
+			}
+
+			private void checkForComodification() {
+				if (mModCount != mExpectedModCount) {
+					throw new ConcurrentModificationException();
+				}
+			}
+		};
+	}
+
+	private int skipHoles(int theIndex) {
+		while (theIndex < mEnd && mEntries[theIndex] == null) {
+			theIndex++;
+		}
+
+		return theIndex;
+	}
+
+	/**
+	 * Return the slot of the table holding the statement, or -1 if it is not in the set
+	 */
+	private int find(final Object theObj, final int theHash) {
+		for (int aSlot = slot(theHash); mTable[aSlot] != 0; aSlot = next(aSlot)) {
+			final int aIndex = mTable[aSlot] - 1;
+
+			if (mHashes[aIndex] == theHash && theObj.equals(mEntries[aIndex])) {
+				return aSlot;
+			}
+		}
+
+		return -1;
+	}
+
+	/**
+	 * Remove the statement the slot of the table points to
+	 */
+	private void removeEntry(final int theSlot) {
+		final int aIndex = mTable[theSlot] - 1;
+
+		deleteSlot(theSlot);
+
+		final int aLast = mEnd - 1;
+
+		if (mOrdered || aIndex == aLast) {
+			mEntries[aIndex] = null;
+
+			if (aIndex == aLast) {
+				mEnd = skipTrailingHoles(aLast);
+			}
+		}
+		else {
+			// move the last statement into the hole and point its slot at the new index
+			int aSlot = slot(mHashes[aLast]);
+			while (mTable[aSlot] != aLast + 1) {
+				aSlot = next(aSlot);
+			}
+			mTable[aSlot] = aIndex + 1;
+
+			mEntries[aIndex] = mEntries[aLast];
+			mHashes[aIndex] = mHashes[aLast];
+			mEntries[aLast] = null;
+			mEnd = aLast;
+		}
+
+		mSize--;
+		mModCount++;
+	}
+
+	private int skipTrailingHoles(int theEnd) {
+		while (theEnd > 0 && mEntries[theEnd - 1] == null) {
+			theEnd--;
+		}
+
+		return theEnd;
+	}
+
+	/**
+	 * Empty the slot, shifting back the entries after it in the probe sequence so that lookups do not need tombstones
+	 */
+	private void deleteSlot(final int theSlot) {
+		int aGap = theSlot;
+
+		for (int aSlot = next(theSlot); mTable[aSlot] != 0; aSlot = next(aSlot)) {
+			final int aHome = slot(mHashes[mTable[aSlot] - 1]);
+
+			// the entry can fill the gap unless its home slot lies cyclically in (gap, slot]
+			final boolean aStays = aGap <= aSlot
+			                       ? aGap < aHome && aHome <= aSlot
+			                       : aGap < aHome || aHome <= aSlot;
+
+			if (!aStays) {
+				mTable[aGap] = mTable[aSlot];
+				aGap = aSlot;
+			}
+		}
+
+		mTable[aGap] = 0;
+	}
+
+	/**
+	 * Allocate new, empty arrays with room for the given number of statements
+	 */
+	private void allocate(final int theCapacity) {
+		mEntries = new Statement[theCapacity];
+		mHashes = new int[theCapacity];
+		mTable = new int[theCapacity * 2];
+		mEnd = 0;
+		mSize = 0;
+	}
+
+	/**
+	 * Reallocate the arrays with the given capacity, packing the current statements at the front
+	 */
+	private void resize(final int theCapacity) {
+		final Statement[] aEntries = mEntries;
+		final int[] aHashes = mHashes;
+		final int aEnd = mEnd;
+
+		allocate(theCapacity);
+
+		for (int i = 0; i < aEnd; i++) {
+			if (aEntries[i] != null) {
+				mEntries[mEnd] = aEntries[i];
+				mHashes[mEnd] = aHashes[i];
+				mEnd++;
+
+				int aSlot = slot(aHashes[i]);
+				while (mTable[aSlot] != 0) {
+					aSlot = next(aSlot);
+				}
+				mTable[aSlot] = mEnd;
+			}
+		}
+
+		mSize = mEnd;
+	}
+
+	private int slot(final int theHash) {
+		// spread the bits, statement hash codes are sums of value hash codes which are often poor in the low bits
+		final int aHash = theHash * 0x9E3779B9;
+		return (aHash ^ (aHash >>> 16)) & (mTable.length - 1);
+	}
+
+	private int next(final int theSlot) {
+		return (theSlot + 1) & (mTable.length - 1);
+	}
+}
@@ -25,15 +25,13 @@ import org.openrdf.model.Resource;
 import org.openrdf.model.Statement;
 import org.openrdf.model.Value;
 import org.openrdf.model.URI;
-import org.openrdf.model.vocabulary.XMLSchema;
-import org.openrdf.rio.turtle.TurtleUtil;
 
 /**
  * <p>Some common Function implementations for working with Statements</p>
  *
  * @author  Michael Grove
  * @since	0.4.1
- * @version	0.8
+ * @version	2.0.2
  */
 public final class Statements {
 	private static final GetSubject GET_SUBJECT = new GetSubject();
@@ -63,6 +61,53 @@ public final class Statements {
 		return Predicates.compose(Predicates.equalTo(theContext), context());
 	}
 
+	/**
+	 * Return a Predicate which accepts {@link Statement statements} matching the given pattern.  A null subject, predicate
+	 * or object is a wildcard.  No contexts matches any context; otherwise the statement must be in one of the given
+	 * contexts, where a null context matches statements which have no context.
+	 *
+	 * @param theSubj		the subject, or null for wildcard
+	 * @param thePred		the predicate, or null for wildcard
+	 * @param theObj		the object, or null for wildcard
+	 * @param theContexts	optionally, the contexts to match
+	 * @return				the predicate
+	 */
+	public static Predicate<Statement> matches(final Resource theSubj, final URI thePred, final Value theObj, final Resource... theContexts) {
+		return new Predicate<Statement>() {
+			@Override
+			public boolean apply(final Statement theStatement) {
+				if (theSubj != null && !theSubj.equals(theStatement.getSubject())) {
+					return false;
+				}
+				if (thePred != null && !thePred.equals(theStatement.getPredicate())) {
+					return false;
+				}
+				if (theObj != null && !theObj.equals(theStatement.getObject())) {
+					return false;
+				}
+
+				if (theContexts == null || theContexts.length == 0) {
+					// no context specified, SPO were all equal, so this is equals as null/empty context is a wildcard
+					return true;
+				}
+				else {
+					Resource aContext = theStatement.getContext();
+
+					for (Resource aCxt : theContexts) {
+						if (aCxt == null && aContext == null) {
+							return true;
+						}
+						if (aCxt != null && aCxt.equals(aContext)) {
+							return true;
+						}
+					}
+
+					return false;
+				}
+			}
+		};
+	}
+
 	/**
 	 * Return a Function which will retrieve the Subject of a Statement
 	 * @return the function
@@ -150,66 +195,15 @@ public final class Statements {
 	 * object would have been parseable.  Used to validate input coming in from users from non-IO sources (which get
 	 * validated via the fact they got parsed).
 	 *
-	 * Validates the language tag is not malformed and basic XSD datatype checks.
+	 * Validates the language tag is not malformed and that the label is in the lexical space of its datatype, for
+	 * all the XSD built-in datatypes.
 	 *
 	 * @param theLiteral	the literal to validate
 	 *
 	 * @return 				true if its a valid/parseable literal, false otherwise
 	 */
 	public static boolean isLiteralValid(final Literal theLiteral) {
-		if (theLiteral.getLanguage() != null && theLiteral.getLanguage().length() > 0) {
-			final String aLang = theLiteral.getLanguage();
-
-			if (!TurtleUtil.isLanguageStartChar(aLang.charAt(0))) {
-				return false;
-			}
-
-			for (int aIndex = 1; aIndex < aLang.length(); aIndex++) {
-				if (!TurtleUtil.isLanguageChar(aLang.charAt(aIndex))) {
-					return false;
-				}
-			}
-		}
-
-		// TODO: all datatypes?  all variations?
-		if (theLiteral.getDatatype() != null && theLiteral.getDatatype().getNamespace().equals(XMLSchema.NAMESPACE)) {
-			final String aTypeName = theLiteral.getDatatype().getLocalName();
-
-			try {
-				if (aTypeName.equals(XMLSchema.DATETIME.getLocalName())) {
-					theLiteral.calendarValue();
-				}
-				else if (aTypeName.equals(XMLSchema.INT.getLocalName())) {
-					theLiteral.intValue();
-				}
-				else if (aTypeName.equals(XMLSchema.FLOAT.getLocalName())) {
-					theLiteral.floatValue();
-				}
-				else if (aTypeName.equals(XMLSchema.LONG.getLocalName())) {
-					theLiteral.longValue();
-				}
-				else if (aTypeName.equals(XMLSchema.DOUBLE.getLocalName())) {
-					theLiteral.doubleValue();
-				}
-				else if (aTypeName.equals(XMLSchema.SHORT.getLocalName())) {
-					theLiteral.shortValue();
-				}
-				else if (aTypeName.equals(XMLSchema.BOOLEAN.getLocalName())) {
-					theLiteral.booleanValue();
-				}
-				else if (aTypeName.equals(XMLSchema.BYTE.getLocalName())) {
-					theLiteral.byteValue();
-				}
-				else if (aTypeName.equals(XMLSchema.DECIMAL.getLocalName())) {
-					theLiteral.decimalValue();
-				}
-			}
-			catch (Exception e) {
-				return false;
-			}
-		}
-
-		return true;
+		return LiteralValidator.getDefault().isValid(theLiteral);
 	}
 
 	private static class GetSubject implements Function<Statement, Resource> {
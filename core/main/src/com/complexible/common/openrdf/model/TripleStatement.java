@@ -0,0 +1,149 @@
+/*
+ * Copyright (c) 2009-2014 Clark & Parsia, LLC. <http://www.clarkparsia.com>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.complexible.common.openrdf.model;
+
+import org.openrdf.model.Resource;
+import org.openrdf.model.Statement;
+import org.openrdf.model.URI;
+import org.openrdf.model.Value;
+
+import com.google.common.base.Preconditions;
+
+/**
+ * <p>Implementation of a Sesame {@link Statement} without a context, which saves the context slot of a
+ * {@link ContextAwareStatement} for the statements of context-free data.  It has the same notion of equality: it is
+ * only equal to statements in no context, and its {@link #hashCode} does not include the context, so it is
+ * interchangeable with a ContextAwareStatement whose context is null.  {@link ContextAwareValueFactory} creates these
+ * for statements without a context.</p>
+ *
+ * @author  Michael Grove
+ * @since   2.0.2
+ * @version 2.0.2
+ */
+public final class TripleStatement implements Statement {
+
+	/**
+	 * The subject
+	 */
+	private final Resource mSubject;
+
+	/**
+	 * The predicate
+	 */
+	private final URI mPredicate;
+
+	/**
+	 * The object
+	 */
+	private final Value mObject;
+
+	/**
+	 * Create a new TripleStatement
+	 *
+	 * @param theSubject	the subject
+	 * @param thePredicate	the predicate
+	 * @param theObject		the object
+	 */
+	public TripleStatement(final Resource theSubject, final URI thePredicate, final Value theObject) {
+		mSubject = Preconditions.checkNotNull(theSubject);
+		mPredicate = Preconditions.checkNotNull(thePredicate);
+		mObject = Preconditions.checkNotNull(theObject);
+	}
+
+	/**
+	 * @inheritDoc
+	 */
+	@Override
+	public Resource getSubject() {
+		return mSubject;
+	}
+
+	/**
+	 * @inheritDoc
+	 */
+	@Override
+	public URI getPredicate() {
+		return mPredicate;
+	}
+
+	/**
+	 * @inheritDoc
+	 */
+	@Override
+	public Value getObject() {
+		return mObject;
+	}
+
+	/**
+	 * Return null, a TripleStatement has no context
+	 *
+	 * @return	null
+	 */
+	@Override
+	public Resource getContext() {
+		return null;
+	}
+
+	/**
+	 * @inheritDoc
+	 */
+	@Override
+	public boolean equals(final Object theObj) {
+		if (this == theObj) {
+			return true;
+		}
+
+		// as with ContextAwareStatement, any Statement with the same spo and no context is equal
+		if (!(theObj instanceof Statement)) {
+			return false;
+		}
+
+		final Statement that = (Statement) theObj;
+
+		return mObject.equals(that.getObject())
+			   && mSubject.equals(that.getSubject())
+			   && mPredicate.equals(that.getPredicate())
+			   && that.getContext() == null;
+	}
+
+	/**
+	 * @inheritDoc
+	 */
+	@Override
+	public int hashCode() {
+		return 961 * mSubject.hashCode() + 31 * mPredicate.hashCode() + mObject.hashCode();
+	}
+
+	/**
+	 * @inheritDoc
+	 */
+	@Override
+	public String toString() {
+		StringBuilder aStringBuilder = new StringBuilder(256);
+
+		aStringBuilder.append("(");
+		aStringBuilder.append(getSubject());
+		aStringBuilder.append(", ");
+		aStringBuilder.append(getPredicate());
+		aStringBuilder.append(", ");
+		aStringBuilder.append(getObject());
+		aStringBuilder.append(")");
+
+		aStringBuilder.append(" [null]");
+
+		return aStringBuilder.toString();
+	}
+}
@@ -0,0 +1,485 @@
+/*
+ * Copyright (c) 2009-2014 Clark & Parsia, LLC. <http://www.clarkparsia.com>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.complexible.common.openrdf.model;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.Writer;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import com.google.common.base.Function;
+import com.google.common.base.Optional;
+import com.google.common.base.Predicate;
+import com.google.common.collect.HashMultiset;
+import com.google.common.collect.Maps;
+import com.google.common.collect.Multiset;
+import com.google.common.collect.Queues;
+import com.google.common.collect.Sets;
+
+import org.openrdf.model.Graph;
+import org.openrdf.model.Literal;
+import org.openrdf.model.Resource;
+import org.openrdf.model.Statement;
+import org.openrdf.model.URI;
+import org.openrdf.model.Value;
+import org.openrdf.model.ValueFactory;
+import org.openrdf.model.vocabulary.RDF;
+import org.openrdf.model.vocabulary.RDFS;
+import org.openrdf.rio.RDFFormat;
+import org.openrdf.rio.RDFParseException;
+
+/**
+ * <p>An {@link ExtGraph} which keeps an index from each type to its instances and from each instance to its types,
+ * along with an index of the rdfs:subClassOf statements, so {@link #getInstancesOf}, {@link #getIndividuals},
+ * {@link #getTypes} and {@link #isInstanceOf} are hash lookups rather than scans of the graph.</p>
+ *
+ * <p>The indexes are updated by every change made through this graph, including removals through its iterator.  They
+ * count the statements supporting each entry, so the same rdf:type asserted in several contexts stays indexed until the
+ * last of them is removed.  Changes made directly to the wrapped graph are not seen by the index.  The returned
+ * collections are live, read-only views of the index.</p>
+ *
+ * @author  Michael Grove
+ * @since   2.0.2
+ * @version 2.0.2
+ */
+public final class TypeIndexedGraph extends DelegatingGraph implements ExtGraph {
+
+	/**
+	 * Index of type to its instances
+	 */
+	private final Map<Resource, Multiset<Resource>> mInstances = Maps.newHashMap();
+
+	/**
+	 * Index of instance to its types
+	 */
+	private final Map<Resource, Multiset<Resource>> mTypes = Maps.newHashMap();
+
+	/**
+	 * Index of class to its direct subclasses
+	 */
+	private final Map<Resource, Multiset<Resource>> mSubClasses = Maps.newHashMap();
+
+	private final ValueFactory mValueFactory = new ContextAwareValueFactory();
+
+	/**
+	 * The {@link ExtGraph} operations which do not involve types, evaluated against this graph
+	 */
+	private final ExtGraph mExt = new ExtGraphImpl(this);
+
+	/**
+	 * Create a new, empty TypeIndexedGraph
+	 */
+	public TypeIndexedGraph() {
+		this(new SetGraph());
+	}
+
+	/**
+	 * Create a new TypeIndexedGraph over the given graph, indexing the statements it already contains.  The graph
+	 * should only be modified through the TypeIndexedGraph from now on.
+	 *
+	 * @param theGraph	the graph to index
+	 */
+	public TypeIndexedGraph(final Graph theGraph) {
+		super(theGraph);
+
+		for (Statement aStmt : theGraph) {
+			index(aStmt);
+		}
+	}
+
+	/**
+	 * @inheritDoc
+	 */
+	@Override
+	public Iterable<Resource> getInstancesOf(final URI theType) {
+		return elements(mInstances.get(theType));
+	}
+
+	/**
+	 * @inheritDoc
+	 */
+	@Override
+	public Iterable<Resource> getInstancesOf(final URI theType, final boolean theSubClasses) {
+		if (!theSubClasses) {
+			return getInstancesOf(theType);
+		}
+
+		final Set<Resource> aInstances = Sets.newLinkedHashSet();
+		final Set<Resource> aTypes = Sets.<Resource>newHashSet(theType);
+		final Deque<Resource> aQueue = Queues.<Resource>newArrayDeque(aTypes);
+
+		while (!aQueue.isEmpty()) {
+			final Resource aType = aQueue.poll();
+
+			aInstances.addAll(elements(mInstances.get(aType)));
+
+			for (Resource aSubClass : elements(mSubClasses.get(aType))) {
+				if (aTypes.add(aSubClass)) {
+					aQueue.add(aSubClass);
+				}
+			}
+		}
+
+		return aInstances;
+	}
+
+	/**
+	 * @inheritDoc
+	 */
+	@Override
+	public Iterable<Resource> getIndividuals() {
+		return Collections.unmodifiableSet(mTypes.keySet());
+	}
+
+	/**
+	 * @inheritDoc
+	 */
+	@Override
+	public Iterable<Resource> getTypes(final Resource theRes) {
+		return elements(mTypes.get(theRes));
+	}
+
+	/**
+	 * @inheritDoc
+	 */
+	@Override
+	public boolean isInstanceOf(final Resource theRes, final Resource theType) {
+		final Multiset<Resource> aTypes = mTypes.get(theRes);
+
+		return aTypes != null && aTypes.contains(theType);
+	}
+
+	/**
+	 * @inheritDoc
+	 */
+	@Override
+	public boolean add(final Statement theStatement) {
+		if (mGraph.add(theStatement)) {
+			index(theStatement);
+			return true;
+		}
+
+		return false;
+	}
+
+	/**
+	 * @inheritDoc
+	 */
+	@Override
+	public boolean add(final Resource theSubj, final URI thePred, final Value theObj, final Resource... theContexts) {
+		if (theContexts == null || theContexts.length == 0) {
+			return add(mValueFactory.createStatement(theSubj, thePred, theObj));
+		}
+
+		boolean aChanged = false;
+		for (Resource aContext : theContexts) {
+			aChanged |= add(mValueFactory.createStatement(theSubj, thePred, theObj, aContext));
+		}
+
+		return aChanged;
+	}
+
+	/**
+	 * @inheritDoc
+	 */
+	@Override
+	public boolean remove(final Object theObj) {
+		if (mGraph.remove(theObj)) {
+			unindex((Statement) theObj);
+			return true;
+		}
+
+		return false;
+	}
+
+	/**
+	 * @inheritDoc
+	 */
+	@Override
+	public boolean removeAll(final Collection<?> theStatements) {
+		boolean aChanged = false;
+
+		for (Object aObj : theStatements) {
+			aChanged |= remove(aObj);
+		}
+
+		return aChanged;
+	}
+
+	/**
+	 * @inheritDoc
+	 */
+	@Override
+	public boolean retainAll(final Collection<?> theStatements) {
+		boolean aChanged = false;
+
+		for (Iterator<Statement> aIter = iterator(); aIter.hasNext(); ) {
+			if (!theStatements.contains(aIter.next())) {
+				aIter.remove();
+				aChanged = true;
+			}
+		}
+
+		return aChanged;
+	}
+
+	/**
+	 * @inheritDoc
+	 */
+	@Override
+	public void clear() {
+		mGraph.clear();
+		mInstances.clear();
+		mTypes.clear();
+		mSubClasses.clear();
+	}
+
+	/**
+	 * @inheritDoc
+	 */
+	@Override
+	public Iterator<Statement> iterator() {
+		final Iterator<Statement> aIter = mGraph.iterator();
+
+		return new Iterator<Statement>() {
+			private Statement mLast;
+
+			@Override
+			public boolean hasNext() {
+				return aIter.hasNext();
+			}
+
+			@Override
+			public Statement next() {
+				mLast = aIter.next();
+				return mLast;
+			}
+
+			@Override
+			public void remove() {
+				aIter.remove();
+				unindex(mLast);
+			}
+		};
+	}
+
+	/**
+	 * @inheritDoc
+	 */
+	@Override
+	public boolean contains(final Resource theSubj, final URI thePred, final Value theObj, final Resource... theContexts) {
+		return mExt.contains(theSubj, thePred, theObj, theContexts);
+	}
+
+	/**
+	 * @inheritDoc
+	 */
+	@Override
+	public Optional<Value> getObject(final Resource theSubj, final URI thePred) {
+		return mExt.getObject(theSubj, thePred);
+	}
+
+	/**
+	 * @inheritDoc
+	 */
+	@Override
+	public Optional<Literal> getLiteral(final Resource theSubj, final URI thePred) {
+		return mExt.getLiteral(theSubj, thePred);
+	}
+
+	/**
+	 * @inheritDoc
+	 */
+	@Override
+	public Optional<Resource> getResource(final Resource theSubj, final URI thePred) {
+		return mExt.getResource(theSubj, thePred);
+	}
+
+	/**
+	 * @inheritDoc
+	 */
+	@Override
+	public boolean isList(final Resource theRes) {
+		return mExt.isList(theRes);
+	}
+
+	/**
+	 * @inheritDoc
+	 */
+	@Override
+	public List<Value> asList(final Resource theRes) {
+		return mExt.asList(theRes);
+	}
+
+	/**
+	 * @inheritDoc
+	 */
+	@Override
+	public Map<Resource, List<Value>> lists() {
+		return mExt.lists();
+	}
+
+	/**
+	 * @inheritDoc
+	 */
+	@Override
+	public void read(final File theFile) throws IOException, RDFParseException {
+		mExt.read(theFile);
+	}
+
+	/**
+	 * @inheritDoc
+	 */
+	@Override
+	public void read(final InputStream theStream, final RDFFormat theFormat) throws IOException, RDFParseException {
+		mExt.read(theStream, theFormat);
+	}
+
+	/**
+	 * @inheritDoc
+	 */
+	@Override
+	public void write(final OutputStream theStream, final RDFFormat theFormat) throws IOException {
+		mExt.write(theStream, theFormat);
+	}
+
+	/**
+	 * @inheritDoc
+	 */
+	@Override
+	public void write(final Writer theWriter, final RDFFormat theFormat) throws IOException {
+		mExt.write(theWriter, theFormat);
+	}
+
+	/**
+	 * @inheritDoc
+	 */
+	@Override
+	public String toString(final RDFFormat theFormat) {
+		return mExt.toString(theFormat);
+	}
+
+	/**
+	 * @inheritDoc
+	 */
+	@Override
+	public Graph filter(final Predicate<Statement> thePredicate) {
+		return mExt.filter(thePredicate);
+	}
+
+	/**
+	 * @inheritDoc
+	 */
+	@Override
+	public Graph transform(final Function<Statement, Statement> theFunction) {
+		return mExt.transform(theFunction);
+	}
+
+	/**
+	 * @inheritDoc
+	 */
+	@Override
+	public Optional<Statement> find(final Predicate<Statement> thePredicate) {
+		return mExt.find(thePredicate);
+	}
+
+	/**
+	 * @inheritDoc
+	 */
+	@Override
+	public boolean any(final Predicate<Statement> thePredicate) {
+		return mExt.any(thePredicate);
+	}
+
+	/**
+	 * @inheritDoc
+	 */
+	@Override
+	public boolean all(final Predicate<Statement> thePredicate) {
+		return mExt.all(thePredicate);
+	}
+
+	/**
+	 * @inheritDoc
+	 */
+	@Override
+	public <T> Collection<T> collect(final Function<Statement, Optional<T>> theFunction) {
+		return mExt.collect(theFunction);
+	}
+
+	private void index(final Statement theStmt) {
+		if (!(theStmt.getObject() instanceof Resource)) {
+			return;
+		}
+
+		final Resource aObj = (Resource) theStmt.getObject();
+
+		if (theStmt.getPredicate().equals(RDF.TYPE)) {
+			entries(mInstances, aObj).add(theStmt.getSubject());
+			entries(mTypes, theStmt.getSubject()).add(aObj);
+		}
+		else if (theStmt.getPredicate().equals(RDFS.SUBCLASSOF)) {
+			entries(mSubClasses, aObj).add(theStmt.getSubject());
+		}
+	}
+
+	private void unindex(final Statement theStmt) {
+		if (!(theStmt.getObject() instanceof Resource)) {
+			return;
+		}
+
+		final Resource aObj = (Resource) theStmt.getObject();
+
+		if (theStmt.getPredicate().equals(RDF.TYPE)) {
+			removeEntry(mInstances, aObj, theStmt.getSubject());
+			removeEntry(mTypes, theStmt.getSubject(), aObj);
+		}
+		else if (theStmt.getPredicate().equals(RDFS.SUBCLASSOF)) {
+			removeEntry(mSubClasses, aObj, theStmt.getSubject());
+		}
+	}
+
+	private static Multiset<Resource> entries(final Map<Resource, Multiset<Resource>> theIndex, final Resource theKey) {
+		Multiset<Resource> aEntries = theIndex.get(theKey);
+
+		if (aEntries == null) {
+			aEntries = HashMultiset.create(2);
+			theIndex.put(theKey, aEntries);
+		}
+
+		return aEntries;
+	}
+
+	private static void removeEntry(final Map<Resource, Multiset<Resource>> theIndex, final Resource theKey, final Resource theValue) {
+		final Multiset<Resource> aEntries = theIndex.get(theKey);
+
+		if (aEntries != null && aEntries.remove(theValue) && aEntries.isEmpty()) {
+			theIndex.remove(theKey);
+		}
+	}
+
+	private static Set<Resource> elements(final Multiset<Resource> theEntries) {
+		return theEntries == null ? Collections.<Resource>emptySet() : Collections.unmodifiableSet(theEntries.elementSet());
+	}
+}
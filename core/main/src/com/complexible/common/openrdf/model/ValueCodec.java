@@ -0,0 +1,170 @@
+/*
+ * Copyright (c) 2009-2014 Clark & Parsia, LLC. <http://www.clarkparsia.com>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.complexible.common.openrdf.model;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+
+import com.google.common.base.Charsets;
+import com.google.common.io.ByteArrayDataOutput;
+import com.google.common.io.ByteStreams;
+
+import org.openrdf.model.BNode;
+import org.openrdf.model.Literal;
+import org.openrdf.model.URI;
+import org.openrdf.model.Value;
+import org.openrdf.model.ValueFactory;
+
+/**
+ * <p>Compact binary encoding of {@link Value values}, used by the graphs which keep their values outside of the heap.
+ * A value is a one byte tag followed by its lexical form and, for literals, its language or datatype.  Strings are
+ * written as a length prefixed UTF-8 byte sequence, so unlike {@link DataOutput#writeUTF} there is no length limit.</p>
+ *
+ * @author  Michael Grove
+ * @since   2.0.2
+ * @version 2.0.2
+ */
+final class ValueCodec {
+	private static final byte NULL = 0;
+	private static final byte URI = 1;
+	private static final byte BNODE = 2;
+	private static final byte PLAIN_LITERAL = 3;
+	private static final byte LANG_LITERAL = 4;
+	private static final byte TYPED_LITERAL = 5;
+
+	/**
+	 * No instances
+	 */
+	private ValueCodec() {
+		throw new AssertionError();
+	}
+
+	/**
+	 * Write the value, which may be null, to the output
+	 * @param theOut	the output
+	 * @param theValue	the value
+	 * @throws IOException	if there is an error writing
+	 */
+	static void write(final DataOutput theOut, final Value theValue) throws IOException {
+		if (theValue == null) {
+			theOut.writeByte(NULL);
+		}
+		else if (theValue instanceof URI) {
+			theOut.writeByte(URI);
+			writeString(theOut, theValue.stringValue());
+		}
+		else if (theValue instanceof BNode) {
+			theOut.writeByte(BNODE);
+			writeString(theOut, ((BNode) theValue).getID());
+		}
+		else {
+			final Literal aLiteral = (Literal) theValue;
+
+			if (aLiteral.getDatatype() != null) {
+				theOut.writeByte(TYPED_LITERAL);
+				writeString(theOut, aLiteral.getLabel());
+				writeString(theOut, aLiteral.getDatatype().stringValue());
+			}
+			else if (aLiteral.getLanguage() != null) {
+				theOut.writeByte(LANG_LITERAL);
+				writeString(theOut, aLiteral.getLabel());
+				writeString(theOut, aLiteral.getLanguage());
+			}
+			else {
+				theOut.writeByte(PLAIN_LITERAL);
+				writeString(theOut, aLiteral.getLabel());
+			}
+		}
+	}
+
+	/**
+	 * Read a value previously written by {@link #write}
+	 * @param theIn			the input
+	 * @param theFactory	the factory to create the value with
+	 * @return				the value, or null if a null value was written
+	 * @throws IOException	if there is an error reading
+	 */
+	static Value read(final DataInput theIn, final ValueFactory theFactory) throws IOException {
+		final byte aTag = theIn.readByte();
+
+		switch (aTag) {
+			case NULL:
+				return null;
+			case URI:
+				return theFactory.createURI(readString(theIn));
+			case BNODE:
+				return theFactory.createBNode(readString(theIn));
+			case PLAIN_LITERAL:
+				return theFactory.createLiteral(readString(theIn));
+			case LANG_LITERAL:
+				return theFactory.createLiteral(readString(theIn), readString(theIn));
+			case TYPED_LITERAL:
+				return theFactory.createLiteral(readString(theIn), theFactory.createURI(readString(theIn)));
+			default:
+				throw new IOException("Unknown value tag: " + aTag);
+		}
+	}
+
+	/**
+	 * Return the encoded form of the value
+	 * @param theValue	the value
+	 * @return			the bytes
+	 */
+	static byte[] toBytes(final Value theValue) {
+		final ByteArrayDataOutput aOut = ByteStreams.newDataOutput();
+
+		try {
+			write(aOut, theValue);
+		}
+		catch (IOException e) {
+			// ByteArrayDataOutput does not throw IOExceptions
+			throw new AssertionError(e);
+		}
+
+		return aOut.toByteArray();
+	}
+
+	/**
+	 * Decode a value from its {@link #toBytes encoded form}
+	 * @param theBytes		the bytes
+	 * @param theFactory	the factory to create the value with
+	 * @return				the value
+	 */
+	static Value fromBytes(final byte[] theBytes, final ValueFactory theFactory) {
+		try {
+			return read(ByteStreams.newDataInput(theBytes), theFactory);
+		}
+		catch (IOException e) {
+			throw new IllegalArgumentException("Invalid encoded value", e);
+		}
+	}
+
+	private static void writeString(final DataOutput theOut, final String theString) throws IOException {
+		final byte[] aBytes = theString.getBytes(Charsets.UTF_8);
+
+		theOut.writeInt(aBytes.length);
+		theOut.write(aBytes);
+	}
+
+	private static String readString(final DataInput theIn) throws IOException {
+		final byte[] aBytes = new byte[theIn.readInt()];
+
+		theIn.readFully(aBytes);
+
+		return new String(aBytes, Charsets.UTF_8);
+	}
+}
@@ -0,0 +1,179 @@
+/*
+ * Copyright (c) 2009-2014 Clark & Parsia, LLC. <http://www.clarkparsia.com>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.complexible.common.openrdf.model;
+
+import java.util.Arrays;
+
+import org.openrdf.model.Value;
+
+/**
+ * <p>Interns {@link Value values} to dense integer ids.  Id {@link #NULL} is reserved for the null value, which is
+ * how statements without a context are encoded.  The reverse mapping is a plain array and the forward mapping is an
+ * open-addressing table of ids, so no boxing or map entries are needed per value.</p>
+ *
+ * <p>Ids are never reused; values stay in the dictionary until it is {@link #clear cleared}.  Not thread-safe.</p>
+ *
+ * @author  Michael Grove
+ * @since   2.0.2
+ * @version 2.0.2
+ */
+final class ValueDictionary {
+
+	/**
+	 * The id of the null value
+	 */
+	static final int NULL = 0;
+
+	/**
+	 * Returned by {@link #id} for values which are not in the dictionary
+	 */
+	static final int ABSENT = -1;
+
+	/**
+	 * The values, indexed by id
+	 */
+	private Value[] mValues;
+
+	/**
+	 * Open addressing table of ids, 0 marks an empty slot since the null value is never stored in the table
+	 */
+	private int[] mTable;
+
+	/**
+	 * The next id to hand out
+	 */
+	private int mNext;
+
+	ValueDictionary() {
+		clear();
+	}
+
+	/**
+	 * Return the id of the value, or {@link #ABSENT} if it is not in the dictionary
+	 * @param theValue	the value
+	 * @return			its id
+	 */
+	int id(final Value theValue) {
+		if (theValue == null) {
+			return NULL;
+		}
+
+		final int aMask = mTable.length - 1;
+
+		for (int aSlot = mix(theValue.hashCode()) & aMask; mTable[aSlot] != 0; aSlot = (aSlot + 1) & aMask) {
+			if (mValues[mTable[aSlot]].equals(theValue)) {
+				return mTable[aSlot];
+			}
+		}
+
+		return ABSENT;
+	}
+
+	/**
+	 * Return the id of the value, adding it to the dictionary if it is not already present
+	 * @param theValue	the value
+	 * @return			its id
+	 */
+	int encode(final Value theValue) {
+		if (theValue == null) {
+			return NULL;
+		}
+
+		final int aMask = mTable.length - 1;
+
+		int aSlot = mix(theValue.hashCode()) & aMask;
+		for (; mTable[aSlot] != 0; aSlot = (aSlot + 1) & aMask) {
+			if (mValues[mTable[aSlot]].equals(theValue)) {
+				return mTable[aSlot];
+			}
+		}
+
+		if (mNext == mValues.length) {
+			// grow by half rather than doubling, a full array wastes less on average
+			mValues = Arrays.copyOf(mValues, mValues.length + (mValues.length >> 1));
+		}
+
+		final int aId = mNext++;
+		mValues[aId] = theValue;
+		mTable[aSlot] = aId;
+
+		// load factor of 3/4, as for QuadTable; entries are a single int so a denser table is cheap to probe
+		if (mNext * 4 > mTable.length * 3) {
+			rehash(mTable.length * 2);
+		}
+
+		return aId;
+	}
+
+	/**
+	 * Return the value with the given id
+	 * @param theId	the id
+	 * @return		the value
+	 */
+	Value decode(final int theId) {
+		return mValues[theId];
+	}
+
+	/**
+	 * Return the number of values in the dictionary
+	 * @return the size
+	 */
+	int size() {
+		return mNext - 1;
+	}
+
+	/**
+	 * Release the unused capacity of the value array, for dictionaries which will not grow any further
+	 */
+	void trimToSize() {
+		mValues = Arrays.copyOf(mValues, mNext);
+	}
+
+	void clear() {
+		mValues = new Value[16];
+		mTable = new int[32];
+		mNext = NULL + 1;
+	}
+
+	private void rehash(final int theCapacity) {
+		final int[] aTable = new int[theCapacity];
+		final int aMask = theCapacity - 1;
+
+		for (int aId = NULL + 1; aId < mNext; aId++) {
+			int aSlot = mix(mValues[aId].hashCode()) & aMask;
+			while (aTable[aSlot] != 0) {
+				aSlot = (aSlot + 1) & aMask;
+			}
+			aTable[aSlot] = aId;
+		}
+
+		mTable = aTable;
+	}
+
+	/**
+	 * Spread the bits of a hash code; Value hash codes are usually String hash codes whose low bits are poor
+	 * @param theHash	the hash
+	 * @return			the mixed hash
+	 */
+	static int mix(int theHash) {
+		theHash ^= theHash >>> 16;
+		theHash *= 0x85ebca6b;
+		theHash ^= theHash >>> 13;
+		theHash *= 0xc2b2ae35;
+		theHash ^= theHash >>> 16;
+		return theHash;
+	}
+}
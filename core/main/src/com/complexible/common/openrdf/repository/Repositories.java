@@ -26,6 +26,7 @@ import java.io.OutputStreamWriter;
 import java.io.Reader;
 import java.io.Writer;
 
+import com.complexible.common.openrdf.model.GraphDelta;
 import com.google.common.base.Charsets;
 import com.google.common.io.Closeables;
 import info.aduna.iteration.CloseableIteration;
@@ -140,6 +141,16 @@ public final class Repositories {
 		}
 	}
 
+	public static void apply(final Repository theRepository, final GraphDelta theDelta) throws RepositoryException {
+		RepositoryConnection aConn = theRepository.getConnection();
+		try {
+			RepositoryConnections.apply(aConn, theDelta);
+		}
+		finally {
+			aConn.close();
+		}
+	}
+
 	public static boolean contains(final Repository theRepository, final Statement theStmt) throws RepositoryException {
 		RepositoryConnection aConn = theRepository.getConnection();
 		try {
@@ -22,6 +22,7 @@ import java.io.InputStream;
 import java.io.InputStreamReader;
 import java.io.Reader;
 
+import com.complexible.common.openrdf.model.GraphDelta;
 import com.google.common.base.Charsets;
 import com.google.common.io.Closeables;
 import org.openrdf.model.Graph;
@@ -93,6 +94,30 @@ public final class RepositoryConnections {
 		}
 	}
 
+	/**
+	 * Apply the {@link GraphDelta delta} to the connection in a single transaction, removing its removals and then
+	 * adding its additions.  The transaction is rolled back if either fails.
+	 *
+	 * @param theConnection	the connection to update
+	 * @param theDelta		the changes to apply
+	 * @throws RepositoryException	if there is an error while applying the changes
+	 */
+	public static void apply(final RepositoryConnection theConnection, final GraphDelta theDelta) throws RepositoryException {
+		try {
+			theConnection.begin();
+			// a statement without a context is removed from the default context only, not from every context
+			for (Statement aStmt : theDelta.getRemovals()) {
+				theConnection.remove(aStmt.getSubject(), aStmt.getPredicate(), aStmt.getObject(), aStmt.getContext());
+			}
+			theConnection.add(theDelta.getAdditions());
+			theConnection.commit();
+		}
+		catch (RepositoryException e) {
+			theConnection.rollback();
+			throw e;
+		}
+	}
+
 	/**
 	 * Quietly close the connection object
 	 * @param theConn the connection to close
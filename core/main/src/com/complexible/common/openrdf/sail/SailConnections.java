@@ -15,6 +15,7 @@
 
 package com.complexible.common.openrdf.sail;
 
+import com.complexible.common.openrdf.model.GraphDelta;
 import com.complexible.common.openrdf.util.AdunaIterations;
 import info.aduna.iteration.CloseableIteration;
 import org.openrdf.model.Graph;
@@ -57,14 +58,7 @@ public final class SailConnections {
 	public static void add(final SailConnection theConnection, final Graph theGraph) throws SailException {
 		try {
 			theConnection.begin();
-			for (Statement aStmt : theGraph) {
-				if (aStmt.getContext() != null) {
-					theConnection.addStatement(aStmt.getSubject(), aStmt.getPredicate(), aStmt.getObject(), aStmt.getContext());
-				}
-				else {
-					theConnection.addStatement(aStmt.getSubject(), aStmt.getPredicate(), aStmt.getObject());
-				}
-			}
+			addStatements(theConnection, theGraph);
 			theConnection.commit();
 		}
 		catch (SailException e) {
@@ -76,14 +70,7 @@ public final class SailConnections {
 	public static void remove(final SailConnection theConnection, final Graph theGraph) throws SailException {
 		try {
 			theConnection.begin();
-			for (Statement aStmt : theGraph) {
-				if (aStmt.getContext() != null) {
-					theConnection.removeStatements(aStmt.getSubject(), aStmt.getPredicate(), aStmt.getObject(), aStmt.getContext());
-				}
-				else {
-					theConnection.removeStatements(aStmt.getSubject(), aStmt.getPredicate(), aStmt.getObject());
-				}
-			}
+			removeStatements(theConnection, theGraph);
 			theConnection.commit();
 		}
 		catch (SailException e) {
@@ -92,6 +79,59 @@ public final class SailConnections {
 		}
 	}
 
+	/**
+	 * Apply the {@link GraphDelta delta} to the connection in a single transaction, removing its removals and then
+	 * adding its additions.  The transaction is rolled back if either fails.
+	 *
+	 * @param theConnection	the connection to update
+	 * @param theDelta		the changes to apply
+	 * @throws SailException	if there is an error while applying the changes
+	 */
+	public static void apply(final SailConnection theConnection, final GraphDelta theDelta) throws SailException {
+		try {
+			theConnection.begin();
+			removeQuads(theConnection, theDelta.getRemovals());
+			addStatements(theConnection, theDelta.getAdditions());
+			theConnection.commit();
+		}
+		catch (SailException e) {
+			theConnection.rollback();
+			throw e;
+		}
+	}
+
+	private static void addStatements(final SailConnection theConnection, final Graph theGraph) throws SailException {
+		for (Statement aStmt : theGraph) {
+			if (aStmt.getContext() != null) {
+				theConnection.addStatement(aStmt.getSubject(), aStmt.getPredicate(), aStmt.getObject(), aStmt.getContext());
+			}
+			else {
+				theConnection.addStatement(aStmt.getSubject(), aStmt.getPredicate(), aStmt.getObject());
+			}
+		}
+	}
+
+	private static void removeStatements(final SailConnection theConnection, final Graph theGraph) throws SailException {
+		for (Statement aStmt : theGraph) {
+			if (aStmt.getContext() != null) {
+				theConnection.removeStatements(aStmt.getSubject(), aStmt.getPredicate(), aStmt.getObject(), aStmt.getContext());
+			}
+			else {
+				theConnection.removeStatements(aStmt.getSubject(), aStmt.getPredicate(), aStmt.getObject());
+			}
+		}
+	}
+
+	/**
+	 * Remove each statement from only its own context; a statement without a context is removed from the default
+	 * context rather than from every context, as it would be if no context were given.
+	 */
+	private static void removeQuads(final SailConnection theConnection, final Graph theGraph) throws SailException {
+		for (Statement aStmt : theGraph) {
+			theConnection.removeStatements(aStmt.getSubject(), aStmt.getPredicate(), aStmt.getObject(), aStmt.getContext());
+		}
+	}
+
 	public static boolean contains(final SailConnection theConnection, final Statement theStmt) throws SailException {
 		CloseableIteration<?,SailException> aIter = theStmt.getContext() == null
 		       ? theConnection.getStatements(theStmt.getSubject(), theStmt.getPredicate(), theStmt.getObject(), true)
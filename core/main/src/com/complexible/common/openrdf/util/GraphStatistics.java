@@ -0,0 +1,180 @@
+/*
+ * Copyright (c) 2009-2014 Clark & Parsia, LLC. <http://www.clarkparsia.com>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.complexible.common.openrdf.util;
+
+import java.util.Collections;
+import java.util.Map;
+
+import org.openrdf.model.Resource;
+import org.openrdf.model.Statement;
+import org.openrdf.model.URI;
+
+/**
+ * <p>Cardinality statistics of a collection of statements, as gathered by a {@link StatisticsCollector}.  Statement
+ * counts are exact; the numbers of distinct subjects and objects are {@link HyperLogLog} estimates.</p>
+ *
+ * @author  Michael Grove
+ * @since   2.0.2
+ * @version 2.0.2
+ */
+public final class GraphStatistics {
+	private final long mSize;
+
+	private final long mSubjects;
+
+	private final long mObjects;
+
+	private final Map<URI, PredicateStatistics> mPredicates;
+
+	private final Map<Resource, Long> mClasses;
+
+	private final Map<Resource, Long> mContexts;
+
+	GraphStatistics(final long theSize, final long theSubjects, final long theObjects,
+	                final Map<URI, PredicateStatistics> thePredicates, final Map<Resource, Long> theClasses,
+	                final Map<Resource, Long> theContexts) {
+		mSize = theSize;
+		mSubjects = theSubjects;
+		mObjects = theObjects;
+		mPredicates = Collections.unmodifiableMap(thePredicates);
+		mClasses = Collections.unmodifiableMap(theClasses);
+		mContexts = Collections.unmodifiableMap(theContexts);
+	}
+
+	/**
+	 * Compute the statistics of the statements in a single pass
+	 *
+	 * @param theStatements	the statements
+	 * @return				their statistics
+	 */
+	public static GraphStatistics of(final Iterable<Statement> theStatements) {
+		final StatisticsCollector aCollector = new StatisticsCollector();
+
+		for (Statement aStmt : theStatements) {
+			aCollector.handleStatement(aStmt);
+		}
+
+		return aCollector.getStatistics();
+	}
+
+	/**
+	 * Return the number of statements
+	 * @return	the number of statements
+	 */
+	public long size() {
+		return mSize;
+	}
+
+	/**
+	 * Return the estimated number of distinct subjects
+	 * @return	the distinct subject count
+	 */
+	public long getDistinctSubjects() {
+		return mSubjects;
+	}
+
+	/**
+	 * Return the estimated number of distinct objects
+	 * @return	the distinct object count
+	 */
+	public long getDistinctObjects() {
+		return mObjects;
+	}
+
+	/**
+	 * Return the statistics of each predicate
+	 * @return	the statistics keyed by predicate
+	 */
+	public Map<URI, PredicateStatistics> getPredicates() {
+		return mPredicates;
+	}
+
+	/**
+	 * Return the estimated number of distinct instances of each class, that is, of the distinct subjects of the
+	 * <code>rdf:type</code> statements naming it
+	 * @return	the instance counts keyed by class
+	 */
+	public Map<Resource, Long> getClasses() {
+		return mClasses;
+	}
+
+	/**
+	 * Return the number of statements in each context.  Statements in the default context are counted under the
+	 * null key.
+	 * @return	the context sizes
+	 */
+	public Map<Resource, Long> getContexts() {
+		return mContexts;
+	}
+
+	/**
+	 * @inheritDoc
+	 */
+	@Override
+	public String toString() {
+		return "GraphStatistics(size=" + mSize + ", subjects=" + mSubjects + ", objects=" + mObjects
+		       + ", predicates=" + mPredicates.size() + ", classes=" + mClasses.size() + ", contexts=" + mContexts.size() + ")";
+	}
+
+	/**
+	 * <p>Cardinality statistics of a single predicate</p>
+	 */
+	public static final class PredicateStatistics {
+		private final long mCount;
+
+		private final long mSubjects;
+
+		private final long mObjects;
+
+		PredicateStatistics(final long theCount, final long theSubjects, final long theObjects) {
+			mCount = theCount;
+			mSubjects = theSubjects;
+			mObjects = theObjects;
+		}
+
+		/**
+		 * Return the number of statements using the predicate
+		 * @return	the statement count
+		 */
+		public long getCount() {
+			return mCount;
+		}
+
+		/**
+		 * Return the estimated number of distinct subjects of the predicate
+		 * @return	the distinct subject count
+		 */
+		public long getDistinctSubjects() {
+			return mSubjects;
+		}
+
+		/**
+		 * Return the estimated number of distinct objects of the predicate
+		 * @return	the distinct object count
+		 */
+		public long getDistinctObjects() {
+			return mObjects;
+		}
+
+		/**
+		 * @inheritDoc
+		 */
+		@Override
+		public String toString() {
+			return "PredicateStatistics(count=" + mCount + ", subjects=" + mSubjects + ", objects=" + mObjects + ")";
+		}
+	}
+}
@@ -0,0 +1,152 @@
+/*
+ * Copyright (c) 2009-2014 Clark & Parsia, LLC. <http://www.clarkparsia.com>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.complexible.common.openrdf.util;
+
+import java.util.Arrays;
+
+import com.google.common.base.Preconditions;
+
+/**
+ * <p>A HyperLogLog sketch for estimating the number of distinct elements in a stream in fixed memory.  Elements are
+ * added by their 64-bit hash; a sketch with precision p uses 2<sup>p</sup> bytes and has a standard error of about
+ * 1.04 / sqrt(2<sup>p</sup>), so the default precision of 12 uses 4KB for an error of about 1.6% however many elements
+ * are added.  Small cardinalities are estimated by linear counting, which is close to exact.</p>
+ *
+ * <p>Sketches of the same precision can be {@link #merge merged}, giving the sketch of the union of their streams.
+ * Not thread-safe.</p>
+ *
+ * @author  Michael Grove
+ * @since   2.0.2
+ * @version 2.0.2
+ */
+public final class HyperLogLog {
+
+	/**
+	 * The default precision
+	 */
+	public static final int DEFAULT_PRECISION = 12;
+
+	private final int mPrecision;
+
+	private final byte[] mRegisters;
+
+	/**
+	 * Create a new sketch with the {@link #DEFAULT_PRECISION default precision}
+	 */
+	public HyperLogLog() {
+		this(DEFAULT_PRECISION);
+	}
+
+	/**
+	 * Create a new sketch
+	 *
+	 * @param thePrecision	the number of bits of the hash used to pick a register, from 4 to 18
+	 */
+	public HyperLogLog(final int thePrecision) {
+		Preconditions.checkArgument(thePrecision >= 4 && thePrecision <= 18, "Precision must be between 4 and 18");
+
+		mPrecision = thePrecision;
+		mRegisters = new byte[1 << thePrecision];
+	}
+
+	/**
+	 * Add an element to the sketch
+	 *
+	 * @param theHash	a well-mixed 64-bit hash of the element
+	 */
+	public void add(final long theHash) {
+		final int aIndex = (int) (theHash >>> (64 - mPrecision));
+
+		// the rank is the position of the first set bit after the index bits; the guard bit bounds it
+		final long aRest = (theHash << mPrecision) | (1L << (mPrecision - 1));
+		final byte aRank = (byte) (Long.numberOfLeadingZeros(aRest) + 1);
+
+		if (aRank > mRegisters[aIndex]) {
+			mRegisters[aIndex] = aRank;
+		}
+	}
+
+	/**
+	 * Return the estimated number of distinct elements added to the sketch
+	 *
+	 * @return	the estimated cardinality
+	 */
+	public long cardinality() {
+		final int aCount = mRegisters.length;
+
+		double aSum = 0;
+		int aZeros = 0;
+		for (byte aRegister : mRegisters) {
+			aSum += 1.0 / (1L << aRegister);
+			if (aRegister == 0) {
+				aZeros++;
+			}
+		}
+
+		final double aEstimate = alpha(aCount) * aCount * aCount / aSum;
+
+		if (aEstimate <= 2.5 * aCount && aZeros > 0) {
+			return Math.round(aCount * Math.log((double) aCount / aZeros));
+		}
+
+		return Math.round(aEstimate);
+	}
+
+	/**
+	 * Merge the other sketch into this one, so that this sketch estimates the union of both streams
+	 *
+	 * @param theOther	the sketch to merge
+	 * @throws IllegalArgumentException if the sketches have different precisions
+	 */
+	public void merge(final HyperLogLog theOther) {
+		Preconditions.checkArgument(theOther.mPrecision == mPrecision, "Cannot merge sketches with different precisions");
+
+		for (int i = 0; i < mRegisters.length; i++) {
+			if (theOther.mRegisters[i] > mRegisters[i]) {
+				mRegisters[i] = theOther.mRegisters[i];
+			}
+		}
+	}
+
+	/**
+	 * Reset the sketch to empty
+	 */
+	public void clear() {
+		Arrays.fill(mRegisters, (byte) 0);
+	}
+
+	/**
+	 * Return the precision of the sketch
+	 *
+	 * @return	the precision
+	 */
+	public int getPrecision() {
+		return mPrecision;
+	}
+
+	private static double alpha(final int theCount) {
+		switch (theCount) {
+			case 16:
+				return 0.673;
+			case 32:
+				return 0.697;
+			case 64:
+				return 0.709;
+			default:
+				return 0.7213 / (1 + 1.079 / theCount);
+		}
+	}
+}
@@ -0,0 +1,230 @@
+/*
+ * Copyright (c) 2009-2014 Clark & Parsia, LLC. <http://www.clarkparsia.com>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.complexible.common.openrdf.util;
+
+import java.util.Map;
+
+import com.google.common.collect.Maps;
+import com.google.common.hash.HashFunction;
+import com.google.common.hash.Hashing;
+
+import org.openrdf.model.Resource;
+import org.openrdf.model.Statement;
+import org.openrdf.model.URI;
+import org.openrdf.model.Value;
+import org.openrdf.model.vocabulary.RDF;
+import org.openrdf.rio.helpers.RDFHandlerBase;
+
+/**
+ * <p>Implementation of an RDFHandler which gathers the {@link GraphStatistics cardinality statistics} of the
+ * statements it is sent in a single pass: the number of statements, per predicate and per context, and estimates of
+ * the number of distinct subjects and objects, overall and per predicate, and of the distinct instances of each
+ * class named by an <code>rdf:type</code> statement.  The distinct counts use {@link HyperLogLog} sketches, so memory
+ * grows with the number of predicates, classes and contexts, not with the number of statements.</p>
+ *
+ * <p>Collectors can be {@link #merge merged}, so a stream can be split across several collectors, for example one per
+ * file, and the results combined.  Not thread-safe.  {@link GraphStatistics#of} runs a collector over a graph.</p>
+ *
+ * @author  Michael Grove
+ * @since   2.0.2
+ * @version 2.0.2
+ */
+public final class StatisticsCollector extends RDFHandlerBase {
+	private static final HashFunction HASH = Hashing.murmur3_128();
+
+	private final int mPrecision;
+
+	private long mSize = 0;
+
+	private final HyperLogLog mSubjects;
+
+	private final HyperLogLog mObjects;
+
+	private final Map<URI, PredicateCollector> mPredicates = Maps.newHashMap();
+
+	private final Map<Resource, HyperLogLog> mClasses = Maps.newHashMap();
+
+	private final Map<Resource, long[]> mContexts = Maps.newHashMap();
+
+	/**
+	 * Create a new StatisticsCollector with sketches of the {@link HyperLogLog#DEFAULT_PRECISION default precision}
+	 */
+	public StatisticsCollector() {
+		this(HyperLogLog.DEFAULT_PRECISION);
+	}
+
+	/**
+	 * Create a new StatisticsCollector
+	 *
+	 * @param thePrecision	the precision of the distinct count sketches
+	 */
+	public StatisticsCollector(final int thePrecision) {
+		mPrecision = thePrecision;
+		mSubjects = new HyperLogLog(thePrecision);
+		mObjects = new HyperLogLog(thePrecision);
+	}
+
+	/**
+	 * @inheritDoc
+	 */
+	@Override
+	public void handleStatement(final Statement theStatement) {
+		final long aSubj = hash(theStatement.getSubject());
+		final long aObj = hash(theStatement.getObject());
+
+		mSize++;
+		mSubjects.add(aSubj);
+		mObjects.add(aObj);
+
+		PredicateCollector aPredicate = mPredicates.get(theStatement.getPredicate());
+		if (aPredicate == null) {
+			aPredicate = new PredicateCollector(mPrecision);
+			mPredicates.put(theStatement.getPredicate(), aPredicate);
+		}
+
+		aPredicate.mCount++;
+		aPredicate.mSubjects.add(aSubj);
+		aPredicate.mObjects.add(aObj);
+
+		if (RDF.TYPE.equals(theStatement.getPredicate()) && theStatement.getObject() instanceof Resource) {
+			HyperLogLog aInstances = mClasses.get(theStatement.getObject());
+			if (aInstances == null) {
+				aInstances = new HyperLogLog(mPrecision);
+				mClasses.put((Resource) theStatement.getObject(), aInstances);
+			}
+
+			aInstances.add(aSubj);
+		}
+
+		long[] aContextSize = mContexts.get(theStatement.getContext());
+		if (aContextSize == null) {
+			aContextSize = new long[1];
+			mContexts.put(theStatement.getContext(), aContextSize);
+		}
+
+		aContextSize[0]++;
+	}
+
+	/**
+	 * Merge the statistics gathered by the other collector into this one
+	 *
+	 * @param theOther	the collector to merge
+	 * @throws IllegalArgumentException if the collectors use sketches of different precisions
+	 */
+	public void merge(final StatisticsCollector theOther) {
+		mSize += theOther.mSize;
+		mSubjects.merge(theOther.mSubjects);
+		mObjects.merge(theOther.mObjects);
+
+		for (Map.Entry<URI, PredicateCollector> aEntry : theOther.mPredicates.entrySet()) {
+			final PredicateCollector aPredicate = mPredicates.get(aEntry.getKey());
+
+			if (aPredicate == null) {
+				final PredicateCollector aCopy = new PredicateCollector(mPrecision);
+				aCopy.merge(aEntry.getValue());
+				mPredicates.put(aEntry.getKey(), aCopy);
+			}
+			else {
+				aPredicate.merge(aEntry.getValue());
+			}
+		}
+
+		for (Map.Entry<Resource, HyperLogLog> aEntry : theOther.mClasses.entrySet()) {
+			HyperLogLog aInstances = mClasses.get(aEntry.getKey());
+			if (aInstances == null) {
+				aInstances = new HyperLogLog(mPrecision);
+				mClasses.put(aEntry.getKey(), aInstances);
+			}
+
+			aInstances.merge(aEntry.getValue());
+		}
+
+		for (Map.Entry<Resource, long[]> aEntry : theOther.mContexts.entrySet()) {
+			final long[] aContextSize = mContexts.get(aEntry.getKey());
+
+			if (aContextSize == null) {
+				mContexts.put(aEntry.getKey(), new long[] { aEntry.getValue()[0] });
+			}
+			else {
+				aContextSize[0] += aEntry.getValue()[0];
+			}
+		}
+	}
+
+	/**
+	 * Return the statistics of the statements seen so far
+	 *
+	 * @return	the statistics
+	 */
+	public GraphStatistics getStatistics() {
+		final Map<URI, GraphStatistics.PredicateStatistics> aPredicates = Maps.newHashMapWithExpectedSize(mPredicates.size());
+		for (Map.Entry<URI, PredicateCollector> aEntry : mPredicates.entrySet()) {
+			final PredicateCollector aPredicate = aEntry.getValue();
+
+			aPredicates.put(aEntry.getKey(), new GraphStatistics.PredicateStatistics(aPredicate.mCount,
+			                                                                         aPredicate.mSubjects.cardinality(),
+			                                                                         aPredicate.mObjects.cardinality()));
+		}
+
+		final Map<Resource, Long> aClasses = Maps.newHashMapWithExpectedSize(mClasses.size());
+		for (Map.Entry<Resource, HyperLogLog> aEntry : mClasses.entrySet()) {
+			aClasses.put(aEntry.getKey(), aEntry.getValue().cardinality());
+		}
+
+		final Map<Resource, Long> aContexts = Maps.newHashMapWithExpectedSize(mContexts.size());
+		for (Map.Entry<Resource, long[]> aEntry : mContexts.entrySet()) {
+			aContexts.put(aEntry.getKey(), aEntry.getValue()[0]);
+		}
+
+		return new GraphStatistics(mSize, mSubjects.cardinality(), mObjects.cardinality(), aPredicates, aClasses, aContexts);
+	}
+
+	/**
+	 * Reset the collector
+	 */
+	public void clear() {
+		mSize = 0;
+		mSubjects.clear();
+		mObjects.clear();
+		mPredicates.clear();
+		mClasses.clear();
+		mContexts.clear();
+	}
+
+	private static long hash(final Value theValue) {
+		// the string form distinguishes uris, bnodes and literals, including datatype and language
+		return HASH.hashUnencodedChars(theValue.toString()).asLong();
+	}
+
+	private static final class PredicateCollector {
+		private long mCount;
+
+		private final HyperLogLog mSubjects;
+
+		private final HyperLogLog mObjects;
+
+		PredicateCollector(final int thePrecision) {
+			mSubjects = new HyperLogLog(thePrecision);
+			mObjects = new HyperLogLog(thePrecision);
+		}
+
+		void merge(final PredicateCollector theOther) {
+			mCount += theOther.mCount;
+			mSubjects.merge(theOther.mSubjects);
+			mObjects.merge(theOther.mObjects);
+		}
+	}
+}
@@ -0,0 +1,238 @@
+/*
+ * Copyright (c) 2009-2014 Clark & Parsia, LLC. <http://www.clarkparsia.com>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.complexible.common.openrdf.util;
+
+import java.io.BufferedInputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.zip.GZIPInputStream;
+
+import com.complexible.common.openrdf.model.GraphIO;
+import com.complexible.common.openrdf.vocabulary.VoiD;
+import com.google.common.base.Throwables;
+import com.google.common.collect.Lists;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+
+import org.openrdf.model.Graph;
+import org.openrdf.model.Resource;
+import org.openrdf.model.URI;
+import org.openrdf.rio.RDFFormat;
+import org.openrdf.rio.RDFParseException;
+
+/**
+ * <p>Generates a <a href="http://www.w3.org/TR/void/">VoiD</a> description of an RDF dataset directly from its dump
+ * files, without loading them anywhere.  Each file is streamed through its own {@link StatisticsCollector} on a task
+ * of an {@link ExecutorService}, and the collectors are merged once all the files are parsed, so the files are read
+ * in parallel and memory depends on the number of predicates and classes, not the size of the data.</p>
+ *
+ * <p>The description gives the number of triples, distinct subjects, objects, properties and classes of the dataset,
+ * a property partition per predicate, with its triples and distinct subjects and objects, and a class partition per
+ * class, with its number of instances.  The distinct counts are {@link HyperLogLog} estimates.  Blank nodes are
+ * distinct per file, as they would be if the files were loaded.</p>
+ *
+ * <p>The format of each file is picked by its name; gzipped files, with a <code>.gz</code> suffix, are decompressed as
+ * they are read.</p>
+ *
+ * @author  Michael Grove
+ * @since   2.0.2
+ * @version 2.0.2
+ */
+public final class VoiDGenerator {
+	private static final String GZIP_SUFFIX = ".gz";
+
+	private final ExecutorService mExecutor;
+
+	private final int mPrecision;
+
+	/**
+	 * Create a new VoiDGenerator which uses sketches of the {@link HyperLogLog#DEFAULT_PRECISION default precision}
+	 *
+	 * @param theExecutor	the executor to parse the files with
+	 */
+	public VoiDGenerator(final ExecutorService theExecutor) {
+		this(theExecutor, HyperLogLog.DEFAULT_PRECISION);
+	}
+
+	/**
+	 * Create a new VoiDGenerator
+	 *
+	 * @param theExecutor	the executor to parse the files with
+	 * @param thePrecision	the precision of the distinct count sketches
+	 */
+	public VoiDGenerator(final ExecutorService theExecutor, final int thePrecision) {
+		mExecutor = theExecutor;
+		mPrecision = thePrecision;
+	}
+
+	/**
+	 * Generate the VoiD description of the dataset in the files, parsing them in parallel on a pool which is shut
+	 * down afterwards
+	 *
+	 * @param theDataset	the resource identifying the dataset
+	 * @param theFiles		the files of the dataset
+	 * @return				the description
+	 *
+	 * @throws IOException			if there was an error reading a file
+	 * @throws RDFParseException	if a file could not be parsed
+	 */
+	public static Graph generate(final Resource theDataset, final File... theFiles) throws IOException, RDFParseException {
+		final int aThreads = Math.max(1, Math.min(theFiles.length, Runtime.getRuntime().availableProcessors()));
+		final ExecutorService aExecutor = Executors.newFixedThreadPool(aThreads, new ThreadFactoryBuilder()
+		                                                                         .setDaemon(true)
+		                                                                         .setNameFormat("void-generator-%d")
+		                                                                         .build());
+
+		try {
+			return new VoiDGenerator(aExecutor).generate(theDataset, Arrays.asList(theFiles));
+		}
+		finally {
+			aExecutor.shutdownNow();
+		}
+	}
+
+	/**
+	 * Generate the VoiD description of the dataset in the files
+	 *
+	 * @param theDataset	the resource identifying the dataset
+	 * @param theFiles		the files of the dataset
+	 * @return				the description
+	 *
+	 * @throws IOException			if there was an error reading a file
+	 * @throws RDFParseException	if a file could not be parsed
+	 */
+	public Graph generate(final Resource theDataset, final Iterable<File> theFiles) throws IOException, RDFParseException {
+		return describe(theDataset, statistics(theFiles));
+	}
+
+	/**
+	 * Gather the statistics of the statements in the files, parsing one file per task
+	 *
+	 * @param theFiles	the files
+	 * @return			the statistics of all the statements in the files
+	 *
+	 * @throws IOException			if there was an error reading a file
+	 * @throws RDFParseException	if a file could not be parsed
+	 * @throws IllegalArgumentException if the format of a file cannot be determined from its name
+	 */
+	public GraphStatistics statistics(final Iterable<File> theFiles) throws IOException, RDFParseException {
+		final List<Callable<StatisticsCollector>> aTasks = Lists.newArrayList();
+
+		for (final File aFile : theFiles) {
+			final RDFFormat aFormat = format(aFile);
+
+			aTasks.add(new Callable<StatisticsCollector>() {
+				@Override
+				public StatisticsCollector call() throws Exception {
+					final StatisticsCollector aCollector = new StatisticsCollector(mPrecision);
+
+					GraphIO.iterateGraph(aCollector, open(aFile), aFormat);
+
+					return aCollector;
+				}
+			});
+		}
+
+		final StatisticsCollector aResult = new StatisticsCollector(mPrecision);
+
+		try {
+			for (Future<StatisticsCollector> aFuture : mExecutor.invokeAll(aTasks)) {
+				aResult.merge(aFuture.get());
+			}
+		}
+		catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new RuntimeException(e);
+		}
+		catch (ExecutionException e) {
+			Throwables.propagateIfInstanceOf(e.getCause(), IOException.class);
+			Throwables.propagateIfInstanceOf(e.getCause(), RDFParseException.class);
+			throw Throwables.propagate(e.getCause());
+		}
+
+		return aResult.getStatistics();
+	}
+
+	/**
+	 * Create the VoiD description of a dataset from its statistics
+	 *
+	 * @param theDataset	the resource identifying the dataset
+	 * @param theStats		the statistics of the dataset
+	 * @return				the description
+	 */
+	public static Graph describe(final Resource theDataset, final GraphStatistics theStats) {
+		final VoiD aVoiD = VoiD.ontology();
+		final GraphBuilder aBuilder = new GraphBuilder();
+
+		final ResourceBuilder aDataset = aBuilder.instance(aVoiD.Dataset, theDataset)
+		                                         .addProperty(aVoiD.triples, theStats.size())
+		                                         .addProperty(aVoiD.distinctSubjects, theStats.getDistinctSubjects())
+		                                         .addProperty(aVoiD.distinctObjects, theStats.getDistinctObjects())
+		                                         .addProperty(aVoiD.properties, (long) theStats.getPredicates().size())
+		                                         .addProperty(aVoiD.classes, (long) theStats.getClasses().size());
+
+		for (Map.Entry<URI, GraphStatistics.PredicateStatistics> aEntry : theStats.getPredicates().entrySet()) {
+			final ResourceBuilder aPartition = aBuilder.instance()
+			                                           .addProperty(aVoiD.property, aEntry.getKey())
+			                                           .addProperty(aVoiD.triples, aEntry.getValue().getCount())
+			                                           .addProperty(aVoiD.distinctSubjects, aEntry.getValue().getDistinctSubjects())
+			                                           .addProperty(aVoiD.distinctObjects, aEntry.getValue().getDistinctObjects());
+
+			aDataset.addProperty(aVoiD.propertyPartition, aPartition.getResource());
+		}
+
+		for (Map.Entry<Resource, Long> aEntry : theStats.getClasses().entrySet()) {
+			final ResourceBuilder aPartition = aBuilder.instance()
+			                                           .addProperty(aVoiD._class, aEntry.getKey())
+			                                           .addProperty(aVoiD.entities, aEntry.getValue());
+
+			aDataset.addProperty(aVoiD.classPartition, aPartition.getResource());
+		}
+
+		return aBuilder.graph();
+	}
+
+	private static RDFFormat format(final File theFile) {
+		String aName = theFile.getName();
+
+		if (aName.endsWith(GZIP_SUFFIX)) {
+			aName = aName.substring(0, aName.length() - GZIP_SUFFIX.length());
+		}
+
+		final RDFFormat aFormat = RDFFormat.forFileName(aName);
+
+		if (aFormat == null) {
+			throw new IllegalArgumentException("Cannot determine the RDF format of " + theFile);
+		}
+
+		return aFormat;
+	}
+
+	private static InputStream open(final File theFile) throws IOException {
+		final InputStream aStream = new BufferedInputStream(new FileInputStream(theFile));
+
+		return theFile.getName().endsWith(GZIP_SUFFIX) ? new GZIPInputStream(aStream) : aStream;
+	}
+}
@@ -19,5 +19,18 @@ public final class VoiD extends Vocabulary {
         return INSTANCE;
     }
 
+    public final URI Dataset = term("Dataset");
+
     public final URI triples = term("triples");
+    public final URI entities = term("entities");
+    public final URI classes = term("classes");
+    public final URI properties = term("properties");
+    public final URI distinctSubjects = term("distinctSubjects");
+    public final URI distinctObjects = term("distinctObjects");
+    public final URI dataDump = term("dataDump");
+
+    public final URI classPartition = term("classPartition");
+    public final URI propertyPartition = term("propertyPartition");
+    public final URI _class = term("class");
+    public final URI property = term("property");
 }
@@ -0,0 +1,120 @@
+/*
+ * Copyright (c) 2009-2014 Clark & Parsia, LLC. <http://www.clarkparsia.com>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.complexible.common.openrdf;
+
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import com.complexible.common.openrdf.model.ConcurrentGraph;
+import com.complexible.common.openrdf.model.IndexedGraph;
+import com.complexible.common.openrdf.model.SetGraph;
+import com.google.common.collect.Lists;
+import org.openrdf.model.Statement;
+import org.openrdf.model.ValueFactory;
+import org.openrdf.model.impl.StatementImpl;
+import org.openrdf.model.impl.ValueFactoryImpl;
+
+/**
+ * <p>Compares the add throughput of a {@link ConcurrentGraph} to a synchronized {@link SetGraph}, and of an indexed
+ * ConcurrentGraph to a synchronized {@link IndexedGraph} which keeps comparable indexes, with 1 to 32 writer threads.  Not run as part of the test suite;
+ * run the main method directly.</p>
+ *
+ * @author  Michael Grove
+ * @since   2.0.2
+ * @version 2.0.2
+ */
+public final class ConcurrentGraphBenchmark {
+	private static final int STATEMENTS = 1000000;
+
+	private static final int ROUNDS = 3;
+
+	public static void main(final String[] theArgs) throws Exception {
+		final List<Statement> aStatements = createStatements();
+
+		System.out.println("Available processors: " + Runtime.getRuntime().availableProcessors());
+		System.out.println("threads\tsynchronized SetGraph\tConcurrentGraph\tsynchronized IndexedGraph\tindexed ConcurrentGraph\t(statements/s)");
+
+		for (int aThreads = 1; aThreads <= 32; aThreads *= 2) {
+			long aSync = 0;
+			long aIndexed = 0;
+			long aConcurrent = 0;
+			long aConcurrentIndexed = 0;
+
+			for (int i = 0; i < ROUNDS; i++) {
+				aSync = Math.max(aSync, throughput(Collections.synchronizedCollection(new SetGraph()), aStatements, aThreads));
+				aConcurrent = Math.max(aConcurrent, throughput(new ConcurrentGraph(), aStatements, aThreads));
+				aIndexed = Math.max(aIndexed, throughput(Collections.synchronizedCollection(new IndexedGraph()), aStatements, aThreads));
+				aConcurrentIndexed = Math.max(aConcurrentIndexed, throughput(new ConcurrentGraph(true), aStatements, aThreads));
+			}
+
+			System.out.println(aThreads + "\t" + aSync + "\t" + aConcurrent + "\t" + aIndexed + "\t" + aConcurrentIndexed);
+		}
+	}
+
+	private static List<Statement> createStatements() {
+		final ValueFactory aFactory = ValueFactoryImpl.getInstance();
+		final List<Statement> aStatements = Lists.newArrayListWithCapacity(STATEMENTS);
+
+		for (int i = 0; i < STATEMENTS; i++) {
+			aStatements.add(new StatementImpl(aFactory.createURI("urn:s" + (i / 10)),
+			                                  aFactory.createURI("urn:p" + (i % 50)),
+			                                  aFactory.createLiteral(i)));
+		}
+
+		return aStatements;
+	}
+
+	/**
+	 * Add the statements to the graph, split evenly across the threads, and return the number added per second
+	 */
+	private static long throughput(final Collection<Statement> theGraph, final List<Statement> theStatements, final int theThreads) throws Exception {
+		final ExecutorService aExecutor = Executors.newFixedThreadPool(theThreads);
+		final List<Callable<Void>> aTasks = Lists.newArrayList();
+		final int aChunk = theStatements.size() / theThreads;
+
+		for (int i = 0; i < theThreads; i++) {
+			final List<Statement> aPart = theStatements.subList(i * aChunk, i == theThreads - 1 ? theStatements.size() : (i + 1) * aChunk);
+
+			aTasks.add(new Callable<Void>() {
+				@Override
+				public Void call() {
+					for (Statement aStmt : aPart) {
+						theGraph.add(aStmt);
+					}
+					return null;
+				}
+			});
+		}
+
+		try {
+			final long aStart = System.nanoTime();
+
+			for (Future<Void> aFuture : aExecutor.invokeAll(aTasks)) {
+				aFuture.get();
+			}
+
+			return (long) (theStatements.size() / ((System.nanoTime() - aStart) / 1e9));
+		}
+		finally {
+			aExecutor.shutdownNow();
+		}
+	}
+}
@@ -15,16 +15,30 @@
 
 package com.complexible.common.openrdf;
 
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+
 import com.complexible.common.openrdf.model.ConstrainedGraph;
+import com.complexible.common.openrdf.model.Graphs;
 import com.google.common.base.Predicate;
 import com.google.common.collect.Constraint;
+import com.google.common.collect.Lists;
 import org.junit.Test;
 import org.openrdf.model.BNode;
 import org.openrdf.model.Graph;
 import org.openrdf.model.Statement;
+import org.openrdf.model.URI;
+import org.openrdf.model.ValueFactory;
 import org.openrdf.model.impl.ValueFactoryImpl;
 import org.openrdf.model.vocabulary.RDF;
+import org.openrdf.model.vocabulary.RDFS;
+import org.openrdf.model.vocabulary.XMLSchema;
 
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
 import static org.junit.Assert.fail;
 
 /**
@@ -71,4 +85,88 @@ public class ConstrainedGraphTests {
 		}
 
 	}
+
+	@Test
+	public void testBatchReportsEveryViolation() {
+		ValueFactory aFactory = ValueFactoryImpl.getInstance();
+		ExecutorService aExecutor = Executors.newFixedThreadPool(4);
+
+		try {
+			Graph aGraph = ConstrainedGraph.ofBatch(Graphs.newGraph(),
+			                                        ConstrainedGraph.batch(ConstrainedGraph.onlyValidLiterals()),
+			                                        Graphs.parallel(aExecutor));
+
+			// enough statements for several chunks, with an invalid literal every thousand
+			List<Statement> aStatements = Lists.newArrayList();
+			for (int i = 0; i < 10000; i++) {
+				aStatements.add(aFactory.createStatement(aFactory.createURI("urn:s" + i), RDFS.LABEL,
+				                                         aFactory.createLiteral(i % 1000 == 999 ? "x" + i : String.valueOf(i), XMLSchema.INT)));
+			}
+
+			try {
+				aGraph.addAll(aStatements);
+				fail("should not allow additions which violate a constraint");
+			}
+			catch (ConstrainedGraph.StatementsViolatedConstraintException e) {
+				assertEquals(10, e.getViolations().size());
+
+				// in the order of the statements
+				for (int i = 0; i < 10; i++) {
+					assertEquals(aStatements.get(i * 1000 + 999), e.getViolations().get(i).getStatement());
+				}
+			}
+
+			assertTrue(aGraph.isEmpty());
+
+			aStatements.removeAll(Lists.newArrayList(aStatements.subList(0, 1000)));
+			assertTrue(aGraph.addAll(aStatements.subList(0, 999)));
+			assertEquals(999, aGraph.size());
+		}
+		finally {
+			aExecutor.shutdownNow();
+		}
+	}
+
+	@Test
+	public void testStatementsAreCheckedOnce() {
+		final AtomicInteger aChecks = new AtomicInteger();
+
+		Graph aGraph = ConstrainedGraph.ofBatch(Graphs.newGraph(), ConstrainedGraph.batch(new Predicate<Statement>() {
+			@Override
+			public boolean apply(final Statement theStatement) {
+				aChecks.incrementAndGet();
+				return true;
+			}
+		}));
+
+		assertTrue(aGraph.addAll(TestUtils.createRandomGraph(3)));
+		assertEquals(3, aGraph.size());
+		assertEquals(3, aChecks.get());
+	}
+
+	@Test
+	public void testAddToContexts() {
+		ValueFactory aFactory = ValueFactoryImpl.getInstance();
+		URI aSubject = aFactory.createURI("urn:s");
+		URI aContext = aFactory.createURI("urn:c1");
+		URI aOtherContext = aFactory.createURI("urn:c2");
+
+		Graph aGraph = ConstrainedGraph.of(ConstrainedGraph.onlyValidLiterals());
+
+		assertTrue(aGraph.add(aSubject, RDFS.LABEL, aFactory.createLiteral("1", XMLSchema.INT), aContext, aOtherContext));
+		assertEquals(2, aGraph.size());
+
+		// nothing new, so nothing added
+		assertFalse(aGraph.add(aSubject, RDFS.LABEL, aFactory.createLiteral("1", XMLSchema.INT), aContext, aOtherContext));
+
+		try {
+			aGraph.add(aSubject, RDFS.LABEL, aFactory.createLiteral("one", XMLSchema.INT), aContext, aOtherContext);
+			fail("should not allow an addition which violates a constraint");
+		}
+		catch (ConstrainedGraph.StatementsViolatedConstraintException e) {
+			assertEquals(2, e.getViolations().size());
+		}
+
+		assertEquals(2, aGraph.size());
+	}
 }
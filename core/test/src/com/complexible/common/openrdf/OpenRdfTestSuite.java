@@ -29,7 +29,15 @@ import org.junit.runner.RunWith;
 @RunWith(Suite.class)
 @Suite.SuiteClasses({ TestGraphs.class, TestRepositories.class, TestQueryUtils.class,
 					  TestImmutableGraph.class, TestSetGraph.class, TestContextAware.class, ConstrainedGraphTests.class,
-					  TestExtGraph.class, FunctionalGraphTests.class, IOGraphTests.class })
+					  TestExtGraph.class, FunctionalGraphTests.class, IOGraphTests.class,
+					  TestIndexedGraph.class, TestEncodedGraph.class, TestMappedGraph.class,
+					  TestPersistentGraph.class, TestConcurrentGraph.class,
+					  TestGraphViews.class, TestParallelGraphs.class, TestSplittableGraph.class,
+					  TestCanonicalizer.class, TestGraphDelta.class,
+					  TestTypeIndexedGraph.class, TestEntityGraph.class,
+					  TestStatistics.class, TestVoiDGenerator.class, TestLiteralValidator.class, TestBloomFilterGraph.class, TestSpillingGraph.class,
+					  TestPartitionedGraph.class, TestInterningValueFactory.class,
+					  TestCompactValues.class })
 public class OpenRdfTestSuite {
 
 }
@@ -0,0 +1,124 @@
+/*
+ * Copyright (c) 2009-2014 Clark & Parsia, LLC. <http://www.clarkparsia.com>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.complexible.common.openrdf;
+
+import java.util.Iterator;
+import java.util.List;
+
+import com.complexible.common.openrdf.model.BloomFilterGraph;
+import com.complexible.common.openrdf.model.DelegatingGraph;
+import com.complexible.common.openrdf.model.Graphs;
+import com.complexible.common.openrdf.model.SetGraph;
+import com.google.common.collect.Iterables;
+import com.google.common.collect.Lists;
+import org.junit.Test;
+import org.openrdf.model.Graph;
+import org.openrdf.model.Resource;
+import org.openrdf.model.Statement;
+import org.openrdf.model.URI;
+import org.openrdf.model.Value;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * <p>Tests for {@link BloomFilterGraph}</p>
+ *
+ * @author  Michael Grove
+ * @since   2.0.2
+ * @version 2.0.2
+ */
+public class TestBloomFilterGraph {
+
+	@Test
+	public void testNoFalseNegatives() {
+		Graph aGraph = new BloomFilterGraph();
+
+		// enough to grow past the initial size of the filter
+		List<Statement> aStatements = Lists.newArrayList(TestUtils.createRandomGraph(5000));
+		aGraph.addAll(aStatements);
+
+		for (Statement aStmt : aStatements) {
+			assertTrue(aGraph.contains(aStmt));
+			assertTrue(Graphs.contains(aGraph, aStmt.getSubject(), null, null));
+			assertTrue(Graphs.contains(aGraph, aStmt.getSubject(), aStmt.getPredicate(), null));
+			assertTrue(Graphs.contains(aGraph, aStmt.getSubject(), aStmt.getPredicate(), aStmt.getObject()));
+		}
+
+		// removals are reflected, and the rebuilt filter still has everything that is left
+		for (Statement aStmt : aStatements.subList(0, 3000)) {
+			assertTrue(aGraph.remove(aStmt));
+		}
+
+		for (Iterator<Statement> aIter = aGraph.iterator(); aIter.hasNext(); ) {
+			if (aStatements.indexOf(aIter.next()) < 3500) {
+				aIter.remove();
+			}
+		}
+
+		assertEquals(1500, aGraph.size());
+		for (Statement aStmt : aStatements.subList(0, 3500)) {
+			assertFalse(aGraph.contains(aStmt));
+		}
+		for (Statement aStmt : aStatements.subList(3500, 5000)) {
+			assertTrue(aGraph.contains(aStmt));
+		}
+
+		aGraph.clear();
+		assertFalse(aGraph.contains(aStatements.get(4999)));
+	}
+
+	@Test
+	public void testMissesDoNotReachTheGraph() {
+		final int[] aLookups = new int[1];
+
+		Graph aCounting = new DelegatingGraph(new SetGraph()) {
+			@Override
+			public boolean contains(final Object theObj) {
+				aLookups[0]++;
+				return super.contains(theObj);
+			}
+
+			@Override
+			public Iterable<Statement> filter(final Resource theSubj, final URI thePred, final Value theObj, final Resource... theContexts) {
+				aLookups[0]++;
+				return super.filter(theSubj, thePred, theObj, theContexts);
+			}
+		};
+
+		Graph aGraph = new BloomFilterGraph(aCounting, 0.001);
+		aGraph.addAll(TestUtils.createRandomGraph(1000));
+
+		int aFound = 0;
+		for (Statement aStmt : TestUtils.createRandomGraph(1000)) {
+			if (aGraph.contains(aStmt)) {
+				aFound++;
+			}
+
+			if (Graphs.contains(aGraph, aStmt.getSubject(), aStmt.getPredicate(), null)) {
+				aFound++;
+			}
+		}
+
+		// the only lookups passed on are the few actual matches and false positives
+		assertTrue(aLookups[0] < 20 + aFound);
+
+		// patterns without a subject are passed on
+		Statement aStmt = Iterables.getFirst(aGraph, null);
+		assertTrue(Graphs.contains(aGraph, null, aStmt.getPredicate(), aStmt.getObject()));
+	}
+}
@@ -0,0 +1,216 @@
+/*
+ * Copyright (c) 2009-2014 Clark & Parsia, LLC. <http://www.clarkparsia.com>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.complexible.common.openrdf;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import com.complexible.common.openrdf.model.Canonicalizer;
+import com.complexible.common.openrdf.model.ContextAwareStatement;
+import com.complexible.common.openrdf.model.Graphs;
+import com.complexible.common.openrdf.model.SetGraph;
+import com.google.common.collect.Lists;
+import com.google.common.collect.Maps;
+import com.google.common.collect.Sets;
+import org.junit.Test;
+import org.openrdf.model.BNode;
+import org.openrdf.model.Graph;
+import org.openrdf.model.Resource;
+import org.openrdf.model.Statement;
+import org.openrdf.model.URI;
+import org.openrdf.model.Value;
+import org.openrdf.model.ValueFactory;
+import org.openrdf.model.impl.ValueFactoryImpl;
+import org.openrdf.model.vocabulary.RDF;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * <p>Tests for {@link Canonicalizer}</p>
+ *
+ * @author  Michael Grove
+ * @since   2.0.2
+ * @version 2.0.2
+ */
+public class TestCanonicalizer {
+	private static final ValueFactory FACTORY = ValueFactoryImpl.getInstance();
+
+	private static final URI KNOWS = FACTORY.createURI("urn:knows");
+
+	private static final URI NAME = FACTORY.createURI("urn:name");
+
+	@Test
+	public void testRelabelledGraphsAreIsomorphic() {
+		Graph aGraph = randomBNodeGraph(new Random(7), 200, 600);
+		Graph aRelabelled = relabel(aGraph);
+
+		assertFalse(aGraph.equals(aRelabelled));
+
+		assertTrue(Canonicalizer.isIsomorphic(aGraph, aRelabelled));
+		assertTrue(Graphs.isIsomorphic(aGraph, aRelabelled));
+		assertEquals(Canonicalizer.fingerprint(aGraph), Canonicalizer.fingerprint(aRelabelled));
+		assertEquals(Canonicalizer.canonicalize(aGraph), Canonicalizer.canonicalize(aRelabelled));
+	}
+
+	@Test
+	public void testLabelsAreDistinct() {
+		Graph aGraph = randomBNodeGraph(new Random(11), 100, 300);
+
+		Map<BNode, BNode> aLabels = Canonicalizer.labels(aGraph);
+
+		assertEquals(Sets.newHashSet(aLabels.keySet()).size(), Sets.newHashSet(aLabels.values()).size());
+		assertEquals(aGraph.size(), Canonicalizer.canonicalize(aGraph).size());
+	}
+
+	@Test
+	public void testDifferentGraphsAreNotIsomorphic() {
+		Graph aGraph = randomBNodeGraph(new Random(3), 50, 150);
+		Graph aOther = relabel(aGraph);
+
+		Statement aStmt = aOther.iterator().next();
+		aOther.remove(aStmt);
+		aOther.add(aStmt.getSubject(), aStmt.getPredicate(), FACTORY.createLiteral("changed"));
+
+		assertFalse(Canonicalizer.isIsomorphic(aGraph, aOther));
+		assertFalse(Canonicalizer.fingerprint(aGraph).equals(Canonicalizer.fingerprint(aOther)));
+	}
+
+	@Test
+	public void testRegularGraphs() {
+		// every node of a cycle looks the same to colour refinement, so these need the individualization step
+		Graph aSix = cycle(6);
+		Graph aTwoThrees = cycle(3);
+		aTwoThrees.addAll(cycle(3));
+
+		assertEquals(aSix.size(), aTwoThrees.size());
+		assertFalse(Canonicalizer.isIsomorphic(aSix, aTwoThrees));
+		assertTrue(Canonicalizer.isIsomorphic(aSix, relabel(cycle(6))));
+		assertEquals(Canonicalizer.fingerprint(aSix), Canonicalizer.fingerprint(cycle(6)));
+		assertEquals(6, Sets.newHashSet(Canonicalizer.labels(aSix).values()).size());
+	}
+
+	/**
+	 * Blank nodes which can be swapped for one another are one orbit, so the search only branches on one of them
+	 * rather than trying every order in which to distinguish them
+	 */
+	@Test(timeout = 10000)
+	public void testSymmetricGraphs() {
+		URI aPerson = FACTORY.createURI("urn:Person");
+
+		Graph aStar = new SetGraph();
+		for (int i = 0; i < 60; i++) {
+			aStar.add(FACTORY.createBNode(), RDF.TYPE, aPerson);
+		}
+
+		// pairs can only be swapped together, the search has to find that from the colourings
+		Graph aPairs = new SetGraph();
+		for (int i = 0; i < 50; i++) {
+			BNode aNode = FACTORY.createBNode();
+			aPairs.add(aNode, RDF.TYPE, aPerson);
+			aPairs.add(aNode, KNOWS, FACTORY.createBNode());
+		}
+
+		Graph aCycles = new SetGraph();
+		for (int i = 0; i < 5; i++) {
+			aCycles.addAll(cycle(10));
+		}
+
+		for (Graph aGraph : new Graph[] { aStar, aPairs, cycle(50), aCycles }) {
+			assertTrue(Canonicalizer.isIsomorphic(aGraph, relabel(aGraph)));
+			assertEquals(Canonicalizer.fingerprint(aGraph), Canonicalizer.fingerprint(relabel(aGraph)));
+			assertEquals(Sets.newHashSet(Canonicalizer.labels(aGraph).keySet()).size(),
+			             Sets.newHashSet(Canonicalizer.labels(aGraph).values()).size());
+		}
+
+		Graph aFewer = relabel(aStar);
+		aFewer.remove(aFewer.iterator().next());
+		assertFalse(Canonicalizer.fingerprint(aStar).equals(Canonicalizer.fingerprint(aFewer)));
+		assertFalse(Canonicalizer.isIsomorphic(aPairs, cycle(100)));
+	}
+
+	@Test
+	public void testGraphsWithoutBNodes() {
+		Graph aGraph = TestUtils.createRandomGraph(100);
+		Graph aCopy = new SetGraph();
+		aCopy.addAll(Lists.newArrayList(aGraph));
+
+		assertTrue(Canonicalizer.isIsomorphic(aGraph, aCopy));
+		assertEquals(Canonicalizer.fingerprint(aGraph), Canonicalizer.fingerprint(aCopy));
+		assertTrue(Canonicalizer.isIsomorphic(new SetGraph(), new SetGraph()));
+		assertFalse(Canonicalizer.isIsomorphic(aGraph, new SetGraph()));
+	}
+
+	private static Graph cycle(final int theSize) {
+		List<BNode> aNodes = Lists.newArrayList();
+		for (int i = 0; i < theSize; i++) {
+			aNodes.add(FACTORY.createBNode());
+		}
+
+		Graph aGraph = new SetGraph();
+		for (int i = 0; i < theSize; i++) {
+			aGraph.add(aNodes.get(i), KNOWS, aNodes.get((i + 1) % theSize));
+		}
+
+		return aGraph;
+	}
+
+	private static Graph randomBNodeGraph(final Random theRandom, final int theNodes, final int theEdges) {
+		List<BNode> aNodes = Lists.newArrayList();
+		for (int i = 0; i < theNodes; i++) {
+			aNodes.add(FACTORY.createBNode());
+		}
+
+		Graph aGraph = new SetGraph();
+		for (int i = 0; i < theEdges; i++) {
+			aGraph.add(aNodes.get(theRandom.nextInt(theNodes)), KNOWS, aNodes.get(theRandom.nextInt(theNodes)));
+		}
+		for (int i = 0; i < theNodes / 10; i++) {
+			aGraph.add(aNodes.get(theRandom.nextInt(theNodes)), NAME, FACTORY.createLiteral("name" + theRandom.nextInt(5)));
+		}
+
+		return aGraph;
+	}
+
+	/**
+	 * Copy the graph with fresh blank nodes, added in reverse order
+	 */
+	private static Graph relabel(final Graph theGraph) {
+		Map<Value, BNode> aMap = Maps.newHashMap();
+
+		Graph aGraph = new SetGraph();
+		for (Statement aStmt : Lists.reverse(Lists.newArrayList(theGraph))) {
+			aGraph.add(new ContextAwareStatement((Resource) fresh(aStmt.getSubject(), aMap), aStmt.getPredicate(),
+			                                     fresh(aStmt.getObject(), aMap), aStmt.getContext()));
+		}
+
+		return aGraph;
+	}
+
+	private static Value fresh(final Value theValue, final Map<Value, BNode> theMap) {
+		if (!(theValue instanceof BNode)) {
+			return theValue;
+		}
+
+		if (!theMap.containsKey(theValue)) {
+			theMap.put(theValue, FACTORY.createBNode());
+		}
+
+		return theMap.get(theValue);
+	}
+}
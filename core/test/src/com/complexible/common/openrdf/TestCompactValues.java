@@ -0,0 +1,258 @@
+/*
+ * Copyright (c) 2009-2014 Clark & Parsia, LLC. <http://www.clarkparsia.com>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.complexible.common.openrdf;
+
+import java.lang.reflect.Array;
+import java.lang.reflect.Field;
+import java.lang.reflect.Modifier;
+import java.util.ArrayDeque;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.IdentityHashMap;
+import java.util.Set;
+
+import com.complexible.common.openrdf.model.ContextAwareStatement;
+import com.complexible.common.openrdf.model.ContextAwareValueFactory;
+import com.complexible.common.openrdf.model.TripleStatement;
+import org.junit.Test;
+import org.openrdf.model.Literal;
+import org.openrdf.model.Statement;
+import org.openrdf.model.URI;
+import org.openrdf.model.ValueFactory;
+import org.openrdf.model.impl.LiteralImpl;
+import org.openrdf.model.impl.ValueFactoryImpl;
+import org.openrdf.model.vocabulary.XMLSchema;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+/**
+ * <p>Tests for the compact statements and literals created by {@link ContextAwareValueFactory}</p>
+ *
+ * @author  Michael Grove
+ * @since   2.0.2
+ * @version 2.0.2
+ */
+public class TestCompactValues {
+	private static final ValueFactory DEFAULT = ValueFactoryImpl.getInstance();
+
+	private static final ValueFactory COMPACT = new ContextAwareValueFactory();
+
+	private static final URI S = DEFAULT.createURI("urn:s");
+
+	private static final URI P = DEFAULT.createURI("urn:p");
+
+	@Test
+	public void testLongLiterals() {
+		for (long aValue : new long[] { 0, 1, -1, 9, 10, -10, 42, 1000000007L, Integer.MAX_VALUE, Integer.MIN_VALUE,
+		                                Long.MAX_VALUE, Long.MIN_VALUE, Long.MAX_VALUE - 1, Long.MIN_VALUE + 1 }) {
+			assertSameLiteral(DEFAULT.createLiteral(aValue), COMPACT.createLiteral(aValue));
+			assertEquals(aValue, COMPACT.createLiteral(aValue).longValue());
+			// the hash code is computed without the label, check it on a literal whose label has not been built
+			assertEquals(Long.toString(aValue).hashCode(), COMPACT.createLiteral(aValue).hashCode());
+			assertEquals(DEFAULT.createLiteral(aValue).doubleValue(), COMPACT.createLiteral(aValue).doubleValue(), 0);
+		}
+
+		assertSameLiteral(DEFAULT.createLiteral(7), COMPACT.createLiteral(7));
+		assertSameLiteral(DEFAULT.createLiteral((short) -7), COMPACT.createLiteral((short) -7));
+		assertSameLiteral(DEFAULT.createLiteral((byte) 7), COMPACT.createLiteral((byte) 7));
+		assertEquals(7, COMPACT.createLiteral(7).intValue());
+
+		try {
+			COMPACT.createLiteral(Long.MAX_VALUE).intValue();
+			fail("Value should be out of range");
+		}
+		catch (NumberFormatException e) {
+			// expected, as it is for the default literals
+		}
+
+		// labels, canonical or not, make literals equal to those of the default factory
+		for (String aLabel : new String[] { "5", "-5", "0", "007", "-0", "+5", "5.0", "five", "", "-",
+		                                    "99999999999999999999", "9223372036854775807", "-9223372036854775808" }) {
+			for (URI aDatatype : new URI[] { XMLSchema.INTEGER, XMLSchema.INT, XMLSchema.NON_NEGATIVE_INTEGER, XMLSchema.STRING }) {
+				assertSameLiteral(DEFAULT.createLiteral(aLabel, aDatatype), COMPACT.createLiteral(aLabel, aDatatype));
+			}
+		}
+
+		assertEquals(12, COMPACT.createLiteral("12", XMLSchema.INTEGER).intValue());
+	}
+
+	@Test
+	public void testDoubleLiterals() {
+		for (double aValue : new double[] { 0, -0.0, 1, 0.1, -1.5, 1e300, 1e-300, Double.MAX_VALUE, Double.MIN_VALUE,
+		                                    Double.NaN, Double.POSITIVE_INFINITY, Double.NEGATIVE_INFINITY }) {
+			assertSameLiteral(DEFAULT.createLiteral(aValue), COMPACT.createLiteral(aValue));
+			assertEquals(aValue, COMPACT.createLiteral(aValue).doubleValue(), 0);
+		}
+
+		for (String aLabel : new String[] { "1.5", "1.50", "1.0E10", "1e10", "NaN", "INF", "abc" }) {
+			assertSameLiteral(DEFAULT.createLiteral(aLabel, XMLSchema.DOUBLE), COMPACT.createLiteral(aLabel, XMLSchema.DOUBLE));
+		}
+
+		assertFalse(COMPACT.createLiteral(1.0).equals(COMPACT.createLiteral(1L)));
+	}
+
+	@Test
+	public void testTripleStatements() {
+		URI aContext = DEFAULT.createURI("urn:c");
+		Literal aObj = COMPACT.createLiteral(5L);
+
+		Statement aTriple = COMPACT.createStatement(S, P, aObj);
+		assertTrue(aTriple instanceof TripleStatement);
+		assertTrue(COMPACT.createStatement(S, P, aObj, aContext) instanceof ContextAwareStatement);
+
+		Statement aQuad = new ContextAwareStatement(S, P, DEFAULT.createLiteral(5L), null);
+		assertEquals(aQuad, aTriple);
+		assertEquals(aTriple, aQuad);
+		assertEquals(aQuad.hashCode(), aTriple.hashCode());
+
+		assertFalse(aTriple.equals(COMPACT.createStatement(S, P, aObj, aContext)));
+		assertFalse(COMPACT.createStatement(S, P, aObj, aContext).equals(aTriple));
+	}
+
+	@Test
+	public void testOnlyForTheDefaultFactory() {
+		// a factory of some other kind, whose literals might matter to it
+		ValueFactory aWrapped = new ContextAwareValueFactory(new ValueFactoryImpl() { });
+		assertNotSame(COMPACT.createLiteral(5L).getClass(), aWrapped.createLiteral(5L).getClass());
+		assertEquals(COMPACT.createLiteral(5L), aWrapped.createLiteral(5L));
+	}
+
+	/**
+	 * Statements of a numeric literal take under 60% of the heap in the compact forms.  The heap is measured from
+	 * the fields of the objects rather than from the runtime, so the result does not depend on the garbage collector.
+	 */
+	@Test
+	public void testFootprint() throws Exception {
+		final int aCount = 1000;
+
+		final Statement[] aDefault = new Statement[aCount];
+		final Statement[] aCompact = new Statement[aCount];
+		for (int i = 0; i < aCount; i++) {
+			aDefault[i] = new ContextAwareStatement(S, P, DEFAULT.createLiteral((long) i), null);
+			aCompact[i] = COMPACT.createStatement(S, P, COMPACT.createLiteral((long) i));
+		}
+
+		// the values every statement shares are not part of the footprint of any of them
+		final long aDefaultBytes = footprint(aDefault, S, P, XMLSchema.LONG);
+		final long aCompactBytes = footprint(aCompact, S, P, XMLSchema.LONG);
+
+		// compared only once measured, comparing with a default literal builds the label of a compact one
+		assertEquals(Arrays.asList(aDefault), Arrays.asList(aCompact));
+
+		assertTrue("Compact statements used " + aCompactBytes + " bytes against " + aDefaultBytes,
+		           aCompactBytes < aDefaultBytes * 0.6);
+	}
+
+	/**
+	 * Return the heap used by the object and everything reachable from it, other than the shared objects, laid out as
+	 * on a 64 bit JVM with compressed references: 12 byte object headers, 16 byte array headers, 4 byte references and
+	 * every object aligned to 8 bytes
+	 */
+	private static long footprint(final Object theRoot, final Object... theShared) throws IllegalAccessException {
+		final Set<Object> aVisited = Collections.newSetFromMap(new IdentityHashMap<Object, Boolean>());
+		aVisited.addAll(Arrays.asList(theShared));
+
+		final Deque<Object> aStack = new ArrayDeque<Object>();
+		aStack.push(theRoot);
+
+		long aBytes = 0;
+		while (!aStack.isEmpty()) {
+			final Object aObj = aStack.pop();
+
+			if (!aVisited.add(aObj)) {
+				continue;
+			}
+
+			final Class<?> aClass = aObj.getClass();
+
+			if (aClass.isArray()) {
+				final int aLength = Array.getLength(aObj);
+				aBytes += align(16 + aLength * (long) size(aClass.getComponentType()));
+
+				if (!aClass.getComponentType().isPrimitive()) {
+					for (int i = 0; i < aLength; i++) {
+						push(aStack, Array.get(aObj, i));
+					}
+				}
+
+				continue;
+			}
+
+			long aSize = 12;
+			for (Class<?> aType = aClass; aType != null; aType = aType.getSuperclass()) {
+				for (Field aField : aType.getDeclaredFields()) {
+					if (Modifier.isStatic(aField.getModifiers())) {
+						continue;
+					}
+
+					aSize += size(aField.getType());
+
+					if (!aField.getType().isPrimitive()) {
+						aField.setAccessible(true);
+						push(aStack, aField.get(aObj));
+					}
+				}
+			}
+
+			aBytes += align(aSize);
+		}
+
+		return aBytes;
+	}
+
+	private static void push(final Deque<Object> theStack, final Object theObj) {
+		if (theObj != null) {
+			theStack.push(theObj);
+		}
+	}
+
+	private static int size(final Class<?> theType) {
+		if (theType == long.class || theType == double.class) {
+			return 8;
+		}
+		else if (theType == int.class || theType == float.class) {
+			return 4;
+		}
+		else if (theType == short.class || theType == char.class) {
+			return 2;
+		}
+		else if (theType == byte.class || theType == boolean.class) {
+			return 1;
+		}
+		else {
+			return 4;
+		}
+	}
+
+	private static long align(final long theBytes) {
+		return (theBytes + 7) & ~7L;
+	}
+
+	private static void assertSameLiteral(final Literal theExpected, final Literal theActual) {
+		assertEquals(theExpected, theActual);
+		assertEquals(theActual, theExpected);
+		assertEquals(theExpected.hashCode(), theActual.hashCode());
+		assertEquals(theExpected.getLabel(), theActual.getLabel());
+		assertEquals(theExpected.getDatatype(), theActual.getDatatype());
+		assertEquals(theExpected.toString(), theActual.toString());
+		assertEquals(new LiteralImpl(theExpected.getLabel(), theExpected.getDatatype()), theActual);
+	}
+}
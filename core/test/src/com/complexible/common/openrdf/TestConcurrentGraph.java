@@ -0,0 +1,188 @@
+/*
+ * Copyright (c) 2009-2014 Clark & Parsia, LLC. <http://www.clarkparsia.com>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.complexible.common.openrdf;
+
+import java.util.Iterator;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import com.complexible.common.openrdf.model.ConcurrentGraph;
+import com.complexible.common.openrdf.model.ContextAwareStatement;
+import com.complexible.common.openrdf.model.Graphs;
+import com.google.common.collect.Lists;
+import com.google.common.collect.Sets;
+import org.junit.Test;
+import org.openrdf.model.Graph;
+import org.openrdf.model.Resource;
+import org.openrdf.model.Statement;
+import org.openrdf.model.URI;
+import org.openrdf.model.impl.ValueFactoryImpl;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * <p>Tests for {@link ConcurrentGraph}</p>
+ *
+ * @author  Michael Grove
+ * @since   2.0.2
+ * @version 2.0.2
+ */
+public class TestConcurrentGraph {
+	private static final int THREADS = 8;
+
+	@Test
+	public void testConcurrentAdd() throws Exception {
+		concurrentAdd(new ConcurrentGraph());
+		concurrentAdd(new ConcurrentGraph(true));
+	}
+
+	@Test
+	public void testConcurrentAddRemove() throws Exception {
+		concurrentAddRemove(new ConcurrentGraph());
+		concurrentAddRemove(new ConcurrentGraph(true));
+	}
+
+	@Test
+	public void testIteratorRemove() {
+		Graph aInput = TestUtils.createRandomGraph(50);
+
+		iteratorRemove(new ConcurrentGraph(aInput));
+
+		ConcurrentGraph aIndexed = new ConcurrentGraph(true);
+		aIndexed.addAll(aInput);
+		assertTrue(aIndexed.isIndexed());
+
+		iteratorRemove(aIndexed);
+	}
+
+	private static void concurrentAdd(final ConcurrentGraph theGraph) throws Exception {
+		final Graph aInput = TestUtils.createRandomGraph(2000);
+
+		// every thread adds every statement, only one add of each should win
+		final List<Callable<Integer>> aTasks = Lists.newArrayList();
+		for (int i = 0; i < THREADS; i++) {
+			aTasks.add(new Callable<Integer>() {
+				@Override
+				public Integer call() {
+					int aAdded = 0;
+					for (Statement aStmt : aInput) {
+						if (theGraph.add(aStmt)) {
+							aAdded++;
+						}
+					}
+					return aAdded;
+				}
+			});
+		}
+
+		assertEquals(aInput.size(), sum(run(aTasks)));
+		assertEquals(aInput.size(), theGraph.size());
+		assertEquals(Sets.newHashSet(aInput), Sets.newHashSet(theGraph));
+
+		Statement aStmt = aInput.iterator().next();
+		assertEquals(Sets.newHashSet(Graphs.filter((Iterable<Statement>) aInput, aStmt.getSubject(), null, null)),
+		             Sets.newHashSet(theGraph.filter(aStmt.getSubject(), null, null)));
+	}
+
+	private static void concurrentAddRemove(final ConcurrentGraph theGraph) throws Exception {
+		final List<Resource> aValues = Lists.newArrayList();
+		for (int i = 0; i < 6; i++) {
+			aValues.add(ValueFactoryImpl.getInstance().createURI("urn:" + i));
+		}
+
+		// a small vocabulary so threads are constantly adding and removing the same statements
+		final List<Callable<Integer>> aTasks = Lists.newArrayList();
+		for (int i = 0; i < THREADS; i++) {
+			final Random aRandom = new Random(i);
+
+			aTasks.add(new Callable<Integer>() {
+				@Override
+				public Integer call() {
+					for (int j = 0; j < 20000; j++) {
+						Statement aStmt = new ContextAwareStatement(aValues.get(aRandom.nextInt(aValues.size())),
+						                                            (URI) aValues.get(aRandom.nextInt(2)),
+						                                            aValues.get(aRandom.nextInt(aValues.size())),
+						                                            aRandom.nextBoolean() ? null : aValues.get(0));
+						if (aRandom.nextBoolean()) {
+							theGraph.add(aStmt);
+						}
+						else {
+							theGraph.remove(aStmt);
+						}
+					}
+					return 0;
+				}
+			});
+		}
+
+		run(aTasks);
+
+		// the indexes must agree with the statements once the writers are done
+		Graph aCopy = Graphs.newGraph(theGraph);
+		assertEquals(aCopy.size(), theGraph.size());
+
+		for (Resource aValue : aValues) {
+			assertEquals(Sets.newHashSet(Graphs.filter((Iterable<Statement>) aCopy, aValue, null, null)),
+			             Sets.newHashSet(theGraph.filter(aValue, null, null)));
+			assertEquals(Sets.newHashSet(Graphs.filter((Iterable<Statement>) aCopy, null, null, aValue)),
+			             Sets.newHashSet(theGraph.filter(null, null, aValue)));
+			assertEquals(Sets.newHashSet(Graphs.filter((Iterable<Statement>) aCopy, null, null, null, aValue)),
+			             Sets.newHashSet(theGraph.filter(null, null, null, aValue)));
+		}
+	}
+
+	private static void iteratorRemove(final ConcurrentGraph theGraph) {
+		Iterator<Statement> aIter = theGraph.iterator();
+		while (aIter.hasNext()) {
+			Statement aStmt = aIter.next();
+			aIter.remove();
+
+			assertFalse(theGraph.contains(aStmt));
+			assertTrue(Sets.newHashSet(theGraph.filter(aStmt.getSubject(), aStmt.getPredicate(), aStmt.getObject())).isEmpty());
+		}
+
+		assertTrue(theGraph.isEmpty());
+	}
+
+	private static List<Integer> run(final List<Callable<Integer>> theTasks) throws Exception {
+		final ExecutorService aExecutor = Executors.newFixedThreadPool(theTasks.size());
+
+		try {
+			List<Integer> aResults = Lists.newArrayList();
+			for (Future<Integer> aFuture : aExecutor.invokeAll(theTasks)) {
+				aResults.add(aFuture.get());
+			}
+			return aResults;
+		}
+		finally {
+			aExecutor.shutdownNow();
+		}
+	}
+
+	private static int sum(final List<Integer> theInts) {
+		int aSum = 0;
+		for (Integer aInt : theInts) {
+			aSum += aInt;
+		}
+		return aSum;
+	}
+}
@@ -17,6 +17,7 @@ package com.complexible.common.openrdf;
 
 import com.complexible.common.openrdf.model.ContextAwareStatement;
 import com.complexible.common.openrdf.model.ContextAwareValueFactory;
+import com.complexible.common.openrdf.model.TripleStatement;
 import org.junit.Test;
 import org.openrdf.model.Statement;
 import org.openrdf.model.URI;
@@ -112,7 +113,10 @@ public class TestContextAware {
 
 		ValueFactory vf = new ContextAwareValueFactory();
 
-		assertTrue(vf.createStatement(s, p, o) instanceof ContextAwareStatement);
+		// statements without a context are created in the compact form, which is just as context aware
+		assertTrue(vf.createStatement(s, p, o) instanceof TripleStatement);
+		assertEquals(new ContextAwareStatement(s, p, o, null), vf.createStatement(s, p, o));
+		assertFalse(vf.createStatement(s, p, o).equals(vf.createStatement(s, p, o, c)));
 		assertTrue(vf.createStatement(s, p, o, c) instanceof ContextAwareStatement);
 	}
 }
@@ -0,0 +1,133 @@
+/*
+ * Copyright (c) 2009-2014 Clark & Parsia, LLC. <http://www.clarkparsia.com>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.complexible.common.openrdf;
+
+import java.util.Iterator;
+import java.util.List;
+import java.util.Random;
+
+import com.complexible.common.openrdf.model.ContextAwareStatement;
+import com.complexible.common.openrdf.model.EncodedGraph;
+import com.complexible.common.openrdf.model.Graphs;
+import com.complexible.common.openrdf.model.SetGraph;
+import com.google.common.collect.Iterables;
+import com.google.common.collect.Lists;
+import com.google.common.collect.Sets;
+import org.junit.Test;
+import org.openrdf.model.Graph;
+import org.openrdf.model.Resource;
+import org.openrdf.model.Statement;
+import org.openrdf.model.URI;
+import org.openrdf.model.impl.ValueFactoryImpl;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * <p>Tests for {@link EncodedGraph}</p>
+ *
+ * @author  Michael Grove
+ * @since   2.0.2
+ * @version 2.0.2
+ */
+public class TestEncodedGraph {
+	private static final URI s = ValueFactoryImpl.getInstance().createURI("urn:s");
+	private static final URI p = ValueFactoryImpl.getInstance().createURI("urn:p");
+	private static final URI o = ValueFactoryImpl.getInstance().createURI("urn:o");
+	private static final URI c = ValueFactoryImpl.getInstance().createURI("urn:c");
+
+	@Test
+	public void testAddNoDupe() {
+		EncodedGraph aGraph = new EncodedGraph();
+
+		assertTrue(aGraph.add(s, p, o));
+		assertFalse(aGraph.add(new ContextAwareStatement(s, p, o, null)));
+		assertTrue(aGraph.add(s, p, o, c));
+
+		assertEquals(2, aGraph.size());
+
+		assertTrue(aGraph.contains(new ContextAwareStatement(s, p, o, c)));
+		assertFalse(aGraph.contains(new ContextAwareStatement(o, p, s, c)));
+
+		assertEquals(Sets.newHashSet(new ContextAwareStatement(s, p, o, c)), Sets.newHashSet(aGraph.filter(null, null, null, c)));
+		assertEquals(2, Iterables.size(aGraph.filter(s, p, o)));
+		assertTrue(Iterables.isEmpty(aGraph.filter(o, null, null)));
+	}
+
+	@Test
+	public void testSameAsSetGraph() {
+		final Random aRandom = new Random(42);
+
+		// a small vocabulary so there are plenty of collisions and removals from the middle of probe runs
+		List<Resource> aValues = Lists.newArrayList();
+		for (int i = 0; i < 12; i++) {
+			aValues.add(ValueFactoryImpl.getInstance().createURI("urn:" + i));
+		}
+
+		Graph aExpected = new SetGraph();
+		EncodedGraph aGraph = new EncodedGraph();
+
+		for (int i = 0; i < 20000; i++) {
+			Statement aStmt = new ContextAwareStatement(aValues.get(aRandom.nextInt(aValues.size())),
+			                                            (URI) aValues.get(aRandom.nextInt(3)),
+			                                            aValues.get(aRandom.nextInt(aValues.size())),
+			                                            aRandom.nextBoolean() ? null : aValues.get(aRandom.nextInt(2)));
+
+			if (aRandom.nextInt(3) == 0) {
+				assertEquals(aExpected.remove(aStmt), aGraph.remove(aStmt));
+			}
+			else {
+				assertEquals(aExpected.add(aStmt), aGraph.add(aStmt));
+			}
+
+			assertEquals(aExpected.size(), aGraph.size());
+		}
+
+		assertEquals(Sets.newHashSet(aExpected), Sets.newHashSet(aGraph));
+
+		for (Statement aStmt : aExpected) {
+			assertTrue(aGraph.contains(aStmt));
+		}
+
+		assertEquals(Sets.newHashSet(Graphs.filter(aExpected, aValues.get(1), null, null)),
+		             Sets.newHashSet(aGraph.filter(aValues.get(1), null, null)));
+	}
+
+	@Test
+	public void testIteratorRemove() {
+		Graph aInput = TestUtils.createRandomGraph(50);
+		EncodedGraph aGraph = new EncodedGraph(aInput);
+
+		int aCount = 0;
+		Iterator<Statement> aIter = aGraph.iterator();
+		while (aIter.hasNext()) {
+			Statement aStmt = aIter.next();
+			assertTrue(aInput.contains(aStmt));
+
+			if (aCount++ % 2 == 0) {
+				aIter.remove();
+				assertFalse(aGraph.contains(aStmt));
+			}
+		}
+
+		assertEquals(50, aCount);
+		assertEquals(25, aGraph.size());
+
+		aGraph.removeAll(aInput);
+		assertTrue(aGraph.isEmpty());
+	}
+}
@@ -0,0 +1,143 @@
+/*
+ * Copyright (c) 2009-2014 Clark & Parsia, LLC. <http://www.clarkparsia.com>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.complexible.common.openrdf;
+
+import java.util.Iterator;
+
+import com.complexible.common.openrdf.model.EntityGraph;
+import com.complexible.common.openrdf.model.ExtGraph;
+import com.complexible.common.openrdf.model.Graphs;
+import com.google.common.collect.ListMultimap;
+import com.google.common.collect.Lists;
+import com.google.common.collect.Sets;
+import org.junit.Test;
+import org.openrdf.model.Graph;
+import org.openrdf.model.Literal;
+import org.openrdf.model.Statement;
+import org.openrdf.model.URI;
+import org.openrdf.model.Value;
+import org.openrdf.model.ValueFactory;
+import org.openrdf.model.impl.ValueFactoryImpl;
+import org.openrdf.model.vocabulary.RDF;
+import org.openrdf.model.vocabulary.RDFS;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * <p>Tests for {@link EntityGraph}</p>
+ *
+ * @author  Michael Grove
+ * @since   2.0.2
+ * @version 2.0.2
+ */
+public class TestEntityGraph {
+	private static final ValueFactory FACTORY = ValueFactoryImpl.getInstance();
+
+	private static final URI ALICE = FACTORY.createURI("urn:alice");
+
+	private static final URI KNOWS = FACTORY.createURI("urn:knows");
+
+	@Test
+	public void testDescribe() {
+		EntityGraph aGraph = new EntityGraph(TestUtils.createRandomGraph(100));
+
+		Literal aName = FACTORY.createLiteral("Alice");
+		URI aBob = FACTORY.createURI("urn:bob");
+		URI aCarol = FACTORY.createURI("urn:carol");
+
+		aGraph.add(ALICE, RDFS.LABEL, aName);
+		aGraph.add(ALICE, KNOWS, aBob);
+		aGraph.add(ALICE, RDF.TYPE, FACTORY.createURI("urn:Person"));
+		aGraph.add(ALICE, KNOWS, aCarol);
+
+		ListMultimap<URI, Value> aDescription = aGraph.describe(ALICE);
+
+		assertEquals(4, aDescription.size());
+		assertEquals(Lists.<Value>newArrayList(aBob, aCarol), aDescription.get(KNOWS));
+		assertEquals(Lists.<Value>newArrayList(aName), aDescription.get(RDFS.LABEL));
+		assertTrue(aGraph.describe(FACTORY.createURI("urn:nobody")).isEmpty());
+
+		ExtGraph aExt = Graphs.extend(aGraph);
+		assertEquals(aName, aExt.getLiteral(ALICE, RDFS.LABEL).get());
+		assertEquals(aBob, aExt.getResource(ALICE, KNOWS).get());
+		assertFalse(aExt.getObject(ALICE, RDFS.COMMENT).isPresent());
+	}
+
+	@Test
+	public void testMatchesSetGraph() {
+		Graph aStatements = TestUtils.createRandomGraph(500);
+		EntityGraph aGraph = new EntityGraph(aStatements);
+
+		assertEquals(aStatements.size(), aGraph.size());
+		assertEquals(Sets.newHashSet(aStatements), Sets.newHashSet(aGraph));
+
+		for (Statement aStmt : Lists.newArrayList(aStatements).subList(0, 50)) {
+			assertTrue(aGraph.contains(aStmt));
+			assertFalse(aGraph.add(aStmt));
+
+			assertEquals(Sets.newHashSet(Graphs.filter((Iterable<Statement>) aStatements, aStmt.getSubject(), null, null)),
+			             Sets.newHashSet(aGraph.filter(aStmt.getSubject(), null, null)));
+			assertEquals(Sets.newHashSet(Graphs.filter((Iterable<Statement>) aStatements, null, aStmt.getPredicate(), aStmt.getObject())),
+			             Sets.newHashSet(aGraph.filter(null, aStmt.getPredicate(), aStmt.getObject())));
+		}
+	}
+
+	@Test
+	public void testLargeEntities() {
+		EntityGraph aGraph = new EntityGraph();
+
+		for (int i = 0; i < 1000; i++) {
+			assertTrue(aGraph.add(ALICE, KNOWS, FACTORY.createURI("urn:" + i)));
+		}
+
+		assertFalse(aGraph.add(ALICE, KNOWS, FACTORY.createURI("urn:10")));
+		assertEquals(1000, aGraph.size());
+		assertEquals(1000, aGraph.describe(ALICE).get(KNOWS).size());
+
+		assertTrue(aGraph.remove(FACTORY.createStatement(ALICE, KNOWS, FACTORY.createURI("urn:10"))));
+		assertFalse(aGraph.contains(FACTORY.createStatement(ALICE, KNOWS, FACTORY.createURI("urn:10"))));
+		assertTrue(aGraph.add(ALICE, KNOWS, FACTORY.createURI("urn:10")));
+	}
+
+	@Test
+	public void testRemove() {
+		EntityGraph aGraph = new EntityGraph(TestUtils.createRandomGraph(200));
+
+		int aRemoved = 0;
+		for (Iterator<Statement> aIter = aGraph.iterator(); aIter.hasNext(); ) {
+			Statement aStmt = aIter.next();
+			if (aStmt.getObject() instanceof Literal) {
+				aIter.remove();
+				aRemoved++;
+			}
+		}
+
+		assertEquals(200 - aRemoved, aGraph.size());
+		assertEquals(aGraph.size(), Lists.newArrayList(aGraph).size());
+		for (Statement aStmt : aGraph) {
+			assertFalse(aStmt.getObject() instanceof Literal);
+		}
+
+		for (Statement aStmt : Lists.newArrayList(aGraph)) {
+			assertTrue(aGraph.remove(aStmt));
+		}
+
+		assertTrue(aGraph.isEmpty());
+		assertTrue(aGraph.subjects().isEmpty());
+	}
+}
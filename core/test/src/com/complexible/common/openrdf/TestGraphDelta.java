@@ -0,0 +1,325 @@
+/*
+ * Copyright (c) 2009-2014 Clark & Parsia, LLC. <http://www.clarkparsia.com>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.complexible.common.openrdf;
+
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+
+import com.complexible.common.openrdf.model.Canonicalizer;
+import com.complexible.common.openrdf.model.ContextAwareStatement;
+import com.complexible.common.openrdf.model.GraphDelta;
+import com.complexible.common.openrdf.model.Graphs;
+import com.complexible.common.openrdf.model.SetGraph;
+import com.complexible.common.openrdf.repository.Repositories;
+import com.complexible.common.openrdf.sail.SailConnections;
+import com.google.common.collect.Lists;
+import com.google.common.collect.Maps;
+import com.google.common.collect.Sets;
+import org.junit.Test;
+import org.openrdf.model.BNode;
+import org.openrdf.model.Graph;
+import org.openrdf.model.Resource;
+import org.openrdf.model.Statement;
+import org.openrdf.model.URI;
+import org.openrdf.model.Value;
+import org.openrdf.model.ValueFactory;
+import org.openrdf.model.impl.ValueFactoryImpl;
+import org.openrdf.repository.Repository;
+import org.openrdf.sail.SailConnection;
+import org.openrdf.sail.memory.MemoryStore;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * <p>Tests for {@link GraphDelta}</p>
+ *
+ * @author  Michael Grove
+ * @since   2.0.2
+ * @version 2.0.2
+ */
+public class TestGraphDelta {
+	private static final ValueFactory FACTORY = ValueFactoryImpl.getInstance();
+
+	private static final URI NEXT = FACTORY.createURI("urn:next");
+
+	private static final URI NAME = FACTORY.createURI("urn:name");
+
+	@Test
+	public void testDelta() {
+		Graph aOld = TestUtils.createRandomGraph(1000);
+		Graph aNew = edit(aOld);
+
+		GraphDelta aDelta = GraphDelta.between(aOld, aNew);
+
+		assertEquals(Sets.difference(Sets.newHashSet(aNew), Sets.newHashSet(aOld)), Sets.newHashSet(aDelta.getAdditions()));
+		assertEquals(Sets.difference(Sets.newHashSet(aOld), Sets.newHashSet(aNew)), Sets.newHashSet(aDelta.getRemovals()));
+		assertEquals(20, aDelta.size());
+
+		aDelta.apply(aOld);
+		assertEquals(aNew, aOld);
+	}
+
+	@Test
+	public void testNoChanges() {
+		Graph aGraph = TestUtils.createRandomGraph(100);
+
+		assertTrue(GraphDelta.between(aGraph, aGraph).isEmpty());
+		assertTrue(GraphDelta.between(new SetGraph(), new SetGraph()).isEmpty());
+		assertEquals(100, GraphDelta.between(new SetGraph(), aGraph).getAdditions().size());
+		assertEquals(100, GraphDelta.between(aGraph, new SetGraph()).getRemovals().size());
+	}
+
+	@Test
+	public void testContextsAreDistinguished() {
+		Statement aStmt = TestUtils.createRandomStatement();
+		Graph aOld = Graphs.newGraph(new ContextAwareStatement(aStmt.getSubject(), aStmt.getPredicate(), aStmt.getObject(), FACTORY.createURI("urn:a")));
+		Graph aNew = Graphs.newGraph(new ContextAwareStatement(aStmt.getSubject(), aStmt.getPredicate(), aStmt.getObject(), FACTORY.createURI("urn:b")));
+
+		GraphDelta aDelta = GraphDelta.between(aOld, aNew);
+		assertEquals(1, aDelta.getAdditions().size());
+		assertEquals(1, aDelta.getRemovals().size());
+	}
+
+	@Test
+	public void testBNodesAreComparedByStructure() {
+		Graph aOld = chain(50);
+		Graph aNew = relabel(aOld);
+
+		assertTrue(GraphDelta.between(aOld, aNew).isEmpty());
+
+		// a statement without blank nodes does not disturb the labels of the others
+		Statement aExtra = TestUtils.createRandomStatement();
+		aNew.add(aExtra);
+
+		GraphDelta aDelta = GraphDelta.between(aOld, aNew);
+		assertTrue(aDelta.getRemovals().isEmpty());
+		assertEquals(Sets.newHashSet(aExtra), Sets.newHashSet(aDelta.getAdditions()));
+	}
+
+	@Test
+	public void testBNodeChanges() {
+		Graph aOld = chain(10);
+		Graph aNew = relabel(aOld);
+
+		// attach a new name to the head of the chain, which changes the labels of the nodes around it
+		BNode aHead = (BNode) Graphs.filter(aNew, null, NAME, FACTORY.createLiteral("node0")).iterator().next().getSubject();
+		aNew.add(aHead, NAME, FACTORY.createLiteral("head"));
+
+		GraphDelta aDelta = GraphDelta.between(aOld, aNew);
+		assertFalse(aDelta.isEmpty());
+
+		Graph aUpdated = new SetGraph();
+		aUpdated.addAll(aOld);
+		aDelta.apply(aUpdated);
+
+		assertTrue(Canonicalizer.isIsomorphic(aNew, aUpdated));
+
+		assertEquals(aNew.size(), aUpdated.size());
+	}
+
+	@Test
+	public void testUnrelatedBNodeChanges() {
+		URI aProp = FACTORY.createURI("urn:p");
+
+		Graph aOld = new SetGraph();
+		for (int i = 0; i < 100; i++) {
+			aOld.add(FACTORY.createBNode(), aProp, FACTORY.createLiteral("v" + i));
+		}
+
+		// a new blank node elsewhere in the graph leaves the matching of the others alone
+		Graph aNew = relabel(aOld);
+		BNode aNode = FACTORY.createBNode();
+		aNew.add(aNode, NAME, FACTORY.createLiteral("new"));
+		aNew.add(aNode, aProp, FACTORY.createLiteral("v0"));
+		aNew.add(aNode, NEXT, FACTORY.createBNode());
+
+		GraphDelta aDelta = GraphDelta.between(aOld, aNew);
+		assertEquals(3, aDelta.getAdditions().size());
+		assertEquals(0, aDelta.getRemovals().size());
+
+		// and so does changing one of the existing blank nodes
+		Graph aChanged = relabel(aOld);
+		BNode aFirst = (BNode) Graphs.filter(aChanged, null, aProp, FACTORY.createLiteral("v0")).iterator().next().getSubject();
+		aChanged.add(aFirst, NAME, FACTORY.createLiteral("first"));
+
+		aDelta = GraphDelta.between(aOld, aChanged);
+		assertEquals(1, aDelta.getAdditions().size());
+		assertEquals(0, aDelta.getRemovals().size());
+
+		Graph aUpdated = new SetGraph();
+		aUpdated.addAll(aOld);
+		aDelta.apply(aUpdated);
+		assertTrue(Canonicalizer.isIsomorphic(aChanged, aUpdated));
+	}
+
+	@Test
+	public void testApplyToRepository() throws Exception {
+		Graph aOld = TestUtils.createRandomGraph(200);
+		Graph aNew = edit(aOld);
+
+		Repository aRepo = Repositories.createInMemoryRepo();
+		try {
+			Repositories.add(aRepo, aOld);
+			Repositories.apply(aRepo, GraphDelta.between(aOld, aNew));
+
+			assertEquals(aNew.size(), Repositories.size(aRepo));
+			for (Statement aStmt : aNew) {
+				assertTrue(Repositories.contains(aRepo, aStmt));
+			}
+		}
+		finally {
+			aRepo.shutDown();
+		}
+	}
+
+	@Test
+	public void testApplyToSail() throws Exception {
+		Graph aOld = TestUtils.createRandomGraph(200);
+		Graph aNew = edit(aOld);
+
+		MemoryStore aSail = new MemoryStore();
+		aSail.initialize();
+
+		SailConnection aConn = aSail.getConnection();
+		try {
+			SailConnections.add(aConn, aOld);
+			SailConnections.apply(aConn, GraphDelta.between(aOld, aNew));
+
+			assertEquals(aNew.size(), aConn.size());
+			for (Statement aStmt : aNew) {
+				assertTrue(SailConnections.contains(aConn, aStmt));
+			}
+		}
+		finally {
+			SailConnections.closeQuietly(aConn);
+			aSail.shutDown();
+		}
+	}
+
+	/**
+	 * Removing a statement without a context must leave the same triple in a named graph alone
+	 */
+	@Test
+	public void testApplyKeepsOtherContexts() throws Exception {
+		Statement aStmt = TestUtils.createRandomStatement();
+		Statement aQuad = new ContextAwareStatement(aStmt.getSubject(), aStmt.getPredicate(), aStmt.getObject(), FACTORY.createURI("urn:g"));
+		Statement aTriple = new ContextAwareStatement(aStmt.getSubject(), aStmt.getPredicate(), aStmt.getObject(), null);
+
+		Graph aOld = Graphs.newGraph(aTriple, aQuad);
+		Graph aNew = Graphs.newGraph(aQuad);
+
+		GraphDelta aDelta = GraphDelta.between(aOld, aNew);
+		assertEquals(Sets.newHashSet(aTriple), Sets.newHashSet(aDelta.getRemovals()));
+		assertTrue(aDelta.getAdditions().isEmpty());
+
+		Repository aRepo = Repositories.createInMemoryRepo();
+		try {
+			Repositories.add(aRepo, aOld);
+			Repositories.apply(aRepo, aDelta);
+
+			assertEquals(1, Repositories.size(aRepo));
+			assertTrue(Repositories.contains(aRepo, aQuad));
+		}
+		finally {
+			aRepo.shutDown();
+		}
+
+		MemoryStore aSail = new MemoryStore();
+		aSail.initialize();
+
+		SailConnection aConn = aSail.getConnection();
+		try {
+			SailConnections.add(aConn, aOld);
+			SailConnections.apply(aConn, aDelta);
+
+			assertEquals(1, aConn.size());
+			assertTrue(SailConnections.contains(aConn, aQuad));
+		}
+		finally {
+			SailConnections.closeQuietly(aConn);
+			aSail.shutDown();
+		}
+	}
+
+	/**
+	 * Copy the graph with 10 statements removed and 10 new ones added
+	 */
+	private static Graph edit(final Graph theGraph) {
+		Graph aGraph = new SetGraph();
+		aGraph.addAll(theGraph);
+
+		Iterator<Statement> aIter = Lists.newArrayList(theGraph).iterator();
+		for (int i = 0; i < 10; i++) {
+			aGraph.remove(aIter.next());
+		}
+
+		while (aGraph.size() < theGraph.size()) {
+			Statement aStmt = TestUtils.createRandomStatement();
+			if (!theGraph.contains(aStmt)) {
+				aGraph.add(aStmt);
+			}
+		}
+
+		return aGraph;
+	}
+
+	/**
+	 * A chain of blank nodes, each with a distinct name
+	 */
+	private static Graph chain(final int theSize) {
+		List<BNode> aNodes = Lists.newArrayList();
+		for (int i = 0; i < theSize; i++) {
+			aNodes.add(FACTORY.createBNode());
+		}
+
+		Graph aGraph = new SetGraph();
+		for (int i = 0; i < theSize; i++) {
+			aGraph.add(aNodes.get(i), NAME, FACTORY.createLiteral("node" + i));
+			if (i + 1 < theSize) {
+				aGraph.add(aNodes.get(i), NEXT, aNodes.get(i + 1));
+			}
+		}
+
+		return aGraph;
+	}
+
+	private static Graph relabel(final Graph theGraph) {
+		Map<Value, BNode> aMap = Maps.newHashMap();
+
+		Graph aGraph = new SetGraph();
+		for (Statement aStmt : theGraph) {
+			aGraph.add(new ContextAwareStatement((Resource) fresh(aStmt.getSubject(), aMap), aStmt.getPredicate(),
+			                                     fresh(aStmt.getObject(), aMap), aStmt.getContext()));
+		}
+
+		return aGraph;
+	}
+
+	private static Value fresh(final Value theValue, final Map<Value, BNode> theMap) {
+		if (!(theValue instanceof BNode)) {
+			return theValue;
+		}
+
+		if (!theMap.containsKey(theValue)) {
+			theMap.put(theValue, FACTORY.createBNode());
+		}
+
+		return theMap.get(theValue);
+	}
+}
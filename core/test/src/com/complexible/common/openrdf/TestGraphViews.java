@@ -0,0 +1,120 @@
+/*
+ * Copyright (c) 2009-2014 Clark & Parsia, LLC. <http://www.clarkparsia.com>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.complexible.common.openrdf;
+
+import java.util.Iterator;
+
+import com.complexible.common.openrdf.model.ContextAwareStatement;
+import com.complexible.common.openrdf.model.GraphView;
+import com.complexible.common.openrdf.model.Graphs;
+import com.complexible.common.openrdf.model.Statements;
+import com.google.common.base.Function;
+import com.google.common.base.Predicate;
+import com.google.common.collect.Sets;
+import org.junit.Test;
+import org.openrdf.model.Graph;
+import org.openrdf.model.Statement;
+import org.openrdf.model.URI;
+import org.openrdf.model.impl.ValueFactoryImpl;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * <p>Tests for {@link GraphView graph views}</p>
+ *
+ * @author  Michael Grove
+ * @since   2.0.2
+ * @version 2.0.2
+ */
+public class TestGraphViews {
+	private static final URI c = ValueFactoryImpl.getInstance().createURI("urn:c");
+
+	private static final Predicate<Statement> URI_OBJECTS = new Predicate<Statement>() {
+		@Override
+		public boolean apply(final Statement theStatement) {
+			return theStatement.getObject() instanceof URI;
+		}
+	};
+
+	private static final Function<Statement, Statement> TO_CONTEXT = new Function<Statement, Statement>() {
+		@Override
+		public Statement apply(final Statement theStatement) {
+			return new ContextAwareStatement(theStatement.getSubject(), theStatement.getPredicate(), theStatement.getObject(), c);
+		}
+	};
+
+	@Test
+	public void testUnion() {
+		Graph aFirst = TestUtils.createRandomGraph(50);
+		Graph aSecond = TestUtils.createRandomGraph(50);
+		aSecond.add(aFirst.iterator().next());
+
+		GraphView aUnion = Graphs.views().union(aFirst, aSecond);
+
+		assertEquals(Sets.newHashSet(Graphs.union(aFirst, aSecond)), Sets.newHashSet(aUnion));
+		assertEquals(Graphs.union(aFirst, aSecond).size(), aUnion.size());
+		assertTrue(aUnion.containsAll(aSecond));
+
+		// changes to the sources show through
+		Statement aStmt = TestUtils.createRandomStatement();
+		aSecond.add(aStmt);
+		assertTrue(aUnion.contains(aStmt));
+
+		Statement aFirstStmt = aFirst.iterator().next();
+		assertEquals(Sets.newHashSet(Graphs.filter((Iterable<Statement>) Graphs.union(aFirst, aSecond), aFirstStmt.getSubject(), null, null)),
+		             Sets.newHashSet(aUnion.filter(aFirstStmt.getSubject(), null, null)));
+	}
+
+	@Test
+	public void testChainedFilterTransform() {
+		Graph aGraph = TestUtils.createRandomGraph(200);
+
+		Graph aExpected = Graphs.transform(Graphs.filter(aGraph, URI_OBJECTS), TO_CONTEXT);
+		GraphView aView = Graphs.views().filter(aGraph, URI_OBJECTS).transform(TO_CONTEXT);
+
+		assertEquals(Sets.newHashSet(aExpected), Sets.newHashSet(aView));
+		assertEquals(Sets.newHashSet(aExpected), Sets.newHashSet(aView.materialize()));
+		assertTrue(aView.all(URI_OBJECTS));
+		assertTrue(aView.all(Statements.contextIs(c)));
+	}
+
+	@Test
+	public void testWithContext() {
+		Graph aGraph = TestUtils.createRandomGraph(50);
+
+		GraphView aView = Graphs.views().withContext(aGraph, c);
+
+		assertEquals(Sets.newHashSet(Graphs.withContext(aGraph, c)), Sets.newHashSet(aView));
+
+		Statement aStmt = aGraph.iterator().next();
+		assertTrue(aView.contains(TO_CONTEXT.apply(aStmt)));
+		assertFalse(aView.contains(aStmt));
+		assertTrue(Sets.newHashSet(aView.filter(null, null, null, ValueFactoryImpl.getInstance().createURI("urn:other"))).isEmpty());
+		assertEquals(Sets.newHashSet(TO_CONTEXT.apply(aStmt)),
+		             Sets.newHashSet(aView.filter(aStmt.getSubject(), aStmt.getPredicate(), aStmt.getObject(), c)));
+	}
+
+	@Test(expected = UnsupportedOperationException.class)
+	public void testViewIsReadOnly() {
+		Graph aGraph = TestUtils.createRandomGraph(5);
+		Iterator<Statement> aIter = Graphs.views().of(aGraph).iterator();
+
+		aIter.next();
+		aIter.remove();
+	}
+}
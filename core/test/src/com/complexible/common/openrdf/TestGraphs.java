@@ -17,8 +17,11 @@ package com.complexible.common.openrdf;
 
 import com.complexible.common.openrdf.model.ContextAwareStatement;
 import com.complexible.common.openrdf.model.ContextAwareValueFactory;
+import com.complexible.common.openrdf.model.EncodedGraph;
 import com.complexible.common.openrdf.model.GraphIO;
 import com.complexible.common.openrdf.model.Graphs;
+import com.complexible.common.openrdf.model.ImmutableGraph;
+import com.complexible.common.openrdf.model.IndexedGraph;
 import com.complexible.common.openrdf.model.Statements;
 import com.google.common.base.Charsets;
 import com.google.common.base.Function;
@@ -31,6 +34,7 @@ import static org.junit.Assert.assertTrue;
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertFalse;
 
+import org.openrdf.model.BNode;
 import org.openrdf.model.Graph;
 import org.openrdf.model.Literal;
 import org.openrdf.model.util.ModelUtil;
@@ -38,6 +42,7 @@ import org.openrdf.model.vocabulary.RDF;
 import org.openrdf.model.Statement;
 import org.openrdf.model.Resource;
 import org.openrdf.model.URI;
+import org.openrdf.model.Value;
 import org.openrdf.model.impl.ValueFactoryImpl;
 import com.google.common.collect.Sets;
 import org.openrdf.model.vocabulary.RDFS;
@@ -47,6 +52,7 @@ import org.openrdf.rio.RDFFormat;
 import java.io.File;
 import java.util.Collection;
 import java.util.List;
+import java.util.Map;
 import java.util.Set;
 
 /**
@@ -135,6 +141,70 @@ public class TestGraphs {
 		assertFalse(Graphs.isList(aGraph, s));
 	}
 
+	@Test
+	public void testListOfLiterals() throws Exception {
+		List<Value> aElems = Lists.<Value>newArrayList(ValueFactoryImpl.getInstance().createLiteral("a"),
+		                                               ValueFactoryImpl.getInstance().createURI("urn:b"),
+		                                               ValueFactoryImpl.getInstance().createLiteral(3));
+
+		Graph aGraph = Graphs.newGraph();
+		BNode aHead = ValueFactoryImpl.getInstance().createBNode();
+		Resource aCurr = aHead;
+		for (int i = 0; i < aElems.size(); i++) {
+			Resource aNext = i + 1 < aElems.size() ? ValueFactoryImpl.getInstance().createBNode() : RDF.NIL;
+			aGraph.add(aCurr, RDF.FIRST, aElems.get(i));
+			aGraph.add(aCurr, RDF.REST, aNext);
+			aCurr = aNext;
+		}
+
+		assertEquals(aElems, Graphs.asList(aGraph, aHead));
+		assertEquals(aElems, Graphs.asList(new IndexedGraph(aGraph), aHead));
+		assertEquals(aElems, Graphs.asList(new EncodedGraph(aGraph), aHead));
+		assertEquals(aElems, Graphs.asList(ImmutableGraph.copyOf(aGraph), aHead));
+	}
+
+	@Test
+	public void testLists() throws Exception {
+		Graph aGraph = Graphs.newGraph();
+		Map<Resource, List<Value>> aExpected = Maps.newHashMap();
+
+		for (int i = 0; i < 5; i++) {
+			List<Resource> aElems = Lists.newArrayList();
+			for (int j = 0; j <= i; j++) {
+				aElems.add(ValueFactoryImpl.getInstance().createURI("urn:" + i + ":" + j));
+			}
+
+			Graph aList = Graphs.toList(aElems);
+			aGraph.addAll(aList);
+
+			Resource aHead = Graphs.filter(aList, null, RDF.FIRST, aElems.get(0)).iterator().next().getSubject();
+			aExpected.put(aHead, Lists.<Value>newArrayList(aElems));
+		}
+
+		aGraph.addAll(TestUtils.createRandomGraph(50));
+
+		assertEquals(aExpected, Graphs.lists(aGraph));
+
+		for (Map.Entry<Resource, List<Value>> aEntry : aExpected.entrySet()) {
+			assertEquals(aEntry.getValue(), Graphs.asList(aGraph, aEntry.getKey()));
+		}
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void testCyclicList() throws Exception {
+		Graph aGraph = Graphs.newGraph(Graphs.toList(ValueFactoryImpl.getInstance().createURI("urn:a"),
+		                                             ValueFactoryImpl.getInstance().createURI("urn:b")));
+
+		// point the last cell back at the first
+		Statement aLast = Graphs.filter(aGraph, null, RDF.REST, RDF.NIL).iterator().next();
+		Resource aHead = Graphs.filter(aGraph, null, RDF.REST, aLast.getSubject()).iterator().next().getSubject();
+
+		aGraph.remove(aLast);
+		aGraph.add(aLast.getSubject(), RDF.REST, aHead);
+
+		Graphs.asList(new IndexedGraph(aGraph), aHead);
+	}
+
 	@Test
 	public void testOf() throws Exception {
 		Graph aInput = TestUtils.createRandomGraph(20);
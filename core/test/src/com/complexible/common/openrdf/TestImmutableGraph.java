@@ -16,13 +16,24 @@
 package com.complexible.common.openrdf;
 
 import java.util.Iterator;
+import java.util.List;
 
+import com.complexible.common.openrdf.model.ContextAwareStatement;
+import com.complexible.common.openrdf.model.Graphs;
 import com.complexible.common.openrdf.model.ImmutableGraph;
 import com.complexible.common.openrdf.model.SetGraph;
+import com.google.common.collect.Lists;
+import com.google.common.collect.Sets;
 import org.junit.Test;
 import org.openrdf.model.Graph;
+import org.openrdf.model.Resource;
 import org.openrdf.model.Statement;
+import org.openrdf.model.URI;
+import org.openrdf.model.Value;
+import org.openrdf.model.impl.ValueFactoryImpl;
 
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertTrue;
 import static org.junit.Assert.fail;
 
@@ -31,7 +42,7 @@ import static org.junit.Assert.fail;
  *
  * @author	Michael Grove
  * @since	0.8
- * @version 1.0
+ * @version 2.0.2
  */
 public class TestImmutableGraph {
 	@Test
@@ -41,6 +52,21 @@ public class TestImmutableGraph {
 		assertTrue(aGraph == ImmutableGraph.of(aGraph));
 	}
 
+	@Test
+	public void testViewsEqualCopies() {
+		Graph aGraph = TestUtils.createRandomGraph(50);
+
+		ImmutableGraph aView = ImmutableGraph.of(aGraph);
+		ImmutableGraph aCopy = ImmutableGraph.of((Iterable<Statement>) aGraph);
+
+		assertTrue(aView.equals(aCopy));
+		assertTrue(aCopy.equals(aView));
+		assertEquals(aView.hashCode(), aCopy.hashCode());
+		assertTrue(aCopy.equals(ImmutableGraph.copyOf(aGraph)));
+
+		assertFalse(aView.equals(ImmutableGraph.of(TestUtils.createRandomGraph(50))));
+	}
+
 	@Test
 	public void testCantAdd() {
 		Graph aGraph = ImmutableGraph.of(new SetGraph());
@@ -118,4 +144,67 @@ public class TestImmutableGraph {
 
 		aGraph.clear();
 	}
+
+	@Test
+	public void testCopy() {
+		Graph aGraph = TestUtils.createRandomGraph(200);
+		ImmutableGraph aCopy = ImmutableGraph.copyOf(aGraph);
+
+		assertEquals(Sets.newHashSet(aGraph), Sets.newHashSet(aCopy));
+		assertEquals(aCopy, ImmutableGraph.of(aGraph.iterator()));
+		assertEquals(Sets.newHashSet(aGraph).hashCode(), aCopy.hashCode());
+		assertTrue(aCopy == ImmutableGraph.copyOf(aCopy));
+
+		for (Statement aStmt : aGraph) {
+			assertTrue(aCopy.contains(aStmt));
+		}
+
+		assertFalse(aCopy.contains(TestUtils.createRandomStatement()));
+
+		// changes to the original are not visible in the copy
+		aGraph.clear();
+		assertEquals(200, aCopy.size());
+	}
+
+	@Test
+	public void testCopyRemovesDuplicates() {
+		Statement aStmt = TestUtils.createRandomStatement();
+
+		assertEquals(1, ImmutableGraph.of(aStmt, aStmt, aStmt).size());
+		assertTrue(ImmutableGraph.of(new Statement[0]).isEmpty());
+	}
+
+	@Test
+	public void testFilter() {
+		List<Value> aValues = Lists.newArrayList();
+		for (int i = 0; i < 5; i++) {
+			aValues.add(ValueFactoryImpl.getInstance().createURI("urn:" + i));
+		}
+
+		Graph aGraph = new SetGraph();
+		for (Value aSubj : aValues) {
+			for (Value aPred : aValues.subList(0, 3)) {
+				for (Value aObj : aValues) {
+					aGraph.add(new ContextAwareStatement((Resource) aSubj, (URI) aPred, aObj, aSubj.equals(aObj) ? (Resource) aValues.get(0) : null));
+				}
+			}
+		}
+
+		ImmutableGraph aCopy = ImmutableGraph.copyOf(aGraph);
+
+		Value aMissing = ValueFactoryImpl.getInstance().createURI("urn:missing");
+		List<Value> aTerms = Lists.newArrayList(aValues.get(1), aValues.get(2), aMissing, null);
+
+		// every combination of bound and unbound terms should match the same statements as a linear scan
+		for (Value aSubj : aTerms) {
+			for (Value aPred : aTerms) {
+				for (Value aObj : aTerms) {
+					assertEquals(Sets.newHashSet(Graphs.filter((Iterable<Statement>) aGraph, (Resource) aSubj, (URI) aPred, aObj)),
+					             Sets.newHashSet(aCopy.filter((Resource) aSubj, (URI) aPred, aObj)));
+				}
+			}
+		}
+
+		assertEquals(15, Sets.newHashSet(aCopy.filter(null, null, null, (Resource) aValues.get(0))).size());
+	}
 }
@@ -0,0 +1,132 @@
+/*
+ * Copyright (c) 2009-2014 Clark & Parsia, LLC. <http://www.clarkparsia.com>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.complexible.common.openrdf;
+
+import java.util.Iterator;
+import java.util.Set;
+
+import com.complexible.common.openrdf.model.ContextAwareStatement;
+import com.complexible.common.openrdf.model.ExtGraph;
+import com.complexible.common.openrdf.model.Graphs;
+import com.complexible.common.openrdf.model.IndexedGraph;
+import com.complexible.common.openrdf.model.Statements;
+import com.google.common.collect.Iterables;
+import com.google.common.collect.Sets;
+import org.junit.Test;
+import org.openrdf.model.Graph;
+import org.openrdf.model.Resource;
+import org.openrdf.model.Statement;
+import org.openrdf.model.URI;
+import org.openrdf.model.Value;
+import org.openrdf.model.impl.ValueFactoryImpl;
+import org.openrdf.model.vocabulary.RDF;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * <p>Tests for {@link IndexedGraph}</p>
+ *
+ * @author  Michael Grove
+ * @since   2.0.2
+ * @version 2.0.2
+ */
+public class TestIndexedGraph {
+	private static final URI s = ValueFactoryImpl.getInstance().createURI("urn:s");
+	private static final URI p = ValueFactoryImpl.getInstance().createURI("urn:p");
+	private static final URI o = ValueFactoryImpl.getInstance().createURI("urn:o");
+	private static final URI c = ValueFactoryImpl.getInstance().createURI("urn:c");
+
+	@Test
+	public void testPatternsMatchScan() {
+		Graph aRandom = TestUtils.createRandomGraph(100);
+		IndexedGraph aGraph = new IndexedGraph(aRandom);
+
+		aGraph.add(s, p, o);
+		aGraph.add(s, p, o, c);
+		aGraph.add(s, RDF.TYPE, o);
+		aGraph.add(o, p, s, c);
+
+		assertEquals(aRandom.size() + 4, aGraph.size());
+
+		for (Statement aStmt : Iterables.limit(aGraph, 20)) {
+			assertPatterns(aGraph, aStmt.getSubject(), aStmt.getPredicate(), aStmt.getObject());
+		}
+
+		assertPatterns(aGraph, s, p, o);
+		assertPatterns(aGraph, o, p, s);
+		assertPatterns(aGraph, c, p, o);
+	}
+
+	private static void assertPatterns(final IndexedGraph theGraph, final Resource theSubj, final URI thePred, final Value theObj) {
+		for (int i = 0; i < 8; i++) {
+			Resource aSubj = (i & 1) == 0 ? null : theSubj;
+			URI aPred = (i & 2) == 0 ? null : thePred;
+			Value aObj = (i & 4) == 0 ? null : theObj;
+
+			assertEquals(scan(theGraph, aSubj, aPred, aObj), Sets.newHashSet(theGraph.filter(aSubj, aPred, aObj)));
+			assertEquals(scan(theGraph, aSubj, aPred, aObj, c), Sets.newHashSet(theGraph.filter(aSubj, aPred, aObj, c)));
+			assertEquals(scan(theGraph, aSubj, aPred, aObj, (Resource) null), Sets.newHashSet(theGraph.filter(aSubj, aPred, aObj, (Resource) null)));
+			assertEquals(scan(theGraph, aSubj, aPred, aObj, c, null), Sets.newHashSet(theGraph.filter(aSubj, aPred, aObj, c, null)));
+		}
+	}
+
+	private static Set<Statement> scan(final Graph theGraph, final Resource theSubj, final URI thePred, final Value theObj, final Resource... theContexts) {
+		return Sets.newHashSet(Iterables.filter(theGraph, Statements.matches(theSubj, thePred, theObj, theContexts)));
+	}
+
+	@Test
+	public void testRemoveUpdatesIndexes() {
+		IndexedGraph aGraph = new IndexedGraph();
+
+		aGraph.add(s, p, o);
+		aGraph.add(s, p, o, c);
+
+		assertTrue(aGraph.remove(new ContextAwareStatement(s, p, o, c)));
+
+		assertEquals(1, Iterables.size(aGraph.filter(s, p, null)));
+		assertTrue(Iterables.isEmpty(aGraph.filter(null, null, null, c)));
+
+		Iterator<Statement> aIter = aGraph.iterator();
+		aIter.next();
+		aIter.remove();
+
+		assertTrue(aGraph.isEmpty());
+		assertTrue(Iterables.isEmpty(aGraph.filter(s, null, null)));
+		assertTrue(Iterables.isEmpty(aGraph.filter(null, null, o)));
+
+		aGraph.add(s, p, o);
+		aGraph.removeAll(Graphs.newGraph(new ContextAwareStatement(s, p, o, null)));
+
+		assertTrue(Iterables.isEmpty(aGraph.filter(null, p, null)));
+	}
+
+	@Test
+	public void testExtGraphUsesIndexes() {
+		IndexedGraph aGraph = new IndexedGraph(TestUtils.createRandomGraph(20));
+		aGraph.add(s, RDF.TYPE, o);
+		aGraph.add(s, p, o);
+
+		ExtGraph aExtGraph = Graphs.extend(aGraph);
+
+		assertTrue(aExtGraph.contains(s, RDF.TYPE, o));
+		assertFalse(aExtGraph.contains(o, RDF.TYPE, s));
+		assertTrue(aExtGraph.isInstanceOf(s, o));
+		assertEquals(o, aExtGraph.getObject(s, p).get());
+		assertEquals(Sets.newHashSet(o), Sets.newHashSet(aExtGraph.getTypes(s)));
+	}
+}
@@ -0,0 +1,143 @@
+/*
+ * Copyright (c) 2009-2014 Clark & Parsia, LLC. <http://www.clarkparsia.com>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.complexible.common.openrdf;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.util.Iterator;
+
+import com.complexible.common.openrdf.model.ContextAwareStatement;
+import com.complexible.common.openrdf.model.GraphIO;
+import com.complexible.common.openrdf.model.InterningValueFactory;
+import com.complexible.common.openrdf.model.SetGraph;
+import com.google.common.base.Charsets;
+import com.google.common.collect.Iterables;
+import org.junit.Test;
+import org.openrdf.model.Graph;
+import org.openrdf.model.Statement;
+import org.openrdf.model.URI;
+import org.openrdf.model.impl.ValueFactoryImpl;
+import org.openrdf.model.vocabulary.RDF;
+import org.openrdf.model.vocabulary.XMLSchema;
+import org.openrdf.rio.RDFFormat;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * <p>Tests for {@link InterningValueFactory}</p>
+ *
+ * @author  Michael Grove
+ * @since   2.0.2
+ * @version 2.0.2
+ */
+public class TestInterningValueFactory {
+
+	@Test
+	public void testInterning() {
+		InterningValueFactory aFactory = new InterningValueFactory();
+
+		assertSame(aFactory.createURI("urn:a"), aFactory.createURI("urn:a"));
+		assertSame(aFactory.createURI("urn:", "a"), aFactory.createURI("urn:a"));
+		assertSame(aFactory.createLiteral("chat", "fr"), aFactory.createLiteral("chat", "fr"));
+		assertSame(aFactory.createLiteral(5), aFactory.createLiteral("5", XMLSchema.INT));
+		assertSame(aFactory.createBNode("b1"), aFactory.createBNode("b1"));
+		assertNotSame(aFactory.createBNode(), aFactory.createBNode());
+
+		// values made elsewhere are interned in statements
+		Statement aStmt = aFactory.createStatement(ValueFactoryImpl.getInstance().createURI("urn:a"), RDF.TYPE,
+		                                           ValueFactoryImpl.getInstance().createURI("urn:Class"), aFactory.createURI("urn:g"));
+		assertTrue(aStmt instanceof ContextAwareStatement);
+		assertSame(aFactory.createURI("urn:a"), aStmt.getSubject());
+		assertSame(aFactory.createURI("urn:Class"), aStmt.getObject());
+		assertSame(aFactory.createURI("urn:g"), aStmt.getContext());
+
+		assertTrue(aFactory.stats().hitCount() > 0);
+		assertTrue(aFactory.stats().missCount() > 0);
+	}
+
+	@Test
+	public void testBounded() {
+		InterningValueFactory aFactory = new InterningValueFactory(ValueFactoryImpl.getInstance(), 100);
+
+		URI aFirst = aFactory.createURI("urn:0");
+		for (int i = 1; i < 1000; i++) {
+			aFactory.createURI("urn:" + i);
+		}
+
+		assertTrue(aFactory.size() <= 100);
+		// the first has long since been evicted; an equal but new instance is created
+		assertEquals(aFirst, aFactory.createURI("urn:0"));
+
+		InterningValueFactory aWeighed = InterningValueFactory.byLabelLength(ValueFactoryImpl.getInstance(), 1000);
+		for (int i = 0; i < 1000; i++) {
+			aWeighed.createLiteral("a fairly long literal label number " + i);
+		}
+
+		assertTrue(aWeighed.size() < 1000 / 16);
+
+		aWeighed.clear();
+		assertEquals(0, aWeighed.size());
+	}
+
+	@Test
+	public void testPluggable() throws Exception {
+		InterningValueFactory aFactory = new InterningValueFactory();
+
+		Graph aGraph = new SetGraph(aFactory);
+		assertTrue(aGraph.add(ValueFactoryImpl.getInstance().createURI("urn:a"), RDF.TYPE, ValueFactoryImpl.getInstance().createURI("urn:Class")));
+		assertSame(aFactory.createURI("urn:a"), Iterables.getOnlyElement(aGraph).getSubject());
+
+		File aFile = File.createTempFile("interning", ".nt");
+		try {
+			Graph aSource = TestUtils.createRandomGraph(50);
+			for (Statement aStmt : TestUtils.createRandomGraph(50)) {
+				aSource.add(aStmt.getSubject(), RDF.TYPE, aStmt.getObject());
+			}
+
+			Writer aWriter = new OutputStreamWriter(new FileOutputStream(aFile), Charsets.UTF_8);
+			try {
+				GraphIO.writeGraph(aSource, aWriter, RDFFormat.NTRIPLES);
+			}
+			finally {
+				aWriter.close();
+			}
+
+			Graph aRead = GraphIO.readGraph(aFile, new SetGraph(), aFactory);
+			assertEquals(aSource.size(), aRead.size());
+
+			// every rdf:type read is the one instance
+			URI aType = aFactory.createURI(RDF.TYPE.stringValue());
+			int aTypes = 0;
+			for (Iterator<Statement> aIter = aRead.iterator(); aIter.hasNext(); ) {
+				Statement aStmt = aIter.next();
+				if (aStmt.getPredicate().equals(RDF.TYPE)) {
+					assertSame(aType, aStmt.getPredicate());
+					aTypes++;
+				}
+			}
+
+			assertEquals(50, aTypes);
+		}
+		finally {
+			aFile.delete();
+		}
+	}
+}
@@ -0,0 +1,185 @@
+/*
+ * Copyright (c) 2009-2014 Clark & Parsia, LLC. <http://www.clarkparsia.com>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.complexible.common.openrdf;
+
+import com.complexible.common.openrdf.model.ConstrainedGraph;
+import com.complexible.common.openrdf.model.LiteralValidator;
+import com.complexible.common.openrdf.model.Statements;
+import org.junit.Test;
+import org.openrdf.model.Graph;
+import org.openrdf.model.Literal;
+import org.openrdf.model.URI;
+import org.openrdf.model.ValueFactory;
+import org.openrdf.model.impl.ValueFactoryImpl;
+import org.openrdf.model.vocabulary.RDFS;
+import org.openrdf.model.vocabulary.XMLSchema;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * <p>Tests for {@link LiteralValidator}</p>
+ *
+ * @author  Michael Grove
+ * @since   2.0.2
+ * @version 2.0.2
+ */
+public class TestLiteralValidator {
+	private static final ValueFactory FACTORY = ValueFactoryImpl.getInstance();
+
+	@Test
+	public void testNumbers() {
+		assertValid(XMLSchema.INTEGER, "0", "-0", "+12", "007", " 42 ", "123456789012345678901234567890");
+		assertInvalid(XMLSchema.INTEGER, "", "+", "1.0", "1 2", "one", "0x10");
+
+		assertValid(XMLSchema.BYTE, "-128", "127", "0127");
+		assertInvalid(XMLSchema.BYTE, "-129", "128");
+
+		assertValid(XMLSchema.INT, "-2147483648", "2147483647");
+		assertInvalid(XMLSchema.INT, "-2147483649", "2147483648");
+
+		assertValid(XMLSchema.LONG, "-9223372036854775808", "9223372036854775807");
+		assertInvalid(XMLSchema.LONG, "9223372036854775808");
+
+		assertValid(XMLSchema.UNSIGNED_LONG, "18446744073709551615", "-0");
+		assertInvalid(XMLSchema.UNSIGNED_LONG, "18446744073709551616", "-1");
+
+		assertValid(XMLSchema.POSITIVE_INTEGER, "1", "+0001");
+		assertInvalid(XMLSchema.POSITIVE_INTEGER, "0", "-1");
+		assertValid(XMLSchema.NEGATIVE_INTEGER, "-1");
+		assertInvalid(XMLSchema.NEGATIVE_INTEGER, "0", "-0");
+		assertValid(XMLSchema.NON_POSITIVE_INTEGER, "0", "-0", "-5");
+		assertInvalid(XMLSchema.NON_POSITIVE_INTEGER, "1");
+
+		assertValid(XMLSchema.DECIMAL, "1", "-1.5", "+.5", "5.", "0.000");
+		assertInvalid(XMLSchema.DECIMAL, ".", "-", "1e5", "1.2.3", "");
+
+		assertValid(XMLSchema.DOUBLE, "1", "1.5E10", "-.5e-3", "INF", "-INF", "NaN", "1e0");
+		assertInvalid(XMLSchema.DOUBLE, "e5", "1e", "1.5E1.5", "inf", "nan", "");
+		assertValid(XMLSchema.FLOAT, "3.14", "+INF");
+
+		assertValid(XMLSchema.BOOLEAN, "true", "false", "1", "0", " true ");
+		assertInvalid(XMLSchema.BOOLEAN, "TRUE", "yes", "2", "");
+	}
+
+	@Test
+	public void testDatesAndTimes() {
+		assertValid(XMLSchema.DATETIME, "2014-01-31T12:30:00", "2014-01-31T12:30:00.123Z", "2012-02-29T00:00:00+14:00",
+		            "-0044-03-15T12:00:00-05:30", "12014-01-01T00:00:00", "2014-01-01T24:00:00");
+		assertInvalid(XMLSchema.DATETIME, "2014-01-31", "2014-1-31T12:30:00", "2013-02-29T00:00:00", "2014-04-31T00:00:00",
+		              "2014-13-01T00:00:00", "2014-01-01T24:00:01", "2014-01-01T12:60:00", "2014-01-01T12:00:00+15:00",
+		              "02014-01-01T00:00:00", "2014-01-01T12:00:00.", "2014-01-01 12:00:00");
+
+		assertValid(XMLSchema.DATE, "2000-02-29", "1900-02-28Z", "2014-12-31-08:00");
+		assertInvalid(XMLSchema.DATE, "1900-02-29", "2014-12-32", "2014-12-31T00:00:00");
+
+		assertValid(XMLSchema.TIME, "00:00:00", "23:59:59.999", "12:00:00Z");
+		assertInvalid(XMLSchema.TIME, "24:30:00", "12:00", "1:00:00");
+
+		assertValid(XMLSchema.GYEAR, "2014", "-0001", "2014Z");
+		assertInvalid(XMLSchema.GYEAR, "14", "2014-01");
+		assertValid(XMLSchema.GYEARMONTH, "2014-12");
+		assertInvalid(XMLSchema.GYEARMONTH, "2014-13");
+		assertValid(XMLSchema.GMONTHDAY, "--02-29", "--12-31Z");
+		assertInvalid(XMLSchema.GMONTHDAY, "--02-30", "--13-01", "02-01");
+		assertValid(XMLSchema.GDAY, "---31");
+		assertInvalid(XMLSchema.GDAY, "---32", "--31");
+		assertValid(XMLSchema.GMONTH, "--12");
+		assertInvalid(XMLSchema.GMONTH, "--00", "-12");
+
+		assertValid(XMLSchema.DURATION, "P1Y", "-P1Y2M3DT4H5M6.5S", "PT0S", "P1D", "PT36H");
+		assertInvalid(XMLSchema.DURATION, "P", "PT", "P1YT", "P1M1Y", "P1.5Y", "1Y", "P-1Y", "PT1D");
+
+		URI aYearMonth = FACTORY.createURI(XMLSchema.NAMESPACE, "yearMonthDuration");
+		assertValid(aYearMonth, "P1Y2M");
+		assertInvalid(aYearMonth, "P1D", "PT1H");
+
+		URI aDayTime = FACTORY.createURI(XMLSchema.NAMESPACE, "dayTimeDuration");
+		assertValid(aDayTime, "P1DT2H", "PT1.5S");
+		assertInvalid(aDayTime, "P1Y", "P1M");
+	}
+
+	@Test
+	public void testStringsAndNames() {
+		assertValid(XMLSchema.STRING, "", " anything\tat all\n");
+		assertValid(XMLSchema.NORMALIZEDSTRING, "a  b ");
+		assertInvalid(XMLSchema.NORMALIZEDSTRING, "a\tb", "a\nb");
+		assertValid(XMLSchema.TOKEN, "a b c", "");
+		assertInvalid(XMLSchema.TOKEN, " a", "a ", "a  b");
+
+		assertValid(XMLSchema.LANGUAGE, "en", "en-US", "zh-Hant-TW", "x-klingon1");
+		assertInvalid(XMLSchema.LANGUAGE, "", "en-", "-en", "toolonglang", "e1", "en--us");
+
+		assertValid(XMLSchema.NCNAME, "name", "_n.a-m3", "\u00e9t\u00e9");
+		assertInvalid(XMLSchema.NCNAME, "1name", "pre:name", "", "a b");
+		assertValid(XMLSchema.NAME, "pre:name", ":name");
+		assertValid(XMLSchema.QNAME, "pre:name", "name");
+		assertInvalid(XMLSchema.QNAME, "pre:", ":name", "a:b:c");
+		assertValid(XMLSchema.NMTOKEN, "123", "a.b-c");
+		assertInvalid(XMLSchema.NMTOKEN, "", "a b");
+		assertValid(XMLSchema.NMTOKENS, "a b  c");
+		assertInvalid(XMLSchema.NMTOKENS, "", "a @");
+		assertValid(XMLSchema.IDREFS, "id1 id2");
+		assertInvalid(XMLSchema.IDREFS, "id1 2id");
+
+		assertValid(XMLSchema.HEXBINARY, "", "0fA9");
+		assertInvalid(XMLSchema.HEXBINARY, "abc", "0g");
+
+		assertValid(XMLSchema.BASE64BINARY, "", "QUJD", "QUI=", "QQ==", "QU JD");
+		assertInvalid(XMLSchema.BASE64BINARY, "QUJ", "Q===", "QR==", "QU=D", "QU!D");
+	}
+
+	@Test
+	public void testLiterals() {
+		// language tags are checked, other datatypes are not
+		assertTrue(Statements.isLiteralValid(FACTORY.createLiteral("chat", "fr")));
+		assertFalse(Statements.isLiteralValid(FACTORY.createLiteral("chat", "f r")));
+		assertTrue(Statements.isLiteralValid(FACTORY.createLiteral("plain")));
+		assertTrue(Statements.isLiteralValid(FACTORY.createLiteral("not a number", RDFS.LITERAL)));
+		assertTrue(Statements.isLiteralValid(FACTORY.createLiteral("not a number", FACTORY.createURI(XMLSchema.NAMESPACE, "unknown"))));
+		assertFalse(Statements.isLiteralValid(FACTORY.createLiteral("not a number", XMLSchema.INT)));
+
+		// cached and uncached validators agree, however often a literal is seen
+		LiteralValidator aCaching = new LiteralValidator(2);
+		LiteralValidator aUncached = new LiteralValidator(0);
+		for (int i = 0; i < 3; i++) {
+			for (String aLabel : new String[] { "1", "x", "2", "1.5" }) {
+				Literal aLiteral = FACTORY.createLiteral(aLabel, XMLSchema.INT);
+				assertEquals(aUncached.isValid(aLiteral), aCaching.isValid(aLiteral));
+			}
+		}
+	}
+
+	@Test(expected = ConstrainedGraph.StatementViolatedConstraintException.class)
+	public void testOnlyValidLiterals() {
+		Graph aGraph = ConstrainedGraph.of(ConstrainedGraph.onlyValidLiterals());
+
+		aGraph.add(FACTORY.createURI("urn:s"), RDFS.LABEL, FACTORY.createLiteral("2014-02-29", XMLSchema.DATE));
+	}
+
+	private static void assertValid(final URI theDatatype, final String... theLabels) {
+		for (String aLabel : theLabels) {
+			assertTrue("'" + aLabel + "' should be a valid " + theDatatype, LiteralValidator.isLexicalFormValid(aLabel, theDatatype));
+		}
+	}
+
+	private static void assertInvalid(final URI theDatatype, final String... theLabels) {
+		for (String aLabel : theLabels) {
+			assertFalse("'" + aLabel + "' should not be a valid " + theDatatype, LiteralValidator.isLexicalFormValid(aLabel, theDatatype));
+		}
+	}
+}
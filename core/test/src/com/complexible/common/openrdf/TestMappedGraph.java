@@ -0,0 +1,188 @@
+/*
+ * Copyright (c) 2009-2014 Clark & Parsia, LLC. <http://www.clarkparsia.com>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.complexible.common.openrdf;
+
+import java.io.File;
+import java.io.IOException;
+
+import com.complexible.common.openrdf.model.ContextAwareStatement;
+import com.complexible.common.openrdf.model.Graphs;
+import com.complexible.common.openrdf.model.MappedGraph;
+import com.google.common.collect.Iterables;
+import com.google.common.collect.Sets;
+import com.google.common.io.Files;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.openrdf.model.Graph;
+import org.openrdf.model.Statement;
+import org.openrdf.model.URI;
+import org.openrdf.model.impl.ValueFactoryImpl;
+import org.openrdf.rio.RDFFormat;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+/**
+ * <p>Tests for {@link MappedGraph}</p>
+ *
+ * @author  Michael Grove
+ * @since   2.0.2
+ * @version 2.0.2
+ */
+public class TestMappedGraph {
+	private static final URI s = ValueFactoryImpl.getInstance().createURI("urn:s");
+	private static final URI p = ValueFactoryImpl.getInstance().createURI("urn:p");
+	private static final URI o = ValueFactoryImpl.getInstance().createURI("urn:o");
+	private static final URI c = ValueFactoryImpl.getInstance().createURI("urn:c");
+
+	private File mDir;
+
+	@Before
+	public void setUp() {
+		mDir = Files.createTempDir();
+	}
+
+	@After
+	public void tearDown() {
+		for (File aFile : mDir.listFiles()) {
+			aFile.delete();
+		}
+		mDir.delete();
+	}
+
+	@Test
+	public void testAddRemove() throws IOException {
+		MappedGraph aGraph = MappedGraph.open(mDir);
+
+		try {
+			assertTrue(aGraph.add(s, p, o));
+			assertFalse(aGraph.add(new ContextAwareStatement(s, p, o, null)));
+			assertTrue(aGraph.add(s, p, o, c));
+
+			assertEquals(2, aGraph.size());
+			assertTrue(aGraph.contains(new ContextAwareStatement(s, p, o, c)));
+			assertFalse(aGraph.contains(new ContextAwareStatement(o, p, s, c)));
+			assertEquals(Sets.newHashSet(new ContextAwareStatement(s, p, o, c)), Sets.newHashSet(aGraph.filter(null, null, null, c)));
+
+			assertTrue(aGraph.remove(new ContextAwareStatement(s, p, o, c)));
+			assertFalse(aGraph.remove(new ContextAwareStatement(s, p, o, c)));
+			assertEquals(1, aGraph.size());
+			assertEquals(1, Iterables.size(aGraph));
+
+			// re-adding a removed statement
+			assertTrue(aGraph.add(s, p, o, c));
+			assertEquals(2, aGraph.size());
+		}
+		finally {
+			aGraph.close();
+		}
+	}
+
+	@Test
+	public void testReopen() throws IOException {
+		// enough statements to grow the hash tables several times
+		Graph aExpected = TestUtils.createRandomGraph(5000);
+
+		MappedGraph aGraph = MappedGraph.open(mDir);
+		try {
+			aGraph.addAll(aExpected);
+
+			Statement aRemoved = aExpected.iterator().next();
+			aGraph.remove(aRemoved);
+			aExpected.remove(aRemoved);
+		}
+		finally {
+			aGraph.close();
+		}
+
+		aGraph = MappedGraph.open(mDir);
+		try {
+			assertEquals(aExpected.size(), aGraph.size());
+			assertEquals(Sets.newHashSet(aExpected), Sets.newHashSet(aGraph));
+
+			for (Statement aStmt : aExpected) {
+				assertTrue(aGraph.contains(aStmt));
+			}
+		}
+		finally {
+			aGraph.close();
+		}
+	}
+
+	@Test
+	public void testUncleanShutdown() throws IOException {
+		MappedGraph aGraph = MappedGraph.open(mDir);
+		try {
+			aGraph.addAll(TestUtils.createRandomGraph(100));
+			aGraph.flush();
+
+			// flushed, so the graph can be opened as it is on disk
+			MappedGraph aCopy = MappedGraph.open(mDir);
+			try {
+				assertEquals(100, aCopy.size());
+			}
+			finally {
+				aCopy.close();
+			}
+
+			// changed since the last flush, as if the process died before closing the graph
+			aGraph.add(TestUtils.createRandomStatement());
+
+			try {
+				MappedGraph.open(mDir);
+				fail("should not open a graph which was not closed cleanly");
+			}
+			catch (IOException e) {
+				// expected
+			}
+		}
+		finally {
+			aGraph.close();
+		}
+
+		aGraph = MappedGraph.open(mDir);
+		try {
+			assertEquals(101, aGraph.size());
+		}
+		finally {
+			aGraph.close();
+		}
+	}
+
+	@Test
+	public void testReadGraph() throws Exception {
+		Graph aExpected = TestUtils.createRandomGraph(100);
+
+		File aFile = File.createTempFile("mapped", ".nt");
+		try {
+			Graphs.write(aExpected, RDFFormat.NTRIPLES, aFile);
+
+			MappedGraph aGraph = Graphs.of(aFile, MappedGraph.open(mDir));
+			try {
+				assertEquals(Sets.newHashSet(aExpected), Sets.newHashSet(aGraph));
+			}
+			finally {
+				aGraph.close();
+			}
+		}
+		finally {
+			aFile.delete();
+		}
+	}
+}
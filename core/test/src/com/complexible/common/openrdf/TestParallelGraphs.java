@@ -0,0 +1,153 @@
+/*
+ * Copyright (c) 2009-2014 Clark & Parsia, LLC. <http://www.clarkparsia.com>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.complexible.common.openrdf;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import com.complexible.common.openrdf.model.ContextAwareStatement;
+import com.complexible.common.openrdf.model.Graphs;
+import com.complexible.common.openrdf.model.ParallelGraphs;
+import com.complexible.common.openrdf.model.SetGraph;
+import com.complexible.common.openrdf.model.Statements;
+import com.google.common.base.Function;
+import com.google.common.base.Predicate;
+import com.google.common.base.Predicates;
+import com.google.common.collect.Sets;
+import org.junit.AfterClass;
+import org.junit.BeforeClass;
+import org.junit.Test;
+import org.openrdf.model.Graph;
+import org.openrdf.model.Literal;
+import org.openrdf.model.Statement;
+import org.openrdf.model.URI;
+import org.openrdf.model.impl.ValueFactoryImpl;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * <p>Tests for {@link ParallelGraphs}</p>
+ *
+ * @author  Michael Grove
+ * @since   2.0.2
+ * @version 2.0.2
+ */
+public class TestParallelGraphs {
+	private static final Predicate<Statement> LITERAL_OBJECTS = new Predicate<Statement>() {
+		@Override
+		public boolean apply(final Statement theStatement) {
+			return theStatement.getObject() instanceof Literal;
+		}
+	};
+
+	private static ExecutorService mExecutor;
+
+	private static Graph mGraph;
+
+	@BeforeClass
+	public static void beforeClass() {
+		mExecutor = Executors.newFixedThreadPool(4);
+
+		// large enough to be split into several chunks
+		mGraph = TestUtils.createRandomGraph(20000);
+	}
+
+	@AfterClass
+	public static void afterClass() {
+		mExecutor.shutdownNow();
+	}
+
+	@Test
+	public void testFilterTransformCollect() {
+		ParallelGraphs aParallel = Graphs.parallel(mExecutor);
+
+		assertEquals(Sets.newHashSet(Graphs.filter(mGraph, LITERAL_OBJECTS)),
+		             Sets.newHashSet(aParallel.filter(mGraph, LITERAL_OBJECTS)));
+
+		final URI aContext = ValueFactoryImpl.getInstance().createURI("urn:c");
+		Function<Statement, Statement> aFunction = new Function<Statement, Statement>() {
+			@Override
+			public Statement apply(final Statement theStatement) {
+				return new ContextAwareStatement(theStatement.getSubject(), theStatement.getPredicate(), theStatement.getObject(), aContext);
+			}
+		};
+
+		assertEquals(Sets.newHashSet(Graphs.transform(mGraph, aFunction)),
+		             Sets.newHashSet(aParallel.transform(mGraph, aFunction)));
+
+		assertEquals(Graphs.collect(mGraph, Statements.objectAsLiteral()),
+		             aParallel.collect(mGraph, Statements.objectAsLiteral()));
+	}
+
+	@Test
+	public void testFindAnyAll() {
+		ParallelGraphs aParallel = Graphs.parallel(mExecutor);
+
+		assertEquals(Graphs.find(mGraph, LITERAL_OBJECTS), aParallel.find(mGraph, LITERAL_OBJECTS));
+		assertFalse(aParallel.find(mGraph, Predicates.<Statement>alwaysFalse()).isPresent());
+
+		// the first statement in iteration order is found even though every chunk has a match
+		assertEquals(mGraph.iterator().next(), aParallel.find(mGraph, Predicates.<Statement>alwaysTrue()).get());
+
+		assertEquals(Graphs.any(mGraph, LITERAL_OBJECTS), aParallel.any(mGraph, LITERAL_OBJECTS));
+		assertFalse(aParallel.any(mGraph, Predicates.<Statement>alwaysFalse()));
+		assertTrue(aParallel.all(mGraph, Predicates.<Statement>alwaysTrue()));
+		assertEquals(Graphs.all(mGraph, LITERAL_OBJECTS), aParallel.all(mGraph, LITERAL_OBJECTS));
+
+		assertFalse(Graphs.parallel().any(new SetGraph(), Predicates.<Statement>alwaysTrue()));
+		assertTrue(Graphs.parallel().filter(new SetGraph(), Predicates.<Statement>alwaysTrue()).isEmpty());
+	}
+
+	/**
+	 * An operation run from a task of the same pool, which must not wait for tasks queued behind its own
+	 */
+	@Test(timeout = 30000)
+	public void testNestedOperations() {
+		ExecutorService aExecutor = Executors.newFixedThreadPool(1);
+
+		try {
+			final ParallelGraphs aParallel = Graphs.parallel(aExecutor);
+
+			final Graph aGraph = TestUtils.createRandomGraph(4000);
+
+			Predicate<Statement> aNested = new Predicate<Statement>() {
+				@Override
+				public boolean apply(final Statement theStatement) {
+					return theStatement.getObject() instanceof Literal
+					       && aParallel.any(aGraph, Predicates.equalTo(theStatement));
+				}
+			};
+
+			assertEquals(Sets.newHashSet(Graphs.filter(aGraph, LITERAL_OBJECTS)),
+			             Sets.newHashSet(aParallel.filter(aGraph, aNested)));
+		}
+		finally {
+			aExecutor.shutdownNow();
+		}
+	}
+
+		@Test(expected = IllegalStateException.class)
+	public void testExceptionsArePropagated() {
+		Graphs.parallel(mExecutor).any(mGraph, new Predicate<Statement>() {
+			@Override
+			public boolean apply(final Statement theStatement) {
+				throw new IllegalStateException();
+			}
+		});
+	}
+}
@@ -0,0 +1,218 @@
+/*
+ * Copyright (c) 2009-2014 Clark & Parsia, LLC. <http://www.clarkparsia.com>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.complexible.common.openrdf;
+
+import java.util.Iterator;
+
+import com.complexible.common.openrdf.model.Graphs;
+import com.complexible.common.openrdf.model.PartitionedGraph;
+import com.complexible.common.openrdf.query.ImmutableDataset;
+import com.google.common.collect.ImmutableSet;
+import com.google.common.collect.Iterables;
+import com.google.common.collect.Sets;
+import org.junit.Test;
+import org.openrdf.model.Graph;
+import org.openrdf.model.Resource;
+import org.openrdf.model.Statement;
+import org.openrdf.model.URI;
+import org.openrdf.model.ValueFactory;
+import org.openrdf.model.impl.ValueFactoryImpl;
+import org.openrdf.model.vocabulary.SESAME;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * <p>Tests for {@link PartitionedGraph}</p>
+ *
+ * @author  Michael Grove
+ * @since   2.0.2
+ * @version 2.0.2
+ */
+public class TestPartitionedGraph {
+	private static final ValueFactory FACTORY = ValueFactoryImpl.getInstance();
+
+	private static final URI G1 = FACTORY.createURI("urn:g1");
+
+	private static final URI G2 = FACTORY.createURI("urn:g2");
+
+	private static final URI G3 = FACTORY.createURI("urn:g3");
+
+	/**
+	 * Build a graph with the same 100 triples in the default graph and in g1, and 50 others in g2
+	 */
+	private static PartitionedGraph createGraph() {
+		PartitionedGraph aGraph = new PartitionedGraph();
+
+		for (Statement aStmt : TestUtils.createRandomGraph(100)) {
+			aGraph.add(aStmt.getSubject(), aStmt.getPredicate(), aStmt.getObject());
+			aGraph.add(aStmt.getSubject(), aStmt.getPredicate(), aStmt.getObject(), G1);
+		}
+
+		for (Statement aStmt : TestUtils.createRandomGraph(50)) {
+			aGraph.add(FACTORY.createStatement(aStmt.getSubject(), aStmt.getPredicate(), aStmt.getObject(), G2));
+		}
+
+		return aGraph;
+	}
+
+	@Test
+	public void testPartitions() {
+		PartitionedGraph aGraph = createGraph();
+
+		assertEquals(250, aGraph.size());
+		assertEquals(Sets.newHashSet(null, G1, G2), aGraph.contexts());
+		assertEquals(100, aGraph.context(G1).size());
+		assertEquals(100, aGraph.context(null).size());
+		assertEquals(50, aGraph.context(G2).size());
+		assertEquals(0, aGraph.context(G3).size());
+
+		for (Statement aStmt : aGraph.context(G1)) {
+			assertEquals(G1, aStmt.getContext());
+			assertTrue(aGraph.contains(aStmt));
+			assertTrue(aGraph.contains(FACTORY.createStatement(aStmt.getSubject(), aStmt.getPredicate(), aStmt.getObject())));
+			assertFalse(aGraph.contains(FACTORY.createStatement(aStmt.getSubject(), aStmt.getPredicate(), aStmt.getObject(), G2)));
+		}
+
+		// duplicates are per context
+		Statement aStmt = Iterables.get(aGraph.context(G1), 0);
+		assertFalse(aGraph.add(aStmt));
+		assertTrue(aGraph.add(aStmt.getSubject(), aStmt.getPredicate(), aStmt.getObject(), G3));
+		assertEquals(251, aGraph.size());
+
+		// dropping a context
+		assertTrue(aGraph.clear(G1, G3));
+		assertFalse(aGraph.clear(G1));
+		assertEquals(150, aGraph.size());
+		assertEquals(Sets.newHashSet(null, G2), aGraph.contexts());
+		assertFalse(aGraph.contains(aStmt));
+
+		assertTrue(aGraph.clear((Resource) null));
+		assertEquals(50, aGraph.size());
+		assertEquals(ImmutableSet.of(G2), aGraph.contexts());
+	}
+
+	@Test
+	public void testContextView() {
+		PartitionedGraph aGraph = createGraph();
+		Graph aContext = aGraph.context(G3);
+
+		Statement aStmt = TestUtils.createRandomStatement();
+		assertTrue(aContext.add(aStmt.getSubject(), aStmt.getPredicate(), aStmt.getObject()));
+		assertTrue(aGraph.contains(FACTORY.createStatement(aStmt.getSubject(), aStmt.getPredicate(), aStmt.getObject(), G3)));
+		assertEquals(1, aContext.size());
+		assertEquals(251, aGraph.size());
+
+		try {
+			aContext.add(aStmt);
+			assertTrue("Statements outside of the context should not be added", false);
+		}
+		catch (IllegalArgumentException e) {
+			// expected
+		}
+
+		// removal through the view's iterator
+		Graph aG1 = aGraph.context(G1);
+		int aRemoved = 0;
+		for (Iterator<Statement> aIter = aG1.iterator(); aIter.hasNext(); ) {
+			aIter.next();
+			if (aRemoved++ < 40) {
+				aIter.remove();
+			}
+		}
+
+		assertEquals(60, aG1.size());
+		assertEquals(211, aGraph.size());
+
+		aG1.clear();
+		assertEquals(0, aG1.size());
+		assertEquals(151, aGraph.size());
+		assertFalse(aGraph.contexts().contains(G1));
+	}
+
+	@Test
+	public void testRemoveThroughIterator() {
+		PartitionedGraph aGraph = createGraph();
+
+		for (Iterator<Statement> aIter = aGraph.iterator(); aIter.hasNext(); ) {
+			if (!G2.equals(aIter.next().getContext())) {
+				aIter.remove();
+			}
+		}
+
+		assertEquals(50, aGraph.size());
+		assertEquals(ImmutableSet.of(G2), aGraph.contexts());
+		assertEquals(50, Iterables.size(aGraph));
+
+		// removing the last statement of a partition after hasNext has moved on to the next one leaves the emptied
+		// partition behind, which must not make otherwise equal graphs differ
+		Statement aStmt = TestUtils.createRandomStatement();
+		aGraph.add(aStmt.getSubject(), aStmt.getPredicate(), aStmt.getObject(), G3);
+		aGraph.add(aStmt.getSubject(), aStmt.getPredicate(), aStmt.getObject(), G1);
+
+		PartitionedGraph aExpected = new PartitionedGraph();
+		aExpected.addAll(aGraph);
+		aExpected.clear(G3);
+
+		Iterator<Statement> aIter = aGraph.iterator();
+		while (!G3.equals(aIter.next().getContext())) {
+			// skip to the only statement in G3
+		}
+		assertTrue(aIter.hasNext());
+		aIter.remove();
+
+		assertEquals(51, aGraph.size());
+		assertEquals(aExpected, aGraph);
+		assertEquals(aExpected.hashCode(), aGraph.hashCode());
+	}
+
+	@Test
+	public void testSelect() {
+		PartitionedGraph aGraph = createGraph();
+
+		Graph aDefault = aGraph.select(ImmutableDataset.builder().defaultGraphs(SESAME.NIL).build());
+		assertEquals(100, aDefault.size());
+		for (Statement aStmt : aDefault) {
+			assertEquals(null, aStmt.getContext());
+		}
+
+		Graph aSelected = aGraph.select(ImmutableDataset.builder().defaultGraphs(G1).namedGraphs(G2, G3).build());
+		assertEquals(150, aSelected.size());
+		assertEquals(150, Iterables.size(aSelected));
+		assertEquals(50, Iterables.size(Graphs.filter(aSelected, null, null, null, G2)));
+		assertEquals(0, Iterables.size(Graphs.filter(aSelected, null, null, null, (URI) null)));
+
+		Statement aStmt = Iterables.get(aGraph.context(G1), 0);
+		assertTrue(aSelected.contains(aStmt));
+		assertEquals(1, Iterables.size(Graphs.filter(aSelected, aStmt.getSubject(), aStmt.getPredicate(), null)));
+		assertFalse(aDefault.contains(aStmt));
+
+		// the view is live
+		aGraph.clear(G2);
+		assertEquals(100, aSelected.size());
+
+		assertEquals(aGraph.size(), aGraph.select(ImmutableDataset.builder().build()).size());
+
+		try {
+			aSelected.remove(aStmt);
+			assertTrue("Dataset views should be read-only", false);
+		}
+		catch (UnsupportedOperationException e) {
+			// expected
+		}
+	}
+}
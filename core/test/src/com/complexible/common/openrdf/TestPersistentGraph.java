@@ -0,0 +1,170 @@
+/*
+ * Copyright (c) 2009-2014 Clark & Parsia, LLC. <http://www.clarkparsia.com>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.complexible.common.openrdf;
+
+import java.util.Iterator;
+import java.util.List;
+import java.util.Random;
+
+import com.complexible.common.openrdf.model.ContextAwareStatement;
+import com.complexible.common.openrdf.model.Graphs;
+import com.complexible.common.openrdf.model.PersistentGraph;
+import com.complexible.common.openrdf.model.SetGraph;
+import com.google.common.collect.Lists;
+import com.google.common.collect.Sets;
+import org.junit.Test;
+import org.openrdf.model.Graph;
+import org.openrdf.model.Literal;
+import org.openrdf.model.Resource;
+import org.openrdf.model.Statement;
+import org.openrdf.model.URI;
+import org.openrdf.model.impl.ValueFactoryImpl;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * <p>Tests for {@link PersistentGraph}</p>
+ *
+ * @author  Michael Grove
+ * @since   2.0.2
+ * @version 2.0.2
+ */
+public class TestPersistentGraph {
+
+	@Test
+	public void testSnapshotsAreIndependent() {
+		Graph aInput = TestUtils.createRandomGraph(100);
+		PersistentGraph aGraph = new PersistentGraph(aInput);
+
+		PersistentGraph aSnapshot = aGraph.snapshot();
+		assertEquals(aGraph, aSnapshot);
+
+		Statement aStmt = TestUtils.createRandomStatement();
+		assertTrue(aSnapshot.add(aStmt));
+		assertFalse(aGraph.contains(aStmt));
+
+		Statement aFirst = aInput.iterator().next();
+		assertTrue(aGraph.remove(aFirst));
+		assertTrue(aSnapshot.contains(aFirst));
+
+		assertEquals(99, aGraph.size());
+		assertEquals(101, aSnapshot.size());
+		assertEquals(Sets.newHashSet(aInput), Sets.newHashSet(aSnapshot.minus(aStmt)));
+	}
+
+	@Test
+	public void testPlusMinus() {
+		PersistentGraph aGraph = new PersistentGraph();
+		Statement aStmt = TestUtils.createRandomStatement();
+
+		PersistentGraph aNext = aGraph.plus(aStmt);
+
+		assertTrue(aGraph.isEmpty());
+		assertEquals(1, aNext.size());
+		assertTrue(aNext.minus(aStmt).isEmpty());
+		assertEquals(1, aNext.size());
+
+		Graph aInput = TestUtils.createRandomGraph(20);
+		assertEquals(Sets.newHashSet(aInput), Sets.newHashSet(aGraph.plus(aInput)));
+		assertTrue(aGraph.plus(aInput).minus(aInput).isEmpty());
+	}
+
+	@Test
+	public void testSameAsSetGraph() {
+		final Random aRandom = new Random(7);
+
+		List<Resource> aValues = Lists.newArrayList();
+		for (int i = 0; i < 10; i++) {
+			aValues.add(ValueFactoryImpl.getInstance().createURI("urn:" + i));
+		}
+
+		Graph aExpected = new SetGraph();
+		PersistentGraph aGraph = new PersistentGraph();
+		List<PersistentGraph> aVersions = Lists.newArrayList();
+		List<Integer> aSizes = Lists.newArrayList();
+
+		for (int i = 0; i < 20000; i++) {
+			// statements which differ only by context have the same hash code, so this exercises hash collisions too
+			Statement aStmt = new ContextAwareStatement(aValues.get(aRandom.nextInt(aValues.size())),
+			                                            (URI) aValues.get(aRandom.nextInt(3)),
+			                                            aValues.get(aRandom.nextInt(aValues.size())),
+			                                            aRandom.nextBoolean() ? null : aValues.get(aRandom.nextInt(4)));
+
+			if (aRandom.nextInt(3) == 0) {
+				assertEquals(aExpected.remove(aStmt), aGraph.remove(aStmt));
+			}
+			else {
+				assertEquals(aExpected.add(aStmt), aGraph.add(aStmt));
+			}
+
+			assertEquals(aExpected.size(), aGraph.size());
+
+			if (i % 1000 == 0) {
+				aVersions.add(aGraph.snapshot());
+				aSizes.add(aGraph.size());
+			}
+		}
+
+		assertEquals(Sets.newHashSet(aExpected), Sets.newHashSet(aGraph));
+		assertEquals(aExpected.size(), Sets.newHashSet(aGraph).size());
+
+		for (Statement aStmt : aExpected) {
+			assertTrue(aGraph.contains(aStmt));
+		}
+
+		// old versions are untouched by later changes
+		for (int i = 0; i < aVersions.size(); i++) {
+			assertEquals(aSizes.get(i).intValue(), Sets.newHashSet(aVersions.get(i)).size());
+		}
+	}
+
+	@Test
+	public void testIteratorRemove() {
+		Graph aInput = TestUtils.createRandomGraph(50);
+		PersistentGraph aGraph = new PersistentGraph(aInput);
+
+		int aCount = 0;
+		Iterator<Statement> aIter = aGraph.iterator();
+		while (aIter.hasNext()) {
+			Statement aStmt = aIter.next();
+
+			if (aCount++ % 2 == 0) {
+				aIter.remove();
+				assertFalse(aGraph.contains(aStmt));
+			}
+		}
+
+		assertEquals(50, aCount);
+		assertEquals(25, aGraph.size());
+	}
+
+	@Test
+	public void testExtend() {
+		URI s = ValueFactoryImpl.getInstance().createURI("urn:s");
+		URI p = ValueFactoryImpl.getInstance().createURI("urn:p");
+		Literal o = ValueFactoryImpl.getInstance().createLiteral("o");
+
+		PersistentGraph aGraph = new PersistentGraph();
+		aGraph.add(s, p, o);
+
+		PersistentGraph aEdited = aGraph.minus(new ContextAwareStatement(s, p, o, null));
+
+		assertEquals(o, Graphs.extend(aGraph).getLiteral(s, p).get());
+		assertFalse(Graphs.extend(aEdited).getLiteral(s, p).isPresent());
+	}
+}
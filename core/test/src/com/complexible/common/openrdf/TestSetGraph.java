@@ -16,10 +16,21 @@
 package com.complexible.common.openrdf;
 
 import com.complexible.common.openrdf.model.ContextAwareValueFactory;
+import com.complexible.common.openrdf.model.EncodedGraph;
 import com.complexible.common.openrdf.model.Graphs;
 import com.complexible.common.openrdf.model.SetGraph;
+import com.google.common.collect.Lists;
+import com.google.common.collect.Sets;
 import org.junit.Test;
 import org.openrdf.model.Statement;
+import org.openrdf.model.URI;
+import org.openrdf.model.impl.StatementImpl;
+import org.openrdf.model.impl.ValueFactoryImpl;
+
+import java.util.Iterator;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
 
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertFalse;
@@ -61,4 +72,153 @@ public class TestSetGraph {
 	public void testValueFactory() {
 		assertTrue(new SetGraph().getValueFactory() instanceof ContextAwareValueFactory);
 	}
+
+	@Test
+	public void testCompact() {
+		assertSameAsLinkedHashSet(SetGraph.compact(true), true);
+		assertSameAsLinkedHashSet(SetGraph.compact(false), false);
+	}
+
+	@Test
+	public void testCompactContexts() {
+		SetGraph aGraph = SetGraph.compact(true);
+		Statement aStmt = TestUtils.createRandomStatement();
+		URI aContext = ValueFactoryImpl.getInstance().createURI("urn:context");
+
+		assertTrue(aGraph.add(aStmt.getSubject(), aStmt.getPredicate(), aStmt.getObject()));
+		assertTrue(aGraph.add(aStmt.getSubject(), aStmt.getPredicate(), aStmt.getObject(), aContext));
+		assertFalse(aGraph.add(aStmt.getSubject(), aStmt.getPredicate(), aStmt.getObject(), aContext));
+		assertEquals(2, aGraph.size());
+
+		SetGraph aOther = new SetGraph();
+		aOther.addAll(aGraph);
+		assertEquals(aOther, aGraph);
+		assertEquals(aOther.hashCode(), aGraph.hashCode());
+	}
+
+	@Test
+	public void testFingerprint() {
+		List<Statement> aStatements = Lists.newArrayList(TestUtils.createRandomGraph(200));
+
+		SetGraph aGraph = new SetGraph();
+		aGraph.addAll(aStatements);
+
+		SetGraph aReversed = SetGraph.compact(false);
+		aReversed.addAll(Lists.reverse(aStatements));
+
+		// independent of the order and the kind of set the statements are kept in
+		assertEquals(aGraph.fingerprint(), aReversed.fingerprint());
+		assertEquals(aGraph, aReversed);
+		assertEquals(aGraph.hashCode(), aReversed.hashCode());
+		assertEquals(Sets.newHashSet(aStatements).hashCode(), aGraph.hashCode());
+
+		// computed rather than kept up to date for other graphs
+		assertEquals(aGraph.fingerprint(), Graphs.fingerprint(new EncodedGraph(aStatements)));
+		assertEquals(aGraph.fingerprint(), Graphs.fingerprint(Graphs.immutable(aGraph)));
+
+		// adding and then removing a statement, however it is removed, restores the fingerprint
+		Statement aStmt = TestUtils.createRandomStatement();
+		assertTrue(aReversed.add(aStmt));
+		assertFalse(aGraph.fingerprint().equals(aReversed.fingerprint()));
+		assertFalse(aGraph.equals(aReversed));
+		assertFalse(aReversed.add(aStmt));
+
+		assertTrue(aReversed.remove(aStmt));
+		assertEquals(aGraph.fingerprint(), aReversed.fingerprint());
+		assertFalse(aReversed.remove(aStmt));
+		assertEquals(aGraph.fingerprint(), aReversed.fingerprint());
+
+		aReversed.add(aStmt);
+		for (Iterator<Statement> aIter = aReversed.iterator(); aIter.hasNext(); ) {
+			if (aIter.next().equals(aStmt)) {
+				aIter.remove();
+			}
+		}
+		assertEquals(aGraph.fingerprint(), aReversed.fingerprint());
+		assertEquals(aGraph.hashCode(), aReversed.hashCode());
+
+		aReversed.removeAll(aStatements.subList(0, 50));
+		aGraph.retainAll(aStatements.subList(50, aStatements.size()));
+		assertEquals(aGraph.fingerprint(), aReversed.fingerprint());
+		assertEquals(aGraph, aReversed);
+
+		aGraph.clear();
+		assertEquals(new SetGraph().fingerprint(), aGraph.fingerprint());
+		assertEquals(0, aGraph.hashCode());
+	}
+
+	@Test
+	public void testFingerprintContexts() {
+		Statement aStmt = TestUtils.createRandomStatement();
+		URI aContext = ValueFactoryImpl.getInstance().createURI("urn:context");
+
+		SetGraph aGraph = new SetGraph();
+		aGraph.add(aStmt.getSubject(), aStmt.getPredicate(), aStmt.getObject());
+
+		SetGraph aOther = new SetGraph();
+		aOther.add(aStmt.getSubject(), aStmt.getPredicate(), aStmt.getObject(), aContext);
+
+		// the statement hash codes ignore the context, the fingerprint does not
+		assertEquals(aGraph.hashCode(), aOther.hashCode());
+		assertFalse(aGraph.fingerprint().equals(aOther.fingerprint()));
+		assertFalse(aGraph.equals(aOther));
+
+		// a statement whose equality ignores the context only removes the statement in its own context
+		aOther.add(aStmt.getSubject(), aStmt.getPredicate(), aStmt.getObject());
+		assertTrue(aOther.remove(new StatementImpl(aStmt.getSubject(), aStmt.getPredicate(), aStmt.getObject())));
+		assertEquals(1, aOther.size());
+		assertEquals(aContext, aOther.iterator().next().getContext());
+
+		aGraph.clear();
+		aGraph.add(aStmt.getSubject(), aStmt.getPredicate(), aStmt.getObject(), aContext);
+		assertEquals(aGraph.fingerprint(), aOther.fingerprint());
+		assertEquals(aGraph, aOther);
+	}
+
+	/**
+	 * Apply the same random additions and removals, directly and through the iterator, to the graph and a
+	 * LinkedHashSet and check they always agree
+	 */
+	private static void assertSameAsLinkedHashSet(final SetGraph theGraph, final boolean theOrdered) {
+		Random aRandom = new Random(42);
+		List<Statement> aStatements = Lists.newArrayList(TestUtils.createRandomGraph(500));
+		Set<Statement> aExpected = Sets.newLinkedHashSet();
+
+		for (int aRound = 0; aRound < 5; aRound++) {
+			for (int i = 0; i < 2000; i++) {
+				Statement aStmt = aStatements.get(aRandom.nextInt(aStatements.size()));
+
+				if (aRandom.nextInt(3) == 0) {
+					assertEquals(aExpected.remove(aStmt), theGraph.remove(aStmt));
+				}
+				else {
+					assertEquals(aExpected.add(aStmt), theGraph.add(aStmt));
+				}
+			}
+
+			for (Iterator<Statement> aIter = theGraph.iterator(); aIter.hasNext(); ) {
+				Statement aStmt = aIter.next();
+				if (aRandom.nextInt(4) == 0) {
+					aIter.remove();
+					aExpected.remove(aStmt);
+				}
+			}
+
+			assertEquals(aExpected.size(), theGraph.size());
+			assertEquals(aExpected, Sets.newHashSet(theGraph));
+			assertEquals(aExpected.hashCode(), theGraph.hashCode());
+
+			for (Statement aStmt : aStatements) {
+				assertEquals(aExpected.contains(aStmt), theGraph.contains(aStmt));
+			}
+
+			if (theOrdered) {
+				assertEquals(Lists.newArrayList(aExpected), Lists.newArrayList(theGraph));
+			}
+		}
+
+		theGraph.clear();
+		assertEquals(0, theGraph.size());
+		assertFalse(theGraph.iterator().hasNext());
+	}
 }
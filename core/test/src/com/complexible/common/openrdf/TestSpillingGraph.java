@@ -0,0 +1,250 @@
+/*
+ * Copyright (c) 2009-2014 Clark & Parsia, LLC. <http://www.clarkparsia.com>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.complexible.common.openrdf;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Set;
+
+import com.complexible.common.openrdf.model.GraphIO;
+import com.complexible.common.openrdf.model.Graphs;
+import com.complexible.common.openrdf.model.SpillingGraph;
+import com.google.common.base.Charsets;
+import com.google.common.collect.Lists;
+import com.google.common.collect.Maps;
+import com.google.common.collect.Sets;
+import com.google.common.io.Files;
+import org.junit.After;
+import org.junit.Assume;
+import org.junit.Before;
+import org.junit.Test;
+import org.openrdf.model.Graph;
+import org.openrdf.model.Statement;
+import org.openrdf.model.URI;
+import org.openrdf.model.ValueFactory;
+import org.openrdf.model.impl.ValueFactoryImpl;
+import org.openrdf.model.util.ModelUtil;
+import org.openrdf.query.impl.GraphQueryResultImpl;
+import org.openrdf.rio.RDFFormat;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * <p>Tests for {@link SpillingGraph}</p>
+ *
+ * @author  Michael Grove
+ * @since   2.0.2
+ * @version 2.0.2
+ */
+public class TestSpillingGraph {
+	private static final ValueFactory FACTORY = ValueFactoryImpl.getInstance();
+
+	/**
+	 * Small enough that a few thousand statements spill several runs
+	 */
+	private static final long BUDGET = 16 * 1024;
+
+	private File mDir;
+
+	@Before
+	public void createDir() {
+		mDir = Files.createTempDir();
+	}
+
+	@After
+	public void deleteDir() {
+		for (File aFile : mDir.listFiles()) {
+			aFile.delete();
+		}
+		mDir.delete();
+	}
+
+	@Test
+	public void testSetSemantics() {
+		List<Statement> aStatements = Lists.newArrayList(TestUtils.createRandomGraph(3000));
+
+		SpillingGraph aGraph = new SpillingGraph(BUDGET, mDir);
+		try {
+			assertTrue(aGraph.addAll(aStatements));
+			assertTrue(aGraph.isSpilled());
+
+			// duplicates are found whether they are in memory or on disk
+			assertFalse(aGraph.addAll(aStatements));
+			assertEquals(aStatements.size(), aGraph.size());
+
+			for (Statement aStmt : aStatements) {
+				assertTrue(aGraph.contains(aStmt));
+			}
+			assertFalse(aGraph.contains(TestUtils.createRandomStatement()));
+
+			// contexts are part of the statement
+			Statement aStmt = aStatements.get(0);
+			URI aContext = FACTORY.createURI("urn:context");
+			assertFalse(aGraph.contains(FACTORY.createStatement(aStmt.getSubject(), aStmt.getPredicate(), aStmt.getObject(), aContext)));
+			assertTrue(aGraph.add(aStmt.getSubject(), aStmt.getPredicate(), aStmt.getObject(), aContext));
+			assertEquals(aStatements.size() + 1, aGraph.size());
+			assertTrue(aGraph.remove(FACTORY.createStatement(aStmt.getSubject(), aStmt.getPredicate(), aStmt.getObject(), aContext)));
+
+			// removing from the runs, and adding back
+			for (Statement aRemoved : aStatements.subList(0, 1000)) {
+				assertTrue(aGraph.remove(aRemoved));
+				assertFalse(aGraph.remove(aRemoved));
+				assertFalse(aGraph.contains(aRemoved));
+			}
+			assertEquals(2000, aGraph.size());
+			assertTrue(aGraph.add(aStatements.get(0)));
+			assertTrue(aGraph.contains(aStatements.get(0)));
+
+			Set<Statement> aExpected = Sets.newHashSet(aStatements.subList(1000, 3000));
+			aExpected.add(aStatements.get(0));
+
+			assertEquals(aExpected, Sets.newHashSet(aGraph));
+			assertEquals(aExpected.size(), aGraph.size());
+
+			// removal through the iterator, from the runs and from memory
+			for (Iterator<Statement> aIter = aGraph.iterator(); aIter.hasNext(); ) {
+				if (!aIter.next().equals(aStatements.get(0))) {
+					aIter.remove();
+				}
+			}
+
+			assertEquals(1, aGraph.size());
+			assertEquals(Sets.newHashSet(aStatements.get(0)), Sets.newHashSet(aGraph));
+
+			aGraph.clear();
+			assertEquals(0, aGraph.size());
+			assertFalse(aGraph.contains(aStatements.get(0)));
+			assertFalse(aGraph.iterator().hasNext());
+		}
+		finally {
+			aGraph.close();
+		}
+	}
+
+	/**
+	 * Iterators abandoned part way, as Graphs.getFirst and friends do, must not hold on to file handles
+	 */
+	@Test
+	public void testAbandonedIterators() {
+		File aDescriptors = new File("/proc/self/fd");
+		Assume.assumeTrue(aDescriptors.isDirectory());
+
+		SpillingGraph aGraph = new SpillingGraph(BUDGET, mDir);
+		try {
+			aGraph.addAll(TestUtils.createRandomGraph(3000));
+			assertTrue(aGraph.isSpilled());
+
+			// open the readers of the runs before counting
+			aGraph.iterator().next();
+			int aOpen = aDescriptors.list().length;
+
+			for (int i = 0; i < 2000; i++) {
+				aGraph.iterator().next();
+			}
+
+			assertTrue(aDescriptors.list().length <= aOpen + 10);
+		}
+		finally {
+			aGraph.close();
+		}
+	}
+
+	/**
+	 * Iterating streams the runs and the statements in memory, it does not write them out again
+	 */
+	@Test
+	public void testIterationDoesNotRewrite() {
+		SpillingGraph aGraph = new SpillingGraph(BUDGET, mDir);
+		try {
+			Set<Statement> aExpected = Sets.newHashSet(TestUtils.createRandomGraph(3000));
+			aGraph.addAll(aExpected);
+			assertTrue(aGraph.isSpilled());
+
+			File aSpillDir = mDir.listFiles()[0];
+
+			for (int i = 0; i < 5; i++) {
+				Statement aStmt = TestUtils.createRandomStatement();
+				aExpected.add(aStmt);
+				aGraph.add(aStmt);
+
+				Statement aRemoved = aExpected.iterator().next();
+				aExpected.remove(aRemoved);
+				assertTrue(aGraph.remove(aRemoved));
+
+				Set<String> aRuns = Sets.newHashSet(aSpillDir.list());
+
+				assertEquals(aExpected, Sets.newHashSet(aGraph));
+				assertEquals(aRuns, Sets.newHashSet(aSpillDir.list()));
+			}
+		}
+		finally {
+			aGraph.close();
+		}
+	}
+
+	@Test
+	public void testInMemory() {
+		Graph aSource = TestUtils.createRandomGraph(100);
+
+		SpillingGraph aGraph = new SpillingGraph();
+		aGraph.addAll(aSource);
+
+		assertFalse(aGraph.isSpilled());
+		assertTrue(ModelUtil.equals(aSource, aGraph));
+
+		aGraph.close();
+	}
+
+	@Test
+	public void testAsTarget() throws Exception {
+		Graph aSource = TestUtils.createRandomGraph(2000);
+		aSource.add(FACTORY.createURI("urn:s"), FACTORY.createURI("urn:p"), FACTORY.createLiteral("chat", "fr"));
+		aSource.add(FACTORY.createURI("urn:s"), FACTORY.createURI("urn:p"), FACTORY.createLiteral("1", FACTORY.createURI("urn:type")));
+
+		File aFile = new File(mDir, "data.nt");
+		Writer aWriter = new OutputStreamWriter(new FileOutputStream(aFile), Charsets.UTF_8);
+		try {
+			GraphIO.writeGraph(aSource, aWriter, RDFFormat.NTRIPLES);
+		}
+		finally {
+			aWriter.close();
+		}
+
+		SpillingGraph aRead = GraphIO.readGraph(aFile, new SpillingGraph(BUDGET, mDir));
+		try {
+			assertTrue(aRead.isSpilled());
+			assertTrue(ModelUtil.equals(aSource, aRead));
+		}
+		finally {
+			aRead.close();
+		}
+
+		SpillingGraph aResult = Graphs.newGraph(new GraphQueryResultImpl(Maps.<String, String>newHashMap(), aSource), new SpillingGraph(BUDGET, mDir));
+		try {
+			assertEquals(aSource.size(), aResult.size());
+			assertTrue(ModelUtil.equals(aSource, aResult));
+		}
+		finally {
+			aResult.close();
+		}
+	}
+}
@@ -0,0 +1,148 @@
+/*
+ * Copyright (c) 2009-2014 Clark & Parsia, LLC. <http://www.clarkparsia.com>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.complexible.common.openrdf;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import com.complexible.common.openrdf.model.EncodedGraph;
+import com.complexible.common.openrdf.model.Graphs;
+import com.complexible.common.openrdf.model.ImmutableGraph;
+import com.complexible.common.openrdf.model.SetGraph;
+import com.complexible.common.openrdf.model.SplittableGraph;
+import com.google.common.base.Predicate;
+import com.google.common.collect.Lists;
+import com.google.common.collect.Sets;
+import org.junit.Test;
+import org.openrdf.model.Graph;
+import org.openrdf.model.Literal;
+import org.openrdf.model.Statement;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * <p>Tests for {@link SplittableGraph} and {@link Graphs#partition}</p>
+ *
+ * @author  Michael Grove
+ * @since   2.0.2
+ * @version 2.0.2
+ */
+public class TestSplittableGraph {
+
+	@Test
+	public void testSplitEncodedGraph() {
+		EncodedGraph aGraph = new EncodedGraph();
+		aGraph.addAll(TestUtils.createRandomGraph(1003));
+
+		assertSplit(aGraph, 1);
+		assertSplit(aGraph, 4);
+		assertSplit(aGraph, 7);
+	}
+
+	@Test
+	public void testSplitImmutableGraph() {
+		Graph aGraph = ImmutableGraph.copyOf(TestUtils.createRandomGraph(1003));
+
+		assertTrue(aGraph instanceof SplittableGraph);
+
+		assertSplit(aGraph, 1);
+		assertSplit(aGraph, 4);
+		assertSplit(aGraph, 7);
+	}
+
+	@Test
+	public void testPartitionOtherGraphs() {
+		Graph aGraph = TestUtils.createRandomGraph(500);
+
+		assertSplit(aGraph, 3);
+
+		// the parts keep the iteration order of the graph
+		List<Statement> aOrder = Lists.newArrayList();
+		for (Collection<Statement> aPart : Graphs.partition(aGraph, 3)) {
+			aOrder.addAll(aPart);
+		}
+		assertEquals(Lists.newArrayList(aGraph), aOrder);
+	}
+
+	@Test
+	public void testMorePartsThanStatements() {
+		EncodedGraph aGraph = new EncodedGraph();
+		aGraph.addAll(TestUtils.createRandomGraph(3));
+
+		assertEquals(3, Graphs.partition(aGraph, 10).size());
+		assertEquals(1, Graphs.partition(new SetGraph(), 10).size());
+		assertTrue(Graphs.partition(new SetGraph(), 10).get(0).isEmpty());
+	}
+
+	@Test(expected = UnsupportedOperationException.class)
+	public void testPartsAreReadOnly() {
+		Graph aGraph = ImmutableGraph.copyOf(TestUtils.createRandomGraph(10));
+
+		Graphs.partition(aGraph, 2).get(0).clear();
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void testInvalidParts() {
+		Graphs.partition(new EncodedGraph(), 0);
+	}
+
+	@Test
+	public void testParallelOverSplittableGraph() {
+		EncodedGraph aGraph = new EncodedGraph();
+		aGraph.addAll(TestUtils.createRandomGraph(20000));
+
+		Predicate<Statement> aLiterals = new Predicate<Statement>() {
+			@Override
+			public boolean apply(final Statement theStatement) {
+				return theStatement.getObject() instanceof Literal;
+			}
+		};
+
+		ExecutorService aExecutor = Executors.newFixedThreadPool(4);
+		try {
+			assertEquals(Sets.newHashSet(Graphs.filter(aGraph, aLiterals)),
+			             Sets.newHashSet(Graphs.parallel(aExecutor).filter(aGraph, aLiterals)));
+			assertEquals(Graphs.find(aGraph, aLiterals), Graphs.parallel(aExecutor).find(aGraph, aLiterals));
+		}
+		finally {
+			aExecutor.shutdownNow();
+		}
+	}
+
+	private static void assertSplit(final Graph theGraph, final int theParts) {
+		List<Collection<Statement>> aParts = Graphs.partition(theGraph, theParts);
+
+		assertEquals(Math.min(theParts, theGraph.size()), aParts.size());
+
+		int aMin = Integer.MAX_VALUE, aMax = 0, aTotal = 0;
+		Collection<Statement> aAll = Sets.newHashSet();
+		for (Collection<Statement> aPart : aParts) {
+			aMin = Math.min(aMin, aPart.size());
+			aMax = Math.max(aMax, aPart.size());
+			aTotal += aPart.size();
+
+			assertEquals(aPart.size(), Lists.newArrayList(aPart).size());
+			aAll.addAll(aPart);
+		}
+
+		assertTrue(aMax - aMin <= 1);
+		assertEquals(theGraph.size(), aTotal);
+		assertEquals(Sets.newHashSet(theGraph), aAll);
+	}
+}
@@ -0,0 +1,176 @@
+/*
+ * Copyright (c) 2009-2014 Clark & Parsia, LLC. <http://www.clarkparsia.com>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.complexible.common.openrdf;
+
+import java.io.StringReader;
+import java.io.StringWriter;
+import java.util.Random;
+import java.util.Set;
+
+import com.complexible.common.openrdf.model.ContextAwareStatement;
+import com.complexible.common.openrdf.model.GraphIO;
+import com.complexible.common.openrdf.model.Graphs;
+import com.complexible.common.openrdf.model.Statements;
+import com.complexible.common.openrdf.util.GraphStatistics;
+import com.complexible.common.openrdf.util.HyperLogLog;
+import com.complexible.common.openrdf.util.StatisticsCollector;
+import com.google.common.collect.Sets;
+import org.junit.Test;
+import org.openrdf.model.Graph;
+import org.openrdf.model.Resource;
+import org.openrdf.model.Statement;
+import org.openrdf.model.URI;
+import org.openrdf.model.Value;
+import org.openrdf.model.ValueFactory;
+import org.openrdf.model.impl.ValueFactoryImpl;
+import org.openrdf.rio.RDFFormat;
+import org.openrdf.rio.RDFParser;
+import org.openrdf.rio.Rio;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * <p>Tests for {@link StatisticsCollector}, {@link GraphStatistics} and {@link HyperLogLog}</p>
+ *
+ * @author  Michael Grove
+ * @since   2.0.2
+ * @version 2.0.2
+ */
+public class TestStatistics {
+	private static final ValueFactory FACTORY = ValueFactoryImpl.getInstance();
+
+	@Test
+	public void testHyperLogLog() {
+		Random aRandom = new Random(42);
+
+		HyperLogLog aSketch = new HyperLogLog();
+		HyperLogLog aOther = new HyperLogLog();
+
+		for (int i = 0; i < 100000; i++) {
+			long aHash = aRandom.nextLong();
+			aSketch.add(aHash);
+			// duplicates do not count
+			aSketch.add(aHash);
+
+			if (i % 2 == 0) {
+				aOther.add(aHash);
+			}
+		}
+
+		assertWithin(100000, aSketch.cardinality(), 0.05);
+		assertWithin(50000, aOther.cardinality(), 0.05);
+
+		aOther.merge(aSketch);
+		assertWithin(100000, aOther.cardinality(), 0.05);
+
+		HyperLogLog aSmall = new HyperLogLog();
+		for (int i = 0; i < 100; i++) {
+			aSmall.add(aRandom.nextLong());
+		}
+		assertWithin(100, aSmall.cardinality(), 0.03);
+
+		aSmall.clear();
+		assertEquals(0, aSmall.cardinality());
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void testMergeDifferentPrecisions() {
+		new HyperLogLog(10).merge(new HyperLogLog(12));
+	}
+
+	@Test
+	public void testGraphStatistics() {
+		Graph aGraph = TestUtils.createRandomGraph(5000);
+		URI aContext = FACTORY.createURI("urn:context");
+		for (Statement aStmt : TestUtils.createRandomGraph(500)) {
+			aGraph.add(new ContextAwareStatement(aStmt.getSubject(), aStmt.getPredicate(), aStmt.getObject(), aContext));
+		}
+
+		GraphStatistics aStats = GraphStatistics.of(aGraph);
+
+		assertEquals(aGraph.size(), aStats.size());
+		assertWithin(Sets.newHashSet(Graphs.collect(aGraph, Statements.subjectOptional())).size(),
+		             aStats.getDistinctSubjects(), 0.05);
+
+		Set<URI> aPredicates = Sets.newHashSet();
+		for (Statement aStmt : aGraph) {
+			aPredicates.add(aStmt.getPredicate());
+		}
+		assertEquals(aPredicates, aStats.getPredicates().keySet());
+
+		for (URI aPred : aPredicates) {
+			Set<Resource> aSubjects = Sets.newHashSet();
+			Set<Value> aObjects = Sets.newHashSet();
+			int aCount = 0;
+			for (Statement aStmt : Graphs.filter((Iterable<Statement>) aGraph, null, aPred, null)) {
+				aSubjects.add(aStmt.getSubject());
+				aObjects.add(aStmt.getObject());
+				aCount++;
+			}
+
+			GraphStatistics.PredicateStatistics aPredStats = aStats.getPredicates().get(aPred);
+			assertEquals(aCount, aPredStats.getCount());
+			assertWithin(aSubjects.size(), aPredStats.getDistinctSubjects(), 0.05);
+			assertWithin(aObjects.size(), aPredStats.getDistinctObjects(), 0.05);
+		}
+
+		long aNamed = 0;
+		for (Statement aStmt : aGraph) {
+			if (aContext.equals(aStmt.getContext())) {
+				aNamed++;
+			}
+		}
+		assertEquals(Long.valueOf(aNamed), aStats.getContexts().get(aContext));
+		assertEquals(Long.valueOf(aGraph.size() - aNamed), aStats.getContexts().get(null));
+	}
+
+	@Test
+	public void testCollectorAsHandler() throws Exception {
+		Graph aGraph = TestUtils.createRandomGraph(1000);
+
+		StringWriter aWriter = new StringWriter();
+		GraphIO.writeGraph(aGraph, aWriter, RDFFormat.NTRIPLES);
+
+		StatisticsCollector aCollector = new StatisticsCollector();
+		RDFParser aParser = Rio.createParser(RDFFormat.NTRIPLES);
+		aParser.setRDFHandler(aCollector);
+		aParser.parse(new StringReader(aWriter.toString()), "http://example.org");
+
+		assertEquals(aGraph.size(), aCollector.getStatistics().size());
+
+		// splitting the stream and merging gives the same counts
+		StatisticsCollector aFirst = new StatisticsCollector();
+		StatisticsCollector aSecond = new StatisticsCollector();
+		int i = 0;
+		for (Statement aStmt : aGraph) {
+			(i++ % 2 == 0 ? aFirst : aSecond).handleStatement(aStmt);
+		}
+		aFirst.merge(aSecond);
+
+		GraphStatistics aMerged = aFirst.getStatistics();
+		GraphStatistics aWhole = GraphStatistics.of(aGraph);
+		assertEquals(aWhole.size(), aMerged.size());
+		assertEquals(aWhole.getDistinctSubjects(), aMerged.getDistinctSubjects());
+		assertEquals(aWhole.getDistinctObjects(), aMerged.getDistinctObjects());
+		assertEquals(aWhole.getContexts(), aMerged.getContexts());
+	}
+
+	private static void assertWithin(final long theExpected, final long theActual, final double theError) {
+		assertTrue("expected " + theExpected + " but was " + theActual,
+		           Math.abs(theExpected - theActual) <= Math.max(1, theExpected * theError));
+	}
+}
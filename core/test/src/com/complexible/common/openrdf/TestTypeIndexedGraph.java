@@ -0,0 +1,145 @@
+/*
+ * Copyright (c) 2009-2014 Clark & Parsia, LLC. <http://www.clarkparsia.com>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.complexible.common.openrdf;
+
+import java.util.Iterator;
+
+import com.complexible.common.openrdf.model.ExtGraph;
+import com.complexible.common.openrdf.model.Graphs;
+import com.complexible.common.openrdf.model.TypeIndexedGraph;
+import com.google.common.collect.ImmutableSet;
+import com.google.common.collect.Sets;
+import org.junit.Test;
+import org.openrdf.model.Graph;
+import org.openrdf.model.Resource;
+import org.openrdf.model.Statement;
+import org.openrdf.model.URI;
+import org.openrdf.model.ValueFactory;
+import org.openrdf.model.impl.ValueFactoryImpl;
+import org.openrdf.model.vocabulary.RDF;
+import org.openrdf.model.vocabulary.RDFS;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * <p>Tests for {@link TypeIndexedGraph}</p>
+ *
+ * @author  Michael Grove
+ * @since   2.0.2
+ * @version 2.0.2
+ */
+public class TestTypeIndexedGraph {
+	private static final ValueFactory FACTORY = ValueFactoryImpl.getInstance();
+
+	private static final URI PERSON = FACTORY.createURI("urn:Person");
+
+	private static final URI STUDENT = FACTORY.createURI("urn:Student");
+
+	private static final URI PHD_STUDENT = FACTORY.createURI("urn:PhDStudent");
+
+	private static final URI ALICE = FACTORY.createURI("urn:alice");
+
+	private static final URI BOB = FACTORY.createURI("urn:bob");
+
+	private static final URI CAROL = FACTORY.createURI("urn:carol");
+
+	@Test
+	public void testTypeLookups() {
+		TypeIndexedGraph aGraph = new TypeIndexedGraph();
+		aGraph.add(ALICE, RDF.TYPE, PERSON);
+		aGraph.add(BOB, RDF.TYPE, STUDENT);
+		aGraph.add(BOB, RDF.TYPE, PERSON);
+		aGraph.addAll(TestUtils.createRandomGraph(50));
+
+		assertEquals(ImmutableSet.of(ALICE, BOB), Sets.newHashSet(aGraph.getInstancesOf(PERSON)));
+		assertEquals(ImmutableSet.of(BOB), Sets.newHashSet(aGraph.getInstancesOf(STUDENT)));
+		assertEquals(ImmutableSet.of(PERSON, STUDENT), Sets.newHashSet(aGraph.getTypes(BOB)));
+		assertEquals(ImmutableSet.of(ALICE, BOB), Sets.newHashSet(aGraph.getIndividuals()));
+		assertTrue(aGraph.isInstanceOf(BOB, STUDENT));
+		assertFalse(aGraph.isInstanceOf(ALICE, STUDENT));
+		assertFalse(aGraph.getInstancesOf(PHD_STUDENT).iterator().hasNext());
+	}
+
+	@Test
+	public void testMatchesUnindexedGraph() {
+		Graph aBase = TestUtils.createRandomGraph(200);
+		for (Statement aStmt : TestUtils.createRandomGraph(50)) {
+			aBase.add(aStmt.getSubject(), RDF.TYPE, aStmt.getObject() instanceof Resource ? (Resource) aStmt.getObject() : PERSON);
+		}
+
+		TypeIndexedGraph aIndexed = new TypeIndexedGraph(aBase);
+		ExtGraph aPlain = Graphs.extend(aBase);
+
+		assertEquals(Sets.newHashSet(aPlain.getIndividuals()), Sets.newHashSet(aIndexed.getIndividuals()));
+		for (Resource aInd : aPlain.getIndividuals()) {
+			assertEquals(Sets.newHashSet(aPlain.getTypes(aInd)), Sets.newHashSet(aIndexed.getTypes(aInd)));
+		}
+		assertEquals(Sets.newHashSet(aPlain.getInstancesOf(PERSON)), Sets.newHashSet(aIndexed.getInstancesOf(PERSON)));
+	}
+
+	@Test
+	public void testRemoval() {
+		URI aContext = FACTORY.createURI("urn:context");
+
+		TypeIndexedGraph aGraph = new TypeIndexedGraph();
+		aGraph.add(ALICE, RDF.TYPE, PERSON);
+		aGraph.add(ALICE, RDF.TYPE, PERSON, aContext);
+		aGraph.add(BOB, RDF.TYPE, PERSON);
+		aGraph.add(CAROL, RDF.TYPE, STUDENT);
+
+		// still asserted in the other context
+		aGraph.remove(FACTORY.createStatement(ALICE, RDF.TYPE, PERSON, aContext));
+		assertTrue(aGraph.isInstanceOf(ALICE, PERSON));
+
+		aGraph.removeAll(Graphs.newGraph(FACTORY.createStatement(ALICE, RDF.TYPE, PERSON)));
+		assertFalse(aGraph.isInstanceOf(ALICE, PERSON));
+		assertEquals(ImmutableSet.of(BOB, CAROL), Sets.newHashSet(aGraph.getIndividuals()));
+
+		for (Iterator<Statement> aIter = aGraph.iterator(); aIter.hasNext(); ) {
+			if (aIter.next().getSubject().equals(BOB)) {
+				aIter.remove();
+			}
+		}
+		assertFalse(aGraph.getInstancesOf(PERSON).iterator().hasNext());
+
+		aGraph.clear();
+		assertFalse(aGraph.getIndividuals().iterator().hasNext());
+		assertFalse(aGraph.isInstanceOf(CAROL, STUDENT));
+	}
+
+	@Test
+	public void testSubClassInstances() {
+		TypeIndexedGraph aGraph = new TypeIndexedGraph();
+		aGraph.add(STUDENT, RDFS.SUBCLASSOF, PERSON);
+		aGraph.add(PHD_STUDENT, RDFS.SUBCLASSOF, STUDENT);
+		// a cycle is harmless
+		aGraph.add(PERSON, RDFS.SUBCLASSOF, PHD_STUDENT);
+		aGraph.add(ALICE, RDF.TYPE, PERSON);
+		aGraph.add(BOB, RDF.TYPE, STUDENT);
+		aGraph.add(CAROL, RDF.TYPE, PHD_STUDENT);
+
+		assertEquals(ImmutableSet.of(ALICE), Sets.newHashSet(aGraph.getInstancesOf(PERSON, false)));
+		assertEquals(ImmutableSet.of(ALICE, BOB, CAROL), Sets.newHashSet(aGraph.getInstancesOf(PERSON, true)));
+		assertEquals(Sets.newHashSet(Graphs.extend(aGraph).getInstancesOf(STUDENT, true)),
+		             Sets.newHashSet(aGraph.getInstancesOf(STUDENT, true)));
+
+		aGraph.remove(FACTORY.createStatement(PHD_STUDENT, RDFS.SUBCLASSOF, STUDENT));
+		aGraph.remove(FACTORY.createStatement(PERSON, RDFS.SUBCLASSOF, PHD_STUDENT));
+		assertEquals(ImmutableSet.of(ALICE, BOB), Sets.newHashSet(aGraph.getInstancesOf(PERSON, true)));
+	}
+}
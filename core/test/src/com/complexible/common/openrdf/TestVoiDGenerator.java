@@ -0,0 +1,166 @@
+/*
+ * Copyright (c) 2009-2014 Clark & Parsia, LLC. <http://www.clarkparsia.com>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.complexible.common.openrdf;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.util.zip.GZIPOutputStream;
+
+import com.complexible.common.openrdf.model.GraphIO;
+import com.complexible.common.openrdf.model.Graphs;
+import com.complexible.common.openrdf.util.VoiDGenerator;
+import com.complexible.common.openrdf.vocabulary.VoiD;
+import com.google.common.base.Charsets;
+import com.google.common.base.Optional;
+import com.google.common.io.Files;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.openrdf.model.Graph;
+import org.openrdf.model.Literal;
+import org.openrdf.model.Resource;
+import org.openrdf.model.URI;
+import org.openrdf.model.Value;
+import org.openrdf.model.ValueFactory;
+import org.openrdf.model.impl.ValueFactoryImpl;
+import org.openrdf.model.util.GraphUtil;
+import org.openrdf.model.vocabulary.RDF;
+import org.openrdf.model.vocabulary.RDFS;
+import org.openrdf.rio.RDFFormat;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * <p>Tests for {@link VoiDGenerator}</p>
+ *
+ * @author  Michael Grove
+ * @since   2.0.2
+ * @version 2.0.2
+ */
+public class TestVoiDGenerator {
+	private static final ValueFactory FACTORY = ValueFactoryImpl.getInstance();
+
+	private static final VoiD VOID = VoiD.ontology();
+
+	private static final URI PERSON = FACTORY.createURI("urn:Person");
+
+	private static final URI DOCUMENT = FACTORY.createURI("urn:Document");
+
+	private static final URI DATASET = FACTORY.createURI("urn:dataset");
+
+	private File mDir;
+
+	@Before
+	public void createDir() {
+		mDir = Files.createTempDir();
+	}
+
+	@After
+	public void deleteDir() {
+		for (File aFile : mDir.listFiles()) {
+			aFile.delete();
+		}
+		mDir.delete();
+	}
+
+	@Test
+	public void testGenerate() throws Exception {
+		Graph aPeople = Graphs.newGraph();
+		for (int i = 0; i < 300; i++) {
+			URI aPerson = FACTORY.createURI("urn:person:" + i);
+			aPeople.add(aPerson, RDF.TYPE, PERSON);
+			aPeople.add(aPerson, RDFS.LABEL, FACTORY.createLiteral("person " + i));
+		}
+
+		Graph aDocuments = Graphs.newGraph();
+		for (int i = 0; i < 200; i++) {
+			URI aDocument = FACTORY.createURI("urn:document:" + i);
+			aDocuments.add(aDocument, RDF.TYPE, DOCUMENT);
+			aDocuments.add(aDocument, RDFS.LABEL, FACTORY.createLiteral("document " + i));
+			// some people are documented too, counted once per class
+			aDocuments.add(FACTORY.createURI("urn:person:" + i), RDF.TYPE, PERSON);
+		}
+
+		File aPeopleFile = new File(mDir, "people.ttl");
+		write(aPeople, new FileOutputStream(aPeopleFile), RDFFormat.TURTLE);
+
+		File aDocumentsFile = new File(mDir, "documents.nt.gz");
+		write(aDocuments, new GZIPOutputStream(new FileOutputStream(aDocumentsFile)), RDFFormat.NTRIPLES);
+
+		Graph aVoiD = VoiDGenerator.generate(DATASET, aPeopleFile, aDocumentsFile);
+
+		assertTrue(aVoiD.contains(FACTORY.createStatement(DATASET, RDF.TYPE, VOID.Dataset)));
+		assertEquals(1200, longValue(aVoiD, DATASET, VOID.triples));
+		assertWithin(500, longValue(aVoiD, DATASET, VOID.distinctSubjects));
+		assertEquals(2, longValue(aVoiD, DATASET, VOID.properties));
+		assertEquals(2, longValue(aVoiD, DATASET, VOID.classes));
+
+		// the distinct counts are estimates, the rest are exact
+		Resource aTypes = partition(aVoiD, VOID.propertyPartition, VOID.property, RDF.TYPE);
+		assertEquals(700, longValue(aVoiD, aTypes, VOID.triples));
+		assertWithin(500, longValue(aVoiD, aTypes, VOID.distinctSubjects));
+		assertEquals(2, longValue(aVoiD, aTypes, VOID.distinctObjects));
+
+		Resource aLabels = partition(aVoiD, VOID.propertyPartition, VOID.property, RDFS.LABEL);
+		assertEquals(500, longValue(aVoiD, aLabels, VOID.triples));
+
+		assertWithin(300, longValue(aVoiD, partition(aVoiD, VOID.classPartition, VOID._class, PERSON), VOID.entities));
+		assertWithin(200, longValue(aVoiD, partition(aVoiD, VOID.classPartition, VOID._class, DOCUMENT), VOID.entities));
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void testUnknownFormat() throws Exception {
+		File aFile = new File(mDir, "data.unknown");
+		write(Graphs.newGraph(), new FileOutputStream(aFile), RDFFormat.NTRIPLES);
+
+		VoiDGenerator.generate(DATASET, aFile);
+	}
+
+	private static void write(final Graph theGraph, final OutputStream theStream, final RDFFormat theFormat) throws IOException {
+		Writer aWriter = new OutputStreamWriter(theStream, Charsets.UTF_8);
+		try {
+			GraphIO.writeGraph(theGraph, aWriter, theFormat);
+		}
+		finally {
+			aWriter.close();
+		}
+	}
+
+	private static Resource partition(final Graph theVoiD, final URI thePartition, final URI theKey, final URI theValue) {
+		for (Value aPartition : GraphUtil.getObjects(theVoiD, DATASET, thePartition)) {
+			if (theVoiD.contains(FACTORY.createStatement((Resource) aPartition, theKey, theValue))) {
+				return (Resource) aPartition;
+			}
+		}
+
+		throw new AssertionError("No partition for " + theValue);
+	}
+
+	private static long longValue(final Graph theGraph, final Resource theSubject, final URI theProperty) {
+		Optional<Literal> aLiteral = Graphs.getLiteral(theGraph, theSubject, theProperty);
+		assertTrue(aLiteral.isPresent());
+		return aLiteral.get().longValue();
+	}
+
+	private static void assertWithin(final long theExpected, final long theActual) {
+		assertTrue("expected " + theExpected + " but was " + theActual, Math.abs(theExpected - theActual) <= theExpected * 0.03);
+	}
+}